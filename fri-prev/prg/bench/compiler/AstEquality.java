@@ -0,0 +1,93 @@
+package compiler;
+
+import java.lang.reflect.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * Structural equality of abstract syntax trees for the benchmarks.
+ *
+ * <p>
+ * Two trees are equal if their nodes are of the same classes and have equal
+ * fields, including the positions but not the ids. Fields are compared by
+ * reflection, so every field of every node (including the fields added later)
+ * is compared without listing them here. Positions are compared by their character indices only,
+ * as the trees may come from different readings of the same source file.
+ * </p>
+ *
+ * @author juliette
+ */
+public class AstEquality {
+
+	/**
+	 * Compares two abstract syntax trees.
+	 *
+	 * @param expected
+	 *            The expected tree.
+	 * @param actual
+	 *            The actual tree.
+	 * @return <code>null</code> if the trees are equal, or the description of
+	 *         the first difference found otherwise.
+	 */
+	public static String difference(Object expected, Object actual) {
+		return difference(expected, actual, "");
+	}
+
+	private static String difference(Object expected, Object actual, String path) {
+		if (expected == actual)
+			return null;
+		if ((expected == null) || (actual == null) || (expected.getClass() != actual.getClass()))
+			return path + ": " + describe(expected) + " vs. " + describe(actual);
+		Class<?> type = expected.getClass();
+		if (type.isArray()) {
+			if (Array.getLength(expected) != Array.getLength(actual))
+				return path + ": " + Array.getLength(expected) + " vs. " + Array.getLength(actual) + " elements";
+			for (int e = 0; e < Array.getLength(expected); e++) {
+				String difference = difference(Array.get(expected, e), Array.get(actual, e), path + "[" + e + "]");
+				if (difference != null)
+					return difference;
+			}
+			return null;
+		}
+		if (!type.getName().startsWith("compiler."))
+			return expected.equals(actual) ? null : path + ": " + describe(expected) + " vs. " + describe(actual);
+		if (type.isEnum())
+			return path + ": " + expected + " vs. " + actual;
+		if (expected instanceof FunDef) {
+			// Parse the bodies skipped by either parser.
+			((FunDef) expected).body();
+			((FunDef) actual).body();
+		}
+		for (Class<?> c = type; c != Object.class; c = c.getSuperclass())
+			for (Field field : c.getDeclaredFields()) {
+				// The ids of the nodes differ between any two trees.
+				if (Modifier.isStatic(field.getModifiers()) || ((c == ASTNode.class) && field.getName().equals("id")))
+					continue;
+				field.setAccessible(true);
+				try {
+					Object expectedValue = field.get(expected);
+					Object actualValue = field.get(actual);
+					if (c == Position.class) {
+						// Strip the file identifiers.
+						expectedValue = (int) (long) (Long) expectedValue;
+						actualValue = (int) (long) (Long) actualValue;
+					}
+					String difference = difference(expectedValue, actualValue,
+							path + "/" + type.getSimpleName() + "." + field.getName());
+					if (difference != null)
+						return difference;
+				} catch (IllegalAccessException ex) {
+					throw new Error(ex);
+				}
+			}
+		return null;
+	}
+
+	private static String describe(Object object) {
+		if (object instanceof Position)
+			return object.getClass().getSimpleName() + " " + ((Position) object).toString();
+		return String.valueOf(object);
+	}
+
+}
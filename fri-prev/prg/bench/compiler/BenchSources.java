@@ -0,0 +1,61 @@
+package compiler;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Large PREV programs for the benchmarks.
+ *
+ * @author juliette
+ */
+public class BenchSources {
+
+	/**
+	 * Generates a PREV program with roughly the specified number of lines.
+	 * The program passes all phases up to and including the intermediate
+	 * code generation.
+	 *
+	 * @param lines
+	 *            The number of lines.
+	 * @return The text of the program.
+	 */
+	public static String generate(int lines) {
+		StringBuilder text = new StringBuilder();
+		text.append("# generated\n");
+		text.append("(f0(1,'a'),0)\n");
+		text.append("where\n");
+		int line = 3;
+		for (int f = 0; line + 12 < lines; f++, line += 12) {
+			text.append("\tvar v" + f + ":arr[10]ptr rec{a:boolean,b:char}\n");
+			text.append("\tfun f" + f + "(n:integer,c:char):integer=\n");
+			text.append("\t(\n");
+			text.append("\t\t# a comment with \"quotes\" and 'ticks'\n");
+			text.append("\t\tif (n<=1) then s=\"one\\n\" else s=\"many\\t\" end,\n");
+			text.append("\t\twhile (n!=0): n=n-1 end,\n");
+			text.append("\t\tfor i=0,9: (v" + f + "[i]^).b=c end,\n");
+			text.append("\t\tc='\\'',\n");
+			text.append("\t\tn*(n+42)/7%3\n");
+			text.append("\t)\n");
+			text.append("\twhere var s:string var i:integer end\n");
+			text.append("\n");
+		}
+		text.append("end\n");
+		return text.toString();
+	}
+
+	/**
+	 * Writes a generated PREV program into a temporary file that is deleted
+	 * on exit.
+	 *
+	 * @param lines
+	 *            The number of lines.
+	 * @return The name of the file.
+	 */
+	public static String file(int lines) throws IOException {
+		Path path = Files.createTempFile("bench", ".prev");
+		path.toFile().deleteOnExit();
+		Files.write(path, generate(lines).getBytes("US-ASCII"));
+		return path.toString();
+	}
+
+}
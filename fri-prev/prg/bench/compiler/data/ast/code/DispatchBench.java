@@ -0,0 +1,298 @@
+package compiler.data.ast.code;
+
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+import compiler.data.frg.*;
+import compiler.phase.frames.*;
+import compiler.phase.imcode.*;
+import compiler.phase.seman.*;
+import compiler.phase.synan.*;
+
+/**
+ * A benchmark of the traversals of the abstract syntax tree.
+ *
+ * <p>
+ * Every source file named on the command line (or a large generated source
+ * file if none is named) is parsed and then traversed by each traversal:
+ * </p>
+ * <ul>
+ * <li><code>parse</code>: the syntax analysis itself, which constructs the
+ * nodes,</li>
+ * <li><code>accept</code>: a visitor that does nothing and dispatches by
+ * {@link compiler.data.ast.AST#accept(Visitor)},</li>
+ * <li><code>switch</code>: {@link compiler.data.ast.code.FullVisitor}, which
+ * does nothing and dispatches on the kind of a node,</li>
+ * <li><code>walker</code>: {@link compiler.data.ast.code.Walker} with no
+ * hooks,</li>
+ * <li><code>value</code>, <code>decl</code>, <code>typ</code>,
+ * <code>mem</code>, <code>frames</code> and <code>imcode</code>: the
+ * evaluators of the semantic analysis, the frames and the intermediate
+ * code.</li>
+ * </ul>
+ *
+ * <p>
+ * All traversals are first warmed up together by the specified number of
+ * rounds, so that each one is measured with the profile it has in a real
+ * compilation rather than right after its own warm-up. Then the traversals
+ * are measured in the specified number of rounds, one run of each traversal
+ * per round, and the median and the best time of each traversal are
+ * reported. The evaluators are measured one at a time, each after the
+ * evaluators it depends on.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.data.ast.code.DispatchBench [--lines=N] [--warmup=N] [--runs=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class DispatchBench {
+
+	/** The traversals measured. */
+	private static final String[] traversals = { "parse", "accept", "switch", "walker", "value", "decl", "typ",
+			"mem", "frames", "imcode" };
+
+	/** The evaluators among the traversals, in the order they depend on each other. */
+	private static final String[] evaluators = { "value", "decl", "typ", "mem", "frames", "imcode" };
+
+	public static void main(String[] args) throws Exception {
+		int lines = 100000;
+		int warmup = 20;
+		int runs = 20;
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--warmup="))
+				warmup = Integer.parseInt(arg.replaceFirst("--warmup=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else
+				fileNames.add(arg);
+		}
+		if (fileNames.isEmpty())
+			fileNames.add(BenchSources.file(lines));
+
+		for (String fileName : fileNames) {
+			Program program = parse(fileName);
+			for (int round = 0; round < warmup; round++)
+				for (String traversal : traversals)
+					measure(fileName, program, traversal);
+			long[][] times = new long[traversals.length][runs];
+			for (int round = 0; round < runs; round++)
+				for (int t = 0; t < traversals.length; t++)
+					times[t][round] = measure(fileName, program, traversals[t]);
+
+			StringBuilder report = new StringBuilder(fileName + ":");
+			for (int t = 0; t < traversals.length; t++) {
+				Arrays.sort(times[t]);
+				report.append(String.format(" %s %.2f ms (best %.2f)", traversals[t], times[t][runs / 2] / 1e6,
+						times[t][0] / 1e6));
+			}
+			System.out.println(report);
+		}
+	}
+
+	private static Program parse(String fileName) {
+		SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+		Program program = synAn.synAn();
+		synAn.close();
+		return program;
+	}
+
+	/**
+	 * Runs a traversal once.
+	 *
+	 * @return The time of the traversal in nanoseconds.
+	 */
+	private static long measure(String fileName, Program program, String traversal) {
+		if (traversal.equals("parse")) {
+			long time = System.nanoTime();
+			parse(fileName);
+			return System.nanoTime() - time;
+		}
+		int e = Arrays.asList(evaluators).indexOf(traversal);
+		if (e == -1) {
+			long time = System.nanoTime();
+			traverse(program, traversal);
+			return System.nanoTime() - time;
+		}
+		// The attributes are computed once only, so the evaluators the
+		// measured one depends on are rerun.
+		Attributes attrs = new Attributes();
+		for (int prev = 0; prev < e; prev++)
+			evaluate(program, attrs, evaluators[prev]);
+		long time = System.nanoTime();
+		evaluate(program, attrs, evaluators[e]);
+		return System.nanoTime() - time;
+	}
+
+	private static void traverse(Program program, String traversal) {
+		switch (traversal) {
+		case "accept":
+			program.accept(new AcceptingVisitor());
+			break;
+		case "switch":
+			(new FullVisitor()).visit(program);
+			break;
+		case "walker":
+			(new Walker()).walk(program);
+			break;
+		}
+	}
+
+	private static void evaluate(Program program, Attributes attrs, String evaluator) {
+		switch (evaluator) {
+		case "value":
+			(new EvalValue(attrs)).walk(program);
+			break;
+		case "decl":
+			(new EvalDecl(attrs)).walk(program);
+			break;
+		case "typ":
+			(new EvalTyp(attrs)).walk(program);
+			break;
+		case "mem":
+			(new EvalMem(attrs)).walk(program);
+			break;
+		case "frames":
+			(new EvalFrames(attrs)).walk(program);
+			break;
+		case "imcode":
+			(new EvalImcode(attrs, new HashMap<String, Fragment>())).walk(program);
+			break;
+		}
+	}
+
+	/**
+	 * A visitor that traverses the entire abstract syntax tree, does nothing
+	 * and dispatches by {@link compiler.data.ast.AST#accept(Visitor)}.
+	 */
+	private static class AcceptingVisitor implements Visitor {
+
+		public void visit(ArrType arrType) {
+			arrType.size.accept(this);
+			arrType.elemType.accept(this);
+		}
+
+		public void visit(AtomExpr atomExpr) {
+		}
+
+		public void visit(AtomType atomType) {
+		}
+
+		public void visit(BinExpr binExpr) {
+			binExpr.fstExpr.accept(this);
+			binExpr.sndExpr.accept(this);
+		}
+
+		public void visit(CastExpr castExpr) {
+			castExpr.type.accept(this);
+			castExpr.expr.accept(this);
+		}
+
+		public void visit(CompDecl compDecl) {
+			compDecl.type.accept(this);
+		}
+
+		public void visit(CompName compName) {
+		}
+
+		public void visit(DeclError declError) {
+		}
+
+		public void visit(Exprs exprs) {
+			for (int e = 0; e < exprs.numExprs(); e++)
+				exprs.expr(e).accept(this);
+		}
+
+		public void visit(ExprError exprError) {
+		}
+
+		public void visit(ForExpr forExpr) {
+			forExpr.var.accept(this);
+			forExpr.loBound.accept(this);
+			forExpr.hiBound.accept(this);
+			forExpr.body.accept(this);
+		}
+
+		public void visit(FunCall funCall) {
+			for (int a = 0; a < funCall.numArgs(); a++)
+				funCall.arg(a).accept(this);
+		}
+
+		public void visit(FunDecl funDecl) {
+			for (int p = 0; p < funDecl.numPars(); p++)
+				funDecl.par(p).accept(this);
+			funDecl.type.accept(this);
+		}
+
+		public void visit(FunDef funDef) {
+			for (int p = 0; p < funDef.numPars(); p++)
+				funDef.par(p).accept(this);
+			funDef.type.accept(this);
+			funDef.body().accept(this);
+		}
+
+		public void visit(IfExpr ifExpr) {
+			ifExpr.cond.accept(this);
+			ifExpr.thenExpr.accept(this);
+			ifExpr.elseExpr.accept(this);
+		}
+
+		public void visit(ParDecl parDecl) {
+			parDecl.type.accept(this);
+		}
+
+		public void visit(Program program) {
+			program.expr.accept(this);
+		}
+
+		public void visit(PtrType ptrType) {
+			ptrType.baseType.accept(this);
+		}
+
+		public void visit(RecType recType) {
+			for (int c = 0; c < recType.numComps(); c++)
+				recType.comp(c).accept(this);
+		}
+
+		public void visit(TypeDecl typDecl) {
+			typDecl.type.accept(this);
+		}
+
+		public void visit(TypeError typeError) {
+		}
+
+		public void visit(TypeName typeName) {
+		}
+
+		public void visit(UnExpr unExpr) {
+			unExpr.subExpr.accept(this);
+		}
+
+		public void visit(VarDecl varDecl) {
+			varDecl.type.accept(this);
+		}
+
+		public void visit(VarName varName) {
+		}
+
+		public void visit(WhereExpr whereExpr) {
+			whereExpr.expr.accept(this);
+			for (int d = 0; d < whereExpr.numDecls(); d++)
+				whereExpr.decl(d).accept(this);
+		}
+
+		public void visit(WhileExpr whileExpr) {
+			whileExpr.cond.accept(this);
+			whileExpr.body.accept(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,434 @@
+package compiler.phase.lexan;
+
+import compiler.common.report.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The scanner of the lexical analyzer as it was before symbols were recognized
+ * by the {@link TokenDfa}: a cascade of conditions over the current character.
+ * It is kept as the reference the automaton is checked against.
+ * 
+ * @author juliette
+ */
+public class CascadeLexer {
+
+	/** The source file. */
+	private final SourceFile srcFile;
+
+	/** The number of characters in the source file. */
+	private final int length;
+
+	/** The index of the first character past the range being scanned. */
+	private final int end;
+
+	/** The index of the first character not yet consumed by the scanner. */
+	private int next;
+
+	/** The line of the last character consumed by the scanner. */
+	private int line;
+
+	/** The column of the last character consumed by the scanner. */
+	private int column;
+
+	/** The buffer the symbols are appended to. */
+	private final TokenBuffer tokens;
+
+	/**
+	 * Constructs a new scanner.
+	 * 
+	 * @param srcFile
+	 *            The source file.
+	 * @param tokens
+	 *            The buffer the symbols are appended to.
+	 * @param begIndex
+	 *            The index of the first character of the range.
+	 * @param endIndex
+	 *            The index of the first character past the range.
+	 * @param line
+	 *            The line the range starts at.
+	 * @param column
+	 *            The column of the character preceding the range within its
+	 *            line (or <code>0</code> if the range starts at the beginning
+	 *            of a line).
+	 */
+	public CascadeLexer(SourceFile srcFile, TokenBuffer tokens, int begIndex, int endIndex, int line, int column) {
+		this.srcFile = srcFile;
+		this.length = srcFile.length();
+		this.end = endIndex;
+		this.next = begIndex;
+		this.line = line;
+		this.column = column;
+		this.tokens = tokens;
+	}
+
+	/**
+	 * Returns the index of the first character not yet consumed by the
+	 * scanner. Once the range is exhausted, this is the end of the range
+	 * unless the last symbol or comment extends past it.
+	 * 
+	 * @return The index of the first character not yet consumed.
+	 */
+	public int next() {
+		return next;
+	}
+
+	/**
+	 * Recognizes the next symbol and appends it to the token buffer.
+	 * 
+	 * <p>
+	 * Each call scans only as many characters as needed to recognize the next
+	 * symbol, starting where the previous call has stopped.
+	 * </p>
+	 * 
+	 * @return The index of the symbol in the token buffer or <code>-1</code>
+	 *         if no symbol starts within the rest of the range.
+	 */
+	public int lex() {
+		int i;
+		for (i = next; i < end; i++)
+		{
+			column++;
+		    /** new line **/
+			if(srcFile.at(i) == 10 || srcFile.at(i) == 13)
+		    {
+		    	column = 0;
+		    	line++;
+		    	tokens.addLine(i + 1);
+		    }
+			else if(srcFile.at(i) == ' ' || srcFile.at(i) == '\t')
+		    	//do nothing
+				continue;
+			else if(srcFile.at(i) == '\t')
+				column += 8;
+			else if(srcFile.at(i) == '+')
+		    {
+		    	return token(Token.ADD, i, i);
+		    }
+		    else if(srcFile.at(i) == '&')
+		    {
+		    	return token(Token.AND, i, i);
+		    }
+		    else if(srcFile.at(i) == '=' && i+1 < length && srcFile.at(i+1) == '=')
+		    {
+		    	i++;
+		    	return token(Token.EQU, i-1, i);
+		    }
+		    else if(srcFile.at(i) == '=')
+		    {
+		    	return token(Token.ASSIGN, i, i);
+		    }
+		    else if(srcFile.at(i) == ':')
+		    {
+		    	return token(Token.COLON, i, i);
+		    }
+		    else if(srcFile.at(i) == ',')
+		    {
+		    	return token(Token.COMMA, i, i);
+		    }
+		    else if(srcFile.at(i) == '}')
+		    {
+		    	return token(Token.CLOSING_BRACE, i, i);
+		    }
+		    else if(srcFile.at(i) == ']')
+		    {
+		    	return token(Token.CLOSING_BRACKET, i, i);
+		    }
+		    else if(srcFile.at(i) == ')')
+		    {
+		    	return token(Token.CLOSING_PARENTHESIS, i, i);
+		    }
+		    else if(srcFile.at(i) == '.')
+		    {
+		    	return token(Token.DOT, i, i);
+		    }
+		    else if(srcFile.at(i) == '/')
+		    {
+		    	return token(Token.DIV, i, i);
+		    }
+		    else if(srcFile.at(i) == '>' && i+1 < length && srcFile.at(i+1) == '=')
+		    {
+		    	i++;
+		    	return token(Token.GEQ, i-1, i);
+		    }
+		    else if(srcFile.at(i) == '>')
+		    {
+		    	return token(Token.GTH, i, i);
+		    }	
+		    else if(srcFile.at(i) == '<' && i+1 < length && srcFile.at(i+1) == '=')
+		    {
+		    	i++;
+		    	return token(Token.LTH, i-1, i);
+		    }
+		    else if(srcFile.at(i) == '<')
+		    {
+		    	return token(Token.LEQ, i, i);
+		    }
+		    else if(srcFile.at(i) == '@')
+		    {
+		    	return token(Token.MEM, i, i);
+		    }
+		    else if(srcFile.at(i) == '%')
+		    {
+		    	return token(Token.MOD, i, i);
+		    }
+		    else if(srcFile.at(i) == '*')
+		    {
+		    	return token(Token.MUL, i, i);
+		    }
+		    else if(srcFile.at(i) == '!' && i+1 < length && srcFile.at(i+1) == '=')
+		    {
+		    	i++;
+		    	return token(Token.NEQ, i-1, i);
+		    }
+		    else if(srcFile.at(i) == '!' )
+		    {
+		    	return token(Token.NOT, i, i);
+		    }
+		    else if(srcFile.at(i) == '{')
+		    {
+		    	return token(Token.OPENING_BRACE, i, i);
+		    }
+		    else if(srcFile.at(i) == '[')
+		    {
+		    	return token(Token.OPENING_BRACKET, i, i);
+		    }
+		    else if(srcFile.at(i) == '(')
+		    {
+		    	return token(Token.OPENING_PARENTHESIS, i, i);
+		    }
+		    else if(srcFile.at(i) == '|')
+		    {
+		    	return token(Token.OR, i, i);
+		    }
+		    else if(srcFile.at(i) == '-')
+		    {
+		    	return token(Token.SUB, i, i);
+		    }
+		    else if(srcFile.at(i) == '^')
+		    {
+		    	return token(Token.VAL, i, i);
+		    }
+		    else if(srcFile.at(i) >= '0' && srcFile.at(i) <= '9')
+		    {
+				/** Integer constant. */
+		    	int begI = i;
+		   		while((srcFile.at(i) >= '0' && srcFile.at(i) <= '9'))
+				{
+					column++;
+					i++;
+				}
+				column--;
+				i--;
+		    	return token(Token.CONST_INTEGER, begI, i);
+		    }
+		    else if(srcFile.at(i) == 39)
+		    {
+		    	/** Character constant. */
+		    	/** empty char '' **/
+		    	if(i+1 < length && srcFile.at(i+1) == 39)
+			    	throw(new CompilerError("Invalid character constant at line " + line + ", column "+column));
+		    	if(srcFile.at(i+1) == 92)
+			    {
+					if(i+3 < length && srcFile.at(i+3) == 39)
+					{
+				    	if(srcFile.at(i+2) == 92 || srcFile.at(i+2) == 39 || srcFile.at(i+2) == 34 || srcFile.at(i+2) == 't' || srcFile.at(i+2) == 'n')
+				    	{
+					    	i+=3;
+					    	return token(Token.CONST_CHAR, i-3, i);
+				    	}
+				    	else
+				    		throw(new CompilerError("Invalid escape sequence at line " + line + ", column "+column));
+				    }
+				    else
+				    	throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
+			    }
+			    else if(i+1 == length || srcFile.at(i+1) == '\n' || srcFile.at(i+1) == '\t')
+			    	throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
+			    else if(i+2 == length || srcFile.at(i+2) != 39)
+			    		throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
+			    else if(srcFile.at(i+1) >= 32 && srcFile.at(i+1) <= 126)
+			    {
+			    	i+=2;
+			    	return token(Token.CONST_CHAR, i-2, i);
+			    }
+			    else
+			    	throw(new CompilerError("Invalid character constant at line " + line + ", column "+column));
+			   
+		    }
+		    else if(srcFile.at(i) == '"')
+		    {
+		    	/** String constant. */
+		    	int begI = i;
+		    	i++;
+		    	column++;
+				while(srcFile.at(i) != '"' )
+				{
+					/** error cause ' **/
+					if(srcFile.at(i) == 39)
+				    	throw(new CompilerError("Invalid string constant at line " + line + ", column "+column));
+					else if(srcFile.at(i) == 92)
+					{
+						i++;
+						column++;
+						/** != \ && != ' && != " && != t && != n **/
+						if(srcFile.at(i) != 92 && srcFile.at(i) != 39  && srcFile.at(i) != 34  && srcFile.at(i) != 't'  && srcFile.at(i) != 'n')
+					    	throw(new CompilerError("Invalid escape sequence at line " + line + ", column "+column));
+					}
+					else if(srcFile.at(i) == '\t')
+					{
+				    	throw(new CompilerError("string with illegal character TAB at line " + line + ", column "+column));
+					}
+					else if(srcFile.at(i) == '\n')
+				    	throw(new CompilerError("String literal is not properly closed by a double-quote  at line " + line + ", column "+column));
+					else if(i == length)
+				    	throw(new CompilerError("Invalid string constant at line " + line + ", column "+column));
+					else if(!(srcFile.at(i) >= 0 && srcFile.at(i) <= 127))
+				    	throw(new CompilerError("Unexpected character at line " + line + ", column "+column));	
+					column++;
+					i++;
+				}
+		    	return token(Token.CONST_STRING, begI, i);
+		    }
+		    else if((srcFile.at(i) >= 'a' && srcFile.at(i) <= 'z') || (srcFile.at(i) >= 'A' && srcFile.at(i) <= 'Z') || srcFile.at(i) == '_')
+		    {
+		    	/** Identifier. */
+		    	int begI = i;
+				while((srcFile.at(i) >= 'a' && srcFile.at(i) <= 'z') || (srcFile.at(i) >= 'A' && srcFile.at(i) <= 'Z') || (srcFile.at(i) >= '0' && srcFile.at(i) <= '9') || srcFile.at(i) == '_')
+				{
+					i++;
+					column++;
+				}
+				i--;
+				column--;
+		    	return token(keyword(begI, i), begI, i);
+		    }
+		    else if(srcFile.at(i) == '#')
+		    {
+		    	/** comment. */
+				while(srcFile.at(i) != '\n')
+				{
+					if(!(srcFile.at(i+1) >= 0 && srcFile.at(i+1) <= 127))
+				    	throw(new CompilerError("Comment contains only ASCII characters at line " + line + ", column " + column));
+					i++;
+					if(i == length)
+				    	throw(new CompilerError("Comment must end with LF not EOF at line " + line + ", column " + column));
+				}
+				line++;
+				column=0;
+				tokens.addLine(i + 1);
+		    }
+		    else 
+		    	throw(new CompilerError("Unrecognisable symbol at line " + line + ", column " + column));
+		}
+		next = i;
+		return -1;
+	}
+
+	/**
+	 * Returns the token of a word, i.e., of a sequence of letters, digits and
+	 * underscores starting with a letter or an underscore.
+	 * 
+	 * <p>
+	 * Keywords are told apart by their length and their first character, so
+	 * that at most two keywords have to be compared with the word.
+	 * </p>
+	 * 
+	 * @param begIndex
+	 *            The index of the first character of the word.
+	 * @param endIndex
+	 *            The index of the last character of the word.
+	 * @return The token of the keyword, type name or constant or
+	 *         {@link Token#IDENTIFIER IDENTIFIER} if the word is none of
+	 *         these.
+	 */
+	private Token keyword(int begIndex, int endIndex) {
+		switch (endIndex - begIndex + 1) {
+		case 2:
+			switch (srcFile.at(begIndex)) {
+			case 'd': return is("do", begIndex) ? Token.DO : Token.IDENTIFIER;
+			case 'i': return is("if", begIndex) ? Token.IF : Token.IDENTIFIER;
+			}
+			break;
+		case 3:
+			switch (srcFile.at(begIndex)) {
+			case 'a': return is("arr", begIndex) ? Token.ARR : Token.IDENTIFIER;
+			case 'e': return is("end", begIndex) ? Token.END : Token.IDENTIFIER;
+			case 'f':
+				if (is("for", begIndex))
+					return Token.FOR;
+				return is("fun", begIndex) ? Token.FUN : Token.IDENTIFIER;
+			case 'p': return is("ptr", begIndex) ? Token.PTR : Token.IDENTIFIER;
+			case 'r': return is("rec", begIndex) ? Token.REC : Token.IDENTIFIER;
+			case 't': return is("typ", begIndex) ? Token.TYP : Token.IDENTIFIER;
+			case 'v': return is("var", begIndex) ? Token.VAR : Token.IDENTIFIER;
+			}
+			break;
+		case 4:
+			switch (srcFile.at(begIndex)) {
+			case 'c': return is("char", begIndex) ? Token.CHAR : Token.IDENTIFIER;
+			case 'e': return is("else", begIndex) ? Token.ELSE : Token.IDENTIFIER;
+			case 'n':
+				if (is("null", begIndex))
+					return Token.CONST_NULL;
+				return is("none", begIndex) ? Token.CONST_NONE : Token.IDENTIFIER;
+			case 't':
+				if (is("true", begIndex))
+					return Token.CONST_BOOLEAN;
+				return is("then", begIndex) ? Token.THEN : Token.IDENTIFIER;
+			case 'v': return is("void", begIndex) ? Token.VOID : Token.IDENTIFIER;
+			}
+			break;
+		case 5:
+			switch (srcFile.at(begIndex)) {
+			case 'f': return is("false", begIndex) ? Token.CONST_BOOLEAN : Token.IDENTIFIER;
+			case 'w':
+				if (is("where", begIndex))
+					return Token.WHERE;
+				return is("while", begIndex) ? Token.WHILE : Token.IDENTIFIER;
+			}
+			break;
+		case 6:
+			switch (srcFile.at(begIndex)) {
+			case 's': return is("string", begIndex) ? Token.STRING : Token.IDENTIFIER;
+			}
+			break;
+		case 7:
+			switch (srcFile.at(begIndex)) {
+			case 'b': return is("boolean", begIndex) ? Token.BOOLEAN : Token.IDENTIFIER;
+			case 'i': return is("integer", begIndex) ? Token.INTEGER : Token.IDENTIFIER;
+			}
+			break;
+		}
+		return Token.IDENTIFIER;
+	}
+
+	/**
+	 * Checks whether the source file contains a keyword at the specified
+	 * index (the first character has already been checked).
+	 */
+	private boolean is(String keyword, int begIndex) {
+		for (int index = 1; index < keyword.length(); index++)
+			if (srcFile.at(begIndex + index) != keyword.charAt(index))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Appends a symbol to the token buffer and moves the cursor past its last
+	 * character.
+	 * 
+	 * @param token
+	 *            The token of the symbol that has just been recognized.
+	 * @param begIndex
+	 *            The index of the first character of the symbol.
+	 * @param endIndex
+	 *            The index of the last character of the symbol.
+	 * @return The index of the symbol in the token buffer.
+	 */
+	private int token(Token token, int begIndex, int endIndex) {
+		int t = tokens.add(token, begIndex, endIndex);
+		next = endIndex + 1;
+		return t;
+	}
+
+}
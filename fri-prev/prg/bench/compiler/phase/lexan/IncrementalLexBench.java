@@ -0,0 +1,130 @@
+package compiler.phase.lexan;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * A benchmark of the incremental lexical analysis of edited source files.
+ *
+ * <p>
+ * First, a small generated source file is edited randomly many times (with
+ * edits both keeping and breaking the lexical structure) and after each edit
+ * the symbols and lines in the token buffer are checked against those
+ * obtained by lexing the whole edited text anew. Then generated source files
+ * of growing size are edited by a burst of single character insertions and
+ * removals around a cursor, as when typing, and the mean time of an edit is
+ * compared with the time of lexing the whole source file: the former depends
+ * on the edited lines only, not on the size of the source file.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.lexan.IncrementalLexBench [--edits=N] [--lines=N,N,...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class IncrementalLexBench {
+
+	/** The snippets inserted by the edits. */
+	private static final String[] SNIPPETS = { "\n", "\r", " ", "\t", "#", "# x\n", "'", "'a'", "\"", "\"s\"", "\\",
+			"x", "42", "where", "end", "==", "<", "=", "(", ")", "\u00e9", "'\\n'", "\"\\t\"" };
+
+	public static void main(String[] args) throws IOException {
+		int edits = 2000;
+		int[] lines = { 10000, 100000, 1000000 };
+		for (String arg : args) {
+			if (arg.startsWith("--edits="))
+				edits = Integer.parseInt(arg.replaceFirst("--edits=", ""));
+			else if (arg.startsWith("--lines=")) {
+				String[] counts = arg.replaceFirst("--lines=", "").split(",");
+				lines = new int[counts.length];
+				for (int l = 0; l < counts.length; l++)
+					lines[l] = Integer.parseInt(counts[l]);
+			}
+		}
+
+		check(edits, new Random(2016), "--lexmode=ondemand");
+		check(edits, new Random(2017), "--lexmode=parallel");
+		System.out.println("Checked: " + 2 * edits + " edits");
+
+		Random random = new Random(2016);
+		for (int count : lines) {
+			String fileName = BenchSources.file(count);
+			long time = System.nanoTime();
+			SourceFile srcFile = new SourceFile(fileName);
+			TokenBuffer tokens = new TokenBuffer(srcFile, new LexemeTable());
+			Lexer lexer = new Lexer(srcFile, tokens, 0, srcFile.length(), 1, 0);
+			while (lexer.lex() != -1) {
+			}
+			long fullTime = System.nanoTime() - time;
+			srcFile.close();
+
+			LexAn lexAn = new LexAn(new Task(new String[] { fileName }));
+			lexAn.edit(0, 0, "");
+			long editTime = 0;
+			int cursor = random.nextInt(lexAn.tokens().begin(lexAn.tokens().size() - 1));
+			for (int e = 0; e < edits; e++) {
+				time = System.nanoTime();
+				if (e % 2 == 0)
+					lexAn.edit(cursor, 0, "x");
+				else
+					lexAn.edit(cursor, 1, "");
+				editTime += System.nanoTime() - time;
+				cursor += e % 200 == 199 ? 1 : 0;
+			}
+			lexAn.close();
+			System.out.printf("%d lines: %d symbols, full lexing %.2f ms, edit %.2f us%n", count,
+					lexAn.tokens().size(), fullTime / 1e6, editTime / 1e3 / edits);
+		}
+	}
+
+	/**
+	 * Edits a small source file randomly and compares the symbols after each
+	 * edit with those obtained by lexing the edited text anew.
+	 */
+	private static void check(int edits, Random random, String lexMode) throws IOException {
+		String fileName = BenchSources.file(200);
+		StringBuilder text = new StringBuilder(BenchSources.generate(200));
+		LexAn lexAn = new LexAn(new Task(new String[] { lexMode, fileName }));
+		for (int t = random.nextInt(100); t > 0; t--)
+			lexAn.nextToken();
+		Path edited = Files.createTempFile("edited", ".prev");
+		edited.toFile().deleteOnExit();
+		for (int e = 0; e < edits; e++) {
+			int offset = random.nextInt(text.length() + 1);
+			int removed = random.nextInt(4) == 0 ? random.nextInt(Math.min(text.length() - offset, 20) + 1) : 0;
+			String inserted = random.nextInt(4) == 0 ? "" : SNIPPETS[random.nextInt(SNIPPETS.length)];
+			TokenSplice splice = lexAn.edit(offset, removed, inserted);
+			text.replace(offset, offset + removed, inserted);
+
+			Files.write(edited, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+			SourceFile srcFile = new SourceFile(edited.toString());
+			TokenBuffer expected = new TokenBuffer(srcFile, new LexemeTable());
+			Lexer lexer = new Lexer(srcFile, expected, 0, srcFile.length(), 1, 0, true);
+			while (lexer.lex() != -1) {
+			}
+			expected.add(Token.EOF, srcFile.length(), srcFile.length() - 1);
+			srcFile.close();
+			compare(expected, lexAn.tokens(), "edit " + e + " " + splice);
+		}
+		lexAn.close();
+	}
+
+	private static void compare(TokenBuffer expected, TokenBuffer actual, String description) {
+		if (expected.size() != actual.size())
+			throw new Error(description + ": " + expected.size() + " vs. " + actual.size() + " symbols.");
+		for (int t = 0; t < expected.size(); t++)
+			if ((expected.token(t) != actual.token(t)) || (expected.begin(t) != actual.begin(t))
+					|| (expected.length(t) != actual.length(t)) || (expected.line(t) != actual.line(t))
+					|| (expected.begColumn(t) != actual.begColumn(t)))
+				throw new Error(description + ": symbol " + t + " differs: " + expected.symbol(t) + " vs. "
+						+ actual.symbol(t));
+	}
+
+}
@@ -0,0 +1,103 @@
+package compiler.phase.lexan;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import compiler.*;
+
+/**
+ * A benchmark comparing the sequential and the parallel lexical analyzer.
+ *
+ * <p>
+ * Every source file named on the command line is lexed sequentially and in
+ * parallel, first to check that both produce exactly the same symbols and
+ * lines (also with tiny chunks, so that every line boundary is exercised, and
+ * through the pipe from the lexer thread), and then repeatedly to measure the
+ * speedup. If no source file is named, a
+ * large source file is generated.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.lexan.LexAnBench [--lines=N] [--runs=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class LexAnBench {
+
+	public static void main(String[] args) throws IOException {
+		int lines = 500000;
+		int runs = 10;
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else
+				fileNames.add(arg);
+		}
+		if (fileNames.isEmpty())
+			fileNames.add(BenchSources.file(lines));
+
+		System.out.println("Parallelism: " + ForkJoinPool.commonPool().getParallelism());
+		for (String fileName : fileNames) {
+			SourceFile srcFile = new SourceFile(fileName);
+			TokenBuffer seq = sequential(srcFile);
+			check(seq, parallel(srcFile, ParallelLexer.CHUNK_SIZE), fileName);
+			check(seq, parallel(srcFile, 1), fileName);
+			check(seq, pipelined(fileName), fileName);
+			long seqTime = Long.MAX_VALUE;
+			long parTime = Long.MAX_VALUE;
+			for (int run = 0; run < runs; run++) {
+				long time = System.nanoTime();
+				sequential(srcFile);
+				seqTime = Math.min(seqTime, System.nanoTime() - time);
+				time = System.nanoTime();
+				parallel(srcFile, ParallelLexer.CHUNK_SIZE);
+				parTime = Math.min(parTime, System.nanoTime() - time);
+			}
+			System.out.printf("%s: %d bytes, %d symbols, sequential %.2f ms, parallel %.2f ms, speedup %.2f%n",
+					fileName, srcFile.length(), seq.size(), seqTime / 1e6, parTime / 1e6, (double) seqTime / parTime);
+			srcFile.close();
+		}
+	}
+
+	private static TokenBuffer sequential(SourceFile srcFile) {
+		TokenBuffer tokens = new TokenBuffer(srcFile, new LexemeTable());
+		Lexer lexer = new Lexer(srcFile, tokens, 0, srcFile.length(), 1, 0);
+		while (lexer.lex() != -1) {
+		}
+		return tokens;
+	}
+
+	private static TokenBuffer parallel(SourceFile srcFile, int chunkSize) {
+		TokenBuffer tokens = new TokenBuffer(srcFile, new LexemeTable());
+		ParallelLexer.lex(srcFile, tokens, chunkSize);
+		return tokens;
+	}
+
+	private static TokenBuffer pipelined(String fileName) {
+		LexAn lexAn = new LexAn(new Task(new String[] { "--lexmode=pipelined", fileName }));
+		while (lexAn.tokens().token(lexAn.nextToken()) != Symbol.Token.EOF) {
+		}
+		lexAn.close();
+		return lexAn.tokens();
+	}
+
+	private static void check(TokenBuffer seq, TokenBuffer par, String fileName) {
+		// The pipelined buffer ends with the end of file symbol.
+		int size = par.size();
+		if ((size > 0) && (par.token(size - 1) == Symbol.Token.EOF))
+			size--;
+		if (seq.size() != size)
+			throw new Error(fileName + ": " + seq.size() + " vs. " + size + " symbols.");
+		for (int t = 0; t < seq.size(); t++)
+			if ((seq.token(t) != par.token(t)) || (seq.begin(t) != par.begin(t)) || (seq.length(t) != par.length(t))
+					|| (seq.line(t) != par.line(t)) || (seq.begColumn(t) != par.begColumn(t)))
+				throw new Error(fileName + ": symbol " + t + " differs: " + seq.symbol(t) + " vs. " + par.symbol(t));
+	}
+
+}
@@ -0,0 +1,140 @@
+package compiler.phase.seman;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+import compiler.data.typ.*;
+import compiler.phase.synan.*;
+
+/**
+ * A benchmark of the semantic analysis performed in four separate passes and
+ * in two fused traversals.
+ *
+ * <p>
+ * Every source file named on the command line (or a large generated source
+ * file if none is named) is parsed once and then analyzed repeatedly in each
+ * mode, and the best time of each mode is reported. The values,
+ * declarations, types and addressability computed in both modes are checked
+ * to be equal for every node of the abstract syntax tree.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.seman.SemAnBench [--lines=N] [--runs=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class SemAnBench {
+
+	public static void main(String[] args) throws Exception {
+		int lines = 100000;
+		int runs = 10;
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else
+				fileNames.add(arg);
+		}
+		if (fileNames.isEmpty())
+			fileNames.add(BenchSources.file(lines));
+
+		String[] modes = { "passes", "fused" };
+		for (String fileName : fileNames) {
+			SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+			Program program = synAn.synAn();
+			synAn.close();
+			List<ASTNode> nodes = new ArrayList<ASTNode>();
+			collect(program, nodes);
+
+			StringBuilder report = new StringBuilder(fileName + " (" + nodes.size() + " nodes):");
+			Attributes expected = null;
+			for (String mode : modes) {
+				long best = Long.MAX_VALUE;
+				for (int run = 0; run < runs; run++) {
+					Attributes attrs = new Attributes();
+					long time = System.nanoTime();
+					analyze(program, attrs, mode);
+					best = Math.min(best, System.nanoTime() - time);
+					if (expected == null)
+						expected = attrs;
+					else if (run == 0) {
+						String difference = difference(nodes, expected, attrs);
+						if (difference != null)
+							throw new Error(fileName + " (" + mode + "): " + difference);
+					}
+				}
+				report.append(String.format(" %s %.2f ms", mode, best / 1e6));
+			}
+			System.out.println(report);
+		}
+	}
+
+	private static void analyze(Program program, Attributes attrs, String mode) {
+		if (mode.equals("passes")) {
+			(new EvalValue(attrs)).walk(program);
+			(new EvalDecl(attrs)).walk(program);
+			(new EvalTyp(attrs)).walk(program);
+			(new EvalMem(attrs)).walk(program);
+		} else
+			(new EvalSemAn(attrs)).evaluate(program);
+	}
+
+	/**
+	 * Collects all nodes of an abstract syntax tree by reflection.
+	 */
+	private static void collect(Object object, List<ASTNode> nodes) throws IllegalAccessException {
+		if (object instanceof Object[]) {
+			for (Object element : (Object[]) object)
+				collect(element, nodes);
+			return;
+		}
+		if (!(object instanceof ASTNode))
+			return;
+		nodes.add((ASTNode) object);
+		if (object instanceof FunDef)
+			((FunDef) object).body();
+		for (Class<?> c = object.getClass(); c != Object.class; c = c.getSuperclass())
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+					continue;
+				field.setAccessible(true);
+				collect(field.get(object), nodes);
+			}
+	}
+
+	/**
+	 * Compares the results of the semantic analysis of all nodes.
+	 *
+	 * @return <code>null</code> if the results are equal, or the description
+	 *         of the first difference found otherwise.
+	 */
+	private static String difference(List<ASTNode> nodes, Attributes expected, Attributes actual) {
+		for (ASTNode node : nodes) {
+			if (node instanceof Expr) {
+				Expr expr = (Expr) node;
+				if (!Objects.equals(expected.valueAttr.get(expr), actual.valueAttr.get(expr)))
+					return "value of " + node;
+				if (!Objects.equals(expected.memAttr.get(expr), actual.memAttr.get(expr)))
+					return "mem of " + node;
+			}
+			if ((node instanceof Declarable) && (expected.declAttr.get((Declarable) node) != actual.declAttr.get((Declarable) node)))
+				return "declaration of " + node;
+			if (node instanceof Typeable) {
+				Typ expectedTyp = expected.typAttr.get((Typeable) node);
+				Typ actualTyp = actual.typAttr.get((Typeable) node);
+				if ((expectedTyp != actualTyp) && ((expectedTyp == null) || (actualTyp == null)
+						|| (expectedTyp.getClass() != actualTyp.getClass()) || !Typ.equiv(expectedTyp, actualTyp)))
+					return "type of " + node;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,200 @@
+package compiler.phase.seman;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+import compiler.data.typ.*;
+import compiler.phase.synan.*;
+
+/**
+ * A benchmark of the demand-driven semantic analysis.
+ *
+ * <p>
+ * Every source file named on the command line (or a generated source file if
+ * none is named) is analyzed in three ways:
+ * </p>
+ * <ul>
+ * <li>the value, the declaration and the type of every node are queried and
+ * checked against the eager semantic analysis, and the time of the queries is
+ * compared with the time of the eager analysis;</li>
+ * <li>the type of a single variable is queried by a fresh
+ * {@link SemAnQueries}, as by a tool asking for the type at the cursor, and
+ * the mean time and the mean number of results computed are reported;</li>
+ * <li>the source file is edited within a function body, the queries are
+ * updated with the reparsed tree and all nodes are queried again, and the
+ * mean number of results computed anew is reported; after the first edits
+ * the results are checked against the eager analysis of the edited tree.</li>
+ * </ul>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.seman.SemAnQueriesBench [--lines=N] [--runs=N] [--edits=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class SemAnQueriesBench {
+
+	public static void main(String[] args) throws Exception {
+		int lines = 100000;
+		int runs = 10;
+		int edits = 20;
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else if (arg.startsWith("--edits="))
+				edits = Integer.parseInt(arg.replaceFirst("--edits=", ""));
+			else
+				fileNames.add(arg);
+		}
+		boolean generated = fileNames.isEmpty();
+		if (generated)
+			fileNames.add(BenchSources.file(lines));
+
+		for (String fileName : fileNames) {
+			SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+			Program program = synAn.edit(0, 0, "");
+			List<ASTNode> nodes = new ArrayList<ASTNode>();
+			collect(program, nodes);
+
+			// All nodes.
+			long eagerTime = Long.MAX_VALUE;
+			long queriesTime = Long.MAX_VALUE;
+			Attributes expected = null;
+			long numComputed = 0;
+			for (int run = 0; run < runs; run++) {
+				Attributes attrs = new Attributes();
+				long time = System.nanoTime();
+				(new EvalSemAn(attrs)).evaluate(program);
+				eagerTime = Math.min(eagerTime, System.nanoTime() - time);
+				expected = attrs;
+
+				SemAnQueries queries = new SemAnQueries(program);
+				time = System.nanoTime();
+				queryAll(queries, nodes);
+				queriesTime = Math.min(queriesTime, System.nanoTime() - time);
+				numComputed = queries.numComputed();
+				if (run == 0)
+					check(fileName, queries, nodes, expected);
+			}
+			System.out.printf("%s (%d nodes): eager %.2f ms, all queries %.2f ms (%d results)%n", fileName,
+					nodes.size(), eagerTime / 1e6, queriesTime / 1e6, numComputed);
+
+			// A single query.
+			List<VarName> varNames = new ArrayList<VarName>();
+			for (ASTNode node : nodes)
+				if (node.kind() == AST.Kind.VAR_NAME)
+					varNames.add((VarName) node);
+			Random random = new Random(2016);
+			long queryTime = 0;
+			long queryComputed = 0;
+			int numQueries = 100 * runs;
+			for (int q = 0; q < numQueries; q++) {
+				VarName varName = varNames.get(random.nextInt(varNames.size()));
+				SemAnQueries queries = new SemAnQueries(program);
+				long time = System.nanoTime();
+				Typ typ = queries.typeOf(varName);
+				queryTime += System.nanoTime() - time;
+				queryComputed += queries.numComputed();
+				if (!Typ.equiv(typ, expected.typAttr.get(varName)))
+					throw new Error(fileName + ": type of " + varName);
+			}
+			System.out.printf("  type of a variable: %.3f ms (%.1f results)%n", queryTime / 1e6 / numQueries,
+					(double) queryComputed / numQueries);
+
+			// Edits.
+			if (!generated)
+				continue;
+			String text = BenchSources.generate(lines);
+			int cursor = text.indexOf("n*(n+42)", text.length() / 2) + 6;
+			SemAnQueries queries = new SemAnQueries(program);
+			queryAll(queries, nodes);
+			long editComputed = 0;
+			long editTime = 0;
+			for (int e = 0; e < edits; e++) {
+				if (e % 2 == 0)
+					program = synAn.edit(cursor, 0, "1");
+				else
+					program = synAn.edit(cursor, 1, "");
+				nodes.clear();
+				collect(program, nodes);
+				long computed = queries.numComputed();
+				long time = System.nanoTime();
+				queries.update(program);
+				queryAll(queries, nodes);
+				editTime += System.nanoTime() - time;
+				editComputed += queries.numComputed() - computed;
+				if (e < 2) {
+					Attributes attrs = new Attributes();
+					(new EvalSemAn(attrs)).evaluate(program);
+					check(fileName + " (edit " + e + ")", queries, nodes, attrs);
+				}
+			}
+			synAn.close();
+			System.out.printf("  edit: update and all queries %.2f ms (%.1f results)%n", editTime / 1e6 / edits,
+					(double) editComputed / edits);
+		}
+	}
+
+	/**
+	 * Queries the value, the declaration and the type of every node.
+	 */
+	private static void queryAll(SemAnQueries queries, List<ASTNode> nodes) {
+		for (ASTNode node : nodes) {
+			if (node instanceof Expr)
+				queries.valueOf((Expr) node);
+			if (node instanceof Declarable)
+				queries.declOf((Declarable) node);
+			queries.typeOf(node);
+		}
+	}
+
+	/**
+	 * Checks the results of the queries against the eager semantic analysis.
+	 */
+	private static void check(String fileName, SemAnQueries queries, List<ASTNode> nodes, Attributes expected) {
+		for (ASTNode node : nodes) {
+			if ((node instanceof Expr)
+					&& !Objects.equals(expected.valueAttr.get((Expr) node), queries.valueOf((Expr) node)))
+				throw new Error(fileName + ": value of " + node);
+			if ((node instanceof Declarable)
+					&& (expected.declAttr.get((Declarable) node) != queries.declOf((Declarable) node)))
+				throw new Error(fileName + ": declaration of " + node);
+			Typ expectedTyp = expected.typAttr.get(node);
+			Typ actualTyp = queries.typeOf(node);
+			if ((expectedTyp != actualTyp) && ((expectedTyp == null) || (actualTyp == null)
+					|| (expectedTyp.getClass() != actualTyp.getClass()) || !Typ.equiv(expectedTyp, actualTyp)))
+				throw new Error(fileName + ": type of " + node);
+		}
+	}
+
+	/**
+	 * Collects all nodes of an abstract syntax tree by reflection.
+	 */
+	private static void collect(Object object, List<ASTNode> nodes) throws IllegalAccessException {
+		if (object instanceof Object[]) {
+			for (Object element : (Object[]) object)
+				collect(element, nodes);
+			return;
+		}
+		if (!(object instanceof ASTNode))
+			return;
+		nodes.add((ASTNode) object);
+		if (object instanceof FunDef)
+			((FunDef) object).body();
+		for (Class<?> c = object.getClass(); c != Object.class; c = c.getSuperclass())
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+					continue;
+				field.setAccessible(true);
+				collect(field.get(object), nodes);
+			}
+	}
+
+}
@@ -0,0 +1,124 @@
+package compiler.phase.synan;
+
+import java.nio.file.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.code.*;
+
+/**
+ * A benchmark of the binary form of the abstract syntax tree used by the AST
+ * cache.
+ *
+ * <p>
+ * Every source file named on the command line (or a large generated source
+ * file if none is named) is parsed, written in the binary form, and read back
+ * repeatedly, and the best times of parsing, writing and reading are reported
+ * together with the size of the binary form. The tree read back is checked to
+ * be equal to the parsed one (including the positions of all nodes and the
+ * lines and columns they are printed with), and reading with a wrong stamp or
+ * from a truncated binary form is checked to fail. Source files that cannot be
+ * parsed are skipped.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.synan.ASTCacheBench [--lines=N] [--runs=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class ASTCacheBench {
+
+	public static void main(String[] args) throws Exception {
+		int lines = 100000;
+		int runs = 10;
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else
+				fileNames.add(arg);
+		}
+		if (fileNames.isEmpty())
+			fileNames.add(BenchSources.file(lines));
+
+		for (String fileName : fileNames) {
+			long parseTime = Long.MAX_VALUE;
+			long writeTime = Long.MAX_VALUE;
+			long readTime = Long.MAX_VALUE;
+			Program parsed = null;
+			byte[] bytes = null;
+			Program read = null;
+			for (int run = 0; run < runs; run++) {
+				long time = System.nanoTime();
+				SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+				try {
+					parsed = synAn.synAn();
+				} catch (CompilerError error) {
+					parsed = null;
+					break;
+				}
+				synAn.close();
+				parseTime = Math.min(parseTime, System.nanoTime() - time);
+
+				time = System.nanoTime();
+				bytes = ASTWriter.write(parsed, run);
+				writeTime = Math.min(writeTime, System.nanoTime() - time);
+
+				time = System.nanoTime();
+				read = ASTReader.read(bytes, run);
+				readTime = Math.min(readTime, System.nanoTime() - time);
+				if (read == null)
+					throw new Error(fileName + ": not read back");
+			}
+			if (parsed == null) {
+				System.out.println(fileName + ": not parsed");
+				continue;
+			}
+
+			String difference = AstEquality.difference(parsed, read);
+			if (difference != null)
+				throw new Error(fileName + ": " + difference);
+			if (!parsed.toString().equals(read.toString()) || !printed(parsed).equals(printed(read)))
+				throw new Error(fileName + ": positions printed differently");
+			if (ASTReader.read(bytes, runs) != null)
+				throw new Error(fileName + ": read with a wrong stamp");
+			if (ASTReader.read(Arrays.copyOf(bytes, bytes.length / 2), runs - 1) != null)
+				throw new Error(fileName + ": read from a truncated binary form");
+
+			System.out.printf("%s (%d bytes of source, %d bytes of binary form): parse %.2f ms, write %.2f ms, read %.2f ms%n",
+					fileName, Files.size(Paths.get(fileName)), bytes.length, parseTime / 1e6, writeTime / 1e6,
+					readTime / 1e6);
+		}
+	}
+
+	/**
+	 * Returns the positions of all nodes as they are printed out.
+	 */
+	private static String printed(Program program) {
+		final StringBuilder printed = new StringBuilder();
+		(new Walker() {
+			@Override
+			protected void pre(VarName varName) {
+				printed.append(varName.name()).append((Position) varName);
+			}
+
+			@Override
+			protected void pre(FunCall funCall) {
+				printed.append(funCall.name()).append((Position) funCall);
+			}
+
+			@Override
+			protected void pre(WhereExpr whereExpr) {
+				printed.append((Position) whereExpr);
+			}
+		}).walk(program);
+		return printed.toString();
+	}
+
+}
@@ -0,0 +1,185 @@
+package compiler.phase.synan;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * A benchmark of the incremental syntax analysis of edited source files.
+ *
+ * <p>
+ * First, a small generated source file is edited randomly many times, each
+ * edit being undone by the next one so that the source file is mostly
+ * syntactically correct, and after each edit the abstract syntax tree is
+ * checked against the one obtained by parsing the whole edited text anew
+ * (including the positions of all nodes). The share of the nodes reused from
+ * the previous tree is reported. Then generated source files of growing size
+ * are edited within a function body, as when typing, and the mean time of an
+ * edit is compared with the time of parsing the whole source file.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.synan.IncrementalParseBench [--edits=N] [--lines=N,N,...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class IncrementalParseBench {
+
+	/** The snippets inserted by the edits. */
+	private static final String[] SNIPPETS = { " ", "\n", "x", "1", "+", "-", "*", "=", "==", "(", ")", ",", "^",
+			"[1]", ".a", "end", "if x then 1 else 2 end", "var q:integer\n", "fun g():integer=1\n",
+			" where var w:integer end", "#", "'" };
+
+	public static void main(String[] args) throws IOException {
+		int edits = 2000;
+		int[] lines = { 10000, 100000 };
+		for (String arg : args) {
+			if (arg.startsWith("--edits="))
+				edits = Integer.parseInt(arg.replaceFirst("--edits=", ""));
+			else if (arg.startsWith("--lines=")) {
+				String[] counts = arg.replaceFirst("--lines=", "").split(",");
+				lines = new int[counts.length];
+				for (int l = 0; l < counts.length; l++)
+					lines[l] = Integer.parseInt(counts[l]);
+			}
+		}
+
+		// The warnings of the failed parses are of no interest here.
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(new ByteArrayOutputStream()));
+		try {
+			check(edits, new Random(2016));
+		} finally {
+			System.setErr(err);
+		}
+
+		for (int count : lines) {
+			String fileName = BenchSources.file(count);
+			long time = System.nanoTime();
+			SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+			synAn.synAn();
+			long fullTime = System.nanoTime() - time;
+			synAn.close();
+
+			synAn = new SynAn(new Task(new String[] { fileName }));
+			synAn.edit(0, 0, "");
+			String text = BenchSources.generate(count);
+			int cursor = text.indexOf("n*(n+42)", text.length() / 2) + 6;
+			long editTime = 0;
+			for (int e = 0; e < edits; e++) {
+				time = System.nanoTime();
+				if (e % 2 == 0)
+					synAn.edit(cursor, 0, "1");
+				else
+					synAn.edit(cursor, 1, "");
+				editTime += System.nanoTime() - time;
+			}
+			synAn.close();
+			System.out.printf("%d lines: full parsing %.2f ms, edit %.2f ms%n", count, fullTime / 1e6,
+					editTime / 1e6 / edits);
+		}
+	}
+
+	/**
+	 * Edits a small source file randomly and compares the abstract syntax
+	 * tree after each edit with the one obtained by parsing the edited text
+	 * anew.
+	 */
+	private static void check(int edits, Random random) throws IOException {
+		String fileName = BenchSources.file(200);
+		StringBuilder text = new StringBuilder(BenchSources.generate(200));
+		SynAn synAn = new SynAn(new Task(new String[] { fileName }));
+		Program program = synAn.edit(0, 0, "");
+		Path edited = Files.createTempFile("edited", ".prev");
+		edited.toFile().deleteOnExit();
+		long numNodes = 0;
+		long numReused = 0;
+		int offset = 0;
+		String removed = "";
+		String inserted = "";
+		for (int e = 0; e < edits; e++) {
+			if (e % 2 == 0) {
+				offset = random.nextInt(text.length() + 1);
+				int length = random.nextInt(4) == 0 ? random.nextInt(Math.min(text.length() - offset, 10) + 1) : 0;
+				removed = text.substring(offset, offset + length);
+				inserted = random.nextInt(4) == 0 ? "" : SNIPPETS[random.nextInt(SNIPPETS.length)];
+			} else {
+				String undone = inserted;
+				inserted = removed;
+				removed = undone;
+			}
+			text.replace(offset, offset + removed.length(), inserted);
+			Files.write(edited, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+			Program expected = null;
+			try {
+				SynAn fresh = new SynAn(new Task(new String[] { edited.toString() }));
+				expected = fresh.synAn();
+				fresh.close();
+			} catch (CompilerError error) {
+			}
+			Program previous = program;
+			try {
+				program = synAn.edit(offset, removed.length(), inserted);
+			} catch (CompilerError error) {
+				program = null;
+			}
+
+			String description = "edit " + e + " at " + offset + " (-" + removed.length() + "+" + inserted.length() + ")";
+			if ((expected == null) != (program == null))
+				throw new Error(description + ": " + (expected == null ? "an error expected" : "no error expected"));
+			if (expected == null)
+				continue;
+			String difference = AstEquality.difference(expected, program);
+			if (difference != null)
+				throw new Error(description + ": " + difference);
+			if (previous != null) {
+				Set<Object> oldNodes = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+				nodes(previous, oldNodes);
+				Set<Object> newNodes = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+				nodes(program, newNodes);
+				numNodes += newNodes.size();
+				newNodes.retainAll(oldNodes);
+				numReused += newNodes.size();
+			}
+		}
+		synAn.close();
+		System.out.printf("Checked: %d edits, %.1f%% of nodes reused%n", edits,
+				100.0 * numReused / Math.max(numNodes, 1));
+	}
+
+	/**
+	 * Collects all nodes of an abstract syntax tree.
+	 */
+	private static void nodes(Object node, Set<Object> nodes) {
+		if (node == null)
+			return;
+		if (node.getClass().isArray()) {
+			for (int e = 0; e < Array.getLength(node); e++)
+				nodes(Array.get(node, e), nodes);
+			return;
+		}
+		if (!(node instanceof ASTNode) || !nodes.add(node))
+			return;
+		for (Class<?> c = node.getClass(); c != Position.class; c = c.getSuperclass())
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+				field.setAccessible(true);
+				try {
+					nodes(field.get(node), nodes);
+				} catch (IllegalAccessException ex) {
+					throw new Error(ex);
+				}
+			}
+	}
+
+}
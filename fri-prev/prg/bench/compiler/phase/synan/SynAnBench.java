@@ -0,0 +1,139 @@
+package compiler.phase.synan;
+
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import compiler.*;
+import compiler.data.ast.*;
+
+/**
+ * A benchmark of the syntax analysis with the lexical analyzer and the parser
+ * in different modes.
+ *
+ * <p>
+ * Every source file named on the command line (or a large generated source
+ * file if none is named) is parsed repeatedly with each combination of a
+ * parsing and a lexing mode, and the best time of each combination is
+ * reported. In the pipelined mode, lexing on its own thread overlaps with
+ * parsing, in the lazy parsing mode the bodies of functions are only skipped,
+ * and in the parallel parsing mode they are parsed on all available cores. The abstract syntax trees produced by all combinations are checked
+ * to be equal (after the skipped bodies have been parsed).
+ * </p>
+ *
+ * <p>
+ * Finally, the deepest nesting of an expression that each parsing mode can
+ * parse on a thread with a small stack is searched for: the recursive descent
+ * parser runs out of stack while the table-driven parser does not.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <code>java compiler.phase.synan.SynAnBench [--lines=N] [--runs=N] [--lexmodes=M,M,...] [--parsemodes=M,M,...] [--depth=N] [file.prev ...]</code>
+ * </p>
+ *
+ * @author juliette
+ */
+public class SynAnBench {
+
+	public static void main(String[] args) throws Exception {
+		int lines = 100000;
+		int runs = 10;
+		int depth = 100000;
+		String[] lexModes = { "ondemand", "parallel", "pipelined" };
+		String[] parseModes = { "descent", "table", "lazy", "parallel" };
+		List<String> fileNames = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("--lines="))
+				lines = Integer.parseInt(arg.replaceFirst("--lines=", ""));
+			else if (arg.startsWith("--runs="))
+				runs = Integer.parseInt(arg.replaceFirst("--runs=", ""));
+			else if (arg.startsWith("--lexmodes="))
+				lexModes = arg.replaceFirst("--lexmodes=", "").split(",");
+			else if (arg.startsWith("--parsemodes="))
+				parseModes = arg.replaceFirst("--parsemodes=", "").split(",");
+			else if (arg.startsWith("--depth="))
+				depth = Integer.parseInt(arg.replaceFirst("--depth=", ""));
+			else
+				fileNames.add(arg);
+		}
+		if (fileNames.isEmpty())
+			fileNames.add(BenchSources.file(lines));
+
+		for (String fileName : fileNames) {
+			StringBuilder report = new StringBuilder(fileName + ":");
+			Program expected = null;
+			for (String parseMode : parseModes)
+				for (String lexMode : lexModes) {
+					long best = Long.MAX_VALUE;
+					for (int run = 0; run < runs; run++) {
+						long time = System.nanoTime();
+						Program program = parse(fileName, lexMode, parseMode);
+						best = Math.min(best, System.nanoTime() - time);
+						if (expected == null)
+							expected = program;
+						else if (run == 0) {
+							String difference = AstEquality.difference(expected, program);
+							if (difference != null)
+								throw new Error(fileName + " (" + parseMode + ", " + lexMode + "): " + difference);
+						}
+					}
+					report.append(String.format(" %s/%s %.2f ms", parseMode, lexMode, best / 1e6));
+				}
+			System.out.println(report);
+		}
+
+		StringBuilder report = new StringBuilder("nesting up to " + depth + ":");
+		for (String parseMode : parseModes) {
+			int lo = 0;
+			int hi = depth + 1;
+			while (hi - lo > 1) {
+				int mid = (lo + hi) / 2;
+				if (parsesNested(mid, parseMode))
+					lo = mid;
+				else
+					hi = mid;
+			}
+			report.append(" " + parseMode + " " + (lo == depth ? "all" : "overflow above " + lo));
+		}
+		System.out.println(report);
+	}
+
+	/**
+	 * Parses an expression nested to the specified depth on a thread with a
+	 * small stack.
+	 *
+	 * @return <code>true</code> if the stack has not overflowed.
+	 */
+	private static boolean parsesNested(int depth, String parseMode) throws Exception {
+		Path nested = Files.createTempFile("nested", ".prev");
+		StringBuilder text = new StringBuilder();
+		for (int d = 0; d < depth; d++)
+			text.append("(-");
+		text.append("1");
+		for (int d = 0; d < depth; d++)
+			text.append(")");
+		Files.write(nested, text.toString().getBytes(StandardCharsets.US_ASCII));
+		boolean[] parsed = { false };
+		Thread thread = new Thread(null, () -> {
+			try {
+				parse(nested.toString(), "ondemand", parseMode);
+				parsed[0] = true;
+			} catch (StackOverflowError error) {
+			}
+		}, parseMode, 1 << 20);
+		thread.start();
+		thread.join();
+		Files.delete(nested);
+		return parsed[0];
+	}
+
+	private static Program parse(String fileName, String lexMode, String parseMode) {
+		SynAn synAn = new SynAn(
+				new Task(new String[] { "--lexmode=" + lexMode, "--parsemode=" + parseMode, fileName }));
+		Program program = synAn.synAn();
+		synAn.close();
+		return program;
+	}
+
+}
@@ -0,0 +1,194 @@
+package compiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.regex.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import compiler.common.report.*;
+import compiler.data.ast.attr.*;
+import compiler.data.frg.*;
+import compiler.data.imc.*;
+
+/**
+ * A census of the heap reported after each phase (option
+ * <code>--census</code>).
+ *
+ * <p>
+ * The live instances of the classes of the compiler's data structures are
+ * counted after a full garbage collection (by the diagnostic command
+ * <code>GC.class_histogram</code> of the JVM) and grouped by the data
+ * structure they belong to: AST nodes, symbols, types, IMC nodes,
+ * instructions, frames and accesses, and fragments. The bytes reported are the
+ * sizes of the instances themselves, including the arrays of them (e.g., the
+ * arrays of children of AST nodes), but not the strings or the collections
+ * they refer to. For each attribute table, the number of entries and the
+ * estimated size of its storage are reported, and for each code fragment, the
+ * number of IMC nodes of its linearized code.
+ * </p>
+ *
+ * @author juliette
+ */
+public class Census {
+
+	/**
+	 * The data structures: the name of each one followed by the packages (with
+	 * a trailing dot) or the classes its instances belong to.
+	 */
+	private static final String[][] structures = { { "AST nodes", "compiler.data.ast." },
+			{ "symbols", "compiler.phase.lexan.Symbol" }, { "types", "compiler.data.typ." },
+			{ "IMC nodes", "compiler.data.imc." }, { "instructions", "compiler.data.inst." },
+			{ "frames and accesses", "compiler.data.frm.", "compiler.data.acc." },
+			{ "fragments", "compiler.data.frg." } };
+
+	/** A line of the class histogram: the instances, the bytes and the class. */
+	private static final Pattern histogramLine = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+).*$");
+
+	/**
+	 * Reports the census of the heap after a phase.
+	 *
+	 * @param task
+	 *            The parameters and internal data of the compilation process.
+	 * @param phase
+	 *            The phase that has just been completed.
+	 */
+	public static void report(Task task, String phase) {
+		Report.info("Census after " + phase + ":");
+
+		String histogram = histogram();
+		if (histogram == null)
+			Report.warning("The class histogram of the heap is not available.");
+		else
+			for (String[] structure : structures)
+				reportStructure(histogram, structure);
+
+		for (Field field : Attributes.class.getFields()) {
+			if (!Attribute.class.isAssignableFrom(field.getType()))
+				continue;
+			Attribute<?, ?> attr;
+			try {
+				attr = (Attribute<?, ?>) field.get(task.prgAttrs);
+			} catch (IllegalAccessException ex) {
+				throw new InternalCompilerError();
+			}
+			if (attr.isReleased())
+				Report.info("  attribute " + field.getName() + ": released");
+			else
+				Report.info("  attribute " + field.getName() + ": " + attr.size() + " entries, "
+						+ attr.storageBytes() + " bytes");
+		}
+
+		ArrayList<CodeFragment> fragments = new ArrayList<CodeFragment>();
+		for (Fragment fragment : task.fragments.values())
+			if (fragment instanceof CodeFragment)
+				fragments.add((CodeFragment) fragment);
+		fragments.sort(new Comparator<CodeFragment>() {
+			@Override
+			public int compare(CodeFragment frg1, CodeFragment frg2) {
+				return frg1.label.compareTo(frg2.label);
+			}
+		});
+		for (CodeFragment fragment : fragments)
+			Report.info("  fragment " + fragment.label + ": " + size(fragment.linCode) + " IMC nodes");
+	}
+
+	/**
+	 * Returns the class histogram of the heap, taken after a full garbage
+	 * collection.
+	 *
+	 * @return The class histogram or <code>null</code> if it is not available.
+	 */
+	private static String histogram() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName command = new ObjectName("com.sun.management:type=DiagnosticCommand");
+			return (String) server.invoke(command, "gcClassHistogram", new Object[] { null },
+					new String[] { String[].class.getName() });
+		} catch (JMException | RuntimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reports the instances of the classes of a data structure.
+	 *
+	 * @param histogram
+	 *            The class histogram of the heap.
+	 * @param structure
+	 *            The name of the data structure followed by its packages and
+	 *            classes.
+	 */
+	private static void reportStructure(String histogram, String[] structure) {
+		long instances = 0;
+		long bytes = 0;
+		ArrayList<String> lines = new ArrayList<String>();
+		for (String line : histogram.split("\n")) {
+			Matcher matcher = histogramLine.matcher(line);
+			if (!matcher.matches())
+				continue;
+			String name = matcher.group(3);
+			String className = name.replaceFirst("^\\[+L(.*);$", "$1");
+			boolean member = false;
+			for (int s = 1; s < structure.length; s++) {
+				if (structure[s].endsWith("."))
+					member |= className.startsWith(structure[s])
+							&& (className.indexOf('.', structure[s].length()) == -1);
+				else
+					member |= className.equals(structure[s]) || className.startsWith(structure[s] + "$");
+			}
+			if (!member)
+				continue;
+			// The histogram is sorted by bytes and so are the lines.
+			long classInstances = Long.parseLong(matcher.group(1));
+			long classBytes = Long.parseLong(matcher.group(2));
+			instances += classInstances;
+			bytes += classBytes;
+			String simpleName = className.substring(className.lastIndexOf('.') + 1);
+			if (!className.equals(name))
+				simpleName += "[]";
+			lines.add("    " + simpleName + ": " + classInstances + " instances, " + classBytes + " bytes");
+		}
+		Report.info("  " + structure[0] + ": " + instances + " instances, " + bytes + " bytes");
+		for (String line : lines)
+			Report.info(line);
+	}
+
+	/**
+	 * Returns the number of nodes of an intermediate code tree.
+	 *
+	 * @param imc
+	 *            The intermediate code tree (or <code>null</code>).
+	 * @return The number of nodes.
+	 */
+	private static int size(IMC imc) {
+		if (imc == null)
+			return 0;
+		int size = 1;
+		if (imc instanceof BINOP)
+			size += size(((BINOP) imc).expr1) + size(((BINOP) imc).expr2);
+		else if (imc instanceof CALL) {
+			for (int arg = 0; arg < ((CALL) imc).numArgs(); arg++)
+				size += size(((CALL) imc).args(arg));
+		} else if (imc instanceof CJUMP)
+			size += size(((CJUMP) imc).cond);
+		else if (imc instanceof ESTMT)
+			size += size(((ESTMT) imc).expr);
+		else if (imc instanceof MEM)
+			size += size(((MEM) imc).addr);
+		else if (imc instanceof MOVE)
+			size += size(((MOVE) imc).dst) + size(((MOVE) imc).src);
+		else if (imc instanceof SEXPR)
+			size += size(((SEXPR) imc).stmt) + size(((SEXPR) imc).expr);
+		else if (imc instanceof STMTS) {
+			for (int stmt = 0; stmt < ((STMTS) imc).numStmts(); stmt++)
+				size += size(((STMTS) imc).stmts(stmt));
+		} else if (imc instanceof UNOP)
+			size += size(((UNOP) imc).expr);
+		return size;
+	}
+
+}
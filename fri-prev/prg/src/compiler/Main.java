@@ -38,33 +38,53 @@ public class Main {
 				// ***** Lexical analysis. *****
 				if (task.phase.equals("lexan")) {
 					LexAn lexAn = new LexAn(task);
-					lexAn.symols();
-					while (lexAn.lexAn().token != Symbol.Token.EOF) {
+					while (lexAn.tokens().token(lexAn.nextToken()) != Symbol.Token.EOF) {
 					}
 					lexAn.close();
+					if (task.census)
+						Census.report(task, "lexan");
 					break;
 				}
 
 				// ***** Syntax analysis. *****
-				SynAn synAn = new SynAn(task);
-				task.prgAST = synAn.synAn();
-				synAn.close();
+				task.prgAST = ASTCache.load(task);
+				if (task.prgAST == null) {
+					int numWarnings = Report.getNumWarnings();
+					SynAn synAn = new SynAn(task);
+					task.prgAST = synAn.synAn();
+					synAn.close();
+					// From now on, the parser is needed only by the bodies of
+					// functions that have not been parsed yet (and it is kept by
+					// them).
+					synAn = null;
+					ASTCache.store(task, task.prgAST, numWarnings);
+				}
+				if (task.census)
+					Census.report(task, "synan");
 				if (task.phase.equals("synan"))
 					break;
 
 				// ***** Abstract syntax tree. *****
 				Abstr abstr = new Abstr(task);
 				abstr.close();
+				if (task.census)
+					Census.report(task, "abstr");
 				if (task.phase.equals("abstr"))
 					break;
 
 				// ***** Semantic analysis. *****
 				SemAn seman = new SemAn(task);
-				(new EvalValue(task.prgAttrs)).visit(task.prgAST);
-				(new EvalDecl(task.prgAttrs)).visit(task.prgAST);
-				(new EvalTyp(task.prgAttrs)).visit(task.prgAST);
-				(new EvalMem(task.prgAttrs)).visit(task.prgAST);
+				if (task.semanMode.equals("passes")) {
+					(new EvalValue(task.prgAttrs)).walk(task.prgAST);
+					(new EvalDecl(task.prgAttrs)).walk(task.prgAST);
+					(new EvalTyp(task.prgAttrs)).walk(task.prgAST);
+					(new EvalMem(task.prgAttrs)).walk(task.prgAST);
+				} else
+					(new EvalSemAn(task.prgAttrs)).evaluate(task.prgAST);
 				seman.close();
+				task.release("seman");
+				if (task.census)
+					Census.report(task, "seman");
 				if (task.phase.equals("seman"))
 					break;
 
@@ -73,15 +93,21 @@ public class Main {
 
 				// Frames and accesses.
 				Frames frames = new Frames(task);
-				(new EvalFrames(task.prgAttrs)).visit(task.prgAST);
+				(new EvalFrames(task.prgAttrs)).walk(task.prgAST);
 				frames.close();
+				task.release("frames");
+				if (task.census)
+					Census.report(task, "frames");
 				if (task.phase.equals("frames"))
 					break;
 					
 				// Intermediate code generation.
 				Imcode imcode = new Imcode(task);
-				(new EvalImcode(task.prgAttrs, task.fragments)).visit(task.prgAST);
+				(new EvalImcode(task.prgAttrs, task.fragments)).walk(task.prgAST);
 				imcode.close();
+				task.release("imcode");
+				if (task.census)
+					Census.report(task, "imcode");
 				if (task.phase.equals("imcode"))
 					break;
 				
@@ -89,16 +115,22 @@ public class Main {
 				LinCode linCode = new LinCode(task);
 				//(new EvalLinCode(task.fragments)).visit(task.prgAST);
 				linCode.close();
+				if (task.census)
+					Census.report(task, "lincode");
 				if (task.phase.equals("lincode"))
 					break;
 				
 				CodeGen codeGen = new CodeGen(task);
 				codeGen.close();
+				if (task.census)
+					Census.report(task, "codegen");
 				if (task.phase.equals("codegen"))
 					break;
 				
 				RegAlloc regalloc = new RegAlloc(task);
 				regalloc.close();
+				if (task.census)
+					Census.report(task, "regalloc");
 				if (task.phase.equals("regalloc"))
 					break;
 				
@@ -32,6 +32,21 @@ public class Task {
 	/** The last phase of the compiler to be performed. */
 	public final String phase;
 
+	/** Whether the source file is lexed on demand, in parallel or in a pipeline. */
+	public final String lexMode;
+
+	/** Whether the source file is parsed by recursive descent (possibly skipping function bodies or parsing them in parallel) or by a parse table. */
+	public final String parseMode;
+
+	/** Whether the semantic analysis is performed in four separate passes or in two fused ones. */
+	public final String semanMode;
+
+	/** Whether a census of the heap is reported after each phase. */
+	public final boolean census;
+
+	/** The name of the file caching the abstract syntax tree (or an empty string). */
+	public final String astCache;
+
 	/**
 	 * Construct a new compilation task based on the command-line agruments.
 	 * 
@@ -45,6 +60,11 @@ public class Task {
 		String xslDName = "";
 		String loggedPhases = "";
 		String phase = "";
+		String lexMode = "";
+		String parseMode = "";
+		String semanMode = "";
+		boolean census = false;
+		String astCache = "";
 
 		for (int argc = 0; argc < args.length; argc++) {
 			if (args[argc].startsWith("-")) {
@@ -86,6 +106,61 @@ public class Task {
 					continue;
 				}
 
+				if (args[argc].startsWith("--lexmode=")) {
+					if (lexMode == "") {
+						lexMode = args[argc].replaceFirst("--lexmode=", "");
+						if (!lexMode.matches("(ondemand|parallel|pipelined)")) {
+							Report.warning("Illegal lexing mode specified by '" + args[argc] + "' ignored.");
+							lexMode = "";
+						}
+					} else
+						Report.warning("Lexing mode already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].startsWith("--parsemode=")) {
+					if (parseMode == "") {
+						parseMode = args[argc].replaceFirst("--parsemode=", "");
+						if (!parseMode.matches("(descent|table|lazy|parallel)")) {
+							Report.warning("Illegal parsing mode specified by '" + args[argc] + "' ignored.");
+							parseMode = "";
+						}
+					} else
+						Report.warning("Parsing mode already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].startsWith("--semanmode=")) {
+					if (semanMode == "") {
+						semanMode = args[argc].replaceFirst("--semanmode=", "");
+						if (!semanMode.matches("(fused|passes)")) {
+							Report.warning("Illegal semantic analysis mode specified by '" + args[argc] + "' ignored.");
+							semanMode = "";
+						}
+					} else
+						Report.warning("Semantic analysis mode already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
+				if (args[argc].equals("--census")) {
+					if (census)
+						Report.warning("Census already requested, option '" + args[argc] + "' ignored.");
+					census = true;
+					continue;
+				}
+
+				if (args[argc].startsWith("--astcache=")) {
+					if (astCache == "") {
+						astCache = args[argc].replaceFirst("--astcache=", "");
+						if (astCache.equals("")) {
+							Report.warning("No AST cache file specified by '" + args[argc] + "'; option ignored.");
+							astCache = "";
+						}
+					} else
+						Report.warning("AST cache file already specified, option '" + args[argc] + "' ignored.");
+					continue;
+				}
+
 				Report.warning("Unknown command line option '" + args[argc] + "'.");
 			} else {
 				// This is a file name.
@@ -102,6 +177,11 @@ public class Task {
 		this.xslDName = xslDName;
 		this.loggedPhases = loggedPhases;
 		this.phase = phase;
+		this.lexMode = lexMode == "" ? "ondemand" : lexMode;
+		this.parseMode = parseMode == "" ? "descent" : parseMode;
+		this.semanMode = semanMode == "" ? "fused" : semanMode;
+		this.census = census;
+		this.astCache = astCache;
 
 		// Check the source file name.
 		if (this.srcFName == "")
@@ -122,5 +202,37 @@ public class Task {
 	 * Fragments of the program (indexed by entry labels).
 	 */
     public HashMap<String, Fragment> fragments = new HashMap<String, Fragment>();
+
+	/**
+	 * Releases the data no phase after the specified one needs (see
+	 * {@link compiler.data.ast.attr.Attributes}). The log of a phase includes
+	 * the attributes computed by the earlier phases, so they are kept as long
+	 * as a later phase is logged.
+	 * 
+	 * <p>
+	 * Once the intermediate code has been generated, the abstract syntax tree
+	 * and all its attributes are released, as the later phases need the
+	 * fragments only.
+	 * </p>
+	 * 
+	 * @param phase
+	 *            The phase that has just been completed.
+	 */
+	public void release(String phase) {
+		switch (phase) {
+		case "seman":
+			if ((loggedPhases.indexOf("frames") == -1) && (loggedPhases.indexOf("imcode") == -1))
+				prgAttrs.releaseSemAn();
+			break;
+		case "frames":
+			if (loggedPhases.indexOf("imcode") == -1)
+				prgAttrs.releaseSemAn();
+			break;
+		case "imcode":
+			prgAttrs.release();
+			prgAST = null;
+			break;
+		}
+	}
     
 }
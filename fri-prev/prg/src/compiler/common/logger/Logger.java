@@ -1,18 +1,24 @@
 package compiler.common.logger;
 
 import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
 import java.util.*;
-import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
-import org.w3c.dom.*;
 
 import compiler.common.report.*;
 
 /**
  * A logger used to generate a log file for a compiler phase.
- * 
+ *
+ * <p>
+ * The log is written to the log file as it is being produced: an element is
+ * written out as soon as its first child is started or it is ended, so only
+ * the path from the root of the log document to the current element is kept
+ * in memory. The log is written to a temporary file first and it replaces the
+ * log file when the logger is closed, so no partial log file is left behind
+ * if the compiler stops before that.
+ * </p>
+ *
  * @author sliva
  */
 public class Logger implements AutoCloseable {
@@ -23,18 +29,30 @@ public class Logger implements AutoCloseable {
 	/** The name of the style file. */
 	private final String xslFileName;
 
-	/** The document representing the entire log. */
-	private final Document doc;
+	/** The temporary file the log is written to. */
+	private File tmpFile;
 
-	/** The path from the root of the log document to the current node. */
-	private final Stack<Element> elements = new Stack<Element>();
+	/** The writer of the temporary file (or <code>null</code> if it failed). */
+	private Writer writer;
 
-	/** The document transformer. */
-	private Transformer transformer;
+	/** The path from the root of the log document to the current element. */
+	private final Stack<String> elements = new Stack<String>();
+
+	/**
+	 * Whether the start tag of the current element has not been written out
+	 * yet, i.e., whether attributes can still be added to it.
+	 */
+	private boolean open;
+
+	/** The names of the attributes of the current element (sorted). */
+	private final ArrayList<String> attrNames = new ArrayList<String>();
+
+	/** The values of the attributes of the current element. */
+	private final ArrayList<String> attrValues = new ArrayList<String>();
 
 	/**
 	 * Constructs a new logger.
-	 * 
+	 *
 	 * @param xmlFileName
 	 *            The file name of the log file (without phase name and
 	 *            <code>.xml</code> extension).
@@ -44,86 +62,89 @@ public class Logger implements AutoCloseable {
 	public Logger(String xmlFileName, String xslFileName) {
 		this.xmlFileName = xmlFileName;
 		this.xslFileName = xslFileName;
-		this.transformer = null;
 
-		// Prepare a new log document.
+		// Prepare a new log file.
 		try {
-			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-		} catch (ParserConfigurationException ex) {
-			throw new InternalCompilerError();
+			File xmlFile = new File(xmlFileName).getAbsoluteFile();
+			tmpFile = File.createTempFile(xmlFile.getName(), ".tmp", xmlFile.getParentFile());
+			tmpFile.deleteOnExit();
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8));
+		} catch (IOException | SecurityException ex) {
+			tmpFile = null;
+			writer = null;
 		}
 
-		// Create the root element representing the entire phase.
-		Element phase = doc.createElement("report");
-		doc.appendChild(phase);
-		elements.push(phase);
-
-		// Add XSL declaration.
-		ProcessingInstruction xsl = doc.createProcessingInstruction("xml-stylesheet",
-				"type=\"text/xsl\" href=\"" + this.xslFileName + "\"");
-		doc.insertBefore(xsl, phase);
+		// Add XSL declaration and the root element representing the entire
+		// phase.
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+		write("<?xml-stylesheet type=\"text/xsl\" href=\"" + this.xslFileName + "\"?>");
+		begElement("report");
 	}
 
 	/**
-	 * Dumps the entire log document to the log file.
+	 * Finishes the log document and moves it to the log file.
 	 */
 	@Override
 	public void close() {
-		try {
-			elements.pop();
-		} catch (EmptyStackException ex) {
+		if (elements.isEmpty())
 			throw new InternalCompilerError();
-		}
-
-		Document transformedDoc = transformer == null ? doc : transformer.transform(doc);
+		while (!elements.isEmpty())
+			endElement();
 
 		// Dump the log document out.
 		try {
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
-			DOMSource source = new DOMSource(transformedDoc);
-			StreamResult result = new StreamResult(new File(xmlFileName));
-			transformer.transform(source, result);
-		} catch (TransformerException ex) {
+			if (writer == null)
+				throw new IOException();
+			writer.close();
+			Files.move(tmpFile.toPath(), Paths.get(xmlFileName), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException ex) {
 			Report.warning("Cannot generate log file '" + xmlFileName + "'.");
 		}
-	}
-	
-	public void setTransformer(Transformer transformer) {
-		this.transformer = transformer;
+		writer = null;
 	}
 
 	/**
 	 * Starts constructing a new log element with a specified tag name as a
 	 * child of the current log element, and makes the new log element the
 	 * current log element.
-	 * 
+	 *
 	 * @param tagName
 	 *            The tag of the new log element.
 	 */
 	public void begElement(String tagName) {
-		try {
-			Element element = doc.createElement(tagName);
-			elements.peek().appendChild(element);
-			elements.push(element);
-		} catch (EmptyStackException ex) {
-			throw new InternalCompilerError();
-		}
+		if (open)
+			writeStartTag(">");
+		write("<");
+		write(tagName);
+		elements.push(tagName);
+		open = true;
 	}
 
 	/**
 	 * Adds a new attribute to the current log element.
-	 * 
+	 *
+	 * <p>
+	 * Attributes must be added before the first child of the element is
+	 * started.
+	 * </p>
+	 *
 	 * @param attrName
 	 *            The attribute name.
 	 * @param attrValue
 	 *            The attribute value.
 	 */
 	public void addAttribute(String attrName, String attrValue) {
-		try {
-			elements.peek().setAttribute(attrName, attrValue);
-		} catch (EmptyStackException ex) {
+		if (!open)
 			throw new InternalCompilerError();
+		// Attributes are written out in the order of their names.
+		int a = attrNames.size();
+		while ((a > 0) && (attrNames.get(a - 1).compareTo(attrName) >= 0))
+			a--;
+		if ((a < attrNames.size()) && attrNames.get(a).equals(attrName))
+			attrValues.set(a, attrValue);
+		else {
+			attrNames.add(a, attrName);
+			attrValues.add(a, attrValue);
 		}
 	}
 
@@ -132,11 +153,93 @@ public class Logger implements AutoCloseable {
 	 * current log element again.
 	 */
 	public void endElement() {
+		String tagName;
 		try {
-			elements.pop();
+			tagName = elements.pop();
 		} catch (EmptyStackException ex) {
 			throw new InternalCompilerError();
 		}
+		if (open)
+			writeStartTag("/>");
+		else {
+			write("</");
+			write(tagName);
+			write(">");
+		}
+	}
+
+	/**
+	 * Writes out the attributes of the current element and the end of its
+	 * start tag.
+	 *
+	 * @param end
+	 *            The end of the start tag.
+	 */
+	private void writeStartTag(String end) {
+		for (int a = 0; a < attrNames.size(); a++) {
+			write(" ");
+			write(attrNames.get(a));
+			write("=\"");
+			writeEscaped(attrValues.get(a));
+			write("\"");
+		}
+		write(end);
+		attrNames.clear();
+		attrValues.clear();
+		open = false;
+	}
+
+	/**
+	 * Writes out an attribute value, replacing the characters that cannot
+	 * appear in it by references.
+	 *
+	 * @param value
+	 *            The attribute value.
+	 */
+	private void writeEscaped(String value) {
+		if (value == null)
+			return;
+		int from = 0;
+		for (int c = 0; c < value.length(); c++) {
+			char ch = value.charAt(c);
+			String ref;
+			switch (ch) {
+			case '"':
+				ref = "&quot;";
+				break;
+			case '&':
+				ref = "&amp;";
+				break;
+			case '<':
+				ref = "&lt;";
+				break;
+			case '>':
+				ref = "&gt;";
+				break;
+			default:
+				if (ch >= ' ')
+					continue;
+				ref = "&#" + (int) ch + ";";
+			}
+			write(value, from, c);
+			write(ref);
+			from = c + 1;
+		}
+		write(value, from, value.length());
+	}
+
+	private void write(String text) {
+		write(text, 0, text.length());
+	}
+
+	private void write(String text, int begin, int end) {
+		if ((writer == null) || (begin == end))
+			return;
+		try {
+			writer.write(text, begin, end - begin);
+		} catch (IOException ex) {
+			writer = null;
+		}
 	}
 
 }
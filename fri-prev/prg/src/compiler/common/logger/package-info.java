@@ -14,6 +14,9 @@
  * <li>each time a construction of the current element is finished, its parent
  * becomes the current element again.</li>
  * </ul>
+ * The log document is written to the log file as it is being constructed, so
+ * all attributes of an element must be added before its first child is
+ * constructed.
  * 
  * @author sliva
  */
@@ -0,0 +1,255 @@
+package compiler.common.report;
+
+import java.util.*;
+
+/**
+ * The table of lines of a source file.
+ *
+ * <p>
+ * Each source file is assigned a small integer id and a table of indices of
+ * the first characters of its lines. {@link compiler.common.report.Position
+ * Positions} store only file ids and character indices; lines and columns are
+ * computed from this table when a position is printed out or logged.
+ * </p>
+ *
+ * <p>
+ * The table with id <code>0</code> denotes no file at all and contains no
+ * lines: all its characters lie at line <code>0</code>, column
+ * <code>0</code>.
+ * </p>
+ *
+ * <p>
+ * When the source file is edited, the lines of the edited part are
+ * {@link #splice(int, int, int[], int, int) spliced} into the table. To keep
+ * this cheap for large files, the table is kept as a gap buffer: the lines
+ * after the gap (i.e., after the last edit) are stored without the shift
+ * caused by the edits, which is added when they are read.
+ * </p>
+ *
+ * @author juliette
+ */
+public class LineTable {
+
+	/** All line tables indexed by their file ids. */
+	private static final ArrayList<LineTable> tables = new ArrayList<LineTable>();
+
+	static {
+		tables.add(new LineTable(0, "", false));
+	}
+
+	/** The id of the file. */
+	public final int fileId;
+
+	/** The name of the file. */
+	public final String fileName;
+
+	/** The indices of the first characters of lines, line 1 at index 0. */
+	private int[] lineBegins;
+
+	/** The number of lines started so far. */
+	private int numLines;
+
+	/** The index of the first element of the gap in {@link #lineBegins}. */
+	private int gapBegin;
+
+	/** The index of the first element past the gap in {@link #lineBegins}. */
+	private int gapEnd;
+
+	/** The shift of the lines stored after the gap. */
+	private int gapShift;
+
+	private LineTable(int fileId, String fileName, boolean hasLines) {
+		this.fileId = fileId;
+		this.fileName = fileName;
+		this.lineBegins = new int[16];
+		this.numLines = hasLines ? 1 : 0;
+		this.gapBegin = numLines;
+		this.gapEnd = lineBegins.length;
+		this.gapShift = 0;
+	}
+
+	/**
+	 * Creates a new line table for a source file. The table contains only the
+	 * first line starting at index <code>0</code>; further lines are added by
+	 * the lexical analyzer as they are found.
+	 *
+	 * @param fileName
+	 *            The name of the source file.
+	 * @return The new line table.
+	 */
+	public static synchronized LineTable newLineTable(String fileName) {
+		LineTable table = new LineTable(tables.size(), fileName, true);
+		tables.add(table);
+		return table;
+	}
+
+	/**
+	 * Returns the line table of a file.
+	 *
+	 * @param fileId
+	 *            The id of the file.
+	 * @return The line table.
+	 */
+	public static synchronized LineTable lineTable(int fileId) {
+		return tables.get(fileId);
+	}
+
+	/**
+	 * Returns the most recent line table of a file. If no line table of the
+	 * file exists, a new line table without any lines is created.
+	 *
+	 * @param fileName
+	 *            The name of the file.
+	 * @return The line table.
+	 */
+	public static synchronized LineTable lineTable(String fileName) {
+		for (int fileId = tables.size() - 1; fileId >= 0; fileId--)
+			if (tables.get(fileId).fileName.equals(fileName))
+				return tables.get(fileId);
+		LineTable table = new LineTable(tables.size(), fileName, false);
+		tables.add(table);
+		return table;
+	}
+
+	/**
+	 * Starts a new line.
+	 *
+	 * @param begIndex
+	 *            The index of the first character of the new line.
+	 */
+	public synchronized void addLine(int begIndex) {
+		moveGap(numLines);
+		if (gapBegin == gapEnd)
+			grow(1);
+		lineBegins[gapBegin++] = begIndex;
+		numLines++;
+	}
+
+	/**
+	 * Replaces the lines starting within a part of the source file that has
+	 * been edited and shifts the lines following it.
+	 *
+	 * @param begIndex
+	 *            The index of the first character of the edited part, which
+	 *            must be the first character of a line.
+	 * @param endIndex
+	 *            The index of the first character past the edited part before
+	 *            the edit.
+	 * @param lines
+	 *            The indices of the first characters of the lines starting
+	 *            after <code>begIndex</code> up to the end of the edited part
+	 *            (inclusive) after the edit.
+	 * @param count
+	 *            The number of these lines.
+	 * @param shift
+	 *            The change of the length of the edited part.
+	 */
+	public synchronized void splice(int begIndex, int endIndex, int[] lines, int count, int shift) {
+		int first = line(begIndex);
+		int last = line(endIndex);
+		moveGap(first);
+		gapEnd += last - first;
+		numLines -= last - first;
+		if (gapEnd - gapBegin < count)
+			grow(count);
+		System.arraycopy(lines, 0, lineBegins, gapBegin, count);
+		gapBegin += count;
+		numLines += count;
+		gapShift += shift;
+	}
+
+	/**
+	 * Returns the number of lines started so far.
+	 *
+	 * @return The number of lines.
+	 */
+	public synchronized int numLines() {
+		return numLines;
+	}
+
+	/**
+	 * Returns the line of a character.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The line of the character.
+	 */
+	public synchronized int line(int index) {
+		int lo = 0;
+		int hi = numLines;
+		// Find the number of lines starting at or before the character.
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (lineBegin(mid) <= index)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the column of a character.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The column of the character.
+	 */
+	public synchronized int column(int index) {
+		int line = line(index);
+		return line == 0 ? 0 : index - lineBegin(line - 1) + 1;
+	}
+
+	/**
+	 * Returns the index of a character.
+	 *
+	 * @param line
+	 *            The line of the character.
+	 * @param column
+	 *            The column of the character.
+	 * @return The index of the character (or <code>0</code> if the line is
+	 *         not in the table).
+	 */
+	public synchronized int index(int line, int column) {
+		if ((line < 1) || (line > numLines))
+			return 0;
+		return lineBegin(line - 1) + column - 1;
+	}
+
+	/** Returns the index of the first character of a line (line 1 at 0). */
+	private int lineBegin(int l) {
+		return l < gapBegin ? lineBegins[l] : lineBegins[l + gapEnd - gapBegin] + gapShift;
+	}
+
+	/** Moves the gap in front of a line (line 1 at 0). */
+	private void moveGap(int l) {
+		if (l < gapBegin) {
+			int count = gapBegin - l;
+			System.arraycopy(lineBegins, l, lineBegins, gapEnd - count, count);
+			for (int e = gapEnd - count; e < gapEnd; e++)
+				lineBegins[e] -= gapShift;
+			gapBegin -= count;
+			gapEnd -= count;
+		} else if (l > gapBegin) {
+			int count = l - gapBegin;
+			System.arraycopy(lineBegins, gapEnd, lineBegins, gapBegin, count);
+			for (int e = gapBegin; e < gapBegin + count; e++)
+				lineBegins[e] += gapShift;
+			gapBegin += count;
+			gapEnd += count;
+		}
+		if (gapEnd == lineBegins.length)
+			gapShift = 0;
+	}
+
+	/** Enlarges the gap to hold at least the specified number of lines. */
+	private void grow(int count) {
+		int[] newLineBegins = new int[2 * lineBegins.length + count];
+		int tail = lineBegins.length - gapEnd;
+		System.arraycopy(lineBegins, 0, newLineBegins, 0, gapBegin);
+		System.arraycopy(lineBegins, gapEnd, newLineBegins, newLineBegins.length - tail, tail);
+		lineBegins = newLineBegins;
+		gapEnd = newLineBegins.length - tail;
+	}
+
+}
@@ -5,27 +5,29 @@ import compiler.common.logger.*;
 /**
  * Denotes the position of a text within a file.
  * 
+ * <p>
+ * A position is packed into two <code>long</code>s, one for the first and one
+ * for the last character of the text. Each contains the id of the file (see
+ * {@link compiler.common.report.LineTable}) in its upper and the index of the
+ * character within the file in its lower 32 bits. Lines and columns are
+ * computed only when the position is printed out or logged.
+ * </p>
+ * 
+ * <p>
+ * When the source file is edited and reparsed incrementally, the positions of
+ * the reused nodes of the abstract syntax tree are {@link #move(int, int)
+ * moved} instead of being created anew.
+ * </p>
+ * 
  * @author sliva
  */
 public class Position implements Loggable {
 
-	/** The name of the file containing the first character of text. */
-	private final String begFileName;
-
-	/** The line of the first character of the text. */
-	private final int begLine;
-
-	/** The column of the first character of the text. */
-	private final int begColumn;
+	/** The file id and the index of the first character of the text. */
+	private long begin;
 
-	/** The name of the file containing the last character of the text. */
-	private final String endFileName;
-
-	/** The line of the last character of the text. */
-	private final int endLine;
-
-	/** The column of the last character of the text. */
-	private final int endColumn;
+	/** The file id and the index of the last character of the text. */
+	private long end;
 
 	/**
 	 * Constructs a new position denoting a single character.
@@ -44,6 +46,12 @@ public class Position implements Loggable {
 	/**
 	 * Constructs a new position denoting a sequence of characters.
 	 * 
+	 * <p>
+	 * Lines and columns are converted to indices using the line table of the
+	 * file, so they must denote characters that have already been read by the
+	 * lexical analyzer.
+	 * </p>
+	 * 
 	 * @param begFileName
 	 *            The name of the file containing the first character of the
 	 *            text.
@@ -60,12 +68,44 @@ public class Position implements Loggable {
 	 *            The column of the last character of the text.
 	 */
 	public Position(String begFileName, int begLine, int begColumn, String endFileName, int endLine, int endColumn) {
-		this.begFileName = begFileName;
-		this.begLine = begLine;
-		this.begColumn = begColumn;
-		this.endFileName = endFileName;
-		this.endLine = endLine;
-		this.endColumn = endColumn;
+		LineTable begTable = LineTable.lineTable(begFileName);
+		LineTable endTable = LineTable.lineTable(endFileName);
+		this.begin = pack(begTable.fileId, begTable.index(begLine, begColumn));
+		this.end = pack(endTable.fileId, endTable.index(endLine, endColumn));
+	}
+
+	/**
+	 * Constructs a new position denoting a sequence of characters within a
+	 * single file.
+	 * 
+	 * @param fileId
+	 *            The id of the file containing the text.
+	 * @param begIndex
+	 *            The index of the first character of the text.
+	 * @param endIndex
+	 *            The index of the last character of the text.
+	 */
+	public Position(int fileId, int begIndex, int endIndex) {
+		this.begin = pack(fileId, begIndex);
+		this.end = pack(fileId, endIndex);
+	}
+
+	/**
+	 * Constructs a new position denoting a sequence of characters.
+	 * 
+	 * @param begFileId
+	 *            The id of the file containing the first character of the
+	 *            text.
+	 * @param begIndex
+	 *            The index of the first character of the text.
+	 * @param endFileId
+	 *            The id of the file containing the last character of the text.
+	 * @param endIndex
+	 *            The index of the last character of the text.
+	 */
+	public Position(int begFileId, int begIndex, int endFileId, int endIndex) {
+		this.begin = pack(begFileId, begIndex);
+		this.end = pack(endFileId, endIndex);
 	}
 
 	/**
@@ -75,12 +115,8 @@ public class Position implements Loggable {
 	 *            The specified position.
 	 */
 	public Position(Position position) {
-		this.begFileName = position.begFileName;
-		this.begLine = position.begLine;
-		this.begColumn = position.begColumn;
-		this.endFileName = position.endFileName;
-		this.endLine = position.endLine;
-		this.endColumn = position.endColumn;
+		this.begin = position.begin;
+		this.end = position.end;
 	}
 
 	/**
@@ -92,17 +128,78 @@ public class Position implements Loggable {
 	 *            The last position.
 	 */
 	public Position(Position begPosition, Position endPosition) {
-		this.begFileName = begPosition.begFileName;
-		this.begLine = begPosition.begLine;
-		this.begColumn = begPosition.begColumn;
-		this.endFileName = begPosition.endFileName;
-		this.endLine = endPosition.endLine;
-		this.endColumn = endPosition.endColumn;
+		this.begin = begPosition.begin;
+		this.end = endPosition.end;
+	}
+
+	/**
+	 * Returns the id of the file containing the first character of the text.
+	 * 
+	 * @return The id of the file.
+	 */
+	public int begFileId() {
+		return (int) (begin >>> 32);
+	}
+
+	/**
+	 * Returns the id of the file containing the last character of the text.
+	 * 
+	 * @return The id of the file.
+	 */
+	public int endFileId() {
+		return (int) (end >>> 32);
+	}
+
+	/**
+	 * Returns the index of the first character of the text.
+	 * 
+	 * @return The index of the first character.
+	 */
+	public int begIndex() {
+		return (int) begin;
+	}
+
+	/**
+	 * Returns the index of the last character of the text.
+	 * 
+	 * @return The index of the last character.
+	 */
+	public int endIndex() {
+		return (int) end;
+	}
+
+	/**
+	 * Moves the position within its file(s).
+	 * 
+	 * @param begIndex
+	 *            The new index of the first character of the text.
+	 * @param endIndex
+	 *            The new index of the last character of the text.
+	 */
+	public void move(int begIndex, int endIndex) {
+		begin = pack((int) (begin >>> 32), begIndex);
+		end = pack((int) (end >>> 32), endIndex);
+	}
+
+	private static long pack(int fileId, int index) {
+		return ((long) fileId << 32) | (index & 0xFFFFFFFFL);
+	}
+
+	private static LineTable lineTable(long location) {
+		return LineTable.lineTable((int) (location >>> 32));
+	}
+
+	private static int line(long location) {
+		return lineTable(location).line((int) location);
+	}
+
+	private static int column(long location) {
+		return lineTable(location).column((int) location);
 	}
 
 	@Override
 	public String toString() {
-		return "[" + begLine + "." + begColumn + "--" + endLine + "." + endColumn + "]";
+		return "[" + line(begin) + "." + column(begin) + "--" + line(end) + "." + column(end) + "]";
 	}
 
 	@Override
@@ -110,12 +207,12 @@ public class Position implements Loggable {
 		if (logger == null)
 			return;
 		logger.begElement("position");
-		logger.addAttribute("begsource", begFileName);
-		logger.addAttribute("begLine", Integer.toString(begLine));
-		logger.addAttribute("begColumn", Integer.toString(begColumn));
-		logger.addAttribute("endsource", endFileName);
-		logger.addAttribute("endLine", Integer.toString(endLine));
-		logger.addAttribute("endColumn", Integer.toString(endColumn));
+		logger.addAttribute("begsource", lineTable(begin).fileName);
+		logger.addAttribute("begLine", Integer.toString(line(begin)));
+		logger.addAttribute("begColumn", Integer.toString(column(begin)));
+		logger.addAttribute("endsource", lineTable(end).fileName);
+		logger.addAttribute("endLine", Integer.toString(line(end)));
+		logger.addAttribute("endColumn", Integer.toString(column(end)));
 		logger.endElement();
 	}
 
@@ -4,6 +4,64 @@ import compiler.data.ast.code.*;
 
 public interface AST {
 		
+	/**
+	 * The kinds of nodes, one for each concrete class of the abstract syntax
+	 * tree.
+	 * 
+	 * <p>
+	 * A traversal can dispatch on the kind of a node with a
+	 * <code>switch</code> instead of asking the node to accept a visitor: the
+	 * call sites of {@link AST#accept(Visitor)} and of the visiting methods
+	 * see all node classes and cannot be inlined, while each case of a
+	 * <code>switch</code> calls a method of one node class only. Each concrete
+	 * class returns its kind as a constant, so nodes do not store it.
+	 * </p>
+	 */
+	public enum Kind {
+		ARR_TYPE,
+		ATOM_EXPR,
+		ATOM_TYPE,
+		BIN_EXPR,
+		CAST_EXPR,
+		COMP_DECL,
+		COMP_NAME,
+		DECL_ERROR,
+		EXPRS,
+		EXPR_ERROR,
+		FOR_EXPR,
+		FUN_CALL,
+		FUN_DECL,
+		FUN_DEF,
+		IF_EXPR,
+		PAR_DECL,
+		PROGRAM,
+		PTR_TYPE,
+		REC_TYPE,
+		TYPE_DECL,
+		TYPE_ERROR,
+		TYPE_NAME,
+		UN_EXPR,
+		VAR_DECL,
+		VAR_NAME,
+		WHERE_EXPR,
+		WHILE_EXPR
+
+	}
+
 	public abstract void accept(Visitor visitor);
 
-}
\ No newline at end of file
+	/**
+	 * Returns the kind of this node.
+	 * 
+	 * @return The kind of this node.
+	 */
+	public abstract Kind kind();
+
+	/**
+	 * Returns the id of this node, a small integer unique among all nodes.
+	 * 
+	 * @return The id of this node.
+	 */
+	public abstract int id();
+
+}
@@ -1,5 +1,7 @@
 package compiler.data.ast;
 
+import java.util.concurrent.atomic.*;
+
 import compiler.common.report.*;
 
 /**
@@ -7,8 +9,23 @@ import compiler.common.report.*;
  */
 public abstract class ASTNode extends Position implements AST, Typeable {
 
+	/** The number of nodes constructed so far. */
+	private static final AtomicInteger numNodes = new AtomicInteger();
+
+	/**
+	 * The id of this node. Nodes are numbered in the order they are
+	 * constructed, so the attributes of the nodes of a tree can be stored in
+	 * arrays indexed by ids (see {@link compiler.data.ast.attr.Attribute}).
+	 */
+	private final int id = numNodes.getAndIncrement();
+
 	public ASTNode(Position position) {
 		super(position);
 	}
 
+	@Override
+	public int id() {
+		return id;
+	}
+
 }
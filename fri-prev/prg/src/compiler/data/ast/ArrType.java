@@ -18,6 +18,11 @@ public class ArrType extends Type {
 		this.elemType = elemType;
 	}
 	
+	@Override
+	public Kind kind() {
+		return Kind.ARR_TYPE;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
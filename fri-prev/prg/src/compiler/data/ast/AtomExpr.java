@@ -22,6 +22,11 @@ public class AtomExpr extends Expr {
 		this.value = value;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.ATOM_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
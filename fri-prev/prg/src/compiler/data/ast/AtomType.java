@@ -19,6 +19,11 @@ public class AtomType extends Type {
 		this.type = type;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.ATOM_TYPE;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -25,6 +25,11 @@ public class BinExpr extends Expr {
 		this.sndExpr = sndExpr;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.BIN_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
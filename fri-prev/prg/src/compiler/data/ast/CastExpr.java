@@ -18,6 +18,11 @@ public class CastExpr extends Expr {
 		this.expr = expr;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.CAST_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -12,6 +12,11 @@ public class CompDecl extends VarDecl {
 		super(position, name, type);
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.COMP_DECL;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -12,6 +12,11 @@ public class CompName extends VarName {
 		super(position, name);
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.COMP_NAME;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
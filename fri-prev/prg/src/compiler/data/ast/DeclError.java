@@ -14,6 +14,11 @@ public class DeclError extends Decl {
 		super(new Position("", 0, 0), null, null);
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.DECL_ERROR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -14,6 +14,11 @@ public class ExprError extends Expr {
 		super(new Position("", 0, 0));
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.EXPR_ERROR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -12,11 +10,9 @@ public class Exprs extends Expr {
 
 	private final Expr[] exprs;
 	
-	public Exprs(Position position, LinkedList<Expr> exprs) {
+	public Exprs(Position position, Expr[] exprs) {
 		super(position);
-		this.exprs = new Expr[exprs.size()];
-		for (int e = 0; e < exprs.size(); e++)
-			this.exprs[e] = exprs.get(e);
+		this.exprs = exprs;
 	}
 	
 	public int numExprs() {
@@ -27,6 +23,11 @@ public class Exprs extends Expr {
 		return exprs[e];
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.EXPRS;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -24,6 +24,11 @@ public class ForExpr extends Expr {
 		this.body = body;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.FOR_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
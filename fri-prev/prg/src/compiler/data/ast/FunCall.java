@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -14,12 +12,10 @@ public class FunCall extends Expr implements Declarable {
 	
 	private final Expr[] args;
 
-	public FunCall(Position position, String name, LinkedList<Expr> args) {
+	public FunCall(Position position, String name, Expr[] args) {
 		super(position);
 		this.name = name;
-		this.args = new Expr[args.size()];
-		for (int a = 0; a < args.size(); a++)
-			this.args[a] = args.get(a);
+		this.args = args;
 	}
 
 	public int numArgs() {
@@ -35,6 +31,11 @@ public class FunCall extends Expr implements Declarable {
 		return name;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.FUN_CALL;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
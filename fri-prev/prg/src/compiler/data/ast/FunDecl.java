@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -12,11 +10,9 @@ public class FunDecl extends Decl {
 
 	private final ParDecl[] pars;
 	
-	public FunDecl(Position position, String name, LinkedList<ParDecl> pars, Type type) {
+	public FunDecl(Position position, String name, ParDecl[] pars, Type type) {
 		super(position, name, type);
-		this.pars = new ParDecl[pars.size()];
-		for (int p = 0; p < pars.size(); p++)
-			this.pars[p] = pars.get(p);
+		this.pars = pars;
 	}
 	
 	public int numPars() {
@@ -27,6 +23,11 @@ public class FunDecl extends Decl {
 		return pars[p];
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.FUN_DECL;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -10,11 +8,84 @@ import compiler.data.ast.code.*;
  */
 public class FunDef extends FunDecl {
 
-	public final Expr body;
+	/**
+	 * A parser of the body of a function which is parsed only when it is
+	 * accessed for the first time.
+	 */
+	public interface BodyParser {
+
+		/**
+		 * Parses the body of a function.
+		 *
+		 * @return The body of a function.
+		 */
+		public Expr parseBody();
+
+	}
+
+	/**
+	 * The body (or <code>null</code> if it has not been parsed yet). Once set,
+	 * it is read without locking.
+	 */
+	private volatile Expr body;
 
-	public FunDef(Position position, String name, LinkedList<ParDecl> pars, Type type, Expr body) {
+	/** The parser of the body (or <code>null</code> once it has been parsed). */
+	private BodyParser bodyParser;
+
+	/** The error reported while parsing the body (or <code>null</code>). */
+	private CompilerError bodyError = null;
+
+	public FunDef(Position position, String name, ParDecl[] pars, Type type, Expr body) {
 		super(position, name, pars, type);
 		this.body = body;
+		this.bodyParser = null;
+	}
+
+	public FunDef(Position position, String name, ParDecl[] pars, Type type, BodyParser bodyParser) {
+		super(position, name, pars, type);
+		this.body = null;
+		this.bodyParser = bodyParser;
+	}
+
+	/**
+	 * Returns the body of the function, parsing it first if it has not been
+	 * parsed yet. If the body cannot be parsed, the same error is reported by
+	 * every call.
+	 *
+	 * @return The body of the function.
+	 */
+	public Expr body() {
+		Expr body = this.body;
+		if (body != null)
+			return body;
+		synchronized (this) {
+			if ((this.body == null) && (bodyParser != null)) {
+				if (bodyError != null)
+					throw bodyError;
+				try {
+					this.body = bodyParser.parseBody();
+					bodyParser = null;
+				} catch (CompilerError error) {
+					bodyError = error;
+					throw error;
+				}
+			}
+			return this.body;
+		}
+	}
+
+	/**
+	 * Checks whether the body of the function has already been parsed.
+	 *
+	 * @return <code>true</code> if the body has been parsed.
+	 */
+	public boolean isBodyParsed() {
+		return body != null;
+	}
+
+	@Override
+	public Kind kind() {
+		return Kind.FUN_DEF;
 	}
 
 	@Override
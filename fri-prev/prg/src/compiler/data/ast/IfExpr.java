@@ -21,6 +21,11 @@ public class IfExpr extends Expr {
 		this.elseExpr = elseExpr;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.IF_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -12,6 +12,11 @@ public class ParDecl extends VarDecl {
 		super(position, name, type);
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.PAR_DECL;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -15,6 +15,11 @@ public class Program extends Expr {
 		this.expr = expr;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.PROGRAM;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
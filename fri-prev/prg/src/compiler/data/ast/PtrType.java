@@ -15,6 +15,11 @@ public class PtrType extends Type {
 		this.baseType = baseType;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.PTR_TYPE;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
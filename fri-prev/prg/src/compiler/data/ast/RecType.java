@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -12,11 +10,9 @@ public class RecType extends Type {
 	
 	private final CompDecl[] comps;
 
-	public RecType(Position position, LinkedList<CompDecl> comps) {
+	public RecType(Position position, CompDecl[] comps) {
 		super(position);
-		this.comps = new CompDecl[comps.size()];
-		for (int c = 0; c < comps.size(); c++)
-			this.comps[c] = comps.get(c);
+		this.comps = comps;
 	}
 
 	public int numComps() {
@@ -27,6 +23,11 @@ public class RecType extends Type {
 		return comps[c];
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.REC_TYPE;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
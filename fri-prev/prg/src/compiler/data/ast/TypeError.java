@@ -14,6 +14,11 @@ public class TypeError extends Type {
 		super(new Position("", 0, 0));
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.TYPE_ERROR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
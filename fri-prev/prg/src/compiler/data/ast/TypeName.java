@@ -20,6 +20,11 @@ public class TypeName extends Type implements Declarable {
 		return name;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.TYPE_NAME;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
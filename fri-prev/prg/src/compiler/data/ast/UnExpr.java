@@ -22,6 +22,11 @@ public class UnExpr extends Expr {
 		this.subExpr = subExpr;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.UN_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -12,6 +12,11 @@ public class VarDecl extends Decl {
 		super(position, name, type);
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.VAR_DECL;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
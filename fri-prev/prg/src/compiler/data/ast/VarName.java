@@ -20,6 +20,11 @@ public class VarName extends Expr implements Declarable {
 		return name;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.VAR_NAME;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
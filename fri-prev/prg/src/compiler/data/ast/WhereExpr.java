@@ -1,7 +1,5 @@
 package compiler.data.ast;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.code.*;
 
@@ -14,12 +12,10 @@ public class WhereExpr extends Expr {
 
 	private final Decl[] decls;
 
-	public WhereExpr(Position position, Expr expr, LinkedList<Decl> decls) {
+	public WhereExpr(Position position, Expr expr, Decl[] decls) {
 		super(position);
 		this.expr = expr;
-		this.decls = new Decl[decls.size()];
-		for (int d = 0; d < decls.size(); d++)
-			this.decls[d] = decls.get(d);
+		this.decls = decls;
 	}
 
 	public int numDecls() {
@@ -30,6 +26,11 @@ public class WhereExpr extends Expr {
 		return decls[d];
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.WHERE_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
@@ -18,6 +18,11 @@ public class WhileExpr extends Expr {
 		this.body = body;
 	}
 
+	@Override
+	public Kind kind() {
+		return Kind.WHILE_EXPR;
+	}
+
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visit(this);
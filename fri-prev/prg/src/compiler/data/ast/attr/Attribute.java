@@ -1,7 +1,5 @@
 package compiler.data.ast.attr;
 
-import java.util.*;
-
 import compiler.common.report.*;
 import compiler.data.ast.*;
 
@@ -20,12 +18,39 @@ import compiler.data.ast.*;
  * adding new attributes to AST without changing AST hierarchy.
  * </p>
  * 
+ * <p>
+ * The values are stored in an array indexed by the {@link AST#id() ids} of
+ * the nodes. As the nodes of a tree are numbered consecutively, the array only
+ * covers the range of ids of the nodes the attribute has been set for, and it
+ * is extended (by at least doubling its size) whenever a value is set for a
+ * node outside of it. Subclasses store the values of primitive types without
+ * boxing them.
+ * </p>
+ * 
+ * <p>
+ * Once no phase needs an attribute any more, its storage can be released (see
+ * {@link Attributes}). Any later attempt to get or set its value is an
+ * internal error.
+ * </p>
+ * 
  * @author sliva
  */
 public class Attribute<Node extends AST, Value> {
 
-	/** A mapping from AST nodes to attribute values. */
-	private HashMap<Node, Value> mapping = mapping = new HashMap<Node, Value>();;
+	/**
+	 * The id of the node the first element of the storage belongs to (a
+	 * multiple of 64).
+	 */
+	private int base = 0;
+
+	/** The number of nodes the storage is allocated for (a multiple of 64). */
+	private int capacity = 0;
+
+	/** The attribute values indexed by the ids of the nodes minus the base. */
+	private Object[] values = new Object[0];
+
+	/** Whether the storage has been released. */
+	private boolean released = false;
 
 	/**
 	 * Sets a value of the AST nodes' attribute (if it has not been set
@@ -40,11 +65,12 @@ public class Attribute<Node extends AST, Value> {
 	 *             inserted is <code>null</code>.
 	 */
 	public void set(Node node, Value value) {
-		if (mapping.containsKey(node))
-			throw new InternalCompilerError();
 		if (value == null)
 			throw new InternalCompilerError();
-		mapping.put(node, value);
+		int index = allocate(node);
+		if (values[index] != null)
+			throw new InternalCompilerError();
+		values[index] = value;
 	}
 
 	/**
@@ -55,8 +81,123 @@ public class Attribute<Node extends AST, Value> {
 	 * @return AST node's attribute value or <code>null</code> if the value has
 	 *         not yet been set.
 	 */
+	@SuppressWarnings("unchecked")
 	public Value get(Node node) {
-		return mapping.get(node);
+		int index = index(node);
+		return index < 0 ? null : (Value) values[index];
+	}
+
+	/**
+	 * Returns the number of AST nodes the value of the attribute has been set
+	 * for.
+	 * 
+	 * @return The number of values.
+	 */
+	public int size() {
+		int size = 0;
+		for (Object value : values)
+			if (value != null)
+				size++;
+		return size;
+	}
+
+	/**
+	 * Returns an estimate of the number of bytes the storage of the attribute
+	 * takes (not counting the values it refers to).
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long storageBytes() {
+		return 16 + 4L * values.length;
+	}
+
+	/**
+	 * Releases the storage of the attribute.
+	 */
+	public void release() {
+		released = true;
+		base = 0;
+		capacity = 0;
+		free();
+	}
+
+	/**
+	 * Checks whether the storage of the attribute has been released.
+	 * 
+	 * @return <code>true</code> if the storage has been released.
+	 */
+	public boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Returns the index of the storage element of a node.
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @return The index or <code>-1</code> if no storage has been allocated
+	 *         for the node.
+	 * @throws InternalCompilerError
+	 *             If the storage has been released.
+	 */
+	protected final int index(Node node) {
+		int index = node.id() - base;
+		if ((index >= 0) && (index < capacity))
+			return index;
+		if (released)
+			throw new InternalCompilerError();
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the storage element of a node, extending the
+	 * storage if necessary.
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @return The index.
+	 * @throws InternalCompilerError
+	 *             If the storage has been released.
+	 */
+	protected final int allocate(Node node) {
+		if (released)
+			throw new InternalCompilerError();
+		int id = node.id();
+		if (capacity == 0)
+			base = id & ~63;
+		if ((id < base) || (id - base >= capacity)) {
+			int lo = Math.min(base, id & ~63);
+			int hi = Math.max(base + capacity, (id & ~63) + 64);
+			int newCapacity = Math.max(hi - lo, 2 * capacity);
+			int newBase = id < base ? base + capacity - newCapacity : base;
+			resize(base - newBase, newCapacity);
+			base = newBase;
+			capacity = newCapacity;
+		}
+		return id - base;
+	}
+
+	/**
+	 * Reallocates the storage.
+	 * 
+	 * @param shift
+	 *            The new index of the first element of the old storage (a
+	 *            multiple of 64).
+	 * @param capacity
+	 *            The number of nodes the new storage is allocated for (a
+	 *            multiple of 64).
+	 */
+	protected void resize(int shift, int capacity) {
+		Object[] values = new Object[capacity];
+		System.arraycopy(this.values, 0, values, shift, this.values.length);
+		this.values = values;
+	}
+
+	/**
+	 * Frees the storage.
+	 */
+	protected void free() {
+		values = new Object[0];
 	}
 
 }
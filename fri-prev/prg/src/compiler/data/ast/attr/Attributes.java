@@ -8,6 +8,21 @@ import compiler.data.imc.*;
 import compiler.data.frg.*;
 
 /**
+ * The attributes of the AST nodes.
+ * 
+ * <p>
+ * Each attribute is computed by one phase and it is needed up to the last phase
+ * that uses it, or up to the last phase whose log includes it, if later. Then
+ * it should be released so that its storage can be reclaimed (see
+ * {@link compiler.Task#release(String)}):
+ * </p>
+ * <ul>
+ * <li>the values and the addressability of expressions are computed and used
+ * by the semantic analysis only,</li>
+ * <li>all other attributes are used up to the intermediate code generation;
+ * the later phases need the fragments only.</li>
+ * </ul>
+ * 
  * @author sliva
  */
 public class Attributes {
@@ -16,7 +31,7 @@ public class Attributes {
 	 * Values of simple integer constant expressions. Value <code>null</code>
 	 * signals that the value of the attribute cannot be computed.
 	 */
-	public Attribute<Expr, Long> valueAttr = new Attribute<Expr, Long>();
+	public LongAttribute<Expr> valueAttr = new LongAttribute<Expr>();
 
 	/**
 	 * Declarations of declarable entities, i.e., every entry denotes a link
@@ -45,7 +60,7 @@ public class Attributes {
 	 * provided it is of assignable type can therefore stand on the left side of
 	 * an assignment).
 	 */
-	public Attribute<Expr, Boolean> memAttr = new Attribute<Expr, Boolean>();
+	public BooleanAttribute<Expr> memAttr = new BooleanAttribute<Expr>();
 
 	/**
 	 * A function's stack frame.
@@ -67,4 +82,26 @@ public class Attributes {
 	 */
 	public Attribute<ASTNode, Fragment> frgAttr = new Attribute<ASTNode, Fragment>();
 
+	/**
+	 * Releases the attributes used by the semantic analysis only, i.e., the
+	 * values and the addressability of expressions.
+	 */
+	public void releaseSemAn() {
+		valueAttr.release();
+		memAttr.release();
+	}
+
+	/**
+	 * Releases all attributes.
+	 */
+	public void release() {
+		releaseSemAn();
+		declAttr.release();
+		typAttr.release();
+		frmAttr.release();
+		accAttr.release();
+		imcAttr.release();
+		frgAttr.release();
+	}
+
 }
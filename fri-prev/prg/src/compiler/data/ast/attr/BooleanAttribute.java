@@ -0,0 +1,88 @@
+package compiler.data.ast.attr;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * AST node's attribute with <code>boolean</code> values.
+ * 
+ * <p>
+ * The values are stored as a bit set, together with a bit set telling which of
+ * them have been set.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class BooleanAttribute<Node extends AST> extends Attribute<Node, Boolean> {
+
+	/** The bits of the attribute values (see {@link Attribute}). */
+	private long[] values = new long[0];
+
+	/** The bits telling whether the values have been set. */
+	private long[] isSet = new long[0];
+
+	@Override
+	public void set(Node node, Boolean value) {
+		if (value == null)
+			throw new InternalCompilerError();
+		set(node, value.booleanValue());
+	}
+
+	/**
+	 * Sets a value of the AST nodes' attribute (if it has not been set
+	 * already.)
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @param value
+	 *            AST node's attribute value.
+	 * @throws InternalCompilerError
+	 *             If the value has already been set.
+	 */
+	public void set(Node node, boolean value) {
+		int index = allocate(node);
+		if ((isSet[index >>> 6] & (1L << index)) != 0)
+			throw new InternalCompilerError();
+		isSet[index >>> 6] |= 1L << index;
+		if (value)
+			values[index >>> 6] |= 1L << index;
+	}
+
+	@Override
+	public Boolean get(Node node) {
+		int index = index(node);
+		if ((index < 0) || ((isSet[index >>> 6] & (1L << index)) == 0))
+			return null;
+		return (values[index >>> 6] & (1L << index)) != 0;
+	}
+
+	@Override
+	protected void resize(int shift, int capacity) {
+		long[] values = new long[capacity >>> 6];
+		System.arraycopy(this.values, 0, values, shift >>> 6, this.values.length);
+		this.values = values;
+		long[] isSet = new long[capacity >>> 6];
+		System.arraycopy(this.isSet, 0, isSet, shift >>> 6, this.isSet.length);
+		this.isSet = isSet;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (long bits : isSet)
+			size += Long.bitCount(bits);
+		return size;
+	}
+
+	@Override
+	public long storageBytes() {
+		return 16 + 8L * values.length + 16 + 8L * isSet.length;
+	}
+
+	@Override
+	protected void free() {
+		values = new long[0];
+		isSet = new long[0];
+	}
+
+}
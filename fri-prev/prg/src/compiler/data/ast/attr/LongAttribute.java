@@ -0,0 +1,87 @@
+package compiler.data.ast.attr;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * AST node's attribute with <code>long</code> values.
+ * 
+ * <p>
+ * The values are stored unboxed, together with a bit set telling which of them
+ * have been set.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class LongAttribute<Node extends AST> extends Attribute<Node, Long> {
+
+	/** The attribute values (see {@link Attribute}). */
+	private long[] values = new long[0];
+
+	/** The bits telling whether the values have been set. */
+	private long[] isSet = new long[0];
+
+	@Override
+	public void set(Node node, Long value) {
+		if (value == null)
+			throw new InternalCompilerError();
+		set(node, value.longValue());
+	}
+
+	/**
+	 * Sets a value of the AST nodes' attribute (if it has not been set
+	 * already.)
+	 * 
+	 * @param node
+	 *            AST node.
+	 * @param value
+	 *            AST node's attribute value.
+	 * @throws InternalCompilerError
+	 *             If the value has already been set.
+	 */
+	public void set(Node node, long value) {
+		int index = allocate(node);
+		if ((isSet[index >>> 6] & (1L << index)) != 0)
+			throw new InternalCompilerError();
+		isSet[index >>> 6] |= 1L << index;
+		values[index] = value;
+	}
+
+	@Override
+	public Long get(Node node) {
+		int index = index(node);
+		if ((index < 0) || ((isSet[index >>> 6] & (1L << index)) == 0))
+			return null;
+		return values[index];
+	}
+
+	@Override
+	protected void resize(int shift, int capacity) {
+		long[] values = new long[capacity];
+		System.arraycopy(this.values, 0, values, shift, this.values.length);
+		this.values = values;
+		long[] isSet = new long[capacity >>> 6];
+		System.arraycopy(this.isSet, 0, isSet, shift >>> 6, this.isSet.length);
+		this.isSet = isSet;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (long bits : isSet)
+			size += Long.bitCount(bits);
+		return size;
+	}
+
+	@Override
+	public long storageBytes() {
+		return 16 + 8L * values.length + 16 + 8L * isSet.length;
+	}
+
+	@Override
+	protected void free() {
+		values = new long[0];
+		isSet = new long[0];
+	}
+
+}
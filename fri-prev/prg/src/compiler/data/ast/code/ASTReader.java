@@ -0,0 +1,419 @@
+package compiler.data.ast.code;
+
+import java.nio.charset.*;
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * Reads an abstract syntax tree from the compact binary form written by
+ * {@link compiler.data.ast.code.ASTWriter}.
+ *
+ * <p>
+ * The line tables of the source files are restored first (as new line
+ * tables), so that the positions of the nodes read can be printed out and
+ * logged as if the tree had just been parsed. The nodes are read in
+ * post-order: the children of each node are on the top of a stack when the
+ * node is read.
+ * </p>
+ *
+ * <p>
+ * A binary form that is truncated or does not describe a tree is rejected as
+ * a whole; the reader checks every tag, index and count it reads instead of
+ * relying on the exceptions of the Java runtime.
+ * </p>
+ *
+ * @author sliva
+ */
+public class ASTReader {
+
+	// The values of the enumerations (method values returns a new array each
+	// time it is called).
+
+	private static final AST.Kind[] kinds = AST.Kind.values();
+
+	private static final AtomExpr.AtomTypes[] atomExprTypes = AtomExpr.AtomTypes.values();
+
+	private static final AtomType.AtomTypes[] atomTypeTypes = AtomType.AtomTypes.values();
+
+	private static final BinExpr.Oper[] binOpers = BinExpr.Oper.values();
+
+	private static final UnExpr.Oper[] unOpers = UnExpr.Oper.values();
+
+	/** The binary form. */
+	private final byte[] bytes;
+
+	/** The index of the next byte to be read. */
+	private int next = 0;
+
+	/** The strings by their indices. */
+	private String[] strings;
+
+	/** The ids of the source files by their indices. */
+	private int[] fileIds;
+
+	/** The nodes read but not yet attached to their parents. */
+	private AST[] stack = new AST[64];
+
+	/** The number of nodes on the stack. */
+	private int top = 0;
+
+	/** The index of the source file of the previous node. */
+	private int prevFile = 0;
+
+	/** The index of the last character of the previous node. */
+	private int prevEndIndex = 0;
+
+	/**
+	 * Signals that the binary form is truncated or does not describe a tree.
+	 *
+	 * @author sliva
+	 */
+	@SuppressWarnings("serial")
+	private static class CacheFormatException extends Exception {
+	}
+
+	private ASTReader(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Returns the abstract syntax tree stored in a binary form.
+	 *
+	 * @param bytes
+	 *            The binary form.
+	 * @param stamp
+	 *            The stamp the binary form must have been written with.
+	 * @return The abstract syntax tree or <code>null</code> if the binary form
+	 *         has been written by another version of the writer, with another
+	 *         stamp, or is corrupt.
+	 */
+	public static Program read(byte[] bytes, long stamp) {
+		try {
+			return (new ASTReader(bytes)).read(stamp);
+		} catch (CacheFormatException ex) {
+			return null;
+		}
+	}
+
+	private Program read(long stamp) throws CacheFormatException {
+		for (byte b : ASTWriter.MAGIC)
+			if (readByte() != b)
+				return null;
+		if (readInt() != ASTWriter.VERSION)
+			return null;
+		long readStamp = 0;
+		for (int b = 0; b < 8; b++)
+			readStamp = (readStamp << 8) | (readByte() & 0xFF);
+		if (readStamp != stamp)
+			return null;
+
+		fileIds = new int[readCount()];
+		for (int file = 0; file < fileIds.length; file++) {
+			String fileName = readString();
+			int numLines = readCount();
+			if (numLines == 0) {
+				fileIds[file] = LineTable.lineTable(fileName).fileId;
+				continue;
+			}
+			LineTable lineTable = LineTable.newLineTable(fileName);
+			int lineBegin = 0;
+			for (int line = 2; line <= numLines; line++) {
+				lineBegin += readInt();
+				lineTable.addLine(lineBegin);
+			}
+			fileIds[file] = lineTable.fileId;
+		}
+
+		strings = new String[readCount()];
+		HashSet<String> distinct = new HashSet<String>();
+		for (int string = 0; string < strings.length; string++) {
+			strings[string] = readString();
+			// Equal names must be the same instance as they are compared by
+			// identity (see compiler.phase.seman.SymbolTable).
+			if (!distinct.add(strings[string]))
+				throw new CacheFormatException();
+		}
+
+		int numNodes = readCount();
+		for (int node = 0; node < numNodes; node++)
+			push(readNode());
+		if ((top != 1) || (next != bytes.length) || !(stack[0] instanceof Program))
+			throw new CacheFormatException();
+		return (Program) stack[0];
+	}
+
+	/**
+	 * Reads a node; its children are popped off the stack.
+	 */
+	private AST readNode() throws CacheFormatException {
+		int tag = readByte() & 0xFF;
+		if ((tag & ASTWriter.KIND) >= kinds.length)
+			throw new CacheFormatException();
+		switch (kinds[tag & ASTWriter.KIND]) {
+		case ARR_TYPE: {
+			Type elemType = pop(Type.class);
+			Expr size = pop(Expr.class);
+			return new ArrType(readPosition(tag, size, elemType, null), size, elemType);
+		}
+		case ATOM_EXPR: {
+			AtomExpr.AtomTypes type = atomExprTypes[readOrdinal(atomExprTypes.length)];
+			String value = readName();
+			return new AtomExpr(readPosition(tag, null, null, value), type, value);
+		}
+		case ATOM_TYPE: {
+			AtomType.AtomTypes type = atomTypeTypes[readOrdinal(atomTypeTypes.length)];
+			return new AtomType(readPosition(tag, null, null, type.name()), type);
+		}
+		case BIN_EXPR: {
+			BinExpr.Oper oper = binOpers[readOrdinal(binOpers.length)];
+			Expr sndExpr = pop(Expr.class);
+			Expr fstExpr = pop(Expr.class);
+			return new BinExpr(readPosition(tag, fstExpr, sndExpr, null), oper, fstExpr, sndExpr);
+		}
+		case CAST_EXPR: {
+			Expr expr = pop(Expr.class);
+			Type type = pop(Type.class);
+			return new CastExpr(readPosition(tag, type, expr, null), type, expr);
+		}
+		case COMP_DECL: {
+			String name = readName();
+			Type type = pop(Type.class);
+			return new CompDecl(readPosition(tag, type, type, null), name, type);
+		}
+		case COMP_NAME: {
+			String name = readName();
+			return new CompName(readPosition(tag, null, null, name), name);
+		}
+		case DECL_ERROR:
+			return new DeclError();
+		case EXPRS: {
+			Expr[] exprs = new Expr[readChildCount()];
+			for (int e = exprs.length - 1; e >= 0; e--)
+				exprs[e] = pop(Expr.class);
+			Position position = exprs.length == 0 ? readPosition(tag, null, null, null)
+					: readPosition(tag, exprs[0], exprs[exprs.length - 1], null);
+			return new Exprs(position, exprs);
+		}
+		case EXPR_ERROR:
+			return new ExprError();
+		case FOR_EXPR: {
+			Expr body = pop(Expr.class);
+			Expr hiBound = pop(Expr.class);
+			Expr loBound = pop(Expr.class);
+			VarName var = pop(VarName.class);
+			return new ForExpr(readPosition(tag, var, body, null), var, loBound, hiBound, body);
+		}
+		case FUN_CALL: {
+			String name = readName();
+			Expr[] args = new Expr[readChildCount()];
+			for (int a = args.length - 1; a >= 0; a--)
+				args[a] = pop(Expr.class);
+			Position position = args.length == 0 ? readPosition(tag, null, null, null)
+					: readPosition(tag, args[0], args[args.length - 1], null);
+			return new FunCall(position, name, args);
+		}
+		case FUN_DECL: {
+			String name = readName();
+			ParDecl[] pars = new ParDecl[readChildCount()];
+			Type type = pop(Type.class);
+			for (int p = pars.length - 1; p >= 0; p--)
+				pars[p] = pop(ParDecl.class);
+			Position position = readPosition(tag, pars.length == 0 ? type : pars[0], type, null);
+			return new FunDecl(position, name, pars, type);
+		}
+		case FUN_DEF: {
+			String name = readName();
+			ParDecl[] pars = new ParDecl[readChildCount()];
+			Expr body = pop(Expr.class);
+			Type type = pop(Type.class);
+			for (int p = pars.length - 1; p >= 0; p--)
+				pars[p] = pop(ParDecl.class);
+			Position position = readPosition(tag, pars.length == 0 ? type : pars[0], body, null);
+			return new FunDef(position, name, pars, type, body);
+		}
+		case IF_EXPR: {
+			Expr elseExpr = pop(Expr.class);
+			Expr thenExpr = pop(Expr.class);
+			Expr cond = pop(Expr.class);
+			return new IfExpr(readPosition(tag, cond, elseExpr, null), cond, thenExpr, elseExpr);
+		}
+		case PAR_DECL: {
+			String name = readName();
+			Type type = pop(Type.class);
+			return new ParDecl(readPosition(tag, type, type, null), name, type);
+		}
+		case PROGRAM: {
+			Expr expr = pop(Expr.class);
+			return new Program(readPosition(tag, expr, expr, null), expr);
+		}
+		case PTR_TYPE: {
+			Type baseType = pop(Type.class);
+			return new PtrType(readPosition(tag, baseType, baseType, null), baseType);
+		}
+		case REC_TYPE: {
+			CompDecl[] comps = new CompDecl[readChildCount()];
+			for (int c = comps.length - 1; c >= 0; c--)
+				comps[c] = pop(CompDecl.class);
+			Position position = comps.length == 0 ? readPosition(tag, null, null, null)
+					: readPosition(tag, comps[0], comps[comps.length - 1], null);
+			return new RecType(position, comps);
+		}
+		case TYPE_DECL: {
+			String name = readName();
+			Type type = pop(Type.class);
+			return new TypeDecl(readPosition(tag, type, type, null), name, type);
+		}
+		case TYPE_ERROR:
+			return new TypeError();
+		case TYPE_NAME: {
+			String name = readName();
+			return new TypeName(readPosition(tag, null, null, name), name);
+		}
+		case UN_EXPR: {
+			UnExpr.Oper oper = unOpers[readOrdinal(unOpers.length)];
+			Expr subExpr = pop(Expr.class);
+			return new UnExpr(readPosition(tag, subExpr, subExpr, null), oper, subExpr);
+		}
+		case VAR_DECL: {
+			String name = readName();
+			Type type = pop(Type.class);
+			return new VarDecl(readPosition(tag, type, type, null), name, type);
+		}
+		case VAR_NAME: {
+			String name = readName();
+			return new VarName(readPosition(tag, null, null, name), name);
+		}
+		case WHERE_EXPR: {
+			Decl[] decls = new Decl[readChildCount()];
+			for (int d = decls.length - 1; d >= 0; d--)
+				decls[d] = pop(Decl.class);
+			Expr expr = pop(Expr.class);
+			Position position = readPosition(tag, expr, decls.length == 0 ? expr : decls[decls.length - 1], null);
+			return new WhereExpr(position, expr, decls);
+		}
+		case WHILE_EXPR: {
+			Expr body = pop(Expr.class);
+			Expr cond = pop(Expr.class);
+			return new WhileExpr(readPosition(tag, cond, body, null), cond, body);
+		}
+		}
+		throw new CacheFormatException();
+	}
+
+	/**
+	 * Reads the part of the position of a node that cannot be derived (see
+	 * {@link compiler.data.ast.code.ASTWriter}).
+	 */
+	private Position readPosition(int tag, AST first, AST last, String name) throws CacheFormatException {
+		int begFile = prevFile;
+		int endFile = prevFile;
+		if ((tag & ASTWriter.FILES) != 0) {
+			begFile = readFile();
+			endFile = readFile();
+			prevFile = begFile;
+		}
+		int begIndex = ((tag & ASTWriter.BEG) != 0) ? begIndex(first) : prevEndIndex + readSignedInt();
+		int endIndex = ((tag & ASTWriter.END) != 0) ? endIndex(begIndex, last, name) : begIndex + readSignedInt();
+		prevEndIndex = endIndex;
+		return new Position(fileIds[begFile], begIndex, fileIds[endFile], endIndex);
+	}
+
+	private int begIndex(AST first) throws CacheFormatException {
+		if (first == null)
+			throw new CacheFormatException();
+		return ((Position) first).begIndex();
+	}
+
+	private int endIndex(int begIndex, AST last, String name) throws CacheFormatException {
+		if (last != null)
+			return ((Position) last).endIndex();
+		if (name != null)
+			return begIndex + name.length() - 1;
+		throw new CacheFormatException();
+	}
+
+	private String readName() throws CacheFormatException {
+		int index = readInt();
+		if ((index < 0) || (index >= strings.length))
+			throw new CacheFormatException();
+		return strings[index];
+	}
+
+	private int readFile() throws CacheFormatException {
+		int index = readInt();
+		if ((index < 0) || (index >= fileIds.length))
+			throw new CacheFormatException();
+		return index;
+	}
+
+	private int readOrdinal(int numValues) throws CacheFormatException {
+		int ordinal = readInt();
+		if ((ordinal < 0) || (ordinal >= numValues))
+			throw new CacheFormatException();
+		return ordinal;
+	}
+
+	/** Reads the number of elements of a table, each at least one byte long. */
+	private int readCount() throws CacheFormatException {
+		int count = readInt();
+		if ((count < 0) || (count > bytes.length - next))
+			throw new CacheFormatException();
+		return count;
+	}
+
+	/** Reads the number of children on the stack. */
+	private int readChildCount() throws CacheFormatException {
+		int count = readInt();
+		if ((count < 0) || (count > top))
+			throw new CacheFormatException();
+		return count;
+	}
+
+	private byte readByte() throws CacheFormatException {
+		if (next == bytes.length)
+			throw new CacheFormatException();
+		return bytes[next++];
+	}
+
+	/** Reads an unsigned integer stored as a variable-length quantity. */
+	private int readInt() throws CacheFormatException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new CacheFormatException();
+	}
+
+	/** Reads a signed integer stored as a variable-length quantity. */
+	private int readSignedInt() throws CacheFormatException {
+		int value = readInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private String readString() throws CacheFormatException {
+		int length = readCount();
+		String string = new String(bytes, next, length, StandardCharsets.UTF_8);
+		next += length;
+		return string;
+	}
+
+	private void push(AST ast) {
+		if (top == stack.length)
+			stack = Arrays.copyOf(stack, 2 * top);
+		stack[top++] = ast;
+	}
+
+	private <T> T pop(Class<T> type) throws CacheFormatException {
+		if ((top == 0) || !type.isInstance(stack[top - 1]))
+			throw new CacheFormatException();
+		AST ast = stack[top - 1];
+		stack[--top] = null;
+		return type.cast(ast);
+	}
+
+}
@@ -0,0 +1,443 @@
+package compiler.data.ast.code;
+
+import java.nio.charset.*;
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * Writes an abstract syntax tree in a compact binary form that is read back
+ * by {@link compiler.data.ast.code.ASTReader}.
+ *
+ * <p>
+ * The binary form consists of
+ * </p>
+ * <ol>
+ * <li>the magic number <code>PAST</code> and the {@link #VERSION version} of
+ * the format,</li>
+ * <li>a stamp (8 bytes) chosen by the writer, e.g., a checksum of the source
+ * file the tree has been parsed from,</li>
+ * <li>the table of source files the positions refer to, each with its name
+ * and the indices of the first characters of its lines,</li>
+ * <li>the table of strings (names and literal values), each one stored
+ * once,</li>
+ * <li>the number of nodes and the nodes themselves in post-order, so that
+ * the children of a node have been read by the time the node is.</li>
+ * </ol>
+ *
+ * <p>
+ * Each node starts with a tag, i.e., one byte holding its
+ * {@link compiler.data.ast.AST.Kind kind} and three flags, followed by its own
+ * data (names as indices into the table of strings, operators and atomic
+ * types as ordinals, and the number of children of the nodes with a list of
+ * children) and finally by the part of its position that cannot be derived.
+ * All integers are stored as variable-length quantities (7 bits per byte,
+ * least significant first). Most positions are (nearly) free:
+ * </p>
+ * <ul>
+ * <li>the position of an erroneous node is not stored at all;</li>
+ * <li>the source file is stored only if it differs from the source file of the
+ * previous node ({@link #FILES});</li>
+ * <li>the first character is not stored if it is the first character of the
+ * first child ({@link #BEG}), and is stored relative to the last character of
+ * the previous node otherwise, which is usually just a few characters
+ * away;</li>
+ * <li>the last character is not stored if it is the last character of the
+ * last child or, for a node without children, the last character of its name
+ * or keyword ({@link #END}), and is stored relative to the first character
+ * otherwise.</li>
+ * </ul>
+ * <p>
+ * Thus the binary form is smaller than the source file it has been parsed
+ * from, although it includes the positions of all nodes.
+ * </p>
+ *
+ * <p>
+ * The bodies of functions that have not been parsed yet are parsed while the
+ * tree is written.
+ * </p>
+ *
+ * @author sliva
+ */
+public class ASTWriter extends Walker {
+
+	/** The magic number the binary form starts with. */
+	public static final byte[] MAGIC = { 'P', 'A', 'S', 'T' };
+
+	/**
+	 * The version of the binary form. It must be increased whenever the form
+	 * or the abstract syntax tree changes.
+	 */
+	public static final int VERSION = 2;
+
+	/** The bits of a tag holding the kind of a node. */
+	static final int KIND = 0x1F;
+
+	/** The flag of a tag denoting that the source files are stored. */
+	static final int FILES = 0x20;
+
+	/** The flag of a tag denoting that the first character is derived. */
+	static final int BEG = 0x40;
+
+	/** The flag of a tag denoting that the last character is derived. */
+	static final int END = 0x80;
+
+	/** The nodes written so far. */
+	private final Bytes nodes = new Bytes();
+
+	/** The number of nodes written so far. */
+	private int numNodes = 0;
+
+	/** The strings by their indices. */
+	private final ArrayList<String> strings = new ArrayList<String>();
+
+	/** The indices of the strings. */
+	private final HashMap<String, Integer> stringIndices = new HashMap<String, Integer>();
+
+	/** The ids of the source files by their indices. */
+	private final ArrayList<Integer> fileIds = new ArrayList<Integer>();
+
+	/** The indices of the source files by their ids. */
+	private final HashMap<Integer, Integer> fileIndices = new HashMap<Integer, Integer>();
+
+	/** The index of the source file of the previous node. */
+	private int prevFile = 0;
+
+	/** The index of the last character of the previous node. */
+	private int prevEndIndex = 0;
+
+	/**
+	 * Returns the binary form of an abstract syntax tree.
+	 *
+	 * @param program
+	 *            The abstract syntax tree.
+	 * @param stamp
+	 *            The stamp.
+	 * @return The binary form.
+	 */
+	public static byte[] write(Program program, long stamp) {
+		ASTWriter writer = new ASTWriter();
+		writer.walk(program);
+
+		Bytes bytes = new Bytes();
+		for (byte b : MAGIC)
+			bytes.add(b);
+		bytes.addInt(VERSION);
+		for (int shift = 56; shift >= 0; shift -= 8)
+			bytes.add((byte) (stamp >>> shift));
+
+		bytes.addInt(writer.fileIds.size());
+		for (int fileId : writer.fileIds) {
+			LineTable lineTable = LineTable.lineTable(fileId);
+			bytes.addString(lineTable.fileName);
+			int numLines = lineTable.numLines();
+			bytes.addInt(numLines);
+			int prevLineBegin = 0;
+			for (int line = 2; line <= numLines; line++) {
+				int lineBegin = lineTable.index(line, 1);
+				bytes.addInt(lineBegin - prevLineBegin);
+				prevLineBegin = lineBegin;
+			}
+		}
+
+		bytes.addInt(writer.strings.size());
+		for (String string : writer.strings)
+			bytes.addString(string);
+
+		bytes.addInt(writer.numNodes);
+		bytes.add(writer.nodes);
+		return bytes.toArray();
+	}
+
+	/**
+	 * A growable array of bytes.
+	 *
+	 * @author sliva
+	 */
+	private static class Bytes {
+
+		private byte[] bytes = new byte[1024];
+
+		private int size = 0;
+
+		public void add(byte b) {
+			if (size == bytes.length)
+				bytes = Arrays.copyOf(bytes, 2 * size);
+			bytes[size++] = b;
+		}
+
+		public void add(Bytes bytes) {
+			if (this.bytes.length < size + bytes.size)
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(2 * this.bytes.length, size + bytes.size));
+			System.arraycopy(bytes.bytes, 0, this.bytes, size, bytes.size);
+			size += bytes.size;
+		}
+
+		/** Adds an unsigned integer as a variable-length quantity. */
+		public void addInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				add((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			add((byte) value);
+		}
+
+		/** Adds a signed integer as a variable-length quantity. */
+		public void addSignedInt(int value) {
+			addInt((value << 1) ^ (value >> 31));
+		}
+
+		/** Adds a string as its length followed by its UTF-8 bytes. */
+		public void addString(String string) {
+			byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+			addInt(utf8.length);
+			for (byte b : utf8)
+				add(b);
+		}
+
+		public byte[] toArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+
+	}
+
+	/**
+	 * Writes the tag of a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param first
+	 *            The first child of the node (or <code>null</code>).
+	 * @param last
+	 *            The last child of the node (or <code>null</code>).
+	 * @param name
+	 *            The name of a node without children (or <code>null</code>).
+	 * @return The tag.
+	 */
+	private int tag(ASTNode node, AST first, AST last, String name) {
+		int tag = node.kind().ordinal();
+		int begFile = file(node.begFileId());
+		int endFile = file(node.endFileId());
+		if ((begFile != prevFile) || (endFile != prevFile))
+			tag |= FILES;
+		if ((first != null) && (((Position) first).begFileId() == node.begFileId())
+				&& (((Position) first).begIndex() == node.begIndex()))
+			tag |= BEG;
+		if (last != null) {
+			if ((((Position) last).endFileId() == node.endFileId())
+					&& (((Position) last).endIndex() == node.endIndex()))
+				tag |= END;
+		} else if ((name != null) && (begFile == endFile)
+				&& (node.endIndex() == node.begIndex() + name.length() - 1))
+			tag |= END;
+		nodes.add((byte) tag);
+		numNodes++;
+		return tag;
+	}
+
+	/**
+	 * Writes the part of the position of a node that cannot be derived.
+	 */
+	private void position(ASTNode node, int tag) {
+		if ((tag & FILES) != 0) {
+			nodes.addInt(file(node.begFileId()));
+			nodes.addInt(file(node.endFileId()));
+			prevFile = file(node.begFileId());
+		}
+		if ((tag & BEG) == 0)
+			nodes.addSignedInt(node.begIndex() - prevEndIndex);
+		if ((tag & END) == 0)
+			nodes.addSignedInt(node.endIndex() - node.begIndex());
+		prevEndIndex = node.endIndex();
+	}
+
+	/**
+	 * Returns the index of a source file, adding it to the table if needed.
+	 */
+	private int file(int fileId) {
+		Integer index = fileIndices.get(fileId);
+		if (index == null) {
+			index = fileIds.size();
+			fileIds.add(fileId);
+			fileIndices.put(fileId, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Writes a string as its index, adding it to the table if needed.
+	 */
+	private void string(String string) {
+		Integer index = stringIndices.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+		nodes.addInt(index);
+	}
+
+	/**
+	 * Writes a node without a position.
+	 */
+	private void error(ASTNode node) {
+		nodes.add((byte) node.kind().ordinal());
+		numNodes++;
+	}
+
+	protected void post(ArrType arrType) {
+		position(arrType, tag(arrType, arrType.size, arrType.elemType, null));
+	}
+
+	protected void post(AtomExpr atomExpr) {
+		int tag = tag(atomExpr, null, null, atomExpr.value);
+		nodes.addInt(atomExpr.type.ordinal());
+		string(atomExpr.value);
+		position(atomExpr, tag);
+	}
+
+	protected void post(AtomType atomType) {
+		// The keyword of an atomic type is spelled as its name.
+		int tag = tag(atomType, null, null, atomType.type.name());
+		nodes.addInt(atomType.type.ordinal());
+		position(atomType, tag);
+	}
+
+	protected void post(BinExpr binExpr) {
+		int tag = tag(binExpr, binExpr.fstExpr, binExpr.sndExpr, null);
+		nodes.addInt(binExpr.oper.ordinal());
+		position(binExpr, tag);
+	}
+
+	protected void post(CastExpr castExpr) {
+		position(castExpr, tag(castExpr, castExpr.type, castExpr.expr, null));
+	}
+
+	protected void post(CompDecl compDecl) {
+		int tag = tag(compDecl, compDecl.type, compDecl.type, null);
+		string(compDecl.name);
+		position(compDecl, tag);
+	}
+
+	protected void post(CompName compName) {
+		int tag = tag(compName, null, null, compName.name());
+		string(compName.name());
+		position(compName, tag);
+	}
+
+	protected void post(DeclError declError) {
+		error(declError);
+	}
+
+	protected void post(Exprs exprs) {
+		int numExprs = exprs.numExprs();
+		int tag = numExprs == 0 ? tag(exprs, null, null, null)
+				: tag(exprs, exprs.expr(0), exprs.expr(numExprs - 1), null);
+		nodes.addInt(numExprs);
+		position(exprs, tag);
+	}
+
+	protected void post(ExprError exprError) {
+		error(exprError);
+	}
+
+	protected void post(ForExpr forExpr) {
+		position(forExpr, tag(forExpr, forExpr.var, forExpr.body, null));
+	}
+
+	protected void post(FunCall funCall) {
+		int numArgs = funCall.numArgs();
+		int tag = numArgs == 0 ? tag(funCall, null, null, null)
+				: tag(funCall, funCall.arg(0), funCall.arg(numArgs - 1), null);
+		string(funCall.name());
+		nodes.addInt(numArgs);
+		position(funCall, tag);
+	}
+
+	protected void post(FunDecl funDecl) {
+		int tag = tag(funDecl, funDecl.numPars() == 0 ? funDecl.type : funDecl.par(0), funDecl.type, null);
+		string(funDecl.name);
+		nodes.addInt(funDecl.numPars());
+		position(funDecl, tag);
+	}
+
+	protected void post(FunDef funDef) {
+		int tag = tag(funDef, funDef.numPars() == 0 ? funDef.type : funDef.par(0), funDef.body(), null);
+		string(funDef.name);
+		nodes.addInt(funDef.numPars());
+		position(funDef, tag);
+	}
+
+	protected void post(IfExpr ifExpr) {
+		position(ifExpr, tag(ifExpr, ifExpr.cond, ifExpr.elseExpr, null));
+	}
+
+	protected void post(ParDecl parDecl) {
+		int tag = tag(parDecl, parDecl.type, parDecl.type, null);
+		string(parDecl.name);
+		position(parDecl, tag);
+	}
+
+	protected void post(Program program) {
+		position(program, tag(program, program.expr, program.expr, null));
+	}
+
+	protected void post(PtrType ptrType) {
+		position(ptrType, tag(ptrType, ptrType.baseType, ptrType.baseType, null));
+	}
+
+	protected void post(RecType recType) {
+		int numComps = recType.numComps();
+		int tag = numComps == 0 ? tag(recType, null, null, null)
+				: tag(recType, recType.comp(0), recType.comp(numComps - 1), null);
+		nodes.addInt(numComps);
+		position(recType, tag);
+	}
+
+	protected void post(TypeDecl typDecl) {
+		int tag = tag(typDecl, typDecl.type, typDecl.type, null);
+		string(typDecl.name);
+		position(typDecl, tag);
+	}
+
+	protected void post(TypeError typeError) {
+		error(typeError);
+	}
+
+	protected void post(TypeName typeName) {
+		int tag = tag(typeName, null, null, typeName.name());
+		string(typeName.name());
+		position(typeName, tag);
+	}
+
+	protected void post(UnExpr unExpr) {
+		int tag = tag(unExpr, unExpr.subExpr, unExpr.subExpr, null);
+		nodes.addInt(unExpr.oper.ordinal());
+		position(unExpr, tag);
+	}
+
+	protected void post(VarDecl varDecl) {
+		int tag = tag(varDecl, varDecl.type, varDecl.type, null);
+		string(varDecl.name);
+		position(varDecl, tag);
+	}
+
+	protected void post(VarName varName) {
+		int tag = tag(varName, null, null, varName.name());
+		string(varName.name());
+		position(varName, tag);
+	}
+
+	protected void post(WhereExpr whereExpr) {
+		int numDecls = whereExpr.numDecls();
+		int tag = tag(whereExpr, whereExpr.expr, numDecls == 0 ? whereExpr.expr : whereExpr.decl(numDecls - 1), null);
+		nodes.addInt(numDecls);
+		position(whereExpr, tag);
+	}
+
+	protected void post(WhileExpr whileExpr) {
+		position(whileExpr, tag(whileExpr, whileExpr.cond, whileExpr.body, null));
+	}
+
+}
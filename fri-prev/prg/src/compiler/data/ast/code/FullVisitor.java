@@ -5,13 +5,111 @@ import compiler.data.ast.*;
 /**
  * A visitor that traverses the entire abstract syntax tree but does nothing.
  * 
+ * <p>
+ * The children of a node are visited by {@link #dispatch(AST)}, which selects
+ * the visiting method by a <code>switch</code> on the kind of a node instead
+ * of asking the node to accept the visitor.
+ * </p>
+ * 
  * @author sliva
  */
 public class FullVisitor implements Visitor {
 
+	/**
+	 * Visits a node by calling the visiting method for its kind.
+	 * 
+	 * @param ast
+	 *            The node to be visited.
+	 */
+	protected final void dispatch(AST ast) {
+		switch (ast.kind()) {
+		case ARR_TYPE:
+			visit((ArrType) ast);
+			break;
+		case ATOM_EXPR:
+			visit((AtomExpr) ast);
+			break;
+		case ATOM_TYPE:
+			visit((AtomType) ast);
+			break;
+		case BIN_EXPR:
+			visit((BinExpr) ast);
+			break;
+		case CAST_EXPR:
+			visit((CastExpr) ast);
+			break;
+		case COMP_DECL:
+			visit((CompDecl) ast);
+			break;
+		case COMP_NAME:
+			visit((CompName) ast);
+			break;
+		case DECL_ERROR:
+			visit((DeclError) ast);
+			break;
+		case EXPRS:
+			visit((Exprs) ast);
+			break;
+		case EXPR_ERROR:
+			visit((ExprError) ast);
+			break;
+		case FOR_EXPR:
+			visit((ForExpr) ast);
+			break;
+		case FUN_CALL:
+			visit((FunCall) ast);
+			break;
+		case FUN_DECL:
+			visit((FunDecl) ast);
+			break;
+		case FUN_DEF:
+			visit((FunDef) ast);
+			break;
+		case IF_EXPR:
+			visit((IfExpr) ast);
+			break;
+		case PAR_DECL:
+			visit((ParDecl) ast);
+			break;
+		case PROGRAM:
+			visit((Program) ast);
+			break;
+		case PTR_TYPE:
+			visit((PtrType) ast);
+			break;
+		case REC_TYPE:
+			visit((RecType) ast);
+			break;
+		case TYPE_DECL:
+			visit((TypeDecl) ast);
+			break;
+		case TYPE_ERROR:
+			visit((TypeError) ast);
+			break;
+		case TYPE_NAME:
+			visit((TypeName) ast);
+			break;
+		case UN_EXPR:
+			visit((UnExpr) ast);
+			break;
+		case VAR_DECL:
+			visit((VarDecl) ast);
+			break;
+		case VAR_NAME:
+			visit((VarName) ast);
+			break;
+		case WHERE_EXPR:
+			visit((WhereExpr) ast);
+			break;
+		case WHILE_EXPR:
+			visit((WhileExpr) ast);
+			break;
+		}
+	}
+
 	public void visit(ArrType arrType) {
-		arrType.size.accept(this);
-		arrType.elemType.accept(this);
+		dispatch(arrType.size);
+		dispatch(arrType.elemType);
 	}
 
 	public void visit(AtomExpr atomExpr) {
@@ -21,17 +119,17 @@ public class FullVisitor implements Visitor {
 	}
 
 	public void visit(BinExpr binExpr) {
-		binExpr.fstExpr.accept(this);
-		binExpr.sndExpr.accept(this);
+		dispatch(binExpr.fstExpr);
+		dispatch(binExpr.sndExpr);
 	}
 
 	public void visit(CastExpr castExpr) {
-		castExpr.type.accept(this);
-		castExpr.expr.accept(this);
+		dispatch(castExpr.type);
+		dispatch(castExpr.expr);
 	}
 
 	public void visit(CompDecl compDecl) {
-		compDecl.type.accept(this);
+		dispatch(compDecl.type);
 	}
 
 	public void visit(CompName compName) {
@@ -42,62 +140,62 @@ public class FullVisitor implements Visitor {
 
 	public void visit(Exprs exprs) {
 		for (int e = 0; e < exprs.numExprs(); e++)
-			exprs.expr(e).accept(this);
+			dispatch(exprs.expr(e));
 	}
 
 	public void visit(ExprError exprError) {
 	}
 
 	public void visit(ForExpr forExpr) {
-		forExpr.var.accept(this);
-		forExpr.loBound.accept(this);
-		forExpr.hiBound.accept(this);
-		forExpr.body.accept(this);
+		dispatch(forExpr.var);
+		dispatch(forExpr.loBound);
+		dispatch(forExpr.hiBound);
+		dispatch(forExpr.body);
 	}
 
 	public void visit(FunCall funCall) {
 		for (int a = 0; a < funCall.numArgs(); a++)
-			funCall.arg(a).accept(this);
+			dispatch(funCall.arg(a));
 	}
 
 	public void visit(FunDecl funDecl) {
 		for (int p = 0; p < funDecl.numPars(); p++)
-			funDecl.par(p).accept(this);
-		funDecl.type.accept(this);
+			dispatch(funDecl.par(p));
+		dispatch(funDecl.type);
 	}
 
 	public void visit(FunDef funDef) {
 		for (int p = 0; p < funDef.numPars(); p++)
-			funDef.par(p).accept(this);
-		funDef.type.accept(this);
-		funDef.body.accept(this);
+			dispatch(funDef.par(p));
+		dispatch(funDef.type);
+		dispatch(funDef.body());
 	}
 
 	public void visit(IfExpr ifExpr) {
-		ifExpr.cond.accept(this);
-		ifExpr.thenExpr.accept(this);
-		ifExpr.elseExpr.accept(this);
+		dispatch(ifExpr.cond);
+		dispatch(ifExpr.thenExpr);
+		dispatch(ifExpr.elseExpr);
 	}
 
 	public void visit(ParDecl parDecl) {
-		parDecl.type.accept(this);
+		dispatch(parDecl.type);
 	}
 
 	public void visit(Program program) {
-		program.expr.accept(this);
+		dispatch(program.expr);
 	}
 
 	public void visit(PtrType ptrType) {
-		ptrType.baseType.accept(this);
+		dispatch(ptrType.baseType);
 	}
 
 	public void visit(RecType recType) {
 		for (int c = 0; c < recType.numComps(); c++)
-			recType.comp(c).accept(this);
+			dispatch(recType.comp(c));
 	}
 
 	public void visit(TypeDecl typDecl) {
-		typDecl.type.accept(this);
+		dispatch(typDecl.type);
 	}
 	
 	public void visit(TypeError typeError) {
@@ -107,25 +205,25 @@ public class FullVisitor implements Visitor {
 	}
 
 	public void visit(UnExpr unExpr) {
-		unExpr.subExpr.accept(this);
+		dispatch(unExpr.subExpr);
 	}
 
 	public void visit(VarDecl varDecl) {
-		varDecl.type.accept(this);
+		dispatch(varDecl.type);
 	}
 
 	public void visit(VarName varName) {
 	}
 
 	public void visit(WhereExpr whereExpr) {
-		whereExpr.expr.accept(this);
+		dispatch(whereExpr.expr);
 		for (int d = 0; d < whereExpr.numDecls(); d++)
-			whereExpr.decl(d).accept(this);
+			dispatch(whereExpr.decl(d));
 	}
 
 	public void visit(WhileExpr whileExpr) {
-		whileExpr.cond.accept(this);
-		whileExpr.body.accept(this);
+		dispatch(whileExpr.cond);
+		dispatch(whileExpr.body);
 	}
 
 }
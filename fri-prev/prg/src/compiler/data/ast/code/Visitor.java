@@ -25,7 +25,15 @@ import compiler.data.ast.*;
  * 
  * <p>
  * Example: see the source code of {@link compiler.data.ast.code.FullVisitor} and
- * {@link compiler.phase.abstr.AbstrToXML}.
+ * {@link compiler.phase.synan.TreeEditor}.
+ * </p>
+ * 
+ * <p>
+ * A visitor can also be called back without double dispatch by a
+ * <code>switch</code> on {@link compiler.data.ast.AST#kind()}, as
+ * {@link compiler.data.ast.code.FullVisitor} does when it follows an edge. The
+ * phases traverse the tree by walkers (see
+ * {@link compiler.data.ast.code.Walker}), which dispatch the same way.
  * </p>
  * 
  * @author sliva
@@ -0,0 +1,688 @@
+package compiler.data.ast.code;
+
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+
+/**
+ * A traversal of the entire abstract syntax tree that is not limited by the
+ * size of the call stack.
+ * 
+ * <p>
+ * When a node is entered, its method <code>pre</code> is called first and then
+ * its method <code>children</code> schedules its children (by calling
+ * {@link #child(AST)}) and possibly actions to be performed between them (by
+ * calling {@link #action(Runnable)}). Once all the scheduled work is done, the
+ * node is left and its method <code>post</code> is called. Actions may
+ * schedule further children and actions as well. Scheduled work is always
+ * performed in the order in which it has been scheduled, but it may be
+ * performed at once, i.e., before <code>children</code> (or the action that
+ * has scheduled it) returns. Hence anything that depends on the result of a
+ * child must be done in an action scheduled after it or in <code>post</code>.
+ * </p>
+ * 
+ * <p>
+ * Up to a fixed depth (see {@link #MAX_DEPTH}), nodes are entered recursively
+ * and the scheduled work is performed at once. The children of a node at that
+ * depth are put on an explicit work stack instead and the entire subtree below
+ * it is traversed without recursion, so deeply nested constructs do not
+ * overflow the call stack while the usual shallow trees do not pay for the
+ * work stack.
+ * </p>
+ * 
+ * <p>
+ * The hooks are selected by a <code>switch</code> on the kind of a node (see
+ * {@link compiler.data.ast.AST.Kind}) rather than by
+ * {@link compiler.data.ast.AST#accept(Visitor)}.
+ * </p>
+ * 
+ * <p>
+ * By default, the hooks do nothing and the children are traversed in the same
+ * order as by {@link compiler.data.ast.code.FullVisitor}.
+ * </p>
+ * 
+ * @author sliva
+ */
+public class Walker {
+
+	/** The depth of nesting up to which nodes are entered recursively. */
+	private static final int MAX_DEPTH = 256;
+
+	/** A node to be entered. */
+	private static final byte ENTER = 0;
+
+	/** A node to be left. */
+	private static final byte LEAVE = 1;
+
+	/** An action to be performed. */
+	private static final byte ACTION = 2;
+
+	/** The work stack: the nodes to enter or leave and the actions to perform. */
+	private Object[] work = new Object[64];
+
+	/** The kind of each item on the work stack. */
+	private byte[] kinds = new byte[64];
+
+	/** The number of items on the work stack. */
+	private int top = 0;
+
+	/** The depth of the node being entered. */
+	private int depth = 0;
+
+	/** Whether a traversal is in progress. */
+	private boolean walking = false;
+
+	/**
+	 * Traverses the abstract syntax tree.
+	 * 
+	 * @param ast
+	 *            The root of the (sub)tree to be traversed.
+	 */
+	public final void walk(AST ast) {
+		if (walking)
+			throw new InternalCompilerError();
+		walking = true;
+		try {
+			depth = 0;
+			child(ast);
+		} finally {
+			while (top > 0)
+				work[--top] = null;
+			walking = false;
+		}
+	}
+
+	/**
+	 * Schedules a child of the current node to be traversed.
+	 * 
+	 * @param ast
+	 *            The child.
+	 */
+	protected final void child(AST ast) {
+		if (depth < MAX_DEPTH)
+			enter(ast);
+		else
+			push(ast, ENTER);
+	}
+
+	/**
+	 * Schedules an action to be performed once the work scheduled before it
+	 * has been done.
+	 * 
+	 * @param action
+	 *            The action.
+	 */
+	protected final void action(Runnable action) {
+		if (depth < MAX_DEPTH)
+			action.run();
+		else
+			push(action, ACTION);
+	}
+
+	/**
+	 * Enters a node, performs the work it schedules and leaves it.
+	 */
+	private void enter(AST ast) {
+		AST.Kind kind = ast.kind();
+		int base = top;
+		depth++;
+		begin(kind, ast);
+		if (top > base)
+			perform(base);
+		end(kind, ast);
+		depth--;
+	}
+
+	/**
+	 * Performs the work on the work stack above the specified size of the
+	 * stack without recursion.
+	 */
+	private void perform(int base) {
+		reverse(base);
+		while (top > base) {
+			top--;
+			Object item = work[top];
+			work[top] = null;
+			int mark = top;
+			switch (kinds[top]) {
+			case ENTER: {
+				AST ast = (AST) item;
+				AST.Kind kind = ast.kind();
+				begin(kind, ast);
+				if (top == mark)
+					end(kind, ast);
+				else
+					push(ast, LEAVE);
+				break;
+			}
+			case LEAVE:
+				end(((AST) item).kind(), (AST) item);
+				break;
+			default:
+				((Runnable) item).run();
+				break;
+			}
+			reverse(mark);
+		}
+	}
+
+	/**
+	 * Reverses the work scheduled above the specified size of the stack so
+	 * that it is performed in order (a node scheduled to be left last goes
+	 * below its children).
+	 */
+	private void reverse(int mark) {
+		for (int i = mark, j = top - 1; i < j; i++, j--) {
+			Object swapped = work[i];
+			work[i] = work[j];
+			work[j] = swapped;
+			byte swappedKind = kinds[i];
+			kinds[i] = kinds[j];
+			kinds[j] = swappedKind;
+		}
+	}
+
+	private void push(Object item, byte kind) {
+		if (top == work.length)
+			grow();
+		work[top] = item;
+		kinds[top] = kind;
+		top++;
+	}
+
+	private void grow() {
+		work = Arrays.copyOf(work, 2 * top);
+		kinds = Arrays.copyOf(kinds, 2 * top);
+	}
+
+	/**
+	 * Calls the hooks <code>pre</code> and <code>children</code> of a node of
+	 * the specified kind.
+	 */
+	private void begin(AST.Kind kind, AST ast) {
+		switch (kind) {
+		case ARR_TYPE:
+			pre((ArrType) ast);
+			children((ArrType) ast);
+			break;
+		case ATOM_EXPR:
+			pre((AtomExpr) ast);
+			children((AtomExpr) ast);
+			break;
+		case ATOM_TYPE:
+			pre((AtomType) ast);
+			children((AtomType) ast);
+			break;
+		case BIN_EXPR:
+			pre((BinExpr) ast);
+			children((BinExpr) ast);
+			break;
+		case CAST_EXPR:
+			pre((CastExpr) ast);
+			children((CastExpr) ast);
+			break;
+		case COMP_DECL:
+			pre((CompDecl) ast);
+			children((CompDecl) ast);
+			break;
+		case COMP_NAME:
+			pre((CompName) ast);
+			children((CompName) ast);
+			break;
+		case DECL_ERROR:
+			pre((DeclError) ast);
+			children((DeclError) ast);
+			break;
+		case EXPRS:
+			pre((Exprs) ast);
+			children((Exprs) ast);
+			break;
+		case EXPR_ERROR:
+			pre((ExprError) ast);
+			children((ExprError) ast);
+			break;
+		case FOR_EXPR:
+			pre((ForExpr) ast);
+			children((ForExpr) ast);
+			break;
+		case FUN_CALL:
+			pre((FunCall) ast);
+			children((FunCall) ast);
+			break;
+		case FUN_DECL:
+			pre((FunDecl) ast);
+			children((FunDecl) ast);
+			break;
+		case FUN_DEF:
+			pre((FunDef) ast);
+			children((FunDef) ast);
+			break;
+		case IF_EXPR:
+			pre((IfExpr) ast);
+			children((IfExpr) ast);
+			break;
+		case PAR_DECL:
+			pre((ParDecl) ast);
+			children((ParDecl) ast);
+			break;
+		case PROGRAM:
+			pre((Program) ast);
+			children((Program) ast);
+			break;
+		case PTR_TYPE:
+			pre((PtrType) ast);
+			children((PtrType) ast);
+			break;
+		case REC_TYPE:
+			pre((RecType) ast);
+			children((RecType) ast);
+			break;
+		case TYPE_DECL:
+			pre((TypeDecl) ast);
+			children((TypeDecl) ast);
+			break;
+		case TYPE_ERROR:
+			pre((TypeError) ast);
+			children((TypeError) ast);
+			break;
+		case TYPE_NAME:
+			pre((TypeName) ast);
+			children((TypeName) ast);
+			break;
+		case UN_EXPR:
+			pre((UnExpr) ast);
+			children((UnExpr) ast);
+			break;
+		case VAR_DECL:
+			pre((VarDecl) ast);
+			children((VarDecl) ast);
+			break;
+		case VAR_NAME:
+			pre((VarName) ast);
+			children((VarName) ast);
+			break;
+		case WHERE_EXPR:
+			pre((WhereExpr) ast);
+			children((WhereExpr) ast);
+			break;
+		case WHILE_EXPR:
+			pre((WhileExpr) ast);
+			children((WhileExpr) ast);
+			break;
+		}
+	}
+
+	/**
+	 * Calls the hook <code>post</code> of a node of the specified kind.
+	 */
+	private void end(AST.Kind kind, AST ast) {
+		switch (kind) {
+		case ARR_TYPE:
+			post((ArrType) ast);
+			break;
+		case ATOM_EXPR:
+			post((AtomExpr) ast);
+			break;
+		case ATOM_TYPE:
+			post((AtomType) ast);
+			break;
+		case BIN_EXPR:
+			post((BinExpr) ast);
+			break;
+		case CAST_EXPR:
+			post((CastExpr) ast);
+			break;
+		case COMP_DECL:
+			post((CompDecl) ast);
+			break;
+		case COMP_NAME:
+			post((CompName) ast);
+			break;
+		case DECL_ERROR:
+			post((DeclError) ast);
+			break;
+		case EXPRS:
+			post((Exprs) ast);
+			break;
+		case EXPR_ERROR:
+			post((ExprError) ast);
+			break;
+		case FOR_EXPR:
+			post((ForExpr) ast);
+			break;
+		case FUN_CALL:
+			post((FunCall) ast);
+			break;
+		case FUN_DECL:
+			post((FunDecl) ast);
+			break;
+		case FUN_DEF:
+			post((FunDef) ast);
+			break;
+		case IF_EXPR:
+			post((IfExpr) ast);
+			break;
+		case PAR_DECL:
+			post((ParDecl) ast);
+			break;
+		case PROGRAM:
+			post((Program) ast);
+			break;
+		case PTR_TYPE:
+			post((PtrType) ast);
+			break;
+		case REC_TYPE:
+			post((RecType) ast);
+			break;
+		case TYPE_DECL:
+			post((TypeDecl) ast);
+			break;
+		case TYPE_ERROR:
+			post((TypeError) ast);
+			break;
+		case TYPE_NAME:
+			post((TypeName) ast);
+			break;
+		case UN_EXPR:
+			post((UnExpr) ast);
+			break;
+		case VAR_DECL:
+			post((VarDecl) ast);
+			break;
+		case VAR_NAME:
+			post((VarName) ast);
+			break;
+		case WHERE_EXPR:
+			post((WhereExpr) ast);
+			break;
+		case WHILE_EXPR:
+			post((WhileExpr) ast);
+			break;
+		}
+	}
+
+	// Hooks.
+
+	protected void pre(ArrType arrType) {
+	}
+
+	protected void children(ArrType arrType) {
+		child(arrType.size);
+		child(arrType.elemType);
+	}
+
+	protected void post(ArrType arrType) {
+	}
+
+	protected void pre(AtomExpr atomExpr) {
+	}
+
+	protected void children(AtomExpr atomExpr) {
+	}
+
+	protected void post(AtomExpr atomExpr) {
+	}
+
+	protected void pre(AtomType atomType) {
+	}
+
+	protected void children(AtomType atomType) {
+	}
+
+	protected void post(AtomType atomType) {
+	}
+
+	protected void pre(BinExpr binExpr) {
+	}
+
+	protected void children(BinExpr binExpr) {
+		child(binExpr.fstExpr);
+		child(binExpr.sndExpr);
+	}
+
+	protected void post(BinExpr binExpr) {
+	}
+
+	protected void pre(CastExpr castExpr) {
+	}
+
+	protected void children(CastExpr castExpr) {
+		child(castExpr.type);
+		child(castExpr.expr);
+	}
+
+	protected void post(CastExpr castExpr) {
+	}
+
+	protected void pre(CompDecl compDecl) {
+	}
+
+	protected void children(CompDecl compDecl) {
+		child(compDecl.type);
+	}
+
+	protected void post(CompDecl compDecl) {
+	}
+
+	protected void pre(CompName compName) {
+	}
+
+	protected void children(CompName compName) {
+	}
+
+	protected void post(CompName compName) {
+	}
+
+	protected void pre(DeclError declError) {
+	}
+
+	protected void children(DeclError declError) {
+	}
+
+	protected void post(DeclError declError) {
+	}
+
+	protected void pre(Exprs exprs) {
+	}
+
+	protected void children(Exprs exprs) {
+		for (int e = 0; e < exprs.numExprs(); e++)
+			child(exprs.expr(e));
+	}
+
+	protected void post(Exprs exprs) {
+	}
+
+	protected void pre(ExprError exprError) {
+	}
+
+	protected void children(ExprError exprError) {
+	}
+
+	protected void post(ExprError exprError) {
+	}
+
+	protected void pre(ForExpr forExpr) {
+	}
+
+	protected void children(ForExpr forExpr) {
+		child(forExpr.var);
+		child(forExpr.loBound);
+		child(forExpr.hiBound);
+		child(forExpr.body);
+	}
+
+	protected void post(ForExpr forExpr) {
+	}
+
+	protected void pre(FunCall funCall) {
+	}
+
+	protected void children(FunCall funCall) {
+		for (int a = 0; a < funCall.numArgs(); a++)
+			child(funCall.arg(a));
+	}
+
+	protected void post(FunCall funCall) {
+	}
+
+	protected void pre(FunDecl funDecl) {
+	}
+
+	protected void children(FunDecl funDecl) {
+		for (int p = 0; p < funDecl.numPars(); p++)
+			child(funDecl.par(p));
+		child(funDecl.type);
+	}
+
+	protected void post(FunDecl funDecl) {
+	}
+
+	protected void pre(FunDef funDef) {
+	}
+
+	protected void children(FunDef funDef) {
+		for (int p = 0; p < funDef.numPars(); p++)
+			child(funDef.par(p));
+		child(funDef.type);
+		child(funDef.body());
+	}
+
+	protected void post(FunDef funDef) {
+	}
+
+	protected void pre(IfExpr ifExpr) {
+	}
+
+	protected void children(IfExpr ifExpr) {
+		child(ifExpr.cond);
+		child(ifExpr.thenExpr);
+		child(ifExpr.elseExpr);
+	}
+
+	protected void post(IfExpr ifExpr) {
+	}
+
+	protected void pre(ParDecl parDecl) {
+	}
+
+	protected void children(ParDecl parDecl) {
+		child(parDecl.type);
+	}
+
+	protected void post(ParDecl parDecl) {
+	}
+
+	protected void pre(Program program) {
+	}
+
+	protected void children(Program program) {
+		child(program.expr);
+	}
+
+	protected void post(Program program) {
+	}
+
+	protected void pre(PtrType ptrType) {
+	}
+
+	protected void children(PtrType ptrType) {
+		child(ptrType.baseType);
+	}
+
+	protected void post(PtrType ptrType) {
+	}
+
+	protected void pre(RecType recType) {
+	}
+
+	protected void children(RecType recType) {
+		for (int c = 0; c < recType.numComps(); c++)
+			child(recType.comp(c));
+	}
+
+	protected void post(RecType recType) {
+	}
+
+	protected void pre(TypeDecl typDecl) {
+	}
+
+	protected void children(TypeDecl typDecl) {
+		child(typDecl.type);
+	}
+
+	protected void post(TypeDecl typDecl) {
+	}
+
+	protected void pre(TypeError typeError) {
+	}
+
+	protected void children(TypeError typeError) {
+	}
+
+	protected void post(TypeError typeError) {
+	}
+
+	protected void pre(TypeName typeName) {
+	}
+
+	protected void children(TypeName typeName) {
+	}
+
+	protected void post(TypeName typeName) {
+	}
+
+	protected void pre(UnExpr unExpr) {
+	}
+
+	protected void children(UnExpr unExpr) {
+		child(unExpr.subExpr);
+	}
+
+	protected void post(UnExpr unExpr) {
+	}
+
+	protected void pre(VarDecl varDecl) {
+	}
+
+	protected void children(VarDecl varDecl) {
+		child(varDecl.type);
+	}
+
+	protected void post(VarDecl varDecl) {
+	}
+
+	protected void pre(VarName varName) {
+	}
+
+	protected void children(VarName varName) {
+	}
+
+	protected void post(VarName varName) {
+	}
+
+	protected void pre(WhereExpr whereExpr) {
+	}
+
+	protected void children(WhereExpr whereExpr) {
+		child(whereExpr.expr);
+		for (int d = 0; d < whereExpr.numDecls(); d++)
+			child(whereExpr.decl(d));
+	}
+
+	protected void post(WhereExpr whereExpr) {
+	}
+
+	protected void pre(WhileExpr whileExpr) {
+	}
+
+	protected void children(WhileExpr whileExpr) {
+		child(whileExpr.cond);
+		child(whileExpr.body);
+	}
+
+	protected void post(WhileExpr whileExpr) {
+	}
+
+}
@@ -20,9 +20,6 @@ public class CodeFragment extends Fragment {
 	/** A temporary register used for returning the function's result. */
 	public final int RV;
 
-	/** The intermediate code. */
-	public final IMCStmt stmt;
-	
 	/** The linearized intermediate code. */
 	public final STMTS linCode;
 
@@ -36,15 +33,15 @@ public class CodeFragment extends Fragment {
 	 * @param RV
 	 *            A temporary register used for returning the function's result.
 	 * @param stmt
-	 *            The intermediate code.
+	 *            The intermediate code (only its linearization is kept, as no
+	 *            later phase needs the code itself).
 	 */
 	public CodeFragment(Frame frame, int FP, int RV, IMCStmt stmt) {
 		super(frame.label);
 		this.frame = frame;
 		this.FP = FP;
 		this.RV = RV;
-		this.stmt = stmt;
-		this.linCode = (this.stmt == null) ? null : this.stmt.linCode();
+		this.linCode = (stmt == null) ? null : stmt.linCode();
 	}
 
 	@Override
@@ -24,7 +24,7 @@ public class Abstr extends Phase {
 	@Override
 	public void close() {
 		if (logger != null)
-			(new AbstrToXML(logger, true)).visit(task.prgAST);
+			(new AbstrToXML(logger, true)).walk(task.prgAST);
 		super.close();
 	}
 
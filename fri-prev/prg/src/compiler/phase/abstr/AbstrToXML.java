@@ -15,7 +15,7 @@ import compiler.data.ast.code.*;
  * 
  * @author juliette
  */
-public class AbstrToXML implements Visitor {
+public class AbstrToXML extends Walker {
 
 	/**
 	 * The logger used to produce the XML description of the abstract syntax
@@ -57,241 +57,284 @@ public class AbstrToXML implements Visitor {
 			logger.endElement();
 	}
 
-	// Visitor methods.
+	// Hooks.
 
-	public void visit(ArrType arrType) {
+	protected void pre(ArrType arrType) {
 		begElement();
-		((Position) arrType).log(logger);
 		logger.addAttribute("kind", "ArrType");
-		arrType.size.accept(this);
-		arrType.elemType.accept(this);
+		((Position) arrType).log(logger);
+	}
+
+	protected void post(ArrType arrType) {
 		endElement();
 	}
 
-	public void visit(AtomExpr atomExpr) {
+	protected void pre(AtomExpr atomExpr) {
 		begElement();
-		((Position) atomExpr).log(logger);
 		logger.addAttribute("kind", "AtomExpr");
 		logger.addAttribute("name", atomExpr.type.toString() + "(" + atomExpr.value + ")");
+		((Position) atomExpr).log(logger);
+	}
+
+	protected void post(AtomExpr atomExpr) {
 		endElement();
 	}
 
-	public void visit(AtomType atomType) {
+	protected void pre(AtomType atomType) {
 		begElement();
-		((Position) atomType).log(logger);
 		logger.addAttribute("kind", "AtomType");
 		logger.addAttribute("name", atomType.type.toString());
+		((Position) atomType).log(logger);
+	}
+
+	protected void post(AtomType atomType) {
 		endElement();
 	}
 
-	public void visit(BinExpr binExpr) {
+	protected void pre(BinExpr binExpr) {
 		begElement();
-		((Position) binExpr).log(logger);
 		logger.addAttribute("kind", "BinExpr:" + binExpr.oper.toString());
-		binExpr.fstExpr.accept(this);
-		binExpr.sndExpr.accept(this);
+		((Position) binExpr).log(logger);
+	}
+
+	protected void post(BinExpr binExpr) {
 		endElement();
 	}
 
-	public void visit(CastExpr castExpr) {
+	protected void pre(CastExpr castExpr) {
 		begElement();
-		((Position) castExpr).log(logger);
 		logger.addAttribute("kind", "CastExpr");
-		castExpr.type.accept(this);
-		castExpr.expr.accept(this);
+		((Position) castExpr).log(logger);
+	}
+
+	protected void post(CastExpr castExpr) {
 		endElement();
 	}
 
-	public void visit(CompDecl compDecl) {
+	protected void pre(CompDecl compDecl) {
 		begElement();
-		((Position) compDecl).log(logger);
 		logger.addAttribute("kind", "CompDecl");
 		logger.addAttribute("name", compDecl.name);
-		compDecl.type.accept(this);
+		((Position) compDecl).log(logger);
+	}
+
+	protected void post(CompDecl compDecl) {
 		endElement();
 	}
 
-	public void visit(CompName compName) {
+	protected void pre(CompName compName) {
 		begElement();
-		((Position) compName).log(logger);
 		logger.addAttribute("kind", "CompName");
 		logger.addAttribute("name", compName.name());
+		((Position) compName).log(logger);
+	}
+
+	protected void post(CompName compName) {
 		endElement();
 	}
 
-	public void visit(DeclError declError) {
+	protected void pre(DeclError declError) {
 		begElement();
 		logger.addAttribute("kind", "DeclError");
+	}
+
+	protected void post(DeclError declError) {
 		endElement();
 	}
 
-	public void visit(Exprs exprs) {
+	protected void pre(Exprs exprs) {
 		begElement();
-		((Position) exprs).log(logger);
 		logger.addAttribute("kind", "Exprs");
-		for (int e = 0; e < exprs.numExprs(); e++)
-			exprs.expr(e).accept(this);
+		((Position) exprs).log(logger);
+	}
+
+	protected void post(Exprs exprs) {
 		endElement();
 	}
 
-	public void visit(ExprError exprError) {
+	protected void pre(ExprError exprError) {
 		begElement();
 		logger.addAttribute("kind", "ExprError");
+	}
+
+	protected void post(ExprError exprError) {
 		endElement();
 	}
 
-	public void visit(ForExpr forExpr) {
+	protected void pre(ForExpr forExpr) {
 		begElement();
-		((Position) forExpr).log(logger);
 		logger.addAttribute("kind", "ForExpr");
-		forExpr.var.accept(this);
-		forExpr.loBound.accept(this);
-		forExpr.hiBound.accept(this);
-		forExpr.body.accept(this);
+		((Position) forExpr).log(logger);
+	}
+
+	protected void post(ForExpr forExpr) {
 		endElement();
 	}
 
-	public void visit(FunCall funCall) {
+	protected void pre(FunCall funCall) {
 		begElement();
-		((Position) funCall).log(logger);
 		logger.addAttribute("kind", "FunCall");
 		logger.addAttribute("name", funCall.name());
-		for (int a = 0; a < funCall.numArgs(); a++)
-			funCall.arg(a).accept(this);
+		((Position) funCall).log(logger);
+	}
+
+	protected void post(FunCall funCall) {
 		endElement();
 	}
 
-	public void visit(FunDecl funDecl) {
+	protected void pre(FunDecl funDecl) {
 		begElement();
-		((Position) funDecl).log(logger);
 		logger.addAttribute("kind", "FunDecl");
 		logger.addAttribute("name", funDecl.name);
-		for (int p = 0; p < funDecl.numPars(); p++)
-			funDecl.par(p).accept(this);
-		funDecl.type.accept(this);
+		((Position) funDecl).log(logger);
+	}
+
+	protected void post(FunDecl funDecl) {
 		endElement();
 	}
 
-	public void visit(FunDef funDef) {
+	protected void pre(FunDef funDef) {
 		begElement();
-		((Position) funDef).log(logger);
 		logger.addAttribute("kind", "FunDef");
 		logger.addAttribute("name", funDef.name);
-		for (int p = 0; p < funDef.numPars(); p++)
-			funDef.par(p).accept(this);
-		funDef.type.accept(this);
-		funDef.body.accept(this);
+		((Position) funDef).log(logger);
+	}
+
+	protected void post(FunDef funDef) {
 		endElement();
 	}
 
-	public void visit(IfExpr ifExpr) {
+	protected void pre(IfExpr ifExpr) {
 		begElement();
-		((Position) ifExpr).log(logger);
 		logger.addAttribute("kind", "IfExpr");
-		ifExpr.cond.accept(this);
-		ifExpr.thenExpr.accept(this);
-		ifExpr.elseExpr.accept(this);
+		((Position) ifExpr).log(logger);
+	}
+
+	protected void post(IfExpr ifExpr) {
 		endElement();
 	}
 
-	public void visit(ParDecl parDecl) {
+	protected void pre(ParDecl parDecl) {
 		begElement();
-		((Position) parDecl).log(logger);
 		logger.addAttribute("kind", "ParDecl");
 		logger.addAttribute("name", parDecl.name);
-		parDecl.type.accept(this);
+		((Position) parDecl).log(logger);
+	}
+
+	protected void post(ParDecl parDecl) {
 		endElement();
 	}
 
-	public void visit(Program program) {
+	protected void pre(Program program) {
 		begElement();
-		((Position) program).log(logger);
 		logger.addAttribute("kind", "Program");
-		program.expr.accept(this);
+		((Position) program).log(logger);
+	}
+
+	protected void post(Program program) {
 		endElement();
 	}
 
-	public void visit(PtrType ptrType) {
+	protected void pre(PtrType ptrType) {
 		begElement();
-		((Position) ptrType).log(logger);
 		logger.addAttribute("kind", "PtrType");
-		ptrType.baseType.accept(this);
+		((Position) ptrType).log(logger);
+	}
+
+	protected void post(PtrType ptrType) {
 		endElement();
 	}
 
-	public void visit(RecType recType) {
+	protected void pre(RecType recType) {
 		begElement();
-		((Position) recType).log(logger);
 		logger.addAttribute("kind", "RecType");
-		for (int c = 0; c < recType.numComps(); c++)
-			recType.comp(c).accept(this);
+		((Position) recType).log(logger);
+	}
+
+	protected void post(RecType recType) {
 		endElement();
 	}
 
-	public void visit(TypeDecl typeDecl) {
+	protected void pre(TypeDecl typeDecl) {
 		begElement();
-		((Position) typeDecl).log(logger);
 		logger.addAttribute("kind", "TypDecl");
 		logger.addAttribute("name", typeDecl.name);
-		typeDecl.type.accept(this);
+		((Position) typeDecl).log(logger);
+	}
+
+	protected void post(TypeDecl typeDecl) {
 		endElement();
 	}
 
-	public void visit(TypeError typeError) {
+	protected void pre(TypeError typeError) {
 		begElement();
 		logger.addAttribute("kind", "TypeError");
+	}
+
+	protected void post(TypeError typeError) {
 		endElement();
 	}
 
-	public void visit(TypeName typeName) {
+	protected void pre(TypeName typeName) {
 		begElement();
-		((Position) typeName).log(logger);
 		logger.addAttribute("kind", "TypeName");
 		logger.addAttribute("name", typeName.name());
+		((Position) typeName).log(logger);
+	}
+
+	protected void post(TypeName typeName) {
 		endElement();
 	}
 
-	public void visit(UnExpr unExpr) {
+	protected void pre(UnExpr unExpr) {
 		begElement();
-		((Position) unExpr).log(logger);
 		logger.addAttribute("kind", "UnExpr:" + unExpr.oper.toString());
-		unExpr.subExpr.accept(this);
+		((Position) unExpr).log(logger);
+	}
+
+	protected void post(UnExpr unExpr) {
 		endElement();
 	}
 
-	public void visit(VarDecl varDecl) {
+	protected void pre(VarDecl varDecl) {
 		begElement();
-		((Position) varDecl).log(logger);
 		logger.addAttribute("kind", "VarDecl");
 		logger.addAttribute("name", varDecl.name);
-		varDecl.type.accept(this);
+		((Position) varDecl).log(logger);
+	}
+
+	protected void post(VarDecl varDecl) {
 		endElement();
 	}
 
-	public void visit(VarName varName) {
+	protected void pre(VarName varName) {
 		begElement();
-		((Position) varName).log(logger);
 		logger.addAttribute("kind", "VarName");
 		logger.addAttribute("name", varName.name());
+		((Position) varName).log(logger);
+	}
+
+	protected void post(VarName varName) {
 		endElement();
 	}
 
-	public void visit(WhereExpr whereExpr) {
+	protected void pre(WhereExpr whereExpr) {
 		begElement();
-		((Position) whereExpr).log(logger);
 		logger.addAttribute("kind", "WhereExpr");
-		whereExpr.expr.accept(this);
-		for (int d = 0; d < whereExpr.numDecls(); d++)
-			whereExpr.decl(d).accept(this);
+		((Position) whereExpr).log(logger);
+	}
+
+	protected void post(WhereExpr whereExpr) {
 		endElement();
 	}
 
-	public void visit(WhileExpr whileExpr) {
+	protected void pre(WhileExpr whileExpr) {
 		begElement();
-		((Position) whileExpr).log(logger);
 		logger.addAttribute("kind", "WhileExpr");
-		whileExpr.cond.accept(this);
-		whileExpr.body.accept(this);
+		((Position) whileExpr).log(logger);
+	}
+
+	protected void post(WhileExpr whileExpr) {
 		endElement();
 	}
 
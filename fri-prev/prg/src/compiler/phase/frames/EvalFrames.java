@@ -14,7 +14,7 @@ import compiler.data.typ.*;
  * 
  * @author juliette
  */
-public class EvalFrames extends FullVisitor {
+public class EvalFrames extends Walker {
 
 	private final Attributes attrs;
 	
@@ -26,31 +26,36 @@ public class EvalFrames extends FullVisitor {
 		
 	}
 	
-	public void visit(FunCall funCall) {
+	protected void children(final FunCall funCall) {
 		if(!(frames.isEmpty()))
 		{
-			Frame curFrame = frames.pop();
-			long outCallSize = 0;
+			final Frame curFrame = frames.pop();
 			for (int a = 0; a < funCall.numArgs(); a++)
-			{
-				funCall.arg(a).accept(this);	
-				long size = attrs.typAttr.get(funCall.arg(a)).actualTyp().size();
-				if(size < 8)
-					size = 8;
-				outCallSize += size;
-			}
-			long size = attrs.typAttr.get(funCall).actualTyp().size();
-			if(size < 8)
-				size = 8;
-			outCallSize += size;
-			
-			outCallSize = (outCallSize > curFrame.outCallSize) ?  outCallSize : curFrame.outCallSize;
-			
-			frames.push(new Frame(curFrame.level, curFrame.label, curFrame.inpCallSize, curFrame.locVarsSize, curFrame.tmpVarsSize, curFrame.hidRegsSize, outCallSize));
+				child(funCall.arg(a));
+			action(new Runnable() {
+				public void run() {
+					long outCallSize = 0;
+					for (int a = 0; a < funCall.numArgs(); a++)
+					{
+						long size = attrs.typAttr.get(funCall.arg(a)).actualTyp().size();
+						if(size < 8)
+							size = 8;
+						outCallSize += size;
+					}
+					long size = attrs.typAttr.get(funCall).actualTyp().size();
+					if(size < 8)
+						size = 8;
+					outCallSize += size;
+					
+					outCallSize = (outCallSize > curFrame.outCallSize) ?  outCallSize : curFrame.outCallSize;
+					
+					frames.push(new Frame(curFrame.level, curFrame.label, curFrame.inpCallSize, curFrame.locVarsSize, curFrame.tmpVarsSize, curFrame.hidRegsSize, outCallSize));
+				}
+			});
 		}
 	}
 	
-	public void visit(FunDef funDef) {		
+	protected void pre(FunDef funDef) {		
 		String label = "F___" + funDef.name;
 
 		long inpCallSize = 8; //static link
@@ -92,11 +97,9 @@ public class EvalFrames extends FullVisitor {
 			frames.push(new Frame(0, label, inpCallSize, locVarsSize, tmpVarsSize, hidRegsSize, outCallSize));
 		else
 			frames.push(new Frame(frames.peek().level + 1, frames.peek().label + "__fun_" + funDef.name, inpCallSize, locVarsSize, tmpVarsSize, hidRegsSize, outCallSize));
-		
-		for (int p = 0; p < funDef.numPars(); p++)
-			funDef.par(p).accept(this);
-		funDef.type.accept(this);
-		funDef.body.accept(this);
+	}
+
+	protected void post(FunDef funDef) {
 		Frame curFrame = frames.pop();
 		if(curFrame.outCallSize == 8)
 			attrs.frmAttr.set(funDef,new Frame(curFrame.level, curFrame.label, curFrame.inpCallSize, curFrame.locVarsSize, curFrame.tmpVarsSize, curFrame.hidRegsSize, 0));
@@ -106,12 +109,11 @@ public class EvalFrames extends FullVisitor {
 
 	
 
-	public void visit(RecType recType) {
+	protected void post(RecType recType) {
 		long offset = 0;
 		long size = 0;
 		for (int c = 0; c < recType.numComps(); c++) 
 		{
-			recType.comp(c).accept(this);
 			size = attrs.typAttr.get(recType.comp(c)).size();
 			if(size < 8)
 				size = 8;
@@ -120,9 +122,7 @@ public class EvalFrames extends FullVisitor {
 		}
 	}
 	
-	public void visit(VarDecl varDecl) {
-		varDecl.type.accept(this);
-		
+	protected void post(VarDecl varDecl) {
 		Typ type = attrs.typAttr.get(varDecl).actualTyp();
 
 		if(!(frames.isEmpty()))
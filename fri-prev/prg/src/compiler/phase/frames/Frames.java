@@ -30,7 +30,7 @@ public class Frames extends Phase {
 	@Override
 	public void close() {
 		if (logger != null)
-			(new FramesToXML(logger, true, task.prgAttrs)).visit(task.prgAST);
+			(new FramesToXML(logger, true, task.prgAttrs)).walk(task.prgAST);
 		super.close();
 	}
 
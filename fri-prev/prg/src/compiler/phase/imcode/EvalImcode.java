@@ -16,7 +16,7 @@ import compiler.data.imc.*;
  * 
  * @author juliette
  */
-public class EvalImcode extends FullVisitor {
+public class EvalImcode extends Walker {
 
 	private final Attributes attrs;
 
@@ -30,7 +30,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(AtomExpr atomExpr) {
+	protected void post(AtomExpr atomExpr) {
 		switch (atomExpr.type) {
 		case INTEGER:
 			try {
@@ -87,11 +87,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(BinExpr binExpr) {
-		binExpr.fstExpr.accept(this);
-		binExpr.sndExpr.accept(this);
-		
-		
+	protected void post(BinExpr binExpr) {
 		switch (binExpr.oper) {
 		case ADD:
 		{
@@ -213,14 +209,12 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(CastExpr castExpr) {
-		castExpr.type.accept(this);
-		castExpr.expr.accept(this);
+	protected void post(CastExpr castExpr) {
 		attrs.imcAttr.set(castExpr, attrs.imcAttr.get(castExpr.expr));
 	}
 	
 	@Override
-	public void visit(CompName compName) {
+	protected void post(CompName compName) {
 		Decl decl = attrs.declAttr.get(compName);
 		if(decl instanceof CompDecl)
 		{
@@ -235,11 +229,10 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(Exprs exprs) {
+	protected void post(Exprs exprs) {
 			Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 			for (int e = 0; e < exprs.numExprs(); e++)
 			{
-				exprs.expr(e).accept(this);
 				if(e != exprs.numExprs()-1)
 					stmts.add(new ESTMT((IMCExpr)attrs.imcAttr.get(exprs.expr(e))));
 
@@ -249,12 +242,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(ForExpr forExpr) {
-		forExpr.var.accept(this);
-		forExpr.loBound.accept(this);
-		forExpr.hiBound.accept(this);
-		forExpr.body.accept(this);
-		
+	protected void post(ForExpr forExpr) {
 		IMCExpr var = (IMCExpr)attrs.imcAttr.get(forExpr.var);
 		
 		Vector<IMCStmt> stmts = new Vector<IMCStmt>();
@@ -299,7 +287,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(FunCall funCall) {
+	protected void post(FunCall funCall) {
 		Decl decl = attrs.declAttr.get(funCall);
 		if(decl instanceof FunDef)
 		{
@@ -329,7 +317,6 @@ public class EvalImcode extends FullVisitor {
 			
 			for (int a = 0; a < funCall.numArgs(); a++)
 			{
-				funCall.arg(a).accept(this);
 				arguments.add((IMCExpr) attrs.imcAttr.get(funCall.arg(a)));
 				width.add(attrs.typAttr.get(funCall.arg(a)).actualTyp().size());
 			}
@@ -351,7 +338,6 @@ public class EvalImcode extends FullVisitor {
 			
 			for (int a = 0; a < funCall.numArgs(); a++)
 			{
-				funCall.arg(a).accept(this);
 				arguments.add((IMCExpr) attrs.imcAttr.get(funCall.arg(a)));
 				width.add(attrs.typAttr.get(funCall.arg(a)).actualTyp().size());
 			}
@@ -361,21 +347,19 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(FunDef funDef) {
+	protected void pre(FunDef funDef) {
 		Frame frame = attrs.frmAttr.get(funDef);
 		int FP = TEMP.newTempName();
 		int RV = TEMP.newTempName();
 		CodeFragment tmpFragment = new CodeFragment(frame, FP, RV, null);
 		codeFragments.push(tmpFragment);
+	}
 
-		for (int p = 0; p < funDef.numPars(); p++)
-			funDef.par(p).accept(this);
-		funDef.type.accept(this);
-		funDef.body.accept(this);
-
-		codeFragments.pop();
-		IMCExpr expr = (IMCExpr) attrs.imcAttr.get(funDef.body);
-		MOVE move = new MOVE(new TEMP(RV), expr);
+	@Override
+	protected void post(FunDef funDef) {
+		CodeFragment tmpFragment = codeFragments.pop();
+		IMCExpr expr = (IMCExpr) attrs.imcAttr.get(funDef.body());
+		MOVE move = new MOVE(new TEMP(tmpFragment.RV), expr);
 		Fragment fragment = new CodeFragment(tmpFragment.frame, tmpFragment.FP, tmpFragment.RV, move);
 		attrs.frgAttr.set(funDef, fragment);
 		attrs.imcAttr.set(funDef, move);
@@ -383,11 +367,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(IfExpr ifExpr) {
-		ifExpr.cond.accept(this);
-		ifExpr.thenExpr.accept(this);
-		ifExpr.elseExpr.accept(this);
-		
+	protected void post(IfExpr ifExpr) {
 		Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 		
 		String a = LABEL.newLabelName();
@@ -420,17 +400,17 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(Program program) {
-		//program.expr.accept(this);
+	protected void pre(Program program) {
 		Frame frame = new Frame(0, "_", 0, 0, 0, 0, 0);
 		int FP = TEMP.newTempName();
 		int RV = TEMP.newTempName();
 		CodeFragment tmpFragment = new CodeFragment(frame, FP, RV, null);
 		codeFragments.push(tmpFragment);
+	}
 
-		program.expr.accept(this);
-		
-		codeFragments.pop();
+	@Override
+	protected void post(Program program) {
+		CodeFragment tmpFragment = codeFragments.pop();
 
 		MOVE move;
 		if(attrs.imcAttr.get(program.expr) instanceof IMCStmt)
@@ -443,8 +423,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(UnExpr unExpr) {
-		unExpr.subExpr.accept(this);
+	protected void post(UnExpr unExpr) {
 		switch (unExpr.oper) {
 		case ADD:
 		{
@@ -480,8 +459,7 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(VarDecl varDecl) {
-		varDecl.type.accept(this);
+	protected void post(VarDecl varDecl) {
 		Access vardecl = attrs.accAttr.get(varDecl);
 		if(vardecl instanceof StaticAccess)
 		{
@@ -495,7 +473,7 @@ public class EvalImcode extends FullVisitor {
 	}
 
 	@Override
-	public void visit(VarName varName) {
+	protected void post(VarName varName) {
 		Decl decl = attrs.declAttr.get(varName);
 		VarDecl vardecl = (VarDecl)decl;
 		Access access = attrs.accAttr.get(vardecl);
@@ -512,20 +490,12 @@ public class EvalImcode extends FullVisitor {
 	}
 	
 	@Override
-	public void visit(WhereExpr whereExpr) {
-		whereExpr.expr.accept(this);
-		
-		for (int d = 0; d < whereExpr.numDecls(); d++)
-			whereExpr.decl(d).accept(this);
-		
+	protected void post(WhereExpr whereExpr) {
 		attrs.imcAttr.set(whereExpr, attrs.imcAttr.get(whereExpr.expr));
 	}
 
 	@Override
-	public void visit(WhileExpr whileExpr) {
-		whileExpr.cond.accept(this);
-		whileExpr.body.accept(this);
-		
+	protected void post(WhileExpr whileExpr) {
 		Vector<IMCStmt> stmts = new Vector<IMCStmt>();
 		
 		String entry = LABEL.newLabelName();
@@ -27,7 +27,7 @@ public class Imcode extends Phase {
 	@Override
 	public void close() {
 		if (logger != null)
-			(new ImcodeToXML(logger, true, task.prgAttrs)).visit(task.prgAST);
+			(new ImcodeToXML(logger, true, task.prgAttrs)).walk(task.prgAST);
 		super.close();
 	}
 
@@ -49,19 +49,29 @@ public class ImcodeToXML extends FramesToXML {
 			logger.endElement();
 	}
 
-	// Visitor.
+	// Hooks.
 
 	@Override
-	public void visit(ArrType arrType) {
+	protected void pre(ArrType arrType) {
 		begElement();
-		super.visit(arrType);
+		super.pre(arrType);
+	}
+
+	@Override
+	protected void post(ArrType arrType) {
+		super.post(arrType);
 		endElement();
 	}
 
 	@Override
-	public void visit(AtomExpr atomExpr) {
+	protected void pre(AtomExpr atomExpr) {
 		begElement();
-		super.visit(atomExpr);
+		super.pre(atomExpr);
+	}
+
+	@Override
+	protected void post(AtomExpr atomExpr) {
+		super.post(atomExpr);
 		Fragment fragment = attrs.frgAttr.get(atomExpr);
 		if (fragment != null) {
 			logger.begElement("fragment");
@@ -78,16 +88,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(AtomType atomType) {
+	protected void pre(AtomType atomType) {
 		begElement();
-		super.visit(atomType);
+		super.pre(atomType);
+	}
+
+	@Override
+	protected void post(AtomType atomType) {
+		super.post(atomType);
 		endElement();
 	}
 
 	@Override
-	public void visit(BinExpr binExpr) {
+	protected void pre(BinExpr binExpr) {
 		begElement();
-		super.visit(binExpr);
+		super.pre(binExpr);
+	}
+
+	@Override
+	protected void post(BinExpr binExpr) {
+		super.post(binExpr);
 		IMC imc = attrs.imcAttr.get(binExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -98,9 +118,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(CastExpr castExpr) {
+	protected void pre(CastExpr castExpr) {
 		begElement();
-		super.visit(castExpr);
+		super.pre(castExpr);
+	}
+
+	@Override
+	protected void post(CastExpr castExpr) {
+		super.post(castExpr);
 		IMC imc = attrs.imcAttr.get(castExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -111,16 +136,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(CompDecl compDecl) {
+	protected void pre(CompDecl compDecl) {
 		begElement();
-		super.visit(compDecl);
+		super.pre(compDecl);
+	}
+
+	@Override
+	protected void post(CompDecl compDecl) {
+		super.post(compDecl);
 		endElement();
 	}
 
 	@Override
-	public void visit(CompName compName) {
+	protected void pre(CompName compName) {
 		begElement();
-		super.visit(compName);
+		super.pre(compName);
+	}
+
+	@Override
+	protected void post(CompName compName) {
+		super.post(compName);
 		IMC imc = attrs.imcAttr.get(compName);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -131,16 +166,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(DeclError declError) {
+	protected void pre(DeclError declError) {
 		begElement();
-		super.visit(declError);
+		super.pre(declError);
+	}
+
+	@Override
+	protected void post(DeclError declError) {
+		super.post(declError);
 		endElement();
 	}
 
 	@Override
-	public void visit(Exprs exprs) {
+	protected void pre(Exprs exprs) {
 		begElement();
-		super.visit(exprs);
+		super.pre(exprs);
+	}
+
+	@Override
+	protected void post(Exprs exprs) {
+		super.post(exprs);
 		IMC imc = attrs.imcAttr.get(exprs);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -151,16 +196,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(ExprError exprError) {
+	protected void pre(ExprError exprError) {
 		begElement();
-		super.visit(exprError);
+		super.pre(exprError);
+	}
+
+	@Override
+	protected void post(ExprError exprError) {
+		super.post(exprError);
 		endElement();
 	}
 
 	@Override
-	public void visit(ForExpr forExpr) {
+	protected void pre(ForExpr forExpr) {
 		begElement();
-		super.visit(forExpr);
+		super.pre(forExpr);
+	}
+
+	@Override
+	protected void post(ForExpr forExpr) {
+		super.post(forExpr);
 		IMC imc = attrs.imcAttr.get(forExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -171,9 +226,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(FunCall funCall) {
+	protected void pre(FunCall funCall) {
 		begElement();
-		super.visit(funCall);
+		super.pre(funCall);
+	}
+
+	@Override
+	protected void post(FunCall funCall) {
+		super.post(funCall);
 		IMC imc = attrs.imcAttr.get(funCall);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -184,16 +244,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(FunDecl funDecl) {
+	protected void pre(FunDecl funDecl) {
 		begElement();
-		super.visit(funDecl);
+		super.pre(funDecl);
+	}
+
+	@Override
+	protected void post(FunDecl funDecl) {
+		super.post(funDecl);
 		endElement();
 	}
 
 	@Override
-	public void visit(FunDef funDef) {
+	protected void pre(FunDef funDef) {
 		begElement();
-		super.visit(funDef);
+		super.pre(funDef);
+	}
+
+	@Override
+	protected void post(FunDef funDef) {
+		super.post(funDef);
 		Fragment fragment = attrs.frgAttr.get(funDef);
 		if (fragment != null) {
 			logger.begElement("fragment");
@@ -210,9 +280,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(IfExpr ifExpr) {
+	protected void pre(IfExpr ifExpr) {
 		begElement();
-		super.visit(ifExpr);
+		super.pre(ifExpr);
+	}
+
+	@Override
+	protected void post(IfExpr ifExpr) {
+		super.post(ifExpr);
 		IMC imc = attrs.imcAttr.get(ifExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -223,16 +298,26 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(ParDecl parDecl) {
+	protected void pre(ParDecl parDecl) {
 		begElement();
-		super.visit(parDecl);
+		super.pre(parDecl);
+	}
+
+	@Override
+	protected void post(ParDecl parDecl) {
+		super.post(parDecl);
 		endElement();
 	}
 
 	@Override
-	public void visit(Program program) {
+	protected void pre(Program program) {
 		begElement();
-		super.visit(program);
+		super.pre(program);
+	}
+
+	@Override
+	protected void post(Program program) {
+		super.post(program);
 		Fragment fragment = attrs.frgAttr.get(program);
 		if (fragment != null) {
 			logger.begElement("fragment");
@@ -249,44 +334,74 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(PtrType ptrType) {
+	protected void pre(PtrType ptrType) {
 		begElement();
-		super.visit(ptrType);
+		super.pre(ptrType);
+	}
+
+	@Override
+	protected void post(PtrType ptrType) {
+		super.post(ptrType);
 		endElement();
 	}
 
 	@Override
-	public void visit(RecType recType) {
+	protected void pre(RecType recType) {
 		begElement();
-		super.visit(recType);
+		super.pre(recType);
+	}
+
+	@Override
+	protected void post(RecType recType) {
+		super.post(recType);
 		endElement();
 	}
 
 	@Override
-	public void visit(TypeDecl typDecl) {
+	protected void pre(TypeDecl typDecl) {
 		begElement();
-		super.visit(typDecl);
+		super.pre(typDecl);
+	}
+
+	@Override
+	protected void post(TypeDecl typDecl) {
+		super.post(typDecl);
 		endElement();
 	}
 
 	@Override
-	public void visit(TypeError typeError) {
+	protected void pre(TypeError typeError) {
 		begElement();
-		super.visit(typeError);
+		super.pre(typeError);
+	}
+
+	@Override
+	protected void post(TypeError typeError) {
+		super.post(typeError);
 		endElement();
 	}
 
 	@Override
-	public void visit(TypeName typeName) {
+	protected void pre(TypeName typeName) {
 		begElement();
-		super.visit(typeName);
+		super.pre(typeName);
+	}
+
+	@Override
+	protected void post(TypeName typeName) {
+		super.post(typeName);
 		endElement();
 	}
 
 	@Override
-	public void visit(UnExpr unExpr) {
+	protected void pre(UnExpr unExpr) {
 		begElement();
-		super.visit(unExpr);
+		super.pre(unExpr);
+	}
+
+	@Override
+	protected void post(UnExpr unExpr) {
+		super.post(unExpr);
 		IMC imc = attrs.imcAttr.get(unExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -297,9 +412,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(VarDecl varDecl) {
+	protected void pre(VarDecl varDecl) {
 		begElement();
-		super.visit(varDecl);
+		super.pre(varDecl);
+	}
+
+	@Override
+	protected void post(VarDecl varDecl) {
+		super.post(varDecl);
 		Fragment fragment = attrs.frgAttr.get(varDecl);
 		if (fragment != null) {
 			logger.begElement("fragment");
@@ -310,9 +430,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(VarName varName) {
+	protected void pre(VarName varName) {
 		begElement();
-		super.visit(varName);
+		super.pre(varName);
+	}
+
+	@Override
+	protected void post(VarName varName) {
+		super.post(varName);
 		IMC imc = attrs.imcAttr.get(varName);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -323,9 +448,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(WhereExpr whereExpr) {
+	protected void pre(WhereExpr whereExpr) {
 		begElement();
-		super.visit(whereExpr);
+		super.pre(whereExpr);
+	}
+
+	@Override
+	protected void post(WhereExpr whereExpr) {
+		super.post(whereExpr);
 		IMC imc = attrs.imcAttr.get(whereExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
@@ -336,9 +466,14 @@ public class ImcodeToXML extends FramesToXML {
 	}
 
 	@Override
-	public void visit(WhileExpr whileExpr) {
+	protected void pre(WhileExpr whileExpr) {
 		begElement();
-		super.visit(whileExpr);
+		super.pre(whileExpr);
+	}
+
+	@Override
+	protected void post(WhileExpr whileExpr) {
+		super.post(whileExpr);
 		IMC imc = attrs.imcAttr.get(whileExpr);
 		if (imc != null) {
 			logger.begElement("imcode");
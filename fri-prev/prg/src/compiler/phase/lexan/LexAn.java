@@ -1,8 +1,6 @@
 package compiler.phase.lexan;
 
-import java.io.*;
-import java.util.Arrays;
-import java.util.Stack;
+import java.nio.charset.*;
 
 import compiler.*;
 import compiler.common.report.*;
@@ -17,31 +15,50 @@ import compiler.phase.lexan.Symbol.Token;
 public class LexAn extends Phase {
 
 	/** The source file. */
-	private FileReader srcFile;
+	private SourceFile srcFile;
+
+	/** The scanner reading the symbols on demand (if lexing on demand). */
+	private Lexer lexer;
+
+	/** The pipe from the lexer thread (if lexing in a pipeline). */
+	private TokenPipe pipe;
+
+	/** The symbols read so far. */
+	private TokenBuffer tokens;
+
+	/** The index of the next symbol to be returned. */
+	private int next;
+
+	/** The index of the end of file symbol once it has been reached. */
+	private int eof;
+
+	/** Whether a lexical error has been found. */
+	private boolean failed;
 
-	private String fileName;
-	
-	private Stack<Symbol> st;
 	/**
 	 * Constructs a new lexical analyzer.
 	 * 
-	 * Opens the source file and prepares the buffer. If logging is requested,
-	 * sets up the logger.
+	 * Opens and maps the source file. If logging is requested, sets up the
+	 * logger.
 	 * 
 	 * @param task.srcFName
 	 *            The name of the source file name.
+	 * @param task.lexMode
+	 *            Whether the source file is lexed on demand, in parallel or in
+	 *            a pipeline.
 	 */
 	public LexAn(Task task) {
 		super(task, "lexan");
 		
-		fileName = this.task.srcFName;
-		st = new Stack<Symbol>();
 		// Open the source file.
-		try {
-			srcFile = new FileReader(this.task.srcFName);
-		} catch (FileNotFoundException ex) {
-			throw new CompilerError("Source file '" + this.task.srcFName + "' not found.");
-		}
+		srcFile = new SourceFile(this.task.srcFName);
+		tokens = new TokenBuffer(srcFile, new LexemeTable());
+		if (this.task.lexMode.equals("pipelined"))
+			pipe = new TokenPipe(srcFile);
+		else if (!this.task.lexMode.equals("parallel"))
+			lexer = new Lexer(srcFile, tokens, 0, srcFile.length(), 1, 0);
+		next = 0;
+		eof = -1;
 	}
 
 	/**
@@ -50,15 +67,11 @@ public class LexAn extends Phase {
 	 */
 	@Override
 	public void close() {
-		// Close the source file.
-		
-		if (srcFile != null) {
-			try {
-				srcFile.close();
-			} catch (IOException ex) {
-				Report.warning("Source file '" + task.srcFName + "' cannot be closed.");
-			}
-		}
+		// Stop the lexer thread and close the source file.
+		if (pipe != null)
+			pipe.close();
+		if (srcFile != null)
+			srcFile.close();
 		super.close();
 	}
 
@@ -68,435 +81,165 @@ public class LexAn extends Phase {
 	 * @return The next lexical symbol.
 	 */
 	public Symbol lexAn() {
-		return st.pop();
+		return tokens.symbol(nextToken());
 	}
-	public void symols() {
-		Stack<Symbol> stack = new Stack<Symbol>();
-		int c;
-		int index = 0;
-		char[] buffer = new char[1024];
+
+	/**
+	 * Returns the buffer the lexical symbols are stored in.
+	 * 
+	 * @return The token buffer.
+	 */
+	public TokenBuffer tokens() {
+		return tokens;
+	}
+
+	/**
+	 * Reads the next lexical symbol from the source file into the token
+	 * buffer.
+	 * 
+	 * <p>
+	 * Symbols are produced on demand: each call scans only as many characters
+	 * as needed to recognize the next symbol, starting where the previous call
+	 * has stopped. Once the end of file is reached, the index of the same
+	 * {@link Symbol.Token#EOF EOF} symbol is returned on every call.
+	 * </p>
+	 * 
+	 * <p>
+	 * In the parallel mode, the whole source file is read by the
+	 * {@link ParallelLexer} on the first call and the symbols are then
+	 * returned one by one. In the pipelined mode, the symbols are read by a
+	 * separate thread and passed on through a {@link TokenPipe} in batches.
+	 * </p>
+	 * 
+	 * @return The index of the next lexical symbol in the token buffer.
+	 */
+	public int nextToken() {
+		if (eof != -1)
+			return eof;
+		if (next == tokens.size())
+			read();
+		int t = next++;
+		if (tokens.token(t) == Token.EOF)
+			eof = t;
+		tokens.log(t, logger);
+		return t;
+	}
+
+	/**
+	 * Reads more symbols into the token buffer: the next symbol if lexing on
+	 * demand, the next batch of symbols if lexing in a pipeline or all symbols
+	 * if lexing in parallel. The end of file symbol is added once the whole
+	 * source file has been read.
+	 */
+	private void read() {
 		try {
-			while ((c = srcFile.read()) != -1) {
-			    char ch = (char) c;
-			    buffer[index++] = ch;
-			    if(index == buffer.length)
-			    	buffer = Arrays.copyOf(buffer, buffer.length*2);
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		Symbol s = null;
-		Position position = null;
-		int line = 1;
-		int column = 0;
-		for(int i = 0; i < index; i++)
-		{
-			column++;
-		    /** new line **/
-			if(buffer[i] == 10 || buffer[i] == 13)
-		    {
-		    	column = 0;
-		    	line++;
-		    }
-			else if(buffer[i] == ' ' || buffer[i] == '\t')
-		    	//do nothing
-				continue;
-			else if(buffer[i] == '\t')
-				column += 8;
-			else if(buffer[i] == '+')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.ADD,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '&')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.AND,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '=' && i+1 < index && buffer[i+1] == '=')
-		    {
-		    	position = new Position(fileName, line, column, fileName, line, column+=1);
-		    	s = new Symbol(Token.EQU,position);
-		    	log(s);
-		    	i++;
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '=')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.ASSIGN,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == ':')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.COLON,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == ',')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.COMMA,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '}')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.CLOSING_BRACE,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == ']')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.CLOSING_BRACKET,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == ')')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.CLOSING_PARENTHESIS,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '.')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.DOT,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '/')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.DIV,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '>' && i+1 < index && buffer[i+1] == '=')
-		    {
-		    	position = new Position(fileName, line, column, fileName, line, column+=1);
-		    	s = new Symbol(Token.GEQ,position);
-		    	log(s);
-		    	i++;
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '>')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.GTH,position);
-		    	log(s);
-		    	stack.push(s);
-		    }	
-		    else if(buffer[i] == '<' && i+1 < index && buffer[i+1] == '=')
-		    {
-		    	position = new Position(fileName, line, column, fileName, line, column+=1);
-		    	s = new Symbol(Token.LTH,position);
-		    	log(s);
-		    	i++;
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '<')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.LEQ,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '@')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.MEM,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '%')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.MOD,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '*')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.MUL,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '!' && i+1 < index && buffer[i+1] == '=')
-		    {
-		    	position = new Position(fileName, line, column, fileName, line, column+=1);
-		    	s = new Symbol(Token.NEQ,position);
-		    	log(s);
-		    	i++;
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '!' )
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.NOT,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '{')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.OPENING_BRACE,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '[')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.OPENING_BRACKET,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '(')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.OPENING_PARENTHESIS,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '|')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.OR,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '-')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.SUB,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '^')
-		    {
-		    	position = new Position(fileName, line, column);
-		    	s = new Symbol(Token.VAL,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] >= '0' && buffer[i] <= '9')
-		    {
-				/** Integer constant. */
-		    	int begColumn = column;
-		    	int begI = i;
-		   		while((buffer[i] >= '0' && buffer[i] <= '9'))
-				{
-					column++;
-					i++;
-				}
-				column--;
-				i--;
-				position = new Position(fileName, line, begColumn, fileName, line, column);
-				String lexeme = new String(buffer, begI, i-(begI-1));
-		    	s = new Symbol(Token.CONST_INTEGER,lexeme,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == 39)
-		    {
-		    	/** Character constant. */
-		    	/** empty char '' **/
-		    	if(i+1 < index && buffer[i+1] == 39)
-			    	throw(new CompilerError("Invalid character constant at line " + line + ", column "+column));
-		    	if(buffer[i+1] == 92)
-			    {
-					if(i+3 < index && buffer[i+3] == 39)
-					{
-				    	if(buffer[i+2] == 92 || buffer[i+2] == 39 || buffer[i+2] == 34 || buffer[i+2] == 't' || buffer[i+2] == 'n')
-				    	{
-					    	position = new Position(fileName, line, column, fileName, line, column+=3);
-					    	String lexeme = new String(buffer, i, (i+3)-(i-1));
-					    	s = new Symbol(Token.CONST_CHAR,lexeme,position);
-					    	log(s);
-					    	i+=3;
-					    	stack.push(s);
-				    	}
-				    	else
-				    		throw(new CompilerError("Invalid escape sequence at line " + line + ", column "+column));
-				    }
-				    else
-				    	throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
-			    }
-			    else if(i+1 == index || buffer[i+1] == '\n' || buffer[i+1] == '\t')
-			    	throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
-			    else if(i+2 == index || buffer[i+2] != 39)
-			    		throw(new CompilerError("Character constant is not properly closed by a single-quote  at line " + line + ", column "+column));
-			    else if(buffer[i+1] >= 32 && buffer[i+1] <= 126)
-			    {
-			    	String lexeme = new String(buffer, i, (i+2)-(i-1));
-			    	position = new Position(fileName, line, column, fileName, line, column+=2);
-			    	s = new Symbol(Token.CONST_CHAR,lexeme,position);
-			    	log(s);
-			    	i+=2;
-			    	stack.push(s);
-			    }
-			    else
-			    	throw(new CompilerError("Invalid character constant at line " + line + ", column "+column));
-			   
-		    }
-		    else if(buffer[i] == '"')
-		    {
-		    	/** String constant. */
-		    	int begColumn = column;
-		    	int begI = i;
-		    	i++;
-		    	column++;
-				while(buffer[i] != '"' )
-				{
-					/** error cause ' **/
-					if(buffer[i] == 39)
-				    	throw(new CompilerError("Invalid string constant at line " + line + ", column "+column));
-					else if(buffer[i] == 92)
-					{
-						i++;
-						column++;
-						/** != \ && != ' && != " && != t && != n **/
-						if(buffer[i] != 92 && buffer[i] != 39  && buffer[i] != 34  && buffer[i] != 't'  && buffer[i] != 'n')
-					    	throw(new CompilerError("Invalid escape sequence at line " + line + ", column "+column));
-					}
-					else if(buffer[i] == '\t')
-					{
-				    	throw(new CompilerError("string with illegal character TAB at line " + line + ", column "+column));
-					}
-					else if(buffer[i] == '\n')
-				    	throw(new CompilerError("String literal is not properly closed by a double-quote  at line " + line + ", column "+column));
-					else if(i == index)
-				    	throw(new CompilerError("Invalid string constant at line " + line + ", column "+column));
-					else if(!(buffer[i] >= 0 && buffer[i] <= 127))
-				    	throw(new CompilerError("Unexpected character at line " + line + ", column "+column));	
-					column++;
-					i++;
-				}
-				int endColumn = column;
-				position = new Position(fileName, line, begColumn, fileName, line, endColumn);
-				String lexeme = new String(buffer, begI, i-(begI-1));
-		    	s = new Symbol(Token.CONST_STRING,lexeme,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if((buffer[i] >= 'a' && buffer[i] <= 'z') || (buffer[i] >= 'A' && buffer[i] <= 'Z') || buffer[i] == '_')
-		    {
-		    	/** Identifier. */
-		    	int begColumn = column;
-		    	int begI = i;
-				while((buffer[i] >= 'a' && buffer[i] <= 'z') || (buffer[i] >= 'A' && buffer[i] <= 'Z') || (buffer[i] >= '0' && buffer[i] <= '9') || buffer[i] == '_')
-				{
-					i++;
-					column++;
-				}
-				i--;
-				column--;
-				int endColumn = column;
-				position = new Position(fileName, line, begColumn, fileName, line, endColumn);
-				String lexeme = new String(buffer, begI, i-(begI-1));
-				if(lexeme.equals("false"))
-					s = new Symbol(Token.CONST_BOOLEAN,lexeme,position);
-				else if(lexeme.equals("true"))
-					s = new Symbol(Token.CONST_BOOLEAN,lexeme,position);
-				else if(lexeme.equals("null"))
-					s = new Symbol(Token.CONST_NULL,lexeme,position);
-				else if(lexeme.equals("none"))
-					s = new Symbol(Token.CONST_NONE,lexeme,position);
-				else if(lexeme.equals("integer"))
-					s = new Symbol(Token.INTEGER,lexeme,position);
-				else if(lexeme.equals("boolean"))
-					s = new Symbol(Token.BOOLEAN,lexeme,position);
-				else if(lexeme.equals("char"))
-					s = new Symbol(Token.CHAR,lexeme,position);
-				else if(lexeme.equals("string"))
-					s = new Symbol(Token.STRING,lexeme,position);
-				else if(lexeme.equals("void"))
-					s = new Symbol(Token.VOID,lexeme,position);	
-				else if(lexeme.equals("arr"))
-					s = new Symbol(Token.ARR,lexeme,position);
-				else if(lexeme.equals("else"))
-					s = new Symbol(Token.ELSE,lexeme,position);
-				else if(lexeme.equals("end"))
-					s = new Symbol(Token.END,lexeme,position);
-				else if(lexeme.equals("for"))
-					s = new Symbol(Token.FOR,lexeme,position);
-				else if(lexeme.equals("fun"))
-					s = new Symbol(Token.FUN,lexeme,position);
-				else if(lexeme.equals("if"))
-					s = new Symbol(Token.IF,lexeme,position);
-				else if(lexeme.equals("then"))
-					s = new Symbol(Token.THEN,lexeme,position);
-				else if(lexeme.equals("ptr"))
-					s = new Symbol(Token.PTR,lexeme,position);
-				else if(lexeme.equals("rec"))
-					s = new Symbol(Token.REC,lexeme,position);
-				else if(lexeme.equals("typ"))
-					s = new Symbol(Token.TYP,lexeme,position);
-				else if(lexeme.equals("var"))
-					s = new Symbol(Token.VAR,lexeme,position);
-				else if(lexeme.equals("where"))
-					s = new Symbol(Token.WHERE,lexeme,position);
-				else if(lexeme.equals("while"))
-					s = new Symbol(Token.WHILE,lexeme,position);
-				else if(lexeme.equals("do"))
-					s = new Symbol(Token.DO,lexeme,position);
-				else 
-					s = new Symbol(Token.IDENTIFIER,lexeme,position);
-		    	log(s);
-		    	stack.push(s);
-		    }
-		    else if(buffer[i] == '#')
-		    {
-		    	/** comment. */
-				while(buffer[i] != '\n')
-				{
-					if(!(buffer[i+1] >= 0 && buffer[i+1] <= 127))
-				    	throw(new CompilerError("Comment contains only ASCII characters at line " + line + ", column " + column));
-					i++;
-					if(i == index)
-				    	throw(new CompilerError("Comment must end with LF not EOF at line " + line + ", column " + column));
-				}
-				line++;
-				column=0;
-		    }
-		    else 
-		    	throw(new CompilerError("Unrecognisable symbol at line " + line + ", column " + column));
+			if (pipe != null) {
+				if (!pipe.read(tokens))
+					tokens.add(Token.EOF, srcFile.length(), srcFile.length() - 1);
+			} else if (lexer == null) {
+				ParallelLexer.lex(srcFile, tokens);
+				tokens.add(Token.EOF, srcFile.length(), srcFile.length() - 1);
+			} else if (lexer.lex() == -1)
+				tokens.add(Token.EOF, srcFile.length(), srcFile.length() - 1);
+		} catch (CompilerError error) {
+			failed = true;
+			throw error;
 		}
-		column++;
-		position = new Position(fileName, line, column);
-		s = new Symbol(Token.EOF,position);
-		log(s);
-    	stack.push(s);
-    	while(!stack.empty())
-    	{
-    		st.push(stack.pop());
-    	}
 	}
 
 	/**
-	 * Prints out the symbol and returns it.
+	 * Reads the rest of the source file into the token buffer unless a
+	 * lexical error has already been found.
+	 * 
+	 * <p>
+	 * The syntax analyzer calls this method before it reports a warning or an
+	 * error, so that a lexical error anywhere in the source file is reported
+	 * instead, just as if the whole source file had been lexed before it was
+	 * parsed. The symbols read are returned by {@link #nextToken() nextToken}
+	 * as usual.
+	 * </p>
+	 */
+	public void readAll() {
+		if (failed)
+			return;
+		while ((tokens.size() == 0) || (tokens.token(tokens.size() - 1) != Token.EOF))
+			read();
+	}
+
+	/**
+	 * Edits the source file and updates the symbols in the token buffer.
+	 * 
+	 * <p>
+	 * The rest of the source file is read first (without logging), so that
+	 * the token buffer holds all symbols. Then only the lines containing the
+	 * edit are lexed anew, from the first character of the first edited line
+	 * up to and including the first LF following the edit: no symbol, comment
+	 * or error extends over a LF, hence the scanner is back in its initial
+	 * state after the LF and all further symbols remain unchanged (apart from
+	 * being shifted). Lexical errors in the edited lines yield
+	 * {@link Token#ERROR ERROR} symbols instead of stopping the compilation.
+	 * </p>
 	 * 
-	 * This method should be called by the lexical analyzer before it returns a
-	 * symbol so that the symbol can be logged (even if logging of lexical
-	 * analysis has not been requested).
+	 * <p>
+	 * Symbols not yet returned by {@link #nextToken() nextToken} are returned
+	 * as usual; if the edit replaces some of the symbols already returned,
+	 * the cursor moves back to the first replaced symbol.
+	 * </p>
 	 * 
-	 * @param symbol
-	 *            The symbol to be printed out.
-	 * @return The symbol received as an argument.
+	 * @param offset
+	 *            The index of the first character to be removed.
+	 * @param removed
+	 *            The number of characters to be removed.
+	 * @param inserted
+	 *            The text to be inserted instead.
+	 * @return The change of the symbols.
 	 */
-	private Symbol log(Symbol symbol) {
-		symbol.log(logger);
-		return symbol;
+	public TokenSplice edit(int offset, int removed, String inserted) {
+		if ((offset < 0) || (removed < 0) || (offset + removed > srcFile.length()))
+			throw new InternalCompilerError();
+
+		// Read the rest of the source file, recovering from lexical errors.
+		if (pipe != null)
+			pipe.close();
+		if ((tokens.size() == 0) || (tokens.token(tokens.size() - 1) != Token.EOF)) {
+			int begIndex = lexer != null ? lexer.next() : pipe != null ? pipe.next() : 0;
+			Lexer rest = new Lexer(srcFile, tokens, begIndex, srcFile.length(), tokens.numLines(),
+					begIndex - tokens.lineBegin(begIndex), true);
+			while (rest.lex() != -1) {
+			}
+			tokens.add(Token.EOF, srcFile.length(), srcFile.length() - 1);
+		}
+		lexer = null;
+		pipe = null;
+
+		// Edit the source file.
+		byte[] bytes = inserted.getBytes(StandardCharsets.ISO_8859_1);
+		int shift = bytes.length - removed;
+		int begIndex = tokens.lineBegin(offset);
+		srcFile.edit(offset, removed, bytes);
+
+		// Lex the edited lines anew.
+		int endIndex = offset + bytes.length;
+		while ((endIndex < srcFile.length()) && (srcFile.at(endIndex) != '\n'))
+			endIndex++;
+		endIndex = Math.min(endIndex + 1, srcFile.length());
+		TokenBuffer chunk = new TokenBuffer(srcFile, (endIndex - begIndex) / 8);
+		Lexer lines = new Lexer(srcFile, chunk, begIndex, endIndex, 1, 0, true);
+		while (lines.lex() != -1) {
+		}
+
+		// Splice the symbols and the lines.
+		int first = tokens.find(begIndex);
+		Position firstPosition = tokens.position(first);
+		int removedTokens = tokens.splice(begIndex, endIndex - shift, chunk, shift);
+		int insertedTokens = chunk.size();
+		if (next > first + removedTokens)
+			next += insertedTokens - removedTokens;
+		else if (next > first)
+			next = first;
+		if (eof != -1)
+			eof = tokens.size() - 1;
+		return new TokenSplice(offset, removed, bytes.length, first, removedTokens, insertedTokens, firstPosition);
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package compiler.phase.lexan;
+
+import java.util.*;
+
+/**
+ * The table of interned lexemes of a compilation.
+ *
+ * <p>
+ * Each distinct lexeme is stored only once, so all symbols (and all AST
+ * nodes) of a compilation that share the same name also share the same
+ * {@link String} instance and later phases can compare names by identity.
+ * The table is owned by the lexical analyzer (see
+ * {@link compiler.phase.lexan.LexAn}) and is dropped together with it.
+ * </p>
+ *
+ * <p>
+ * The table uses open addressing with linear probing over the precomputed hash
+ * of each lexeme, so a lexeme that has already been interned is found without
+ * allocating anything. As the lexemes of a source file can be read by several
+ * threads at once (when the bodies of functions are parsed in parallel), the
+ * table itself is locked; in front of it, each thread keeps the lexemes it has
+ * found most recently in a small direct-mapped cache of its own, so most
+ * lexemes are found without locking.
+ * </p>
+ *
+ * @author juliette
+ */
+public class LexemeTable {
+
+	/** The number of entries of the cache of each thread (a power of two). */
+	private static final int FRONT_SIZE = 256;
+
+	/**
+	 * The cache of each thread: the lexemes found most recently, each one in
+	 * the entry selected by its hash.
+	 */
+	private final ThreadLocal<String[]> fronts = new ThreadLocal<String[]>() {
+		@Override
+		protected String[] initialValue() {
+			return new String[FRONT_SIZE];
+		}
+	};
+
+	/** The interned lexemes indexed by their ids. */
+	private String[] lexemes = new String[1024];
+
+	/** The hashes of the interned lexemes indexed by their ids. */
+	private int[] hashes = new int[1024];
+
+	/** The number of interned lexemes. */
+	private int size = 0;
+
+	/**
+	 * The hash table: each slot contains the id of a lexeme increased by one
+	 * or <code>0</code> if the slot is empty.
+	 */
+	private int[] slots = new int[2048];
+
+	/**
+	 * Returns the interned lexeme consisting of the specified characters of
+	 * the source file.
+	 *
+	 * @param srcFile
+	 *            The source file.
+	 * @param begIndex
+	 *            The index of the first character of the lexeme.
+	 * @param endIndex
+	 *            The index of the last character of the lexeme.
+	 * @return The interned lexeme.
+	 */
+	public String intern(SourceFile srcFile, int begIndex, int endIndex) {
+		int hash = 0;
+		for (int index = begIndex; index <= endIndex; index++)
+			hash = 31 * hash + srcFile.at(index);
+		String[] front = fronts.get();
+		int entry = mix(hash) & (FRONT_SIZE - 1);
+		String lexeme = front[entry];
+		if ((lexeme == null) || !equals(lexeme, srcFile, begIndex, endIndex)) {
+			lexeme = find(srcFile, begIndex, endIndex, hash);
+			front[entry] = lexeme;
+		}
+		return lexeme;
+	}
+
+	/**
+	 * Finds the lexeme consisting of the specified characters of the source
+	 * file in the table, adding it if it is not there yet.
+	 */
+	private synchronized String find(SourceFile srcFile, int begIndex, int endIndex, int hash) {
+		int mask = slots.length - 1;
+		for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id == -1) {
+				// The table may grow while adding the lexeme.
+				id = add(srcFile.text(begIndex, endIndex), hash);
+				return lexemes[id];
+			}
+			if ((hashes[id] == hash) && equals(lexemes[id], srcFile, begIndex, endIndex))
+				return lexemes[id];
+		}
+	}
+
+	/**
+	 * Adds a new lexeme to the table, growing the table if needed.
+	 *
+	 * @param lexeme
+	 *            The lexeme.
+	 * @param hash
+	 *            The hash of the lexeme.
+	 * @return The id of the lexeme.
+	 */
+	private int add(String lexeme, int hash) {
+		if (size == lexemes.length) {
+			lexemes = Arrays.copyOf(lexemes, 2 * size);
+			hashes = Arrays.copyOf(hashes, 2 * size);
+		}
+		lexemes[size] = lexeme;
+		hashes[size] = hash;
+		size++;
+		if (2 * size > slots.length) {
+			// Keep the load factor below one half.
+			slots = new int[2 * slots.length];
+			for (int id = 0; id < size - 1; id++)
+				insert(id);
+		}
+		insert(size - 1);
+		return size - 1;
+	}
+
+	/**
+	 * Inserts the id of a lexeme into the first empty slot of its probe
+	 * sequence.
+	 */
+	private void insert(int id) {
+		int mask = slots.length - 1;
+		int slot = mix(hashes[id]) & mask;
+		while (slots[slot] != 0)
+			slot = (slot + 1) & mask;
+		slots[slot] = id + 1;
+	}
+
+	/**
+	 * Spreads the bits of a hash so that similar lexemes do not end up in
+	 * neighbouring slots.
+	 */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Checks whether a lexeme consists of the specified characters of the
+	 * source file.
+	 */
+	private static boolean equals(String lexeme, SourceFile srcFile, int begIndex, int endIndex) {
+		if (lexeme.length() != endIndex - begIndex + 1)
+			return false;
+		for (int index = begIndex; index <= endIndex; index++)
+			if (lexeme.charAt(index - begIndex) != srcFile.at(index))
+				return false;
+		return true;
+	}
+
+}
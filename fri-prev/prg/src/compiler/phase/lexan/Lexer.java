@@ -0,0 +1,293 @@
+package compiler.phase.lexan;
+
+import compiler.common.report.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The scanner of the lexical analyzer.
+ * 
+ * <p>
+ * A scanner recognizes the symbols starting within a range of characters of
+ * the source file and appends them to a token buffer. The range normally
+ * covers the whole source file, but {@link ParallelLexer} scans the chunks of
+ * a large source file with one scanner per chunk. A symbol starting within
+ * the range is always recognized as a whole, even if it extends past the end
+ * of the range.
+ * </p>
+ * 
+ * <p>
+ * Normally, a lexical error stops the compilation. A scanner used for
+ * re-lexing an edited source file recovers instead: the rest of the line
+ * starting at the offending character is turned into a single
+ * {@link Token#ERROR ERROR} symbol and scanning resumes at the next line.
+ * </p>
+ * 
+ * @author juliette
+ */
+public class Lexer {
+
+	/** All tokens indexed by their ordinals. */
+	private static final Token[] TOKENS = Token.values();
+
+	/** The transition table of the automaton. */
+	private static final int[] delta = TokenDfa.DFA.delta;
+
+	/** The actions of the states of the automaton. */
+	private static final int[] actions = TokenDfa.DFA.actions;
+
+	/** The first final state of the automaton. */
+	private static final int firstFinal = TokenDfa.DFA.firstFinal;
+
+	/** The source file. */
+	private final SourceFile srcFile;
+
+	/** The number of characters in the source file. */
+	private final int length;
+
+	/** The index of the first character past the range being scanned. */
+	private final int end;
+
+	/** The index of the first character not yet consumed by the scanner. */
+	private int next;
+
+	/** The line of the last character consumed by the scanner. */
+	private int line;
+
+	/** The index of the first character of that line. */
+	private int lineBegin;
+
+	/** The buffer the symbols are appended to. */
+	private final TokenBuffer tokens;
+
+	/** Whether lexical errors are turned into error symbols. */
+	private final boolean recover;
+
+	/**
+	 * Constructs a new scanner.
+	 * 
+	 * @param srcFile
+	 *            The source file.
+	 * @param tokens
+	 *            The buffer the symbols are appended to.
+	 * @param begIndex
+	 *            The index of the first character of the range.
+	 * @param endIndex
+	 *            The index of the first character past the range.
+	 * @param line
+	 *            The line the range starts at.
+	 * @param column
+	 *            The column of the character preceding the range within its
+	 *            line (or <code>0</code> if the range starts at the beginning
+	 *            of a line).
+	 */
+	public Lexer(SourceFile srcFile, TokenBuffer tokens, int begIndex, int endIndex, int line, int column) {
+		this(srcFile, tokens, begIndex, endIndex, line, column, false);
+	}
+
+	/**
+	 * Constructs a new scanner that may recover from lexical errors.
+	 * 
+	 * @param srcFile
+	 *            The source file.
+	 * @param tokens
+	 *            The buffer the symbols are appended to.
+	 * @param begIndex
+	 *            The index of the first character of the range.
+	 * @param endIndex
+	 *            The index of the first character past the range.
+	 * @param line
+	 *            The line the range starts at.
+	 * @param column
+	 *            The column of the character preceding the range within its
+	 *            line (or <code>0</code> if the range starts at the beginning
+	 *            of a line).
+	 * @param recover
+	 *            Whether lexical errors are turned into error symbols.
+	 */
+	public Lexer(SourceFile srcFile, TokenBuffer tokens, int begIndex, int endIndex, int line, int column,
+			boolean recover) {
+		this.srcFile = srcFile;
+		this.length = srcFile.length();
+		this.end = endIndex;
+		this.next = begIndex;
+		this.line = line;
+		this.lineBegin = begIndex - column;
+		this.tokens = tokens;
+		this.recover = recover;
+	}
+
+	/**
+	 * Returns the index of the first character not yet consumed by the
+	 * scanner. Once the range is exhausted, this is the end of the range
+	 * unless the last symbol or comment extends past it.
+	 * 
+	 * @return The index of the first character not yet consumed.
+	 */
+	public int next() {
+		return next;
+	}
+
+	/**
+	 * Returns the line of the last character consumed by the scanner.
+	 * 
+	 * @return The line.
+	 */
+	public int line() {
+		return line;
+	}
+
+	/**
+	 * Returns the column of the last character consumed by the scanner within
+	 * its line (or <code>0</code> if the scanner is at the beginning of a
+	 * line). A scanner constructed with this line and column continues where
+	 * this scanner has stopped.
+	 * 
+	 * @return The column.
+	 */
+	public int column() {
+		return next - lineBegin;
+	}
+
+	/**
+	 * Recognizes the next symbol and appends it to the token buffer.
+	 * 
+	 * <p>
+	 * Each call scans only as many characters as needed to recognize the next
+	 * symbol, starting where the previous call has stopped.
+	 * </p>
+	 * 
+	 * @return The index of the symbol in the token buffer or <code>-1</code>
+	 *         if no symbol starts within the rest of the range.
+	 */
+	public int lex() {
+		int i = next;
+		while (i < end) {
+			// Follow the automaton, remembering the last final state.
+			int state = TokenDfa.START;
+			int finalState = TokenDfa.DEAD;
+			int last = i - 1;
+			for (int j = i; j < length; j++) {
+				state = delta[(state << 8) | (srcFile.at(j) & 0xFF)];
+				if (state >= firstFinal) {
+					finalState = state;
+					last = j;
+				} else if (state == TokenDfa.DEAD)
+					break;
+			}
+
+			int action = actions[finalState];
+			if (action >= 0)
+				return token(TOKENS[action], i, last);
+			switch (action) {
+			case TokenSpec.SKIP:
+				break;
+			case TokenSpec.NEWLINE:
+				line++;
+				lineBegin = last + 1;
+				tokens.addLine(last + 1);
+				break;
+			default:
+				if (!recover)
+					throw error(i);
+				// Skip the rest of the line.
+				for (last = i; (last + 1 < length) && (srcFile.at(last + 1) != '\n'); last++) {
+				}
+				return token(Token.ERROR, i, last);
+			}
+			i = last + 1;
+		}
+		next = i;
+		return -1;
+	}
+
+	/**
+	 * Appends a symbol to the token buffer and moves the cursor past its last
+	 * character.
+	 * 
+	 * @param token
+	 *            The token of the symbol that has just been recognized.
+	 * @param begIndex
+	 *            The index of the first character of the symbol.
+	 * @param endIndex
+	 *            The index of the last character of the symbol.
+	 * @return The index of the symbol in the token buffer.
+	 */
+	private int token(Token token, int begIndex, int endIndex) {
+		int t = tokens.add(token, begIndex, endIndex);
+		next = endIndex + 1;
+		return t;
+	}
+
+	/**
+	 * Produces the error message describing why no symbol starts at the
+	 * specified index.
+	 * 
+	 * @param begIndex
+	 *            The index of the first character that cannot be read.
+	 * @return The lexical error.
+	 */
+	private CompilerError error(int begIndex) {
+		int i = begIndex;
+		switch (srcFile.at(i)) {
+		case '\'':
+			/** Character constant. */
+			if ((i + 1 < length) && (srcFile.at(i + 1) == '\''))
+				return error("Invalid character constant", i);
+			if (srcFile.at(i + 1) == '\\') {
+				if ((i + 3 < length) && (srcFile.at(i + 3) == '\''))
+					return error("Invalid escape sequence", i);
+				return error("Character constant is not properly closed by a single-quote ", i);
+			}
+			if ((i + 1 == length) || (srcFile.at(i + 1) == '\n') || (srcFile.at(i + 1) == '\t')
+					|| (i + 2 == length) || (srcFile.at(i + 2) != '\''))
+				return error("Character constant is not properly closed by a single-quote ", i);
+			return error("Invalid character constant", i);
+		case '"':
+			/** String constant. */
+			for (i++; srcFile.at(i) != '"'; i++) {
+				if (srcFile.at(i) == '\'')
+					return error("Invalid string constant", i);
+				if (srcFile.at(i) == '\\') {
+					i++;
+					if (!isEscape(srcFile.at(i)))
+						return error("Invalid escape sequence", i);
+				} else if (srcFile.at(i) == '\t')
+					return error("string with illegal character TAB", i);
+				else if (srcFile.at(i) == '\n')
+					return error("String literal is not properly closed by a double-quote ", i);
+				else if (i == length)
+					return error("Invalid string constant", i);
+				else if (srcFile.at(i) < 0)
+					return error("Unexpected character", i);
+			}
+			break;
+		case '#':
+			/** Comment. */
+			for (int j = i; srcFile.at(j) != '\n';) {
+				if (srcFile.at(j + 1) < 0)
+					return error("Comment contains only ASCII characters", i);
+				j++;
+				if (j == length)
+					return error("Comment must end with LF not EOF", i);
+			}
+			break;
+		}
+		return error("Unrecognisable symbol", begIndex);
+	}
+
+	/**
+	 * Constructs a lexical error at the specified character.
+	 */
+	private CompilerError error(String message, int index) {
+		return new CompilerError(message + " at line " + line + ", column " + (index - lineBegin + 1));
+	}
+
+	/**
+	 * Checks whether a character may follow a backslash in an escape
+	 * sequence.
+	 */
+	private static boolean isEscape(byte c) {
+		return (c == '\\') || (c == '\'') || (c == '"') || (c == 't') || (c == 'n');
+	}
+
+}
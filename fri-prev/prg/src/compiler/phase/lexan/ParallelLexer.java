@@ -0,0 +1,196 @@
+package compiler.phase.lexan;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import compiler.common.report.*;
+
+/**
+ * The parallel lexical analyzer.
+ *
+ * <p>
+ * The source file is split into chunks of roughly equal size, each ending
+ * with a newline, and the chunks are scanned in parallel using fork-join, each
+ * by its own {@link Lexer} into its own {@link TokenBuffer}. The chunk buffers
+ * are then appended to the buffer of the whole source file in source order.
+ * </p>
+ *
+ * <p>
+ * A chunk is scanned as if the sequential lexical analyzer has just consumed a
+ * newline outside of any symbol. In PREV, neither a string nor a character
+ * constant may contain a newline, and a comment ends at the first newline, so
+ * this holds for every chunk following a chunk without lexical errors. When
+ * the chunks are appended, the state at each boundary is reconciled: if the
+ * previous chunk has not stopped exactly at the boundary (because a comment
+ * or a symbol extends past it) or if a lexical error has been found in the
+ * chunk, the chunk is rescanned sequentially from where the previous chunk
+ * has actually stopped. Hence the resulting symbols, lines and error messages
+ * are identical to those produced by the sequential lexical analyzer.
+ * </p>
+ *
+ * <p>
+ * Symbols are stored by the indices of their characters, which are the same
+ * within a chunk and within the whole source file, so the symbols of a chunk
+ * need no fixing up at all; only the lines started within the chunk are added
+ * to the line table of the source file.
+ * </p>
+ *
+ * @author juliette
+ */
+public class ParallelLexer {
+
+	/** The default number of characters in a chunk. */
+	public static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Reads all symbols of the source file except the end of file symbol into
+	 * the token buffer using chunks of the default size. If only one worker
+	 * thread is available, the source file is read as a single chunk.
+	 *
+	 * @param srcFile
+	 *            The source file.
+	 * @param tokens
+	 *            The empty token buffer of the source file.
+	 */
+	public static void lex(SourceFile srcFile, TokenBuffer tokens) {
+		if (ForkJoinPool.getCommonPoolParallelism() > 1)
+			lex(srcFile, tokens, CHUNK_SIZE);
+		else
+			lex(srcFile, tokens, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Reads all symbols of the source file except the end of file symbol into
+	 * the token buffer.
+	 *
+	 * @param srcFile
+	 *            The source file.
+	 * @param tokens
+	 *            The empty token buffer of the source file.
+	 * @param chunkSize
+	 *            The minimal number of characters in a chunk.
+	 */
+	public static void lex(SourceFile srcFile, TokenBuffer tokens, int chunkSize) {
+		Chunk[] chunks = split(srcFile, Math.max(chunkSize, 1));
+		if (chunks.length > 1)
+			ForkJoinPool.commonPool().invoke(new Scan(chunks, 0, chunks.length));
+
+		// Append the chunks in source order.
+		int next = 0;
+		for (Chunk chunk : chunks) {
+			if (chunk.endIndex <= next)
+				continue;
+			if ((chunk.begIndex == next) && (chunk.tokens != null) && (chunk.next != -1)) {
+				tokens.append(chunk.tokens);
+				next = chunk.next;
+			} else {
+				Lexer lexer = new Lexer(srcFile, tokens, next, chunk.endIndex, tokens.numLines(),
+						tokens.column(next) - 1);
+				while (lexer.lex() != -1) {
+				}
+				next = lexer.next();
+			}
+		}
+	}
+
+	/**
+	 * Splits the source file into chunks at newlines.
+	 */
+	private static Chunk[] split(SourceFile srcFile, int chunkSize) {
+		int numChunks = 0;
+		Chunk[] chunks = new Chunk[srcFile.length() / chunkSize + 1];
+		int begIndex = 0;
+		while (begIndex < srcFile.length()) {
+			// Avoid overflow with huge chunk sizes.
+			int endIndex = srcFile.length() - begIndex > chunkSize ? begIndex + chunkSize : srcFile.length();
+			while ((endIndex < srcFile.length()) && (srcFile.at(endIndex - 1) != '\n'))
+				endIndex++;
+			chunks[numChunks++] = new Chunk(srcFile, begIndex, endIndex);
+			begIndex = endIndex;
+		}
+		if (numChunks == 0)
+			chunks[numChunks++] = new Chunk(srcFile, 0, 0);
+		return Arrays.copyOf(chunks, numChunks);
+	}
+
+	/**
+	 * A chunk of the source file.
+	 */
+	private static class Chunk {
+
+		/** The source file. */
+		final SourceFile srcFile;
+
+		/** The index of the first character of the chunk. */
+		final int begIndex;
+
+		/** The index of the first character past the chunk. */
+		final int endIndex;
+
+		/** The symbols of the chunk (once the chunk has been scanned). */
+		TokenBuffer tokens;
+
+		/**
+		 * The index of the first character not consumed by the scan of the
+		 * chunk or <code>-1</code> if a lexical error has been found.
+		 */
+		int next;
+
+		Chunk(SourceFile srcFile, int begIndex, int endIndex) {
+			this.srcFile = srcFile;
+			this.begIndex = begIndex;
+			this.endIndex = endIndex;
+			this.tokens = null;
+			this.next = -1;
+		}
+
+		/**
+		 * Scans the chunk. Lines are counted from the beginning of the chunk,
+		 * so the error messages produced here are discarded; errors are
+		 * reported by rescanning the chunk sequentially.
+		 */
+		void scan() {
+			tokens = new TokenBuffer(srcFile, (endIndex - begIndex) / 8);
+			Lexer lexer = new Lexer(srcFile, tokens, begIndex, endIndex, 1, 0);
+			try {
+				while (lexer.lex() != -1) {
+				}
+				next = lexer.next();
+			} catch (CompilerError error) {
+				next = -1;
+			}
+		}
+
+	}
+
+	/**
+	 * The fork-join task scanning a range of chunks.
+	 */
+	@SuppressWarnings("serial")
+	private static class Scan extends RecursiveAction {
+
+		private final Chunk[] chunks;
+
+		private final int lo;
+
+		private final int hi;
+
+		Scan(Chunk[] chunks, int lo, int hi) {
+			this.chunks = chunks;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				chunks[lo].scan();
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new Scan(chunks, lo, mid), new Scan(chunks, mid, hi));
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package compiler.phase.lexan;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+import compiler.common.report.*;
+
+/**
+ * A source file mapped into memory.
+ *
+ * <p>
+ * PREV source files are ASCII only, hence the lexical analyzer reads the bytes
+ * of the source file directly from the mapping: the file is neither decoded
+ * nor copied into a buffer on the heap.
+ * </p>
+ *
+ * <p>
+ * The text of the source file can be {@link #edit(int, int, byte[]) edited}.
+ * On the first edit, the text is copied into a gap buffer on the heap: the
+ * bytes are kept in an array with a gap at the position of the last edit, so
+ * that a series of nearby edits only moves the bytes between them. The source
+ * file on disk is never changed.
+ * </p>
+ *
+ * @author juliette
+ */
+public class SourceFile implements AutoCloseable {
+
+	/** The name of the source file. */
+	public final String fileName;
+
+	/** The channel the source file is mapped through. */
+	private final FileChannel channel;
+
+	/** The bytes of the source file. */
+	private ByteBuffer bytes;
+
+	/** The number of bytes in the source file. */
+	private int length;
+
+	/** The edited text (or <code>null</code> if it has not been edited). */
+	private byte[] text;
+
+	/** The index of the first byte of the gap. */
+	private int gapBegin;
+
+	/** The number of bytes in the gap. */
+	private int gapSize;
+
+	/**
+	 * Opens the source file and maps it into memory.
+	 *
+	 * @param fileName
+	 *            The name of the source file.
+	 */
+	public SourceFile(String fileName) {
+		this.fileName = fileName;
+		try {
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		} catch (NoSuchFileException | InvalidPathException ex) {
+			throw new CompilerError("Source file '" + fileName + "' not found.");
+		} catch (IOException ex) {
+			throw new CompilerError("Source file '" + fileName + "' cannot be opened.");
+		}
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new CompilerError("Source file '" + fileName + "' is too large.");
+			length = (int) size;
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			text = null;
+			gapBegin = length;
+			gapSize = 0;
+		} catch (IOException ex) {
+			throw new CompilerError("Source file '" + fileName + "' cannot be read.");
+		}
+	}
+
+	/**
+	 * Returns the number of bytes in the source file.
+	 *
+	 * @return The number of bytes.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns the byte at the specified index of the source file.
+	 *
+	 * @param index
+	 *            The index of the byte.
+	 * @return The byte at the specified index or <code>0</code> if the index
+	 *         is past the end of the source file.
+	 */
+	public byte at(int index) {
+		if (index < gapBegin)
+			return bytes.get(index);
+		return index < length ? bytes.get(index + gapSize) : 0;
+	}
+
+	/**
+	 * Returns the text of the source file between the specified indices.
+	 *
+	 * @param begIndex
+	 *            The index of the first character of the text.
+	 * @param endIndex
+	 *            The index of the last character of the text.
+	 * @return The text.
+	 */
+	public String text(int begIndex, int endIndex) {
+		char[] chars = new char[endIndex - begIndex + 1];
+		for (int index = begIndex; index <= endIndex; index++)
+			chars[index - begIndex] = (char) at(index);
+		return new String(chars);
+	}
+
+	/**
+	 * Replaces a part of the text of the source file.
+	 *
+	 * @param offset
+	 *            The index of the first byte replaced.
+	 * @param removed
+	 *            The number of bytes removed.
+	 * @param inserted
+	 *            The bytes inserted instead.
+	 */
+	public void edit(int offset, int removed, byte[] inserted) {
+		if ((offset < 0) || (removed < 0) || (offset + removed > length))
+			throw new InternalCompilerError();
+		if (text == null) {
+			// Copy the mapped text to the heap, leaving the gap at its end.
+			text = new byte[length + Math.max(inserted.length, length / 8 + 64)];
+			ByteBuffer mapped = bytes.duplicate();
+			mapped.position(0);
+			mapped.get(text, 0, length);
+			bytes = ByteBuffer.wrap(text);
+			gapBegin = length;
+			gapSize = text.length - length;
+		}
+		if (inserted.length > gapSize + removed) {
+			// Enlarge the gap.
+			byte[] newText = new byte[2 * text.length + inserted.length];
+			int newGapSize = newText.length - length;
+			System.arraycopy(text, 0, newText, 0, gapBegin);
+			System.arraycopy(text, gapBegin + gapSize, newText, gapBegin + newGapSize, length - gapBegin);
+			text = newText;
+			bytes = ByteBuffer.wrap(text);
+			gapSize = newGapSize;
+		}
+
+		// Move the gap to the edit.
+		if (offset < gapBegin)
+			System.arraycopy(text, offset, text, offset + gapSize, gapBegin - offset);
+		else
+			System.arraycopy(text, gapBegin + gapSize, text, gapBegin, offset - gapBegin);
+		gapBegin = offset;
+
+		// Replace the bytes.
+		gapSize += removed;
+		System.arraycopy(inserted, 0, text, gapBegin, inserted.length);
+		gapBegin += inserted.length;
+		gapSize -= inserted.length;
+		length += inserted.length - removed;
+	}
+
+	/**
+	 * Closes the source file. The mapping itself is released once it is no
+	 * longer reachable.
+	 */
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			Report.warning("Source file '" + fileName + "' cannot be closed.");
+		}
+	}
+
+}
@@ -0,0 +1,477 @@
+package compiler.phase.lexan;
+
+import java.util.*;
+
+import compiler.common.logger.*;
+import compiler.common.report.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * A compact store of the symbols of a source file.
+ *
+ * <p>
+ * Instead of one {@link Symbol} object per symbol, the buffer keeps parallel
+ * arrays holding the token, the index of the first character and the length of
+ * each symbol. Lines and columns are not stored at all: they follow from the
+ * index of the symbol and the {@link LineTable} of the source file. Lexemes
+ * are read back from the source file when needed.
+ * </p>
+ *
+ * <p>
+ * Symbols are referred to by their index in the buffer. Full {@link Symbol}
+ * objects are materialized by {@link #symbol(int) symbol} only when a
+ * diagnostic or a log actually needs them.
+ * </p>
+ *
+ * <p>
+ * When the source file is edited, the symbols of the edited part are
+ * {@link #splice(int, int, TokenBuffer, int) spliced} into the buffer. Like
+ * the {@link LineTable}, the buffer is kept as a gap buffer for this purpose:
+ * the symbols after the gap are stored without the shift caused by the edits.
+ * Until the first edit, the gap is simply the free space at the end of the
+ * arrays.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TokenBuffer {
+
+	/** All tokens indexed by their ordinals. */
+	private static final Token[] TOKENS = Token.values();
+
+	/** The source file the symbols have been read from. */
+	private final SourceFile srcFile;
+
+	/**
+	 * The table the lexemes are interned in (or <code>null</code> if the
+	 * buffer holds the symbols of a single chunk only).
+	 */
+	private final LexemeTable lexemes;
+
+	/** The ordinals of the tokens of the symbols. */
+	private int[] tokens;
+
+	/** The indices of the first characters of the symbols. */
+	private int[] begins;
+
+	/** The lengths of the symbols. */
+	private int[] lengths;
+
+	/** The number of symbols in the buffer. */
+	private int size;
+
+	/** The index of the first element of the gap in the arrays. */
+	private int gapBegin;
+
+	/** The index of the first element past the gap in the arrays. */
+	private int gapEnd;
+
+	/** The shift of the symbols stored after the gap. */
+	private int gapShift;
+
+	/** The lines of the source file. */
+	private final LineTable lineTable;
+
+	/**
+	 * The indices of the first characters of the lines started within a chunk
+	 * (if the buffer holds the symbols of a single chunk only).
+	 */
+	private int[] lineBegins;
+
+	/** The number of lines started within a chunk. */
+	private int numLines;
+
+	/**
+	 * Constructs a new empty token buffer.
+	 *
+	 * @param srcFile
+	 *            The source file the symbols are read from.
+	 * @param lexemes
+	 *            The table the lexemes are interned in.
+	 */
+	public TokenBuffer(SourceFile srcFile, LexemeTable lexemes) {
+		this.srcFile = srcFile;
+		this.lexemes = lexemes;
+		int capacity = srcFile.length() / 8 + 16;
+		tokens = new int[capacity];
+		begins = new int[capacity];
+		lengths = new int[capacity];
+		size = 0;
+		gapBegin = 0;
+		gapEnd = capacity;
+		gapShift = 0;
+		lineTable = LineTable.newLineTable(srcFile.fileName);
+	}
+
+	/**
+	 * Constructs a new empty token buffer for the symbols of a single chunk
+	 * of the source file. The lines started within the chunk are kept apart
+	 * from the line table of the source file until the buffer is
+	 * {@link #append(TokenBuffer) appended} to the buffer of the whole file,
+	 * and so are its lexemes, which can only be read from that buffer.
+	 *
+	 * @param srcFile
+	 *            The source file the symbols are read from.
+	 * @param capacity
+	 *            The expected number of symbols.
+	 */
+	TokenBuffer(SourceFile srcFile, int capacity) {
+		this.srcFile = srcFile;
+		this.lexemes = null;
+		capacity = Math.max(capacity, 16);
+		tokens = new int[capacity];
+		begins = new int[capacity];
+		lengths = new int[capacity];
+		size = 0;
+		gapBegin = 0;
+		gapEnd = capacity;
+		gapShift = 0;
+		lineTable = null;
+		lineBegins = new int[16];
+		numLines = 0;
+	}
+
+	/**
+	 * Appends a symbol to the buffer.
+	 *
+	 * @param token
+	 *            The token of the symbol.
+	 * @param begIndex
+	 *            The index of the first character of the symbol.
+	 * @param endIndex
+	 *            The index of the last character of the symbol.
+	 * @return The index of the symbol in the buffer.
+	 */
+	int add(Token token, int begIndex, int endIndex) {
+		if (gapBegin != size)
+			moveGap(size);
+		if (gapBegin == gapEnd)
+			grow(1);
+		tokens[gapBegin] = token.ordinal();
+		begins[gapBegin] = begIndex;
+		lengths[gapBegin] = endIndex - begIndex + 1;
+		gapBegin++;
+		return size++;
+	}
+
+	/**
+	 * Starts a new line.
+	 *
+	 * @param begIndex
+	 *            The index of the first character of the new line.
+	 */
+	void addLine(int begIndex) {
+		if (lineTable != null) {
+			lineTable.addLine(begIndex);
+			return;
+		}
+		if (numLines == lineBegins.length)
+			lineBegins = Arrays.copyOf(lineBegins, 2 * numLines);
+		lineBegins[numLines++] = begIndex;
+	}
+
+	/**
+	 * Returns the number of lines started so far, i.e., the line of the last
+	 * character consumed by the lexical analyzer. For the buffer of a single
+	 * chunk, only the lines started within the chunk are counted.
+	 *
+	 * @return The number of lines.
+	 */
+	int numLines() {
+		return lineTable != null ? lineTable.numLines() : numLines;
+	}
+
+	/**
+	 * Returns the column of a character that has already been consumed by the
+	 * lexical analyzer.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The column of the character.
+	 */
+	int column(int index) {
+		return lineTable != null ? lineTable.column(index) : 0;
+	}
+
+	/**
+	 * Appends the symbols and the lines of a chunk to the buffer. As symbols
+	 * are stored by the indices of their characters, which are the same in
+	 * the chunk and in the whole source file, only the lines started within
+	 * the chunk have to be added to the line table of the source file.
+	 *
+	 * @param chunk
+	 *            The buffer holding the symbols of the chunk.
+	 */
+	void append(TokenBuffer chunk) {
+		int count = chunk.size;
+		chunk.moveGap(count);
+		moveGap(size);
+		if (gapEnd - gapBegin < count)
+			grow(count);
+		System.arraycopy(chunk.tokens, 0, tokens, gapBegin, count);
+		System.arraycopy(chunk.begins, 0, begins, gapBegin, count);
+		System.arraycopy(chunk.lengths, 0, lengths, gapBegin, count);
+		gapBegin += count;
+		size += count;
+		for (int l = 0; l < chunk.numLines; l++)
+			addLine(chunk.lineBegins[l]);
+	}
+
+	/**
+	 * Replaces the symbols and the lines of a part of the source file that
+	 * has been edited and shifts the symbols and the lines following it.
+	 *
+	 * @param begIndex
+	 *            The index of the first character of the edited part, which
+	 *            must be the first character of a line.
+	 * @param endIndex
+	 *            The index of the first character past the edited part before
+	 *            the edit, which must be the first character of a line or the
+	 *            end of the source file.
+	 * @param chunk
+	 *            The buffer holding the symbols and the lines of the edited
+	 *            part after the edit.
+	 * @param shift
+	 *            The change of the length of the edited part.
+	 * @return The number of symbols replaced.
+	 */
+	int splice(int begIndex, int endIndex, TokenBuffer chunk, int shift) {
+		int first = find(begIndex);
+		int last = find(endIndex);
+		int count = chunk.size;
+		chunk.moveGap(count);
+		moveGap(first);
+		gapEnd += last - first;
+		size -= last - first;
+		if (gapEnd - gapBegin < count)
+			grow(count);
+		System.arraycopy(chunk.tokens, 0, tokens, gapBegin, count);
+		System.arraycopy(chunk.begins, 0, begins, gapBegin, count);
+		System.arraycopy(chunk.lengths, 0, lengths, gapBegin, count);
+		gapBegin += count;
+		size += count;
+		gapShift += shift;
+		lineTable.splice(begIndex, endIndex, chunk.lineBegins, chunk.numLines, shift);
+		return last - first;
+	}
+
+	/**
+	 * Returns the index of the first symbol starting at or after the
+	 * specified character.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The index of the symbol (or the number of symbols if there is
+	 *         no such symbol).
+	 */
+	int find(int index) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (begin(mid) < index)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the index of the first character of the line containing the
+	 * specified character.
+	 *
+	 * @param index
+	 *            The index of the character.
+	 * @return The index of the first character of the line.
+	 */
+	int lineBegin(int index) {
+		return lineTable.index(lineTable.line(index), 1);
+	}
+
+	/** Moves the gap in front of a symbol. */
+	private void moveGap(int t) {
+		if (t < gapBegin) {
+			int count = gapBegin - t;
+			System.arraycopy(tokens, t, tokens, gapEnd - count, count);
+			System.arraycopy(begins, t, begins, gapEnd - count, count);
+			System.arraycopy(lengths, t, lengths, gapEnd - count, count);
+			for (int e = gapEnd - count; e < gapEnd; e++)
+				begins[e] -= gapShift;
+			gapBegin -= count;
+			gapEnd -= count;
+		} else if (t > gapBegin) {
+			int count = t - gapBegin;
+			System.arraycopy(tokens, gapEnd, tokens, gapBegin, count);
+			System.arraycopy(begins, gapEnd, begins, gapBegin, count);
+			System.arraycopy(lengths, gapEnd, lengths, gapBegin, count);
+			for (int e = gapBegin; e < gapBegin + count; e++)
+				begins[e] += gapShift;
+			gapBegin += count;
+			gapEnd += count;
+		}
+		if (gapEnd == tokens.length)
+			gapShift = 0;
+	}
+
+	/** Enlarges the gap to hold at least the specified number of symbols. */
+	private void grow(int count) {
+		int capacity = 2 * tokens.length + count;
+		int tail = tokens.length - gapEnd;
+		tokens = grow(tokens, capacity, tail);
+		begins = grow(begins, capacity, tail);
+		lengths = grow(lengths, capacity, tail);
+		gapEnd = capacity - tail;
+	}
+
+	private int[] grow(int[] array, int capacity, int tail) {
+		int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, gapBegin);
+		System.arraycopy(array, array.length - tail, newArray, capacity - tail, tail);
+		return newArray;
+	}
+
+	/**
+	 * Returns the number of symbols in the buffer.
+	 *
+	 * @return The number of symbols.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the token of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The token.
+	 */
+	public Token token(int t) {
+		return TOKENS[tokens[slot(t)]];
+	}
+
+	/**
+	 * Returns the index of the first character of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The index of the first character.
+	 */
+	public int begin(int t) {
+		return t < gapBegin ? begins[t] : begins[t + gapEnd - gapBegin] + gapShift;
+	}
+
+	/**
+	 * Returns the length of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The length.
+	 */
+	public int length(int t) {
+		return lengths[slot(t)];
+	}
+
+	/**
+	 * Returns the line of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The line.
+	 */
+	public int line(int t) {
+		return lineTable.line(begin(t));
+	}
+
+	/**
+	 * Returns the column of the first character of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The column of the first character.
+	 */
+	public int begColumn(int t) {
+		return lineTable.column(begin(t));
+	}
+
+	/**
+	 * Returns the column of the last character of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The column of the last character.
+	 */
+	public int endColumn(int t) {
+		return begColumn(t) + Math.max(length(t) - 1, 0);
+	}
+
+	/**
+	 * Returns the lexeme of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The lexeme or <code>null</code> if the symbol has no lexeme.
+	 */
+	public String lexeme(int t) {
+		Token token = token(t);
+		int begin = begin(t);
+		int length = length(t);
+		switch (token) {
+		case CONST_INTEGER:
+		case CONST_CHAR:
+		case CONST_STRING:
+			return srcFile.text(begin, begin + length - 1);
+		case EOF:
+		case ERROR:
+			return null;
+		default:
+			if (token.compareTo(Token.CONST_INTEGER) < 0)
+				return null;
+			return lexemes.intern(srcFile, begin, begin + length - 1);
+		}
+	}
+
+	/**
+	 * Returns the position of a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The position.
+	 */
+	public Position position(int t) {
+		return new Position(lineTable.fileId, begin(t), begin(t) + Math.max(length(t) - 1, 0));
+	}
+
+	/** Returns the index of a symbol in the arrays. */
+	private int slot(int t) {
+		return t < gapBegin ? t : t + gapEnd - gapBegin;
+	}
+
+	/**
+	 * Materializes a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The symbol.
+	 */
+	public Symbol symbol(int t) {
+		return new Symbol(token(t), lexeme(t), position(t));
+	}
+
+	/**
+	 * Logs a symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @param logger
+	 *            The logger the symbol is logged to (or <code>null</code> if
+	 *            logging has not been requested).
+	 */
+	public void log(int t, Logger logger) {
+		if (logger == null)
+			return;
+		symbol(t).log(logger);
+	}
+
+}
@@ -0,0 +1,367 @@
+package compiler.phase.lexan;
+
+import java.util.*;
+
+import compiler.common.report.*;
+
+/**
+ * The deterministic finite automaton recognizing the symbols of PREV.
+ *
+ * <p>
+ * The automaton is built from the rules of a {@link TokenSpec}: the pattern of
+ * each rule is compiled into a nondeterministic automaton, the automata of all
+ * rules are joined at a common start state and the result is determinized by
+ * the subset construction. A state of the automaton that contains the final
+ * state of one or more rules is final and performs the action of the rule
+ * listed first.
+ * </p>
+ *
+ * <p>
+ * The transition table is indexed by the state and the byte read, so that the
+ * lexical analyzer performs a single table lookup per byte. The states are
+ * numbered so that the dead state is <code>0</code>, the start state is
+ * <code>1</code> and all final states follow all other states, hence whether
+ * a state is final is told by a single comparison.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TokenDfa {
+
+	/** The dead state. */
+	public static final int DEAD = 0;
+
+	/** The start state. */
+	public static final int START = 1;
+
+	/** The action of a state that is not final. */
+	public static final int NONE = -1;
+
+	/** The automaton recognizing the symbols of PREV. */
+	public static final TokenDfa DFA = new TokenDfa(TokenSpec.RULES);
+
+	/**
+	 * The transition table: in state <code>s</code>, byte <code>b</code>
+	 * leads to state <code>delta[(s &lt;&lt; 8) | b]</code>.
+	 */
+	public final int[] delta;
+
+	/**
+	 * The actions of states: the ordinal of a token, {@link TokenSpec#SKIP
+	 * SKIP}, {@link TokenSpec#NEWLINE NEWLINE} or {@link #NONE NONE}.
+	 */
+	public final int[] actions;
+
+	/** The first final state; all states from here on are final. */
+	public final int firstFinal;
+
+	/** The number of states. */
+	public final int numStates;
+
+	/**
+	 * Constructs the automaton recognizing the matches of the specified
+	 * rules.
+	 *
+	 * @param rules
+	 *            The rules in order of priority.
+	 */
+	public TokenDfa(TokenSpec.Rule[] rules) {
+		// Build the nondeterministic automaton.
+		Nfa nfa = new Nfa();
+		int nfaStart = nfa.newState();
+		for (int r = 0; r < rules.length; r++) {
+			int[] fragment = new Parser(rules[r].pattern, nfa).parse();
+			nfa.addEpsilon(nfaStart, fragment[0]);
+			nfa.rules.set(fragment[1], r);
+		}
+
+		// Group the bytes that no transition tells apart into classes.
+		ArrayList<BitSet> edges = new ArrayList<BitSet>();
+		for (ArrayList<BitSet> edgeSets : nfa.edgeSets)
+			edges.addAll(edgeSets);
+		int[] byteClass = new int[256];
+		int numClasses = 1;
+		for (BitSet bytes : edges) {
+			// Split each class into the bytes within and outside the edge.
+			int[] split = new int[numClasses];
+			for (int b = bytes.nextSetBit(0); b >= 0; b = bytes.nextSetBit(b + 1)) {
+				if (split[byteClass[b]] == 0)
+					split[byteClass[b]] = numClasses++;
+				byteClass[b] = split[byteClass[b]];
+			}
+		}
+		int[] classIds = new int[numClasses];
+		Arrays.fill(classIds, -1);
+		numClasses = 0;
+		for (int b = 0; b < 256; b++) {
+			if (classIds[byteClass[b]] == -1)
+				classIds[byteClass[b]] = numClasses++;
+			byteClass[b] = classIds[byteClass[b]];
+		}
+
+		// Determinize the automaton over byte classes.
+		ArrayList<BitSet> states = new ArrayList<BitSet>();
+		HashMap<BitSet, Integer> stateIds = new HashMap<BitSet, Integer>();
+		states.add(new BitSet());
+		stateIds.put(states.get(DEAD), DEAD);
+		BitSet start = new BitSet();
+		start.set(nfaStart);
+		nfa.close(start);
+		states.add(start);
+		stateIds.put(start, START);
+		ArrayList<int[]> table = new ArrayList<int[]>();
+		table.add(new int[numClasses]);
+		for (int s = START; s < states.size(); s++) {
+			BitSet[] moves = new BitSet[numClasses];
+			BitSet state = states.get(s);
+			for (int q = state.nextSetBit(0); q >= 0; q = state.nextSetBit(q + 1))
+				for (int e = 0; e < nfa.edgeSets.get(q).size(); e++) {
+					BitSet bytes = nfa.edgeSets.get(q).get(e);
+					int target = nfa.edgeTargets.get(q).get(e);
+					for (int b = bytes.nextSetBit(0); b >= 0; b = bytes.nextSetBit(b + 1)) {
+						if (moves[byteClass[b]] == null)
+							moves[byteClass[b]] = new BitSet();
+						moves[byteClass[b]].set(target);
+					}
+				}
+			int[] row = new int[numClasses];
+			table.add(row);
+			for (int c = 0; c < numClasses; c++) {
+				if (moves[c] == null)
+					continue;
+				nfa.close(moves[c]);
+				Integer target = stateIds.get(moves[c]);
+				if (target == null) {
+					target = states.size();
+					states.add(moves[c]);
+					stateIds.put(moves[c], target);
+				}
+				row[c] = target;
+			}
+		}
+
+		// Renumber the states so that final states come last.
+		numStates = states.size();
+		int[] rule = new int[numStates];
+		int[] renumber = new int[numStates];
+		int nextId = 0;
+		for (int s = 0; s < numStates; s++) {
+			rule[s] = Integer.MAX_VALUE;
+			BitSet state = states.get(s);
+			for (int q = state.nextSetBit(0); q >= 0; q = state.nextSetBit(q + 1))
+				rule[s] = Math.min(rule[s], nfa.rules.get(q));
+			if (rule[s] == Integer.MAX_VALUE)
+				renumber[s] = nextId++;
+		}
+		if (rule[START] != Integer.MAX_VALUE)
+			throw new InternalCompilerError();
+		firstFinal = nextId;
+		for (int s = 0; s < numStates; s++)
+			if (rule[s] != Integer.MAX_VALUE)
+				renumber[s] = nextId++;
+		delta = new int[numStates << 8];
+		actions = new int[numStates];
+		for (int s = 0; s < numStates; s++) {
+			for (int b = 0; b < 256; b++)
+				delta[(renumber[s] << 8) | b] = renumber[table.get(s)[byteClass[b]]];
+			actions[renumber[s]] = rule[s] == Integer.MAX_VALUE ? NONE : rules[rule[s]].action;
+		}
+	}
+
+	/**
+	 * A nondeterministic automaton with epsilon transitions.
+	 */
+	private static class Nfa {
+
+		/** The epsilon transitions of states. */
+		final ArrayList<ArrayList<Integer>> epsilons = new ArrayList<ArrayList<Integer>>();
+
+		/** The sets of bytes labelling the transitions of states. */
+		final ArrayList<ArrayList<BitSet>> edgeSets = new ArrayList<ArrayList<BitSet>>();
+
+		/** The targets of the transitions of states. */
+		final ArrayList<ArrayList<Integer>> edgeTargets = new ArrayList<ArrayList<Integer>>();
+
+		/** The rules of the final states (or the maximal integer). */
+		final ArrayList<Integer> rules = new ArrayList<Integer>();
+
+		int newState() {
+			epsilons.add(new ArrayList<Integer>());
+			edgeSets.add(new ArrayList<BitSet>());
+			edgeTargets.add(new ArrayList<Integer>());
+			rules.add(Integer.MAX_VALUE);
+			return rules.size() - 1;
+		}
+
+		void addEpsilon(int source, int target) {
+			epsilons.get(source).add(target);
+		}
+
+		void addEdge(int source, BitSet bytes, int target) {
+			edgeSets.get(source).add(bytes);
+			edgeTargets.get(source).add(target);
+		}
+
+		/** Extends a set of states by all states reachable by epsilons. */
+		void close(BitSet states) {
+			int[] work = new int[rules.size()];
+			int size = 0;
+			for (int q = states.nextSetBit(0); q >= 0; q = states.nextSetBit(q + 1))
+				work[size++] = q;
+			while (size > 0) {
+				ArrayList<Integer> targets = epsilons.get(work[--size]);
+				for (int t = 0; t < targets.size(); t++)
+					if (!states.get(targets.get(t))) {
+						states.set(targets.get(t));
+						work[size++] = targets.get(t);
+					}
+			}
+		}
+
+	}
+
+	/**
+	 * The parser of a pattern building its nondeterministic automaton by
+	 * Thompson's construction. Each fragment of the automaton is represented
+	 * by the pair of its start and its final state.
+	 */
+	private static class Parser {
+
+		private final String pattern;
+
+		private final Nfa nfa;
+
+		private int pos;
+
+		Parser(String pattern, Nfa nfa) {
+			this.pattern = pattern;
+			this.nfa = nfa;
+			this.pos = 0;
+		}
+
+		int[] parse() {
+			int[] fragment = parseAlternatives();
+			if (pos != pattern.length())
+				throw error();
+			return fragment;
+		}
+
+		private int[] parseAlternatives() {
+			int[] fragment = parseSequence();
+			while (peek() == '|') {
+				pos++;
+				int[] alternative = parseSequence();
+				int beg = nfa.newState();
+				int end = nfa.newState();
+				nfa.addEpsilon(beg, fragment[0]);
+				nfa.addEpsilon(beg, alternative[0]);
+				nfa.addEpsilon(fragment[1], end);
+				nfa.addEpsilon(alternative[1], end);
+				fragment = new int[] { beg, end };
+			}
+			return fragment;
+		}
+
+		private int[] parseSequence() {
+			int state = nfa.newState();
+			int[] fragment = { state, state };
+			while ((pos < pattern.length()) && (peek() != '|') && (peek() != ')')) {
+				int[] next = parseRepetition();
+				nfa.addEpsilon(fragment[1], next[0]);
+				fragment[1] = next[1];
+			}
+			return fragment;
+		}
+
+		private int[] parseRepetition() {
+			int[] fragment = parseAtom();
+			while ((peek() == '*') || (peek() == '+') || (peek() == '?')) {
+				char op = pattern.charAt(pos++);
+				int beg = nfa.newState();
+				int end = nfa.newState();
+				nfa.addEpsilon(beg, fragment[0]);
+				nfa.addEpsilon(fragment[1], end);
+				if (op != '+')
+					nfa.addEpsilon(beg, end);
+				if (op != '?')
+					nfa.addEpsilon(fragment[1], fragment[0]);
+				fragment = new int[] { beg, end };
+			}
+			return fragment;
+		}
+
+		private int[] parseAtom() {
+			BitSet bytes = new BitSet(256);
+			switch (peek()) {
+			case '(': {
+				pos++;
+				int[] fragment = parseAlternatives();
+				if (peek() != ')')
+					throw error();
+				pos++;
+				return fragment;
+			}
+			case '[': {
+				pos++;
+				boolean negated = peek() == '^';
+				if (negated)
+					pos++;
+				while (peek() != ']') {
+					int first = parseChar();
+					int last = first;
+					if ((peek() == '-') && (pos + 1 < pattern.length()) && (pattern.charAt(pos + 1) != ']')) {
+						pos++;
+						last = parseChar();
+					}
+					bytes.set(first, last + 1);
+				}
+				pos++;
+				if (negated)
+					bytes.flip(0, 256);
+				break;
+			}
+			default:
+				bytes.set(parseChar());
+				break;
+			}
+			int beg = nfa.newState();
+			int end = nfa.newState();
+			nfa.addEdge(beg, bytes, end);
+			return new int[] { beg, end };
+		}
+
+		private int parseChar() {
+			if (pos == pattern.length())
+				throw error();
+			char c = pattern.charAt(pos++);
+			if (c != '\\')
+				return c;
+			if (pos == pattern.length())
+				throw error();
+			c = pattern.charAt(pos++);
+			switch (c) {
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'x':
+				pos += 2;
+				return Integer.parseInt(pattern.substring(pos - 2, pos), 16);
+			default:
+				return c;
+			}
+		}
+
+		private char peek() {
+			return pos < pattern.length() ? pattern.charAt(pos) : '\0';
+		}
+
+		private InternalCompilerError error() {
+			return new InternalCompilerError();
+		}
+
+	}
+
+}
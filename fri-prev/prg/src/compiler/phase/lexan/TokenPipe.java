@@ -0,0 +1,221 @@
+package compiler.phase.lexan;
+
+import compiler.common.report.*;
+
+/**
+ * The pipe between the lexical analyzer running on its own thread and the
+ * syntax analyzer.
+ *
+ * <p>
+ * The lexer thread reads the source file in batches of
+ * {@link #BATCH_SIZE BATCH_SIZE} symbols, each by its own {@link Lexer} into
+ * its own {@link TokenBuffer} (continuing where the previous one has stopped),
+ * and publishes the batches through a bounded ring buffer. The thread
+ * consuming the symbols appends the batches to the token buffer of the whole
+ * source file one by one as it needs more symbols, so the token buffer itself
+ * is only ever touched by the consuming thread.
+ * </p>
+ *
+ * <p>
+ * The ring buffer has a single producer and a single consumer and uses no
+ * locks: the producer stores a batch into a free slot and then advances the
+ * volatile <code>tail</code>, while the consumer takes the batch once it sees
+ * the new <code>tail</code> and then advances the volatile <code>head</code>,
+ * which frees the slot. A full or an empty ring buffer is waited on by
+ * spinning and yielding.
+ * </p>
+ *
+ * <p>
+ * A lexical error found by the lexer thread is passed on in its batch and
+ * thrown by the consuming thread only once all symbols preceding the error
+ * have been consumed, exactly as when lexing on demand.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TokenPipe implements Runnable {
+
+	/** The number of symbols in a batch. */
+	public static final int BATCH_SIZE = 1 << 10;
+
+	/** The number of slots in the ring buffer (a power of two). */
+	private static final int CAPACITY = 1 << 6;
+
+	/** The number of spins before the waiting thread yields. */
+	private static final int SPINS = 1 << 8;
+
+	/**
+	 * A batch of symbols.
+	 */
+	private static class Batch {
+
+		/** The symbols and the lines of the batch. */
+		final TokenBuffer tokens;
+
+		/** The index of the first character not consumed by the lexer. */
+		final int next;
+
+		/** The exception that has stopped the lexer (or <code>null</code>). */
+		final RuntimeException exception;
+
+		/** The lexical error that has stopped the lexer (or <code>null</code>). */
+		final CompilerError error;
+
+		/** Whether this is the last batch. */
+		final boolean last;
+
+		Batch(TokenBuffer tokens, int next, RuntimeException exception, CompilerError error, boolean last) {
+			this.tokens = tokens;
+			this.next = next;
+			this.exception = exception;
+			this.error = error;
+			this.last = last;
+		}
+
+	}
+
+	/** The source file. */
+	private final SourceFile srcFile;
+
+	/** The ring buffer. */
+	private final Batch[] ring = new Batch[CAPACITY];
+
+	/** The number of batches taken by the consumer. */
+	private volatile long head = 0;
+
+	/** The number of batches published by the producer. */
+	private volatile long tail = 0;
+
+	/** Whether the consumer has closed the pipe. */
+	private volatile boolean closed = false;
+
+	/** The lexer thread. */
+	private final Thread thread;
+
+	/** The last batch taken by the consumer (or <code>null</code>). */
+	private Batch batch = null;
+
+	/**
+	 * Constructs a new pipe and starts the lexer thread.
+	 *
+	 * @param srcFile
+	 *            The source file.
+	 */
+	public TokenPipe(SourceFile srcFile) {
+		this.srcFile = srcFile;
+		this.thread = new Thread(this, "lexan");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Reads the source file in batches and publishes them (run by the lexer
+	 * thread).
+	 */
+	@Override
+	public void run() {
+		int next = 0;
+		int line = 1;
+		int column = 0;
+		while (true) {
+			TokenBuffer tokens = new TokenBuffer(srcFile, BATCH_SIZE);
+			Lexer lexer = new Lexer(srcFile, tokens, next, srcFile.length(), line, column);
+			Batch batch;
+			try {
+				int count = 0;
+				while ((count < BATCH_SIZE) && (lexer.lex() != -1))
+					count++;
+				batch = new Batch(tokens, lexer.next(), null, null, count < BATCH_SIZE);
+			} catch (CompilerError error) {
+				batch = new Batch(tokens, lexer.next(), null, error, true);
+			} catch (RuntimeException exception) {
+				batch = new Batch(tokens, lexer.next(), exception, null, true);
+			}
+			next = lexer.next();
+			line = lexer.line();
+			column = lexer.column();
+
+			// Wait for a free slot.
+			long t = tail;
+			for (int spin = 0; t - head == CAPACITY; spin++) {
+				if (closed)
+					return;
+				await(spin);
+			}
+			ring[(int) t & (CAPACITY - 1)] = batch;
+			tail = t + 1;
+			if (batch.last)
+				return;
+		}
+	}
+
+	/**
+	 * Appends the next batch of symbols to the token buffer of the whole
+	 * source file (run by the consuming thread). Batches without any symbols
+	 * are skipped.
+	 *
+	 * @param tokens
+	 *            The token buffer of the whole source file.
+	 * @return <code>false</code> if all symbols except the end of file symbol
+	 *         have already been appended, <code>true</code> otherwise.
+	 */
+	public boolean read(TokenBuffer tokens) {
+		while (true) {
+			if (batch != null) {
+				if (batch.error != null)
+					throw batch.error;
+				if (batch.exception != null)
+					throw batch.exception;
+				if (batch.last)
+					return false;
+			}
+
+			// Wait for the next batch.
+			long h = head;
+			for (int spin = 0; tail == h; spin++) {
+				if (!thread.isAlive() && (tail == h))
+					throw new InternalCompilerError();
+				await(spin);
+			}
+			batch = ring[(int) h & (CAPACITY - 1)];
+			ring[(int) h & (CAPACITY - 1)] = null;
+			head = h + 1;
+
+			tokens.append(batch.tokens);
+			if (batch.tokens.size() > 0)
+				return true;
+		}
+	}
+
+	/**
+	 * Returns the index of the first character not yet consumed, i.e., the
+	 * index of the first character past the symbols appended so far.
+	 *
+	 * @return The index of the first character not yet consumed.
+	 */
+	public int next() {
+		return batch == null ? 0 : batch.next;
+	}
+
+	/**
+	 * Stops the lexer thread and waits for it to finish (run by the consuming
+	 * thread). The batches not yet taken are discarded.
+	 */
+	public void close() {
+		closed = true;
+		try {
+			thread.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** Waits for the other thread by spinning at first and yielding later. */
+	private static void await(int spin) {
+		if (spin < SPINS)
+			Thread.onSpinWait();
+		else
+			Thread.yield();
+	}
+
+}
@@ -0,0 +1,138 @@
+package compiler.phase.lexan;
+
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The lexical structure of PREV.
+ *
+ * <p>
+ * Each rule pairs a pattern with the token of the symbols it matches or with
+ * an action for the parts of the source file that are not symbols. The
+ * patterns are regular expressions built of characters, character classes
+ * <code>[...]</code> and <code>[^...]</code>, grouping <code>(...)</code>,
+ * alternatives <code>|</code> and repetitions <code>*</code>, <code>+</code>
+ * and <code>?</code>; the escape sequences <code>\n</code>, <code>\r</code>,
+ * <code>\t</code> and <code>\xHH</code> denote single characters, while any
+ * other character preceded by a backslash denotes itself. The lexical
+ * analyzer always matches the longest possible symbol and, if several rules
+ * match the same symbol, it applies the rule listed first.
+ * </p>
+ *
+ * <p>
+ * The rules follow Section 1 of <code>doc/lang-spec.tex</code> with the
+ * deviations the lexical analyzer has always had: symbol <code>&lt;=</code>
+ * yields token {@link Token#LTH LTH} and symbol <code>&lt;</code> yields
+ * token {@link Token#LEQ LEQ}, a character constant may contain a double
+ * quote, a string constant may contain any ASCII character except a single
+ * quote, a TAB and a LF, and a CR ends a line just like a LF (except within a
+ * comment).
+ * </p>
+ *
+ * @author juliette
+ */
+public class TokenSpec {
+
+	/** The action of a rule whose matches are skipped. */
+	public static final int SKIP = -2;
+
+	/** The action of a rule whose matches end a line. */
+	public static final int NEWLINE = -3;
+
+	/**
+	 * A rule of the lexical structure.
+	 */
+	public static class Rule {
+
+		/** The pattern. */
+		public final String pattern;
+
+		/** The ordinal of the token or one of the actions. */
+		public final int action;
+
+		private Rule(String pattern, int action) {
+			this.pattern = pattern;
+			this.action = action;
+		}
+
+	}
+
+	/** The rules of the lexical structure in order of priority. */
+	public static final Rule[] RULES = {
+			// Keywords.
+			literal("arr", Token.ARR),
+			literal("do", Token.DO),
+			literal("else", Token.ELSE),
+			literal("end", Token.END),
+			literal("for", Token.FOR),
+			literal("fun", Token.FUN),
+			literal("if", Token.IF),
+			literal("ptr", Token.PTR),
+			literal("rec", Token.REC),
+			literal("then", Token.THEN),
+			literal("typ", Token.TYP),
+			literal("var", Token.VAR),
+			literal("where", Token.WHERE),
+			literal("while", Token.WHILE),
+			// Type names.
+			literal("boolean", Token.BOOLEAN),
+			literal("char", Token.CHAR),
+			literal("integer", Token.INTEGER),
+			literal("string", Token.STRING),
+			literal("void", Token.VOID),
+			// Constants.
+			literal("true", Token.CONST_BOOLEAN),
+			literal("false", Token.CONST_BOOLEAN),
+			literal("null", Token.CONST_NULL),
+			literal("none", Token.CONST_NONE),
+			pattern("[0-9]+", Token.CONST_INTEGER),
+			pattern("'([ -&(-\\[\\]-~]|\\\\[\\\\'\"tn])'", Token.CONST_CHAR),
+			pattern("\"([^'\\\\\\t\\n\"\\x80-\\xFF]|\\\\[\\\\'\"tn])*\"", Token.CONST_STRING),
+			// Identifiers.
+			pattern("[A-Za-z_][A-Za-z0-9_]*", Token.IDENTIFIER),
+			// Symbols.
+			literal("+", Token.ADD),
+			literal("&", Token.AND),
+			literal("=", Token.ASSIGN),
+			literal(":", Token.COLON),
+			literal(",", Token.COMMA),
+			literal("}", Token.CLOSING_BRACE),
+			literal("]", Token.CLOSING_BRACKET),
+			literal(")", Token.CLOSING_PARENTHESIS),
+			literal(".", Token.DOT),
+			literal("/", Token.DIV),
+			literal("==", Token.EQU),
+			literal(">=", Token.GEQ),
+			literal(">", Token.GTH),
+			literal("<=", Token.LTH),
+			literal("<", Token.LEQ),
+			literal("@", Token.MEM),
+			literal("%", Token.MOD),
+			literal("*", Token.MUL),
+			literal("!=", Token.NEQ),
+			literal("!", Token.NOT),
+			literal("{", Token.OPENING_BRACE),
+			literal("[", Token.OPENING_BRACKET),
+			literal("(", Token.OPENING_PARENTHESIS),
+			literal("|", Token.OR),
+			literal("-", Token.SUB),
+			literal("^", Token.VAL),
+			// White space and comments.
+			new Rule("[ \\t]+", SKIP),
+			new Rule("\\n|\\r", NEWLINE),
+			new Rule("#[^\\n\\x80-\\xFF]*\\n", NEWLINE), };
+
+	private static Rule literal(String lexeme, Token token) {
+		StringBuilder pattern = new StringBuilder();
+		for (int c = 0; c < lexeme.length(); c++) {
+			if (!Character.isLetterOrDigit(lexeme.charAt(c)))
+				pattern.append('\\');
+			pattern.append(lexeme.charAt(c));
+		}
+		return new Rule(pattern.toString(), token.ordinal());
+	}
+
+	private static Rule pattern(String pattern, Token token) {
+		return new Rule(pattern, token.ordinal());
+	}
+
+}
@@ -0,0 +1,65 @@
+package compiler.phase.lexan;
+
+import compiler.common.report.*;
+
+/**
+ * The change of the symbols caused by an edit of the source file.
+ *
+ * <p>
+ * An edit replaces <code>removedChars</code> characters starting at
+ * <code>offset</code> by <code>insertedChars</code> characters. The symbols
+ * are changed accordingly: <code>removedTokens</code> symbols starting at
+ * index <code>firstToken</code> of the token buffer are replaced by
+ * <code>insertedTokens</code> symbols, while the symbols following them are
+ * shifted by <code>insertedChars - removedChars</code> characters. As only
+ * the lines containing the edit are lexed anew, the replaced symbols may
+ * extend beyond the edited characters.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TokenSplice {
+
+	/** The index of the first edited character. */
+	public final int offset;
+
+	/** The number of characters removed. */
+	public final int removedChars;
+
+	/** The number of characters inserted. */
+	public final int insertedChars;
+
+	/** The index of the first replaced symbol. */
+	public final int firstToken;
+
+	/** The number of symbols removed. */
+	public final int removedTokens;
+
+	/** The number of symbols inserted. */
+	public final int insertedTokens;
+
+	/**
+	 * The position of the symbol at index {@link #firstToken firstToken}
+	 * before the edit, i.e., of the first replaced symbol or, if no symbol has
+	 * been replaced, of the symbol following the edited lines.
+	 */
+	public final Position firstPosition;
+
+	public TokenSplice(int offset, int removedChars, int insertedChars, int firstToken, int removedTokens,
+			int insertedTokens, Position firstPosition) {
+		this.offset = offset;
+		this.removedChars = removedChars;
+		this.insertedChars = insertedChars;
+		this.firstToken = firstToken;
+		this.removedTokens = removedTokens;
+		this.insertedTokens = insertedTokens;
+		this.firstPosition = firstPosition;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + offset + "-" + removedChars + "+" + insertedChars + "] symbols [" + firstToken + "-"
+				+ removedTokens + "+" + insertedTokens + "]";
+	}
+
+}
@@ -12,6 +12,34 @@
  * </p>
  * 
  * <p>
+ * Internally, the symbols are kept in a compact
+ * {@link compiler.phase.lexan.TokenBuffer} rather than as separate
+ * {@link compiler.phase.lexan.Symbol} objects. The syntax analyzer polls
+ * {@link compiler.phase.lexan.LexAn#nextToken() nextToken} instead, which
+ * returns the index of the next symbol in the buffer returned by
+ * {@link compiler.phase.lexan.LexAn#tokens() tokens}.
+ * </p>
+ *
+ * <p>
+ * The symbols are recognized by a {@link compiler.phase.lexan.Lexer} running
+ * the automaton {@link compiler.phase.lexan.TokenDfa} built from the lexical
+ * rules in {@link compiler.phase.lexan.TokenSpec}, either on demand or, with
+ * option <code>--lexmode=parallel</code>, for the whole source file at once by
+ * the {@link compiler.phase.lexan.ParallelLexer}, which scans chunks of the
+ * source file in parallel, or, with option <code>--lexmode=pipelined</code>,
+ * on a thread of its own passing batches of symbols to the syntax analyzer
+ * through a {@link compiler.phase.lexan.TokenPipe}.
+ * </p>
+ *
+ * <p>
+ * The source file may be edited through
+ * {@link compiler.phase.lexan.LexAn#edit(int, int, String) edit}, which lexes
+ * only the lines containing the edit anew and splices the resulting symbols
+ * into the token buffer, as described by the returned
+ * {@link compiler.phase.lexan.TokenSplice}.
+ * </p>
+ * 
+ * <p>
  * To produce the correct log report (if it has been requested), method
  * {@link compiler.phase.lexan.Symbol#log(Logger) log} of every symbol returned
  * by {@link compiler.phase.lexan.LexAn#lexAn() lexAn} should be called before
@@ -1,6 +1,5 @@
 package compiler.phase.seman;
 
-import compiler.common.report.*;
 import compiler.data.ast.*;
 import compiler.data.ast.attr.*;
 import compiler.data.ast.code.*;
@@ -17,7 +16,7 @@ import compiler.data.ast.code.*;
  * 
  * @author juliette
  */
-public class EvalDecl extends FullVisitor {
+public class EvalDecl extends Walker {
 
 	private final Attributes attrs;
 	
@@ -28,72 +27,51 @@ public class EvalDecl extends FullVisitor {
 	/** The symbol table. */
 	private SymbolTable symbolTable = new SymbolTable();
 	
-	public void visit(FunCall funCall) {
-		try {
-			Decl name = symbolTable.fndDecl(funCall.name());
-			if(name instanceof FunDecl)
-				attrs.declAttr.set(funCall, name);
-			else
-				throw(new CompilerError("Error at " + funCall + " " + funCall.name() + " is not a function name."));
-		} catch (CannotFndNameDecl e) {
-			throw(new CompilerError("Unknown function at " + funCall + " " + funCall.name()));
-		}
-		for (int a = 0; a < funCall.numArgs(); a++)
-			funCall.arg(a).accept(this);
+	protected void pre(FunCall funCall) {
+		attrs.declAttr.set(funCall, fndDecl(funCall));
 	}
 
-	public void visit(FunDecl funDecl) {
+	protected void pre(FunDecl funDecl) {
 		symbolTable.enterScope();
 		for (int p = 0; p < funDecl.numPars(); p++)
 		{
 			try{
 				symbolTable.insDecl(funDecl.par(p).name, funDecl.par(p));
 			} catch(CannotInsNameDecl e){
-				throw(new CompilerError("Cannot redeclare name at " + funDecl.par(p) +  " " + funDecl.par(p).name));
+				throw SemAnRules.redeclaration(funDecl.par(p));
 			}	
 		}
-		for (int p = 0; p < funDecl.numPars(); p++)
-			funDecl.par(p).accept(this);
-		funDecl.type.accept(this);	
+	}
+
+	protected void post(FunDecl funDecl) {
 		symbolTable.leaveScope();
 	}
 
-	public void visit(FunDef funDef) {
+	protected void pre(FunDef funDef) {
 		symbolTable.enterScope();
 		for (int p = 0; p < funDef.numPars(); p++)
 		{
 			try {
 				symbolTable.insDecl(funDef.par(p).name, funDef.par(p));
 			} catch (CannotInsNameDecl e) {
-				throw(new CompilerError("Cannot redeclare name at " + funDef.par(p) +  " " + funDef.par(p).name));
+				throw SemAnRules.redeclaration(funDef.par(p));
 			}
 		}
-		
-		for (int p = 0; p < funDef.numPars(); p++)
-			funDef.par(p).accept(this);
-		funDef.type.accept(this);
-		funDef.body.accept(this);
-		
+	}
+
+	protected void post(FunDef funDef) {
 		symbolTable.leaveScope();
 	}
 
-	public void visit(TypeName typeName) {
-		try {
-			attrs.declAttr.set(typeName, symbolTable.fndDecl(typeName.name()));
-		} catch (CannotFndNameDecl e) {
-			throw(new CompilerError("Unknown type at " + typeName + " " + typeName.name()));
-		}
+	protected void pre(TypeName typeName) {
+		attrs.declAttr.set(typeName, fndDecl(typeName));
 	}
 
-	public void visit(VarName varName) {
-		try {
-			attrs.declAttr.set(varName, symbolTable.fndDecl(varName.name()));
-		} catch (CannotFndNameDecl e) {
-			throw(new CompilerError("Unknown variable at " + varName + " " + varName.name()));
-		}
+	protected void pre(VarName varName) {
+		attrs.declAttr.set(varName, fndDecl(varName));
 	}
 
-	public void visit(WhereExpr whereExpr) {
+	protected void pre(WhereExpr whereExpr) {
 		symbolTable.enterScope();
 		
 		for (int d = 0; d < whereExpr.numDecls(); d++) 
@@ -101,13 +79,32 @@ public class EvalDecl extends FullVisitor {
 			try {
 				symbolTable.insDecl(whereExpr.decl(d).name, whereExpr.decl(d));
 			} catch (CannotInsNameDecl ex) {
-				throw(new CompilerError("Cannot redeclare name at " + whereExpr.decl(d) +  " " + whereExpr.decl(d).name));
+				throw SemAnRules.redeclaration(whereExpr.decl(d));
 			}
 		}
+	}
+
+	protected void children(WhereExpr whereExpr) {
 		for (int d = 0; d < whereExpr.numDecls(); d++) 
-			whereExpr.decl(d).accept(this);
-		whereExpr.expr.accept(this);
+			child(whereExpr.decl(d));
+		child(whereExpr.expr);
+	}
+
+	protected void post(WhereExpr whereExpr) {
 		symbolTable.leaveScope();
 	}
 
+	/**
+	 * Finds the declaration of a name in the symbol table.
+	 */
+	private Decl fndDecl(Declarable name) {
+		Decl decl;
+		try {
+			decl = symbolTable.fndDecl(name.name());
+		} catch (CannotFndNameDecl e) {
+			decl = null;
+		}
+		return SemAnRules.decl(name, decl);
+	}
+
 }
@@ -8,7 +8,7 @@ import compiler.data.typ.*;
 /**
  * @author juliette
  */
-public class EvalMem extends FullVisitor {
+public class EvalMem extends Walker {
 	
 	private final Attributes attrs;
 	
@@ -16,14 +16,68 @@ public class EvalMem extends FullVisitor {
 		this.attrs = attrs;
 	}
 	
-	public void visit(AtomExpr atomExpr) {
+	protected void post(AtomExpr atomExpr) {
+		mem(attrs, atomExpr);
+	}
+
+	protected void post(BinExpr binExpr) {
+		mem(attrs, binExpr);
+	}
+
+	protected void post(CastExpr castExpr) {
+		mem(attrs, castExpr);
+	}
+
+	protected void post(CompName compName) {
+		mem(attrs, compName);
+	}
+
+	protected void post(Exprs exprs) {
+		mem(attrs, exprs);
+	}
+
+	protected void post(ForExpr forExpr) {
+		mem(attrs, forExpr);
+	}
+
+	protected void post(FunCall funCall) {
+		mem(attrs, funCall);
+	}
+
+	protected void post(IfExpr ifExpr) {
+		mem(attrs, ifExpr);
+	}
+
+	protected void post(Program program) {
+		mem(attrs, program);
+	}
+
+	protected void post(UnExpr unExpr) {
+		mem(attrs, unExpr);
+	}
+
+	protected void post(VarName varName) {
+		mem(attrs, varName);
+	}
+
+	protected void post(WhereExpr whereExpr) {
+		mem(attrs, whereExpr);
+	}
+
+	protected void post(WhileExpr whileExpr) {
+		mem(attrs, whileExpr);
+	}
+
+	/*
+	 * Whether an expression is addressable depends on its own kind and type
+	 * only, so it can be evaluated as soon as its type is known.
+	 */
+
+	static void mem(Attributes attrs, AtomExpr atomExpr) {
 		attrs.memAttr.set(atomExpr, false);
 	}
 
-	public void visit(BinExpr binExpr) {
-		binExpr.fstExpr.accept(this);
-		binExpr.sndExpr.accept(this);
-		
+	static void mem(Attributes attrs, BinExpr binExpr) {
 		switch (binExpr.oper) {
 		case REC:
 		{
@@ -41,82 +95,35 @@ public class EvalMem extends FullVisitor {
 		}
 	}
 
-	public void visit(CastExpr castExpr) {
-		castExpr.type.accept(this);
-		castExpr.expr.accept(this);
-		
-		Typ t = attrs.typAttr.get(castExpr);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(castExpr, true);
-		else
-			attrs.memAttr.set(castExpr, false);
+	static void mem(Attributes attrs, CastExpr castExpr) {
+		attrs.memAttr.set(castExpr, isPtr(attrs.typAttr.get(castExpr)));
 	}
 
-
-	public void visit(CompName compName) {
+	static void mem(Attributes attrs, CompName compName) {
 		attrs.memAttr.set(compName, true);
 	}
 
-	public void visit(Exprs exprs) {
-		for (int e = 0; e < exprs.numExprs(); e++)
-			exprs.expr(e).accept(this);
-		
-		Typ t = attrs.typAttr.get(exprs.expr(exprs.numExprs() - 1));
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(exprs, true);
-		else
-			attrs.memAttr.set(exprs, false);
-	}
-
-
-	public void visit(ForExpr forExpr) {
-		forExpr.var.accept(this);
-		forExpr.loBound.accept(this);
-		forExpr.hiBound.accept(this);
-		forExpr.body.accept(this);
-		
-		Typ t = attrs.typAttr.get(forExpr);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(forExpr, true);
-		else
-			attrs.memAttr.set(forExpr, false);
-	}
-
-	public void visit(FunCall funCall) {
-		for (int a = 0; a < funCall.numArgs(); a++)
-			funCall.arg(a).accept(this);
-		
-		Typ t = attrs.typAttr.get(funCall);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(funCall, true);
-		else
-			attrs.memAttr.set(funCall, false);
-	}
-
-	public void visit(IfExpr ifExpr) {
-		ifExpr.cond.accept(this);
-		ifExpr.thenExpr.accept(this);
-		ifExpr.elseExpr.accept(this);
-
-		Typ t = attrs.typAttr.get(ifExpr);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(ifExpr, true);
-		else
-			attrs.memAttr.set(ifExpr, false);
-	}
-
-	public void visit(Program program) {
-		program.expr.accept(this);
-		
-		Typ t = attrs.typAttr.get(program);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(program, true);
-		else
-			attrs.memAttr.set(program, false);
-	}
-
-	public void visit(UnExpr unExpr) {
-		unExpr.subExpr.accept(this);
+	static void mem(Attributes attrs, Exprs exprs) {
+		attrs.memAttr.set(exprs, isPtr(attrs.typAttr.get(exprs.expr(exprs.numExprs() - 1))));
+	}
+
+	static void mem(Attributes attrs, ForExpr forExpr) {
+		attrs.memAttr.set(forExpr, isPtr(attrs.typAttr.get(forExpr)));
+	}
+
+	static void mem(Attributes attrs, FunCall funCall) {
+		attrs.memAttr.set(funCall, isPtr(attrs.typAttr.get(funCall)));
+	}
+
+	static void mem(Attributes attrs, IfExpr ifExpr) {
+		attrs.memAttr.set(ifExpr, isPtr(attrs.typAttr.get(ifExpr)));
+	}
+
+	static void mem(Attributes attrs, Program program) {
+		attrs.memAttr.set(program, isPtr(attrs.typAttr.get(program)));
+	}
+
+	static void mem(Attributes attrs, UnExpr unExpr) {
 		switch (unExpr.oper) {
 		case VAL:
 		{
@@ -129,28 +136,19 @@ public class EvalMem extends FullVisitor {
 		}
 	}
 
-
-
-	public void visit(VarName varName) {
+	static void mem(Attributes attrs, VarName varName) {
 		attrs.memAttr.set(varName, true);
 	}
 
-	public void visit(WhereExpr whereExpr) {
-		whereExpr.expr.accept(this);
-		for (int d = 0; d < whereExpr.numDecls(); d++)
-			whereExpr.decl(d).accept(this);
-		
+	static void mem(Attributes attrs, WhereExpr whereExpr) {
 		attrs.memAttr.set(whereExpr, false);
 	}
 
-	public void visit(WhileExpr whileExpr) {
-		whileExpr.cond.accept(this);
-		whileExpr.body.accept(this);
-		
-		Typ t = attrs.typAttr.get(whileExpr);
-		if (t != null && t.actualTyp() instanceof PtrTyp)
-			attrs.memAttr.set(whileExpr, true);
-		else
-			attrs.memAttr.set(whileExpr, false);
+	static void mem(Attributes attrs, WhileExpr whileExpr) {
+		attrs.memAttr.set(whileExpr, isPtr(attrs.typAttr.get(whileExpr)));
+	}
+
+	private static boolean isPtr(Typ t) {
+		return t != null && t.actualTyp() instanceof PtrTyp;
 	}
 }
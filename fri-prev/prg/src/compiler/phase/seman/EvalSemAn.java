@@ -0,0 +1,55 @@
+package compiler.phase.seman;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Performs the semantic analysis in two traversals instead of four.
+ * 
+ * <p>
+ * The values and the declarations do not depend on each other and are
+ * computed by {@link compiler.phase.seman.EvalValueDecl}, while the types and
+ * the addressability are computed by {@link compiler.phase.seman.EvalTypMem}.
+ * The types cannot be computed in the first traversal: the type checker
+ * visits the declarations of a <code>where</code> expression several times in
+ * its own order, and any error found while resolving names must be reported
+ * before any type error, exactly as if {@link compiler.phase.seman.EvalValue},
+ * {@link compiler.phase.seman.EvalDecl}, {@link compiler.phase.seman.EvalTyp}
+ * and {@link compiler.phase.seman.EvalMem} were run one after another.
+ * </p>
+ * 
+ * <p>
+ * For the same reason an illegal integer value must be reported before any
+ * error found while resolving names. If the first traversal fails, the values
+ * are therefore recomputed separately to find out which error comes first;
+ * this is done only once the compilation has already failed.
+ * </p>
+ * 
+ * @author juliette
+ */
+public class EvalSemAn {
+
+	private final Attributes attrs;
+
+	public EvalSemAn(Attributes attrs) {
+		this.attrs = attrs;
+	}
+
+	/**
+	 * Performs the semantic analysis of the program.
+	 * 
+	 * @param program
+	 *            The program.
+	 */
+	public void evaluate(Program program) {
+		try {
+			(new EvalValueDecl(attrs)).walk(program);
+		} catch (CompilerError error) {
+			(new EvalValue(new Attributes())).walk(program);
+			throw error;
+		}
+		(new EvalTypMem(attrs)).walk(program);
+	}
+
+}
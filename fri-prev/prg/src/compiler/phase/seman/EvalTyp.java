@@ -20,7 +20,7 @@ import compiler.data.typ.*;
  * 
  * @author juliette
  */
-public class EvalTyp extends FullVisitor {
+public class EvalTyp extends Walker {
 
 	private final Attributes attrs;
 	
@@ -35,591 +35,257 @@ public class EvalTyp extends FullVisitor {
 	/** The symbol table. */
 	private SymbolTable symbolTable = new SymbolTable();
 	
-	public void visit(ArrType arrType) {
-		arrType.size.accept(this);
-		arrType.elemType.accept(this);
-		
-		Long n = attrs.valueAttr.get(arrType.size);
-		Typ type = attrs.typAttr.get(arrType.elemType);
-		
-		if(n == null)
-			throw(new CompilerError("Array size not an integer at " + arrType.size));
-		if(n <= 0)
-			throw(new CompilerError("Illegal array size at " + arrType.size));
-		if(type != null)
-			attrs.typAttr.set(arrType, new ArrTyp(n, type));
-		else
-			throw(new CompilerError("Illegal array type at " + arrType));
+	protected void post(ArrType arrType) {
+		attrs.typAttr.set(arrType, SemAnRules.arrTyp(arrType, attrs.valueAttr.get(arrType.size),
+				attrs.typAttr.get(arrType.elemType)));
 	}
 	
-	public void visit(AtomExpr atomExpr) {
-		switch (atomExpr.type) {
-		case INTEGER:
-		{
-			attrs.typAttr.set(atomExpr, new IntegerTyp());
-			break;
-		}
-		case BOOLEAN:
-		{
-			attrs.typAttr.set(atomExpr, new BooleanTyp());
-			break;
-		}
-		case CHAR:
-		{
-			attrs.typAttr.set(atomExpr, new CharTyp());
-			break;
-		}
-		case STRING:
-		{
-			attrs.typAttr.set(atomExpr, new StringTyp());
-			break;
-		}
-		case PTR:
-		{
-			attrs.typAttr.set(atomExpr, new PtrTyp(new VoidTyp()));
-			break;
-		}
-		case VOID:
-		{
-			attrs.typAttr.set(atomExpr, new VoidTyp());
-			break;
-		}
-		default:
-			throw(new CompilerError("Wrong type " + atomExpr.type + " at " + atomExpr));
-		}
+	protected void post(AtomExpr atomExpr) {
+		attrs.typAttr.set(atomExpr, SemAnRules.atomTyp(atomExpr));
 	}
 
-	public void visit(AtomType atomType) {
-		switch (atomType.type) {
-		case INTEGER:
-		{
-			attrs.typAttr.set(atomType, new IntegerTyp());
-			break;
-		}
-		case BOOLEAN:
-		{
-			attrs.typAttr.set(atomType, new BooleanTyp());
-			break;
-		}
-		case CHAR:
-		{
-			attrs.typAttr.set(atomType, new CharTyp());
-			break;
-		}
-		case STRING:
-		{
-			attrs.typAttr.set(atomType, new StringTyp());
-			break;
-		}
-		case VOID:
-		{
-			attrs.typAttr.set(atomType, new VoidTyp());
-			break;
-		}
-		default:
-			throw(new CompilerError("Wrong type " + atomType.type + " at " + atomType));
-		}
+	protected void post(AtomType atomType) {
+		attrs.typAttr.set(atomType, SemAnRules.atomTyp(atomType));
 	}
 
-	public void visit(BinExpr binExpr) {
-		binExpr.fstExpr.accept(this);
+	protected void children(final BinExpr binExpr) {
+		child(binExpr.fstExpr);
 		
-		if(binExpr.oper == binExpr.oper.REC)
+		if(binExpr.oper == BinExpr.Oper.REC)
 		{
-			RecTyp rec = (RecTyp)(attrs.typAttr.get(binExpr.fstExpr)).actualTyp();
-			String name = rec.nameSpace;
-			namespace.push(name);
-			symbolTable.enterNamespace(name);
+			action(new Runnable() {
+				public void run() {
+					String name = SemAnRules.recTyp(binExpr, attrs.typAttr.get(binExpr.fstExpr)).nameSpace;
+					namespace.push(name);
+					symbolTable.enterNamespace(name);
+				}
+			});
 		}
-		Typ fstExpr = attrs.typAttr.get(binExpr.fstExpr);
-		
-		binExpr.sndExpr.accept(this);
 		
-		Typ sndExpr = attrs.typAttr.get(binExpr.sndExpr);
-		
-		switch (binExpr.oper) {
-		case ADD:
-		case SUB:
-		case MUL:
-		case DIV:
-		case MOD:
-		{
-			if(fstExpr.actualTyp() instanceof IntegerTyp && sndExpr.actualTyp() instanceof IntegerTyp)
-				attrs.typAttr.set(binExpr, new IntegerTyp());
-			else
-				throw(new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper));
-			break;
-		}
-		case AND:
-		case OR:
-		{
-			if(fstExpr instanceof BooleanTyp && sndExpr instanceof BooleanTyp)
-				attrs.typAttr.set(binExpr, new BooleanTyp());
-			else
-				throw(new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper));
-			break;
-		}
-		case EQU:
-		case NEQ:
-		case LTH:
-		case GTH:
-		case LEQ:
-		case GEQ:
-		{
-			if(fstExpr instanceof IntegerTyp && sndExpr instanceof IntegerTyp)
-				attrs.typAttr.set(binExpr, new BooleanTyp());
-			else if(fstExpr instanceof BooleanTyp && sndExpr instanceof BooleanTyp)
-				attrs.typAttr.set(binExpr, new BooleanTyp());
-			else if(fstExpr instanceof CharTyp && sndExpr instanceof CharTyp)
-				attrs.typAttr.set(binExpr, new BooleanTyp());
-			else if(fstExpr instanceof PtrTyp && sndExpr instanceof PtrTyp)
-				attrs.typAttr.set(binExpr, new BooleanTyp());
-			else
-				throw(new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper + " fstExpr " + fstExpr + " sndExpr " + sndExpr));
-			break;
-		}	
-		case ASSIGN:
-		{
-			if(fstExpr instanceof IntegerTyp && sndExpr instanceof IntegerTyp)
-				attrs.typAttr.set(binExpr, new VoidTyp());
-			else if(fstExpr instanceof BooleanTyp && sndExpr instanceof BooleanTyp)
-				attrs.typAttr.set(binExpr, new VoidTyp());
-			else if(fstExpr instanceof CharTyp && sndExpr instanceof CharTyp)
-				attrs.typAttr.set(binExpr, new VoidTyp());
-			else if(fstExpr instanceof StringTyp && sndExpr instanceof StringTyp)
-				attrs.typAttr.set(binExpr, new VoidTyp());
-			else if(fstExpr instanceof PtrTyp && sndExpr instanceof PtrTyp)
-				attrs.typAttr.set(binExpr, new VoidTyp());
-			else
-				throw(new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper));
-			break;
-		}
-		case ARR:
-		{
-			ArrTyp arr = (ArrTyp)fstExpr;
-				
-			if(!(sndExpr instanceof IntegerTyp))
-				throw(new CompilerError("Error at " + binExpr.sndExpr + ". Array index not an integer."));
-			
-			if(arr != null)
-				attrs.typAttr.set(binExpr, arr.elemTyp);
-			else
-				throw(new CompilerError("Error at " + binExpr.fstExpr + " Wrong array's type."));
-			break;
-		}
-		case REC:
-		{
-			if(fstExpr.actualTyp() instanceof RecTyp)
-			{
-				attrs.typAttr.set(binExpr, sndExpr);
-				
-				symbolTable.leaveNamespace();
-				namespace.pop();
-			}
-			else
-				throw(new CompilerError("Error at " + binExpr + " " + fstExpr.actualTyp() + " is not RecTyp."));
-			break;
-		}
-		default:
-			break;
-		}
+		child(binExpr.sndExpr);
 	}
 
-	public void visit(CastExpr castExpr) {
-		castExpr.type.accept(this);
-		castExpr.expr.accept(this);
-	
-		Typ type = attrs.typAttr.get(castExpr.type);
-		Typ expr = attrs.typAttr.get(castExpr.expr);
-		
-		if (type == null)
-			throw new CompilerError("Error with cast type "+castExpr.type);
-		if (expr == null)
-			throw new CompilerError("Error with cast expression "+castExpr.expr);
-		
-		if (type instanceof PtrTyp && expr.isStructEquivTo(new PtrTyp(new VoidTyp())))
-			attrs.typAttr.set(castExpr, type);
-		else 
-			throw new CompilerError("Cast error " + castExpr);
+	protected void post(BinExpr binExpr) {
+		if (binExpr.oper == BinExpr.Oper.REC) {
+			// The record has been checked before the component name is resolved.
+			attrs.typAttr.set(binExpr, attrs.typAttr.get(binExpr.sndExpr));
+			symbolTable.leaveNamespace();
+			namespace.pop();
+		} else {
+			Typ typ = SemAnRules.binTyp(binExpr, attrs.typAttr.get(binExpr.fstExpr),
+					attrs.typAttr.get(binExpr.sndExpr));
+			if (typ != null)
+				attrs.typAttr.set(binExpr, typ);
+		}
+	}
 
+	protected void post(CastExpr castExpr) {
+		attrs.typAttr.set(castExpr,
+				SemAnRules.castTyp(castExpr, attrs.typAttr.get(castExpr.type), attrs.typAttr.get(castExpr.expr)));
 	}
 
-	public void visit(CompDecl compDecl) {
+	protected void pre(CompDecl compDecl) {
 		String name = symbolTable.newNamespace(compDecl.name);
 		namespace.push(name);
 		symbolTable.enterNamespace(name);
+	}
 
-		compDecl.type.accept(this);
-		if(attrs.typAttr.get(compDecl.type) != null)
-			attrs.typAttr.set(compDecl, attrs.typAttr.get(compDecl.type));
-		else
-			throw new CompilerError("Component error " + compDecl);
+	protected void post(CompDecl compDecl) {
+		attrs.typAttr.set(compDecl, SemAnRules.compTyp(compDecl, attrs.typAttr.get(compDecl.type)));
 		
 		symbolTable.leaveNamespace();
 		namespace.pop();
 	}
 
-	public void visit(CompName compName) {
+	protected void post(CompName compName) {
+		Decl decl;
 		try {
-			Decl decl = symbolTable.fndDecl(namespace.peek(), compName.name());
-			if(decl != null)
-				attrs.declAttr.set(compName, decl);
-			else
-				throw new CompilerError("Component name not undeclared " + compName);
-			
-			attrs.typAttr.set(compName, attrs.typAttr.get(attrs.declAttr.get(compName)));
+			decl = symbolTable.fndDecl(namespace.peek(), compName.name());
 		} catch (CannotFndNameDecl e) {
-			throw new CompilerError("Component name not found " + compName);
+			decl = null;
 		}
+		attrs.declAttr.set(compName, SemAnRules.decl(compName, decl));
+		attrs.typAttr.set(compName, attrs.typAttr.get(attrs.declAttr.get(compName)));
 	}
 	
 
-	public void visit(Exprs exprs) {
+	protected void children(final Exprs exprs) {
 		for (int e = 0; e < exprs.numExprs(); e++)
 		{
-			exprs.expr(e).accept(this);
-			
-			if(attrs.typAttr.get(exprs.expr(e)) == null)
-				throw(new CompilerError("Expression type can not be null " + exprs.expr(e)));
+			final Expr expr = exprs.expr(e);
+			child(expr);
+			action(new Runnable() {
+				public void run() {
+					SemAnRules.exprTyp(expr, attrs.typAttr.get(expr));
+				}
+			});
 		}
-		attrs.typAttr.set(exprs, attrs.typAttr.get(exprs.expr(exprs.numExprs()-1)));
 	}
 
-	public void visit(ForExpr forExpr) {
-		forExpr.var.accept(this);
-		forExpr.loBound.accept(this);
-		forExpr.hiBound.accept(this);
-		forExpr.body.accept(this);
-		
-		Typ varName = attrs.typAttr.get(forExpr.var);
-		
-		if(!(varName instanceof IntegerTyp))
-			throw(new CompilerError("Variable is not integer " + forExpr.var));
-		
-		Typ loExpr = attrs.typAttr.get(forExpr.loBound);
-		
-		if(!(loExpr instanceof IntegerTyp))
-			throw(new CompilerError("Low boundary is not integer " + forExpr.loBound));
-		
-		Typ hiExpr = attrs.typAttr.get(forExpr.hiBound);
-		
-		if(!(hiExpr instanceof IntegerTyp))
-			throw(new CompilerError("High boundary is not integer " + forExpr.hiBound));
-		
-		Typ body = attrs.typAttr.get(forExpr.body);
-		
-		if(body == null && !(body instanceof VoidTyp))
-			throw(new CompilerError("Body can not be null and must be void type " + forExpr.body));
-		
-		attrs.typAttr.set(forExpr, new VoidTyp());
+	protected void post(Exprs exprs) {
+		attrs.typAttr.set(exprs, attrs.typAttr.get(exprs.expr(exprs.numExprs()-1)));
 	}
 
-	public void visit(FunCall funCall) {
-		for (int a = 0; a < funCall.numArgs(); a++)
-			funCall.arg(a).accept(this);
+	protected void post(ForExpr forExpr) {
+		attrs.typAttr.set(forExpr, SemAnRules.forTyp(forExpr, attrs.typAttr.get(forExpr.var),
+				attrs.typAttr.get(forExpr.loBound), attrs.typAttr.get(forExpr.hiBound), attrs.typAttr.get(forExpr.body)));
+	}
 
+	protected void post(FunCall funCall) {
 		FunTyp type = (FunTyp)attrs.typAttr.get(attrs.declAttr.get(funCall));
 		
 		attrs.typAttr.set(funCall, type.resultTyp);
 	}
 
-	public void visit(FunDecl funDecl) {
+	protected void children(final FunDecl funDecl) {
 		if(prelet == 1)
-			funDecl.type.accept(this);
+			child(funDecl.type);
 		if(prelet == 2)
-		{
-			LinkedList<Typ> parTyps = new LinkedList<Typ>();
-			
-			IntegerTyp integer = new IntegerTyp();
-			BooleanTyp bool = new BooleanTyp();
-			CharTyp ch = new CharTyp();
-			StringTyp string = new StringTyp();
-			VoidTyp Void = new VoidTyp();
-			
-			PtrTyp pointInt = new PtrTyp(new IntegerTyp());
-			PtrTyp pointBool = new PtrTyp(new BooleanTyp());
-			PtrTyp pointChar = new PtrTyp(new CharTyp());
-			PtrTyp pointString = new PtrTyp(new StringTyp());
-			PtrTyp pointVoid = new PtrTyp(new VoidTyp());
-			
-			
-			for (int p = 0; p < funDecl.numPars(); p++)
-			{
-				funDecl.par(p).accept(this);
-				
-				Typ type = attrs.typAttr.get(funDecl.par(p));
-				
-				if(integer.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(bool.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(ch.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(string.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointInt.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointBool.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointChar.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointString.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointVoid.isStructEquivTo(type))
-					parTyps.add(type);
-				else
-					throw(new CompilerError("Unrecognisable type of parameter " + funDecl.par(p)));
-			}
-			
-			Typ type = attrs.typAttr.get(funDecl.type);
-	
-			if(integer.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(bool.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(ch.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(string.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(Void.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(pointInt.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(pointBool.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(pointChar.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(pointString.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else if(pointVoid.isStructEquivTo(type))
-				attrs.typAttr.set(funDecl, new FunTyp(parTyps, type));
-			else
-				throw(new CompilerError("Function type undeclared " + funDecl));
-		}	
-	}
-
-	public void visit(FunDef funDef) {
+			funTyp(funDecl);
+	}
+
+	protected void children(final FunDef funDef) {
 		if(prelet == 1)
 		{
-			funDef.type.accept(this);
-		
-			LinkedList<Typ> parTyps = new LinkedList<Typ>();
-			
-			IntegerTyp integer = new IntegerTyp();
-			BooleanTyp bool = new BooleanTyp();
-			CharTyp ch = new CharTyp();
-			StringTyp string = new StringTyp();
-			VoidTyp Void = new VoidTyp();
-			
-			PtrTyp pointInt = new PtrTyp(new IntegerTyp());
-			PtrTyp pointBool = new PtrTyp(new BooleanTyp());
-			PtrTyp pointChar = new PtrTyp(new CharTyp());
-			PtrTyp pointString = new PtrTyp(new StringTyp());
-			PtrTyp pointVoid = new PtrTyp(new VoidTyp());
-			
-			for (int p = 0; p < funDef.numPars(); p++)
-			{
-				funDef.par(p).accept(this);
-				
-				Typ type = attrs.typAttr.get(funDef.par(p));
-				
-				if(integer.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(bool.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(ch.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(string.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointInt.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointBool.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointChar.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointString.isStructEquivTo(type))
-					parTyps.add(type);
-				else if(pointVoid.isStructEquivTo(type))
-					parTyps.add(type);
-				else
-					throw(new CompilerError("Unrecognisable symbol at funDef par " + funDef.par(p)));
-			}
-			
-			
-			Typ type = attrs.typAttr.get(funDef.type);
-			
-			if(integer.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(bool.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(ch.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(string.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(Void.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(pointInt.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(pointBool.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(pointChar.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(pointString.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else if(pointVoid.isStructEquivTo(type))
-				attrs.typAttr.set(funDef, new FunTyp(parTyps, type));
-			else
-				throw(new CompilerError("Unrecognisable symbol at funDef type " + funDef));
+			child(funDef.type);
+			funTyp(funDef);
 		}
 		if(prelet == 2)
 		{
-			funDef.body.accept(this);
-		
-			Typ body = attrs.typAttr.get(funDef.body);
-			
-			if (body== null) {
-				throw new CompilerError("Function body can not be null " + funDef.body + " " + funDef.name + " at " + funDef);
-			}
+			child(funDef.body());
+			action(new Runnable() {
+				public void run() {
+					SemAnRules.bodyTyp(funDef, attrs.typAttr.get(funDef.body()));
+				}
+			});
 		}
 	}
 
-	public void visit(IfExpr ifExpr) {
-		ifExpr.cond.accept(this);
-		ifExpr.thenExpr.accept(this);
-		ifExpr.elseExpr.accept(this);
-		
-		Typ cond = attrs.typAttr.get(ifExpr.cond);
-		
-		if(!(cond instanceof BooleanTyp))
-			throw(new CompilerError("Conditional expression must be of boolean type " + ifExpr.cond));
-		
-		Typ thenBody = attrs.typAttr.get(ifExpr.thenExpr);
-		
-		if(thenBody == null)
-			throw(new CompilerError("Then expression can not be null " + ifExpr.thenExpr));
-		
-		Typ elseExpr = attrs.typAttr.get(ifExpr.elseExpr);
-		
-		if(elseExpr == null)
-			throw(new CompilerError("Else expression can not be null " + ifExpr.elseExpr));
-	
-		attrs.typAttr.set(ifExpr, new VoidTyp());
+	/**
+	 * Visits the parameters of a function and computes its type.
+	 */
+	private void funTyp(final FunDecl funDecl) {
+		final LinkedList<Typ> parTyps = new LinkedList<Typ>();
+		for (int p = 0; p < funDecl.numPars(); p++)
+		{
+			final ParDecl par = funDecl.par(p);
+			child(par);
+			action(new Runnable() {
+				public void run() {
+					parTyps.add(SemAnRules.parTyp(funDecl, par, attrs.typAttr.get(par)));
+				}
+			});
+		}
+		action(new Runnable() {
+			public void run() {
+				attrs.typAttr.set(funDecl, SemAnRules.funTyp(funDecl, parTyps, attrs.typAttr.get(funDecl.type)));
+			}
+		});
+	}
+
+	protected void post(IfExpr ifExpr) {
+		attrs.typAttr.set(ifExpr, SemAnRules.ifTyp(ifExpr, attrs.typAttr.get(ifExpr.cond),
+				attrs.typAttr.get(ifExpr.thenExpr), attrs.typAttr.get(ifExpr.elseExpr)));
 	}
 
-	public void visit(ParDecl parDecl) {
+	protected void pre(ParDecl parDecl) {
 		String name = symbolTable.newNamespace(parDecl.name);
 		namespace.push(name);
 		symbolTable.enterNamespace(name);
+	}
 
-		parDecl.type.accept(this);
-		
+	protected void post(ParDecl parDecl) {
 		attrs.typAttr.set(parDecl, attrs.typAttr.get(parDecl.type));
 		
 		namespace.pop();
 		symbolTable.leaveNamespace();
 	}
 
-	public void visit(Program program) {
+	protected void pre(Program program) {
 		namespace = new Stack<>();
 		namespace.push("#");
-		program.expr.accept(this);
+	}
+
+	protected void post(Program program) {
 		attrs.typAttr.set(program, attrs.typAttr.get(program.expr));
 	}
 
-	public void visit(PtrType ptrType) {
+	protected void children(final PtrType ptrType) {
 		if(prelet >= 1)
 		{
-			ptrType.baseType.accept(this);
-			Typ type = attrs.typAttr.get(ptrType.baseType);
-			attrs.typAttr.set(ptrType, new PtrTyp(type));
+			child(ptrType.baseType);
+			action(new Runnable() {
+				public void run() {
+					Typ type = attrs.typAttr.get(ptrType.baseType);
+					attrs.typAttr.set(ptrType, new PtrTyp(type));
+				}
+			});
 		}
 	}
 
-	public void visit(RecType recType) {
-		LinkedList<Typ> compTyps = new LinkedList<Typ>();
+	protected void children(final RecType recType) {
+		final LinkedList<Typ> compTyps = new LinkedList<Typ>();
 		for (int c = 0; c < recType.numComps(); c++)
 		{
-			recType.comp(c).accept(this);
-			try {
-				
-				symbolTable.insDecl(namespace.peek(), recType.comp(c).name, recType.comp(c));
-			} catch (CannotInsNameDecl e) {
-				//throw new CompilerError("Component cannot be declared "+ recType.comp(c));
+			final CompDecl comp = recType.comp(c);
+			child(comp);
+			action(new Runnable() {
+				public void run() {
+					try {
+						
+						symbolTable.insDecl(namespace.peek(), comp.name, comp);
+					} catch (CannotInsNameDecl e) {
+						//throw new CompilerError("Component cannot be declared "+ comp);
+					}
+					compTyps.add(attrs.typAttr.get(comp));
+				}
+			});
+		}
+		action(new Runnable() {
+			public void run() {
+				attrs.typAttr.set(recType, new RecTyp(namespace.peek(), compTyps));
 			}
-			compTyps.add(attrs.typAttr.get(recType.comp(c)));
-		}
-		attrs.typAttr.set(recType, new RecTyp(namespace.peek(), compTyps));
+		});
 	}
 
-	public void visit(TypeDecl typDecl) {
+	protected void pre(TypeDecl typDecl) {
 		String name = symbolTable.newNamespace(typDecl.name);
 		namespace.push(name);
 		symbolTable.enterNamespace(name);
 		
 		if(prelet == 0)
 			attrs.typAttr.set(typDecl, new TypName(typDecl.name));
+	}
 
+	protected void children(final TypeDecl typDecl) {
 		if (prelet == 1)
 		{
-			typDecl.type.accept(this);
-			TypName typName = (TypName)attrs.typAttr.get(typDecl);
-			typName.setType(attrs.typAttr.get(typDecl.type));
+			child(typDecl.type);
+			action(new Runnable() {
+				public void run() {
+					TypName typName = (TypName)attrs.typAttr.get(typDecl);
+					typName.setType(attrs.typAttr.get(typDecl.type));
+				}
+			});
 		}
+	}
+
+	protected void post(TypeDecl typDecl) {
 		namespace.pop();
 		symbolTable.leaveNamespace();
 	}
 
-	public void visit(TypeName typeName) {
+	protected void post(TypeName typeName) {
 		attrs.typAttr.set(typeName, attrs.typAttr.get(attrs.declAttr.get(typeName)));
 	}
 
-	public void visit(UnExpr unExpr) {
-		unExpr.subExpr.accept(this);
-		switch (unExpr.oper) {
-		case ADD:
-		case SUB:
-		{
-			if(attrs.typAttr.get(unExpr.subExpr) != null && attrs.typAttr.get(unExpr.subExpr) instanceof IntegerTyp)
-				attrs.typAttr.set(unExpr, new IntegerTyp());
-			else
-				throw(new CompilerError("Wrong operator for integer expression " + unExpr));
-			break;
-		}
-		case NOT:
-		{
-			if(attrs.typAttr.get(unExpr.subExpr) != null && attrs.typAttr.get(unExpr.subExpr) instanceof BooleanTyp)
-				attrs.typAttr.set(unExpr, new BooleanTyp());
-			else
-				throw(new CompilerError("Wrong operator for boolean expression " + unExpr));
-			break;
-		}
-		case VAL:
-		{
-			Typ type = attrs.typAttr.get(unExpr.subExpr);
-			PtrTyp ptr = (PtrTyp) type.actualTyp();
-			
-			if(ptr != null && ptr instanceof PtrTyp)
-				attrs.typAttr.set(unExpr, ptr.baseTyp);
-			else
-				throw(new CompilerError("Unrecognisable symbol at UnExpr VAL " + unExpr.subExpr));
-			break; 
-		}
-		case MEM:
-		{
-			Typ type = attrs.typAttr.get(unExpr.subExpr);
-			
-			if(type != null && !(type instanceof VoidTyp))// && attrs.memAttr.get(unExpr.subExpr))
-				attrs.typAttr.set(unExpr, new PtrTyp(type));
-			else
-				throw(new CompilerError("Mem type error " + unExpr.subExpr));
-			break;
-		}
-		default:
-			break;
-		}
+	protected void post(UnExpr unExpr) {
+		Typ typ = SemAnRules.unTyp(unExpr, attrs.typAttr.get(unExpr.subExpr));
+		if (typ != null)
+			attrs.typAttr.set(unExpr, typ);
 	}
 
-	public void visit(VarDecl varDecl) {
+	protected void children(final VarDecl varDecl) {
 		if(prelet == 1)
 		{
 			String name = symbolTable.newNamespace(varDecl.name);
@@ -627,53 +293,59 @@ public class EvalTyp extends FullVisitor {
 			symbolTable.enterNamespace(name);
 			
 			
-			varDecl.type.accept(this);
-			attrs.typAttr.set(varDecl, attrs.typAttr.get(varDecl.type));
-			
-			namespace.pop();
-			symbolTable.leaveNamespace();
-				
+			child(varDecl.type);
+			action(new Runnable() {
+				public void run() {
+					attrs.typAttr.set(varDecl, attrs.typAttr.get(varDecl.type));
+					
+					namespace.pop();
+					symbolTable.leaveNamespace();
+				}
+			});
 		}
 	}
 
-	public void visit(VarName varName) {
+	protected void post(VarName varName) {
 		attrs.typAttr.set(varName, attrs.typAttr.get(attrs.declAttr.get(varName)));
 	}
 
-	public void visit(WhereExpr whereExpr) {
+	protected void children(WhereExpr whereExpr) {
 		prelet = 0;
 		for (int d = whereExpr.numDecls()-1; d >= 0; d--)
-			whereExpr.decl(d).accept(this);
-		prelet = 1;
+			child(whereExpr.decl(d));
+		action(new Runnable() {
+			public void run() {
+				prelet = 1;
+			}
+		});
 		for (int d = whereExpr.numDecls()-1; d >= 0; d--)
-			whereExpr.decl(d).accept(this);
+			child(whereExpr.decl(d));
 
-		prelet = 2;
+		action(new Runnable() {
+			public void run() {
+				prelet = 2;
+			}
+		});
 		for (int d = whereExpr.numDecls()-1; d >= 0; d--)
 		{
-			whereExpr.decl(d).accept(this);
-			if(attrs.typAttr.get(whereExpr.decl(d)) == null)
-				throw(new CompilerError("A declaration inside where statement cannot be without a type " + whereExpr.decl(d)));
-		}
-		whereExpr.expr.accept(this);
-		
-		attrs.typAttr.set(whereExpr, attrs.typAttr.get(whereExpr.expr));
+			final Decl decl = whereExpr.decl(d);
+			child(decl);
+			action(new Runnable() {
+				public void run() {
+					if(attrs.typAttr.get(decl) == null)
+						throw(new CompilerError("A declaration inside where statement cannot be without a type " + decl));
+				}
+			});
+		}
+		child(whereExpr.expr);
 	}
 
-	public void visit(WhileExpr whileExpr) {
-		whileExpr.cond.accept(this);
-		whileExpr.body.accept(this);
-		
-		Typ type = attrs.typAttr.get(whileExpr.cond);
+	protected void post(WhereExpr whereExpr) {
+		attrs.typAttr.set(whereExpr, attrs.typAttr.get(whereExpr.expr));
+	}
 
-		if(!(type instanceof BooleanTyp))
-			throw(new CompilerError("Conditional expression is not boolean " + whileExpr.cond));
-		
-		Typ body = attrs.typAttr.get(whileExpr.body);
-		
-		if(body == null)
-			throw(new CompilerError("Loop body do not have a type " + whileExpr.body));
-		
-		attrs.typAttr.set(whileExpr, new VoidTyp());
+	protected void post(WhileExpr whileExpr) {
+		attrs.typAttr.set(whileExpr,
+				SemAnRules.whileTyp(whileExpr, attrs.typAttr.get(whileExpr.cond), attrs.typAttr.get(whileExpr.body)));
 	}
 }
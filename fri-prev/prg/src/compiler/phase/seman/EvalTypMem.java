@@ -0,0 +1,91 @@
+package compiler.phase.seman;
+
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Checks the types and evaluates which expressions are addressable in a single
+ * traversal.
+ * 
+ * <p>
+ * Whether an expression is addressable depends only on its own kind and type,
+ * so it is evaluated as soon as the type checker has typed the expression.
+ * </p>
+ * 
+ * @author juliette
+ */
+class EvalTypMem extends EvalTyp {
+
+	private final Attributes attrs;
+
+	public EvalTypMem(Attributes attrs) {
+		super(attrs);
+		this.attrs = attrs;
+	}
+
+	protected void post(AtomExpr atomExpr) {
+		super.post(atomExpr);
+		EvalMem.mem(attrs, atomExpr);
+	}
+
+	protected void post(BinExpr binExpr) {
+		super.post(binExpr);
+		EvalMem.mem(attrs, binExpr);
+	}
+
+	protected void post(CastExpr castExpr) {
+		super.post(castExpr);
+		EvalMem.mem(attrs, castExpr);
+	}
+
+	protected void post(CompName compName) {
+		super.post(compName);
+		EvalMem.mem(attrs, compName);
+	}
+
+	protected void post(Exprs exprs) {
+		super.post(exprs);
+		EvalMem.mem(attrs, exprs);
+	}
+
+	protected void post(ForExpr forExpr) {
+		super.post(forExpr);
+		EvalMem.mem(attrs, forExpr);
+	}
+
+	protected void post(FunCall funCall) {
+		super.post(funCall);
+		EvalMem.mem(attrs, funCall);
+	}
+
+	protected void post(IfExpr ifExpr) {
+		super.post(ifExpr);
+		EvalMem.mem(attrs, ifExpr);
+	}
+
+	protected void post(Program program) {
+		super.post(program);
+		EvalMem.mem(attrs, program);
+	}
+
+	protected void post(UnExpr unExpr) {
+		super.post(unExpr);
+		EvalMem.mem(attrs, unExpr);
+	}
+
+	protected void post(VarName varName) {
+		super.post(varName);
+		EvalMem.mem(attrs, varName);
+	}
+
+	protected void post(WhereExpr whereExpr) {
+		super.post(whereExpr);
+		EvalMem.mem(attrs, whereExpr);
+	}
+
+	protected void post(WhileExpr whileExpr) {
+		super.post(whileExpr);
+		EvalMem.mem(attrs, whileExpr);
+	}
+
+}
@@ -1,8 +1,6 @@
 package compiler.phase.seman;
 
-import compiler.common.report.CompilerError;
 import compiler.data.ast.*;
-import compiler.data.ast.AtomExpr.AtomTypes;
 import compiler.data.ast.attr.*;
 import compiler.data.ast.code.*;
 
@@ -22,7 +20,7 @@ import compiler.data.ast.code.*;
  * 
  * @author juliette
  */
-public class EvalValue extends FullVisitor {
+public class EvalValue extends Walker {
 
 	private final Attributes attrs;
 	
@@ -30,80 +28,64 @@ public class EvalValue extends FullVisitor {
 		this.attrs = attrs;
 	}
 	
-	public void visit(AtomExpr atomExpr) {
-		if(atomExpr.type == AtomTypes.INTEGER)
-		{	
-			try {
-				Long n = Long.parseLong(atomExpr.value);
-				attrs.valueAttr.set(atomExpr, n);
-			} catch (NumberFormatException ex) {
-				throw(new CompilerError("Illegal integer value at " + atomExpr + " " + atomExpr.value));
-			}
+	protected void post(AtomExpr atomExpr) {
+		value(attrs, atomExpr);
+	}
+
+	protected void post(BinExpr binExpr) {
+		value(attrs, binExpr);
+	}
 
-		}
+	protected void post(UnExpr unExpr) {
+		value(attrs, unExpr);
 	}
 
+	/**
+	 * Computes the value of an atomic expression.
+	 * 
+	 * @param attrs
+	 *            The attributes.
+	 * @param atomExpr
+	 *            The atomic expression.
+	 */
+	static void value(Attributes attrs, AtomExpr atomExpr) {
+		set(attrs, atomExpr, SemAnRules.value(atomExpr));
+	}
+
+	/**
+	 * Computes the value of a binary expression once the values of its
+	 * subexpressions have been computed.
+	 * 
+	 * @param attrs
+	 *            The attributes.
+	 * @param binExpr
+	 *            The binary expression.
+	 */
+	static void value(Attributes attrs, BinExpr binExpr) {
+		set(attrs, binExpr,
+				SemAnRules.value(binExpr, attrs.valueAttr.get(binExpr.fstExpr), attrs.valueAttr.get(binExpr.sndExpr)));
+	}
 
-	public void visit(BinExpr binExpr) {
-		binExpr.fstExpr.accept(this);
-		binExpr.sndExpr.accept(this);
-		Long fstExpr = attrs.valueAttr.get(binExpr.fstExpr);
-		Long sndExpr = attrs.valueAttr.get(binExpr.sndExpr);
-		switch (binExpr.oper) {
-		case ADD:
-		{
-			if(fstExpr != null && sndExpr != null)
-				attrs.valueAttr.set(binExpr, fstExpr + sndExpr);
-			break;
-		}
-		case SUB:
-		{
-			if(fstExpr != null && sndExpr != null)
-				attrs.valueAttr.set(binExpr, fstExpr - sndExpr);
-			break;
-		}	
-		case MUL:
-		{
-			if(fstExpr != null && sndExpr != null)
-				attrs.valueAttr.set(binExpr, fstExpr * sndExpr);
-			break;
-		}
-		case DIV:
-		{
-			if(fstExpr != null && sndExpr != null)
-				attrs.valueAttr.set(binExpr, fstExpr / sndExpr);
-			break;
-		}
-		case MOD:
-		{
-			if(fstExpr != null && sndExpr != null)
-				attrs.valueAttr.set(binExpr, fstExpr % sndExpr);
-			break;
-		}
-		default:
-			break;	
-		}
+	/**
+	 * Computes the value of a unary expression once the value of its
+	 * subexpression has been computed.
+	 * 
+	 * @param attrs
+	 *            The attributes.
+	 * @param unExpr
+	 *            The unary expression.
+	 */
+	static void value(Attributes attrs, UnExpr unExpr) {
+		set(attrs, unExpr, SemAnRules.value(unExpr, attrs.valueAttr.get(unExpr.subExpr)));
 	}
 
-	public void visit(UnExpr unExpr) {
-		unExpr.subExpr.accept(this);
-		Long subExpr = attrs.valueAttr.get(unExpr.subExpr);
-		switch (unExpr.oper) {
-		case ADD:
-		{
-			if(subExpr != null)
-				attrs.valueAttr.set(unExpr, +subExpr);
-			break;
-		}
-		case SUB:
-		{
-			if(subExpr != null)
-				attrs.valueAttr.set(unExpr, -subExpr);
-			break;
-		}	
-		default:
-			break;
-		}
+	/**
+	 * Sets the value of an expression unless it is not a simple integer
+	 * constant expression.
+	 */
+	private static void set(Attributes attrs, Expr expr, Long value) {
+		if (value != null)
+			attrs.valueAttr.set(expr, value);
 	}
 
 }
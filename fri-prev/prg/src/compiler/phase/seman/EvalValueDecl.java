@@ -0,0 +1,38 @@
+package compiler.phase.seman;
+
+import compiler.data.ast.*;
+import compiler.data.ast.attr.*;
+
+/**
+ * Computes the values of simple integer constant expressions and resolves the
+ * names in a single traversal.
+ * 
+ * <p>
+ * Neither computation depends on the other, so the values are computed
+ * bottom-up while the declaration resolver walks the program.
+ * </p>
+ * 
+ * @author juliette
+ */
+class EvalValueDecl extends EvalDecl {
+
+	private final Attributes attrs;
+
+	public EvalValueDecl(Attributes attrs) {
+		super(attrs);
+		this.attrs = attrs;
+	}
+
+	protected void post(AtomExpr atomExpr) {
+		EvalValue.value(attrs, atomExpr);
+	}
+
+	protected void post(BinExpr binExpr) {
+		EvalValue.value(attrs, binExpr);
+	}
+
+	protected void post(UnExpr unExpr) {
+		EvalValue.value(attrs, unExpr);
+	}
+
+}
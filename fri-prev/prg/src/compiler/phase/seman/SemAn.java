@@ -30,7 +30,7 @@ public class SemAn extends Phase {
 	@Override
 	public void close() {
 		if (logger != null)
-			(new SemAnToXML(logger, true, task.prgAttrs)).visit(task.prgAST);
+			(new SemAnToXML(logger, true, task.prgAttrs)).walk(task.prgAST);
 		super.close();
 	}
 
@@ -0,0 +1,808 @@
+package compiler.phase.seman;
+
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.typ.*;
+
+/**
+ * Demand-driven semantic analysis.
+ *
+ * <p>
+ * Instead of computing the values, declarations and types of all nodes in
+ * tree order as {@link compiler.phase.seman.EvalDecl} and
+ * {@link compiler.phase.seman.EvalTyp} do, the semantic analysis is answered
+ * by queries: {@link #valueOf(Expr)}, {@link #declOf(Declarable)},
+ * {@link #typeOf(Typeable)} and {@link #sizeOf(Typeable)}. A query computes
+ * only the results its own result depends on (the type of a variable needs
+ * its declaration and the type of that declaration, but nothing else) and
+ * each result is memoized per node. The rules and the error messages are
+ * those of {@link compiler.phase.seman.SemAnRules}, shared with
+ * {@link compiler.phase.seman.EvalDecl} and
+ * {@link compiler.phase.seman.EvalTyp}, but a query reports only the errors
+ * found while computing its result: checking a whole program still takes a
+ * query about every node.
+ * </p>
+ *
+ * <p>
+ * Names are resolved by looking them up in the enclosing scopes, i.e., in the
+ * declarations of the enclosing <code>where</code> expressions and in the
+ * parameters of the enclosing functions. The parent of each node is recorded
+ * by a single traversal of the tree the first time it is needed; the bodies
+ * of functions that have not been parsed yet (see
+ * {@link compiler.data.ast.FunDef#body()}) are indexed only once they have
+ * been parsed.
+ * </p>
+ *
+ * <p>
+ * Whenever a result is computed, the results it uses are recorded as its
+ * dependencies. If a node is edited, {@link #invalidate(AST)} drops its
+ * results and all results that depend on them, transitively; after an
+ * incremental reparse, {@link #update(Program)} does so for all nodes that
+ * are no longer part of the tree, so that only the results affected by the
+ * edit are computed anew.
+ * </p>
+ *
+ * @author juliette
+ */
+public class SemAnQueries {
+
+	/** The value of an expression. */
+	private static final int VALUE = 0;
+
+	/** The declaration of a name. */
+	private static final int DECL = 1;
+
+	/** The type of a node. */
+	private static final int TYP = 2;
+
+	/** The size of the type of a node. */
+	private static final int SIZE = 3;
+
+	/** The names declared by a scope or by a record type. */
+	private static final int NAMES = 4;
+
+	/** The number of queries about a node. */
+	private static final int NUM_QUERIES = 5;
+
+	/**
+	 * The result of a query about a node.
+	 *
+	 * @author juliette
+	 */
+	private static class Result {
+
+		/** The node. */
+		public final AST node;
+
+		/** The query. */
+		public final int query;
+
+		/** Whether the result has been computed. */
+		public boolean done = false;
+
+		/** Whether the result is being computed. */
+		public boolean active = false;
+
+		/**
+		 * The value, the declaration, the type, the size of the type or the
+		 * names declared.
+		 */
+		public Object value = null;
+
+		/** The results that depend on this one. */
+		public Result[] dependents = null;
+
+		/** The number of results that depend on this one. */
+		public int numDependents = 0;
+
+		public Result(AST node, int query) {
+			this.node = node;
+			this.query = query;
+		}
+
+	}
+
+	/** The program. */
+	private Program program;
+
+	/** The parents of the nodes indexed by their ids minus {@link #base}. */
+	private AST[] parents = null;
+
+	/**
+	 * The results of the queries about the nodes indexed by their ids minus
+	 * {@link #base} and by the queries.
+	 */
+	private Result[][] results = null;
+
+	/** The id of the node the first elements of the indices belong to. */
+	private int base;
+
+	/** The functions whose bodies have not been indexed yet. */
+	private ArrayList<FunDef> pending = new ArrayList<FunDef>();
+
+	/** The record types by the types they denote. */
+	private final HashMap<RecTyp, RecType> recTypes = new HashMap<RecTyp, RecType>();
+
+	/** The result being computed. */
+	private Result current = null;
+
+	/** The number of results computed. */
+	private long numComputed = 0;
+
+	/**
+	 * Constructs the queries about a program.
+	 *
+	 * @param program
+	 *            The program.
+	 */
+	public SemAnQueries(Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Returns the number of results computed so far (not counting the ones
+	 * found memoized).
+	 *
+	 * @return The number of results computed.
+	 */
+	public long numComputed() {
+		return numComputed;
+	}
+
+	// Queries.
+
+	/**
+	 * Returns the value of a simple integer constant expression.
+	 *
+	 * @param expr
+	 *            The expression.
+	 * @return The value or <code>null</code> if the expression is not a
+	 *         simple integer constant expression.
+	 */
+	public Long valueOf(Expr expr) {
+		Result result = use(expr, VALUE);
+		if (!result.done) {
+			Result caller = begin(result);
+			try {
+				result.value = value(expr);
+				result.done = true;
+			} finally {
+				end(result, caller);
+			}
+		}
+		return (Long) result.value;
+	}
+
+	/**
+	 * Returns the declaration of a name.
+	 *
+	 * @param name
+	 *            The name.
+	 * @return The declaration of the name.
+	 */
+	public Decl declOf(Declarable name) {
+		Result result = use(name, DECL);
+		if (!result.done) {
+			Result caller = begin(result);
+			try {
+				result.value = decl(name);
+				result.done = true;
+			} finally {
+				end(result, caller);
+			}
+		}
+		return (Decl) result.value;
+	}
+
+	/**
+	 * Returns the type of an expression, of a type or of a declaration.
+	 *
+	 * @param node
+	 *            The node.
+	 * @return The type or <code>null</code> if the node is erroneous.
+	 */
+	public Typ typeOf(Typeable node) {
+		Result result = use(node, TYP);
+		if (!result.done) {
+			Result caller = begin(result);
+			boolean computed = false;
+			try {
+				result.value = typ(node, result);
+				result.done = true;
+				computed = true;
+			} finally {
+				// A type name is memoized before it is computed and may have
+				// been used meanwhile.
+				if (!computed && result.done)
+					invalidate(result);
+				end(result, caller);
+			}
+		}
+		return (Typ) result.value;
+	}
+
+	/**
+	 * Returns the size of the type of an expression, of a type or of a
+	 * declaration.
+	 *
+	 * @param node
+	 *            The node.
+	 * @return The size in bytes.
+	 */
+	public long sizeOf(Typeable node) {
+		Result result = use(node, SIZE);
+		if (!result.done) {
+			Result caller = begin(result);
+			try {
+				Typ typ = typeOf(node);
+				if (typ == null)
+					throw new CompilerError("No type at " + node);
+				result.value = typ.size();
+				result.done = true;
+			} finally {
+				end(result, caller);
+			}
+		}
+		return (Long) result.value;
+	}
+
+	// Invalidation.
+
+	/**
+	 * Drops the results of a node and all results that depend on them.
+	 *
+	 * @param node
+	 *            The node.
+	 */
+	public void invalidate(AST node) {
+		if (current != null)
+			throw new InternalCompilerError();
+		Result[] nodeResults = find(node, results);
+		if (nodeResults != null)
+			for (Result result : nodeResults)
+				if (result != null)
+					invalidate(result);
+	}
+
+	/**
+	 * Replaces the program with its edited version: the results of the nodes
+	 * that are no longer part of the tree are dropped together with all
+	 * results that depend on them, while the results of the nodes reused by
+	 * the edited tree are kept unless they depend on the dropped ones.
+	 *
+	 * @param program
+	 *            The edited program.
+	 */
+	public void update(Program program) {
+		if (current != null)
+			throw new InternalCompilerError();
+		Result[][] oldResults = results;
+		this.program = program;
+		parents = null;
+		results = null;
+		pending.clear();
+		index();
+		if (oldResults == null)
+			return;
+		for (Result[] nodeResults : oldResults) {
+			if (nodeResults == null)
+				continue;
+			AST node = null;
+			for (Result result : nodeResults)
+				if (result != null)
+					node = result.node;
+			if ((node == program) || (find(node, parents) != null)) {
+				int index = reserve(node.id());
+				results[index] = nodeResults;
+			} else
+				for (Result result : nodeResults)
+					if (result != null)
+						invalidate(result);
+		}
+	}
+
+	private void invalidate(Result result) {
+		ArrayList<Result> work = new ArrayList<Result>();
+		work.add(result);
+		while (!work.isEmpty()) {
+			Result invalid = work.remove(work.size() - 1);
+			if ((invalid.query == TYP) && (invalid.node.kind() == AST.Kind.REC_TYPE) && (invalid.value != null))
+				recTypes.remove(invalid.value);
+			invalid.done = false;
+			invalid.value = null;
+			for (int d = 0; d < invalid.numDependents; d++)
+				work.add(invalid.dependents[d]);
+			invalid.dependents = null;
+			invalid.numDependents = 0;
+		}
+	}
+
+	// Memoization.
+
+	/**
+	 * Returns the result of a query about a node and records that the result
+	 * being computed depends on it.
+	 */
+	private Result use(AST node, int query) {
+		if (parents == null)
+			index();
+		Result[] nodeResults = find(node, results);
+		if (nodeResults == null) {
+			if ((node != program) && (parent(node, true) == null))
+				throw new InternalCompilerError();
+			int index = reserve(node.id());
+			nodeResults = results[index] = new Result[NUM_QUERIES];
+		}
+		Result result = nodeResults[query];
+		if (result == null)
+			result = nodeResults[query] = new Result(node, query);
+		if ((current != null)
+				&& ((result.numDependents == 0) || (result.dependents[result.numDependents - 1] != current))) {
+			if (result.dependents == null)
+				result.dependents = new Result[2];
+			else if (result.numDependents == result.dependents.length)
+				result.dependents = Arrays.copyOf(result.dependents, 2 * result.numDependents);
+			result.dependents[result.numDependents++] = current;
+		}
+		return result;
+	}
+
+	/**
+	 * Starts computing a result.
+	 *
+	 * @return The result that was being computed before.
+	 */
+	private Result begin(Result result) {
+		if (result.active)
+			throw new CompilerError("Circular definition at " + result.node);
+		result.active = true;
+		numComputed++;
+		Result caller = current;
+		current = result;
+		return caller;
+	}
+
+	/**
+	 * Stops computing a result.
+	 */
+	private void end(Result result, Result caller) {
+		result.active = false;
+		current = caller;
+	}
+
+	// Values.
+
+	private Long value(Expr expr) {
+		switch (expr.kind()) {
+		case ATOM_EXPR:
+			return SemAnRules.value((AtomExpr) expr);
+		case BIN_EXPR: {
+			BinExpr binExpr = (BinExpr) expr;
+			if (!SemAnRules.hasValue(binExpr))
+				return null;
+			return SemAnRules.value(binExpr, valueOf(binExpr.fstExpr), valueOf(binExpr.sndExpr));
+		}
+		case UN_EXPR: {
+			UnExpr unExpr = (UnExpr) expr;
+			if (!SemAnRules.hasValue(unExpr))
+				return null;
+			return SemAnRules.value(unExpr, valueOf(unExpr.subExpr));
+		}
+		default:
+			return null;
+		}
+	}
+
+	// Declarations.
+
+	private Decl decl(Declarable name) {
+		if (name.kind() == AST.Kind.COMP_NAME)
+			return compDecl((CompName) name);
+		return SemAnRules.decl(name, fndDecl(name));
+	}
+
+	/**
+	 * Finds the declaration of a name in the enclosing scopes.
+	 *
+	 * @return The declaration or <code>null</code> if the name is not
+	 *         declared.
+	 */
+	private Decl fndDecl(Declarable name) {
+		for (AST scope = parent(name, true); scope != null; scope = parent(scope, true)) {
+			switch (scope.kind()) {
+			case FUN_DECL:
+			case FUN_DEF:
+			case WHERE_EXPR: {
+				Decl decl = names(scope).get(name.name());
+				if (decl != null)
+					return decl;
+				break;
+			}
+			default:
+				break;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Resolves a component name: the record is the first operand of the
+	 * enclosing component access.
+	 */
+	private Decl compDecl(CompName compName) {
+		AST parent = parent(compName, true);
+		if (!(parent instanceof BinExpr) || (((BinExpr) parent).oper != BinExpr.Oper.REC))
+			throw new InternalCompilerError();
+		BinExpr binExpr = (BinExpr) parent;
+		RecTyp recTyp = SemAnRules.recTyp(binExpr, typeOf(binExpr.fstExpr));
+		return SemAnRules.decl(compName, names(recTypes.get(recTyp)).get(compName.name()));
+	}
+
+	/**
+	 * Returns the names declared by a scope (the declarations of a
+	 * <code>where</code> expression or the parameters of a function) or by a
+	 * record type (its components).
+	 */
+	@SuppressWarnings("unchecked")
+	private HashMap<String, Decl> names(AST node) {
+		Result result = use(node, NAMES);
+		if (!result.done) {
+			Result caller = begin(result);
+			try {
+				HashMap<String, Decl> names = new HashMap<String, Decl>();
+				switch (node.kind()) {
+				case FUN_DECL:
+				case FUN_DEF: {
+					FunDecl funDecl = (FunDecl) node;
+					for (int p = 0; p < funDecl.numPars(); p++)
+						if (names.put(funDecl.par(p).name, funDecl.par(p)) != null)
+							throw new CompilerError("Cannot redeclare name at " + funDecl.par(p) + " "
+									+ funDecl.par(p).name);
+					break;
+				}
+				case WHERE_EXPR: {
+					WhereExpr whereExpr = (WhereExpr) node;
+					for (int d = 0; d < whereExpr.numDecls(); d++)
+						if (names.put(whereExpr.decl(d).name, whereExpr.decl(d)) != null)
+							throw new CompilerError("Cannot redeclare name at " + whereExpr.decl(d) + " "
+									+ whereExpr.decl(d).name);
+					break;
+				}
+				case REC_TYPE: {
+					// The first of the components of the same name is used.
+					RecType recType = (RecType) node;
+					for (int c = recType.numComps() - 1; c >= 0; c--)
+						names.put(recType.comp(c).name, recType.comp(c));
+					break;
+				}
+				default:
+					throw new InternalCompilerError();
+				}
+				result.value = names;
+				result.done = true;
+			} finally {
+				end(result, caller);
+			}
+		}
+		return (HashMap<String, Decl>) result.value;
+	}
+
+	// Types.
+
+	private Typ typ(Typeable node, Result result) {
+		switch (node.kind()) {
+		case ARR_TYPE: {
+			ArrType arrType = (ArrType) node;
+			return SemAnRules.arrTyp(arrType, valueOf(arrType.size), typeOf(arrType.elemType));
+		}
+		case ATOM_EXPR:
+			return SemAnRules.atomTyp((AtomExpr) node);
+		case ATOM_TYPE:
+			return SemAnRules.atomTyp((AtomType) node);
+		case BIN_EXPR: {
+			BinExpr binExpr = (BinExpr) node;
+			// The record of a component access is typed while resolving the
+			// component name.
+			if (binExpr.oper == BinExpr.Oper.REC)
+				return typeOf(binExpr.sndExpr);
+			return SemAnRules.binTyp(binExpr, typeOf(binExpr.fstExpr), typeOf(binExpr.sndExpr));
+		}
+		case CAST_EXPR: {
+			CastExpr castExpr = (CastExpr) node;
+			return SemAnRules.castTyp(castExpr, typeOf(castExpr.type), typeOf(castExpr.expr));
+		}
+		case COMP_DECL:
+			return SemAnRules.compTyp((CompDecl) node, typeOf(((CompDecl) node).type));
+		case COMP_NAME:
+		case TYPE_NAME:
+		case VAR_NAME:
+			return typeOf(declOf((Declarable) node));
+		case EXPRS: {
+			Exprs exprs = (Exprs) node;
+			Typ typ = null;
+			for (int e = 0; e < exprs.numExprs(); e++)
+				typ = SemAnRules.exprTyp(exprs.expr(e), typeOf(exprs.expr(e)));
+			return typ;
+		}
+		case FOR_EXPR: {
+			ForExpr forExpr = (ForExpr) node;
+			return SemAnRules.forTyp(forExpr, typeOf(forExpr.var), typeOf(forExpr.loBound),
+					typeOf(forExpr.hiBound), typeOf(forExpr.body));
+		}
+		case FUN_CALL:
+			return ((FunTyp) typeOf(declOf((FunCall) node))).resultTyp;
+		case FUN_DECL:
+		case FUN_DEF: {
+			FunDecl funDecl = (FunDecl) node;
+			Typ resultTyp = typeOf(funDecl.type);
+			LinkedList<Typ> parTyps = new LinkedList<Typ>();
+			for (int p = 0; p < funDecl.numPars(); p++)
+				parTyps.add(SemAnRules.parTyp(funDecl, funDecl.par(p), typeOf(funDecl.par(p))));
+			return SemAnRules.funTyp(funDecl, parTyps, resultTyp);
+		}
+		case IF_EXPR: {
+			IfExpr ifExpr = (IfExpr) node;
+			return SemAnRules.ifTyp(ifExpr, typeOf(ifExpr.cond), typeOf(ifExpr.thenExpr), typeOf(ifExpr.elseExpr));
+		}
+		case PAR_DECL:
+		case VAR_DECL:
+			return typeOf(((Decl) node).type);
+		case PROGRAM:
+			return typeOf(((Program) node).expr);
+		case PTR_TYPE:
+			return new PtrTyp(typeOf(((PtrType) node).baseType));
+		case REC_TYPE: {
+			RecType recType = (RecType) node;
+			LinkedList<Typ> compTyps = new LinkedList<Typ>();
+			for (int c = 0; c < recType.numComps(); c++)
+				compTyps.add(typeOf(recType.comp(c)));
+			RecTyp recTyp = new RecTyp(nameSpace(recType), compTyps);
+			recTypes.put(recTyp, recType);
+			return recTyp;
+		}
+		case TYPE_DECL: {
+			TypeDecl typeDecl = (TypeDecl) node;
+			// The type name is memoized first so that recursive types refer to
+			// it.
+			TypName typName = new TypName(typeDecl.name);
+			result.value = typName;
+			result.done = true;
+			typName.setType(typeOf(typeDecl.type));
+			return typName;
+		}
+		case UN_EXPR:
+			return SemAnRules.unTyp((UnExpr) node, typeOf(((UnExpr) node).subExpr));
+		case WHERE_EXPR:
+			return typeOf(((WhereExpr) node).expr);
+		case WHILE_EXPR: {
+			WhileExpr whileExpr = (WhileExpr) node;
+			return SemAnRules.whileTyp(whileExpr, typeOf(whileExpr.cond), typeOf(whileExpr.body));
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the namespace of the components of a record type: the names of
+	 * the enclosing declarations, each one followed by <code>#</code>, or
+	 * just <code>#</code> if there are none.
+	 */
+	private String nameSpace(RecType recType) {
+		String nameSpace = "";
+		for (AST node = parent(recType, true); node != null; node = parent(node, true)) {
+			switch (node.kind()) {
+			case COMP_DECL:
+			case PAR_DECL:
+			case TYPE_DECL:
+			case VAR_DECL:
+				nameSpace = ((Decl) node).name + "#" + nameSpace;
+				break;
+			default:
+				break;
+			}
+		}
+		return nameSpace.isEmpty() ? "#" : nameSpace;
+	}
+
+	// Parents.
+
+	/**
+	 * Returns the parent of a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param indexPending
+	 *            Whether the function bodies parsed since they have been
+	 *            skipped should be indexed if the node is not found.
+	 * @return The parent or <code>null</code> if the node is the root or is
+	 *         not part of the tree.
+	 */
+	private AST parent(AST node, boolean indexPending) {
+		if (node == program)
+			return null;
+		if (parents == null)
+			index();
+		AST parent = find(node, parents);
+		if ((parent == null) && indexPending && indexPending())
+			parent = find(node, parents);
+		return parent;
+	}
+
+	/**
+	 * Returns the element of an index that belongs to a node.
+	 */
+	private <T> T find(AST node, T[] index) {
+		int i = node.id() - base;
+		return (i >= 0) && (i < index.length) ? index[i] : null;
+	}
+
+	/**
+	 * Indexes the parents of all nodes of the program.
+	 */
+	private void index() {
+		parents = new AST[0];
+		results = new Result[0][];
+		base = program.id();
+		reserve(program.id());
+		index(program);
+	}
+
+	/**
+	 * Indexes the parents of the nodes of the function bodies that have been
+	 * parsed since they have been skipped.
+	 *
+	 * @return <code>true</code> if any function body has been indexed.
+	 */
+	private boolean indexPending() {
+		boolean indexed = false;
+		for (int f = 0; f < pending.size(); f++) {
+			FunDef funDef = pending.get(f);
+			if (!funDef.isBodyParsed())
+				continue;
+			pending.set(f, pending.get(pending.size() - 1));
+			pending.remove(pending.size() - 1);
+			f--;
+			link(funDef, funDef.body());
+			index(funDef.body());
+			indexed = true;
+		}
+		return indexed;
+	}
+
+	/**
+	 * Indexes the parents of the nodes of a subtree.
+	 */
+	private void index(AST root) {
+		ArrayList<AST> work = new ArrayList<AST>();
+		work.add(root);
+		while (!work.isEmpty()) {
+			AST node = work.remove(work.size() - 1);
+			int first = work.size();
+			switch (node.kind()) {
+			case ARR_TYPE:
+				work.add(((ArrType) node).size);
+				work.add(((ArrType) node).elemType);
+				break;
+			case BIN_EXPR:
+				work.add(((BinExpr) node).fstExpr);
+				work.add(((BinExpr) node).sndExpr);
+				break;
+			case CAST_EXPR:
+				work.add(((CastExpr) node).type);
+				work.add(((CastExpr) node).expr);
+				break;
+			case EXPRS:
+				for (int e = 0; e < ((Exprs) node).numExprs(); e++)
+					work.add(((Exprs) node).expr(e));
+				break;
+			case FOR_EXPR:
+				work.add(((ForExpr) node).var);
+				work.add(((ForExpr) node).loBound);
+				work.add(((ForExpr) node).hiBound);
+				work.add(((ForExpr) node).body);
+				break;
+			case FUN_CALL:
+				for (int a = 0; a < ((FunCall) node).numArgs(); a++)
+					work.add(((FunCall) node).arg(a));
+				break;
+			case FUN_DECL:
+				addPars((FunDecl) node, work);
+				break;
+			case FUN_DEF:
+				// A body that has not been parsed yet is indexed once it has.
+				if (((FunDef) node).isBodyParsed())
+					work.add(((FunDef) node).body());
+				else
+					pending.add((FunDef) node);
+				addPars((FunDecl) node, work);
+				break;
+			case COMP_DECL:
+			case PAR_DECL:
+			case TYPE_DECL:
+			case VAR_DECL:
+				work.add(((Decl) node).type);
+				break;
+			case IF_EXPR:
+				work.add(((IfExpr) node).cond);
+				work.add(((IfExpr) node).thenExpr);
+				work.add(((IfExpr) node).elseExpr);
+				break;
+			case PROGRAM:
+				work.add(((Program) node).expr);
+				break;
+			case PTR_TYPE:
+				work.add(((PtrType) node).baseType);
+				break;
+			case REC_TYPE:
+				for (int c = 0; c < ((RecType) node).numComps(); c++)
+					work.add(((RecType) node).comp(c));
+				break;
+			case UN_EXPR:
+				work.add(((UnExpr) node).subExpr);
+				break;
+			case WHERE_EXPR:
+				work.add(((WhereExpr) node).expr);
+				for (int d = 0; d < ((WhereExpr) node).numDecls(); d++)
+					work.add(((WhereExpr) node).decl(d));
+				break;
+			case WHILE_EXPR:
+				work.add(((WhileExpr) node).cond);
+				work.add(((WhileExpr) node).body);
+				break;
+			default:
+				break;
+			}
+			for (int child = first; child < work.size(); child++)
+				link(node, work.get(child));
+		}
+	}
+
+	/**
+	 * Adds the parameters and the type of a function to the nodes to be
+	 * indexed.
+	 */
+	private void addPars(FunDecl funDecl, ArrayList<AST> work) {
+		for (int p = 0; p < funDecl.numPars(); p++)
+			work.add(funDecl.par(p));
+		work.add(funDecl.type);
+	}
+
+	/**
+	 * Records the parent of a node.
+	 */
+	private void link(AST parent, AST node) {
+		int index = reserve(node.id());
+		parents[index] = parent;
+	}
+
+	/**
+	 * Extends the indices to include a node.
+	 *
+	 * @param id
+	 *            The id of the node.
+	 * @return The index of the node.
+	 */
+	private int reserve(int id) {
+		int index = id - base;
+		if (index < 0) {
+			int shift = Math.max(-index, parents.length);
+			AST[] parents = new AST[this.parents.length + shift];
+			System.arraycopy(this.parents, 0, parents, shift, this.parents.length);
+			this.parents = parents;
+			Result[][] results = new Result[this.results.length + shift][];
+			System.arraycopy(this.results, 0, results, shift, this.results.length);
+			this.results = results;
+			base -= shift;
+			index += shift;
+		} else if (index >= parents.length) {
+			int length = Math.max(index + 1, 2 * parents.length);
+			parents = Arrays.copyOf(parents, length);
+			results = Arrays.copyOf(results, length);
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,447 @@
+package compiler.phase.seman;
+
+import java.util.LinkedList;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.typ.*;
+
+/**
+ * The rules of the semantic analysis.
+ *
+ * <p>
+ * Each rule computes the value, the declaration or the type of a node from
+ * the results already computed for its subtrees and reports an error if they
+ * do not fit. The rules are shared by the traversals
+ * ({@link compiler.phase.seman.EvalValue},
+ * {@link compiler.phase.seman.EvalDecl} and
+ * {@link compiler.phase.seman.EvalTyp}), which compute the results in tree
+ * order, and by {@link compiler.phase.seman.SemAnQueries}, which computes them
+ * on demand.
+ * </p>
+ *
+ * @author juliette
+ */
+final class SemAnRules {
+
+	/** The types of parameters. */
+	private static final Typ[] parTyps = { new IntegerTyp(), new BooleanTyp(), new CharTyp(), new StringTyp(),
+			new PtrTyp(new IntegerTyp()), new PtrTyp(new BooleanTyp()), new PtrTyp(new CharTyp()),
+			new PtrTyp(new StringTyp()), new PtrTyp(new VoidTyp()) };
+
+	/** The types of results of functions. */
+	private static final Typ[] resultTyps = { new IntegerTyp(), new BooleanTyp(), new CharTyp(), new StringTyp(),
+			new VoidTyp(), new PtrTyp(new IntegerTyp()), new PtrTyp(new BooleanTyp()), new PtrTyp(new CharTyp()),
+			new PtrTyp(new StringTyp()), new PtrTyp(new VoidTyp()) };
+
+	private SemAnRules() {
+	}
+
+	// Values.
+
+	/**
+	 * Returns the value of an atomic expression.
+	 *
+	 * @param atomExpr
+	 *            The atomic expression.
+	 * @return The value or <code>null</code> if the expression is not an
+	 *         integer constant.
+	 */
+	static Long value(AtomExpr atomExpr) {
+		if (atomExpr.type != AtomExpr.AtomTypes.INTEGER)
+			return null;
+		try {
+			return Long.parseLong(atomExpr.value);
+		} catch (NumberFormatException ex) {
+			throw new CompilerError("Illegal integer value at " + atomExpr + " " + atomExpr.value);
+		}
+	}
+
+	/**
+	 * Returns the value of a binary expression.
+	 *
+	 * @param binExpr
+	 *            The binary expression.
+	 * @param fstExpr
+	 *            The value of the first subexpression or <code>null</code>.
+	 * @param sndExpr
+	 *            The value of the second subexpression or <code>null</code>.
+	 * @return The value or <code>null</code> if the expression is not a simple
+	 *         integer constant expression.
+	 */
+	static Long value(BinExpr binExpr, Long fstExpr, Long sndExpr) {
+		if ((fstExpr == null) || (sndExpr == null))
+			return null;
+		switch (binExpr.oper) {
+		case ADD:
+			return fstExpr + sndExpr;
+		case SUB:
+			return fstExpr - sndExpr;
+		case MUL:
+			return fstExpr * sndExpr;
+		case DIV:
+			return fstExpr / sndExpr;
+		case MOD:
+			return fstExpr % sndExpr;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the value of a binary expression depends on the values
+	 * of its subexpressions.
+	 */
+	static boolean hasValue(BinExpr binExpr) {
+		switch (binExpr.oper) {
+		case ADD:
+		case SUB:
+		case MUL:
+		case DIV:
+		case MOD:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the value of a unary expression.
+	 *
+	 * @param unExpr
+	 *            The unary expression.
+	 * @param subExpr
+	 *            The value of the subexpression or <code>null</code>.
+	 * @return The value or <code>null</code> if the expression is not a simple
+	 *         integer constant expression.
+	 */
+	static Long value(UnExpr unExpr, Long subExpr) {
+		if (subExpr == null)
+			return null;
+		switch (unExpr.oper) {
+		case ADD:
+			return +subExpr;
+		case SUB:
+			return -subExpr;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the value of a unary expression depends on the value of
+	 * its subexpression.
+	 */
+	static boolean hasValue(UnExpr unExpr) {
+		return (unExpr.oper == UnExpr.Oper.ADD) || (unExpr.oper == UnExpr.Oper.SUB);
+	}
+
+	// Declarations.
+
+	/**
+	 * Checks the declaration a name has been resolved to.
+	 *
+	 * @param name
+	 *            The name.
+	 * @param decl
+	 *            The declaration found or <code>null</code> if there is none.
+	 * @return The declaration.
+	 */
+	static Decl decl(Declarable name, Decl decl) {
+		switch (name.kind()) {
+		case COMP_NAME:
+			if (decl == null)
+				throw new CompilerError("Component name not found " + name);
+			return decl;
+		case FUN_CALL:
+			if (decl == null)
+				throw new CompilerError("Unknown function at " + name + " " + name.name());
+			if (!(decl instanceof FunDecl))
+				throw new CompilerError("Error at " + name + " " + name.name() + " is not a function name.");
+			return decl;
+		case TYPE_NAME:
+			if (decl == null)
+				throw new CompilerError("Unknown type at " + name + " " + name.name());
+			return decl;
+		case VAR_NAME:
+			if (decl == null)
+				throw new CompilerError("Unknown variable at " + name + " " + name.name());
+			return decl;
+		default:
+			throw new InternalCompilerError();
+		}
+	}
+
+	/**
+	 * Returns the error reported if a name is declared twice in the same
+	 * scope.
+	 *
+	 * @param decl
+	 *            The second declaration.
+	 * @return The error.
+	 */
+	static CompilerError redeclaration(Decl decl) {
+		return new CompilerError("Cannot redeclare name at " + decl + " " + decl.name);
+	}
+
+	// Types.
+
+	/**
+	 * Returns the type of an array type.
+	 */
+	static Typ arrTyp(ArrType arrType, Long size, Typ elemTyp) {
+		if (size == null)
+			throw new CompilerError("Array size not an integer at " + arrType.size);
+		if (size <= 0)
+			throw new CompilerError("Illegal array size at " + arrType.size);
+		if (elemTyp == null)
+			throw new CompilerError("Illegal array type at " + arrType);
+		return new ArrTyp(size, elemTyp);
+	}
+
+	/**
+	 * Returns the type of an atomic expression.
+	 */
+	static Typ atomTyp(AtomExpr atomExpr) {
+		switch (atomExpr.type) {
+		case INTEGER:
+			return new IntegerTyp();
+		case BOOLEAN:
+			return new BooleanTyp();
+		case CHAR:
+			return new CharTyp();
+		case STRING:
+			return new StringTyp();
+		case PTR:
+			return new PtrTyp(new VoidTyp());
+		case VOID:
+			return new VoidTyp();
+		default:
+			throw new CompilerError("Wrong type " + atomExpr.type + " at " + atomExpr);
+		}
+	}
+
+	/**
+	 * Returns the type of an atomic type.
+	 */
+	static Typ atomTyp(AtomType atomType) {
+		switch (atomType.type) {
+		case INTEGER:
+			return new IntegerTyp();
+		case BOOLEAN:
+			return new BooleanTyp();
+		case CHAR:
+			return new CharTyp();
+		case STRING:
+			return new StringTyp();
+		case VOID:
+			return new VoidTyp();
+		default:
+			throw new CompilerError("Wrong type " + atomType.type + " at " + atomType);
+		}
+	}
+
+	/**
+	 * Returns the type of a binary expression other than a component access
+	 * (see {@link #recTyp(BinExpr, Typ)}).
+	 */
+	static Typ binTyp(BinExpr binExpr, Typ fstExpr, Typ sndExpr) {
+		switch (binExpr.oper) {
+		case ADD:
+		case SUB:
+		case MUL:
+		case DIV:
+		case MOD:
+			if ((fstExpr != null) && (fstExpr.actualTyp() instanceof IntegerTyp) && (sndExpr != null)
+					&& (sndExpr.actualTyp() instanceof IntegerTyp))
+				return new IntegerTyp();
+			throw new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper);
+		case AND:
+		case OR:
+			if ((fstExpr instanceof BooleanTyp) && (sndExpr instanceof BooleanTyp))
+				return new BooleanTyp();
+			throw new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper);
+		case EQU:
+		case NEQ:
+		case LTH:
+		case GTH:
+		case LEQ:
+		case GEQ:
+			if (((fstExpr instanceof IntegerTyp) && (sndExpr instanceof IntegerTyp))
+					|| ((fstExpr instanceof BooleanTyp) && (sndExpr instanceof BooleanTyp))
+					|| ((fstExpr instanceof CharTyp) && (sndExpr instanceof CharTyp))
+					|| ((fstExpr instanceof PtrTyp) && (sndExpr instanceof PtrTyp)))
+				return new BooleanTyp();
+			throw new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper + " fstExpr " + fstExpr
+					+ " sndExpr " + sndExpr);
+		case ASSIGN:
+			if (((fstExpr instanceof IntegerTyp) && (sndExpr instanceof IntegerTyp))
+					|| ((fstExpr instanceof BooleanTyp) && (sndExpr instanceof BooleanTyp))
+					|| ((fstExpr instanceof CharTyp) && (sndExpr instanceof CharTyp))
+					|| ((fstExpr instanceof StringTyp) && (sndExpr instanceof StringTyp))
+					|| ((fstExpr instanceof PtrTyp) && (sndExpr instanceof PtrTyp)))
+				return new VoidTyp();
+			throw new CompilerError("Semantic error at " + binExpr + " " + binExpr.oper);
+		case ARR:
+			if (!(sndExpr instanceof IntegerTyp))
+				throw new CompilerError("Error at " + binExpr.sndExpr + ". Array index not an integer.");
+			if (!(fstExpr instanceof ArrTyp))
+				throw new CompilerError("Error at " + binExpr.fstExpr + " Wrong array's type.");
+			return ((ArrTyp) fstExpr).elemTyp;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the record type accessed by a component access.
+	 *
+	 * @param binExpr
+	 *            The component access.
+	 * @param fstExpr
+	 *            The type of the record.
+	 * @return The record type.
+	 */
+	static RecTyp recTyp(BinExpr binExpr, Typ fstExpr) {
+		if ((fstExpr == null) || !(fstExpr.actualTyp() instanceof RecTyp))
+			throw new CompilerError("Error at " + binExpr + " " + (fstExpr == null ? null : fstExpr.actualTyp())
+					+ " is not RecTyp.");
+		return (RecTyp) fstExpr.actualTyp();
+	}
+
+	/**
+	 * Returns the type of a cast expression.
+	 */
+	static Typ castTyp(CastExpr castExpr, Typ type, Typ expr) {
+		if (type == null)
+			throw new CompilerError("Error with cast type " + castExpr.type);
+		if (expr == null)
+			throw new CompilerError("Error with cast expression " + castExpr.expr);
+		if (!(type instanceof PtrTyp) || !expr.isStructEquivTo(new PtrTyp(new VoidTyp())))
+			throw new CompilerError("Cast error " + castExpr);
+		return type;
+	}
+
+	/**
+	 * Returns the type of a component declaration.
+	 */
+	static Typ compTyp(CompDecl compDecl, Typ type) {
+		if (type == null)
+			throw new CompilerError("Component error " + compDecl);
+		return type;
+	}
+
+	/**
+	 * Checks the type of an expression in a sequence of expressions.
+	 */
+	static Typ exprTyp(Expr expr, Typ typ) {
+		if (typ == null)
+			throw new CompilerError("Expression type can not be null " + expr);
+		return typ;
+	}
+
+	/**
+	 * Returns the type of a <code>for</code> loop.
+	 */
+	static Typ forTyp(ForExpr forExpr, Typ var, Typ loBound, Typ hiBound, Typ body) {
+		if (!(var instanceof IntegerTyp))
+			throw new CompilerError("Variable is not integer " + forExpr.var);
+		if (!(loBound instanceof IntegerTyp))
+			throw new CompilerError("Low boundary is not integer " + forExpr.loBound);
+		if (!(hiBound instanceof IntegerTyp))
+			throw new CompilerError("High boundary is not integer " + forExpr.hiBound);
+		if (body == null)
+			throw new CompilerError("Body can not be null and must be void type " + forExpr.body);
+		return new VoidTyp();
+	}
+
+	/**
+	 * Checks the type of a parameter of a function.
+	 */
+	static Typ parTyp(FunDecl funDecl, ParDecl parDecl, Typ type) {
+		if (!isOneOf(type, parTyps))
+			throw new CompilerError((funDecl.kind() == AST.Kind.FUN_DEF ? "Unrecognisable symbol at funDef par "
+					: "Unrecognisable type of parameter ") + parDecl);
+		return type;
+	}
+
+	/**
+	 * Returns the type of a function once the types of its parameters have
+	 * been checked by {@link #parTyp(FunDecl, ParDecl, Typ)}.
+	 */
+	static Typ funTyp(FunDecl funDecl, LinkedList<Typ> parTyps, Typ resultTyp) {
+		if (!isOneOf(resultTyp, resultTyps))
+			throw new CompilerError((funDecl.kind() == AST.Kind.FUN_DEF ? "Unrecognisable symbol at funDef type "
+					: "Function type undeclared ") + funDecl);
+		return new FunTyp(parTyps, resultTyp);
+	}
+
+	/**
+	 * Checks the type of the body of a function.
+	 */
+	static Typ bodyTyp(FunDef funDef, Typ body) {
+		if (body == null)
+			throw new CompilerError(
+					"Function body can not be null " + funDef.body() + " " + funDef.name + " at " + funDef);
+		return body;
+	}
+
+	/**
+	 * Returns the type of a conditional expression.
+	 */
+	static Typ ifTyp(IfExpr ifExpr, Typ cond, Typ thenExpr, Typ elseExpr) {
+		if (!(cond instanceof BooleanTyp))
+			throw new CompilerError("Conditional expression must be of boolean type " + ifExpr.cond);
+		if (thenExpr == null)
+			throw new CompilerError("Then expression can not be null " + ifExpr.thenExpr);
+		if (elseExpr == null)
+			throw new CompilerError("Else expression can not be null " + ifExpr.elseExpr);
+		return new VoidTyp();
+	}
+
+	/**
+	 * Returns the type of a unary expression.
+	 */
+	static Typ unTyp(UnExpr unExpr, Typ subExpr) {
+		switch (unExpr.oper) {
+		case ADD:
+		case SUB:
+			if (subExpr instanceof IntegerTyp)
+				return new IntegerTyp();
+			throw new CompilerError("Wrong operator for integer expression " + unExpr);
+		case NOT:
+			if (subExpr instanceof BooleanTyp)
+				return new BooleanTyp();
+			throw new CompilerError("Wrong operator for boolean expression " + unExpr);
+		case VAL:
+			if ((subExpr != null) && (subExpr.actualTyp() instanceof PtrTyp))
+				return ((PtrTyp) subExpr.actualTyp()).baseTyp;
+			throw new CompilerError("Unrecognisable symbol at UnExpr VAL " + unExpr.subExpr);
+		case MEM:
+			if ((subExpr != null) && !(subExpr instanceof VoidTyp))
+				return new PtrTyp(subExpr);
+			throw new CompilerError("Mem type error " + unExpr.subExpr);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the type of a <code>while</code> loop.
+	 */
+	static Typ whileTyp(WhileExpr whileExpr, Typ cond, Typ body) {
+		if (!(cond instanceof BooleanTyp))
+			throw new CompilerError("Conditional expression is not boolean " + whileExpr.cond);
+		if (body == null)
+			throw new CompilerError("Loop body do not have a type " + whileExpr.body);
+		return new VoidTyp();
+	}
+
+	private static boolean isOneOf(Typ typ, Typ[] typs) {
+		for (Typ candidate : typs)
+			if (candidate.isStructEquivTo(typ))
+				return true;
+		return false;
+	}
+
+}
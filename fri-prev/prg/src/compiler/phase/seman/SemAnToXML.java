@@ -58,12 +58,17 @@ public class SemAnToXML extends AbstrToXML {
 			logger.endElement();
 	}
 
-	// Visitor.
+	// Hooks.
 
 	@Override
-	public void visit(ArrType arrType) {
+	protected void pre(ArrType arrType) {
 		begElement();
-		super.visit(arrType);
+		super.pre(arrType);
+	}
+
+	@Override
+	protected void post(ArrType arrType) {
+		super.post(arrType);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(arrType) != null)
 			attrs.typAttr.get(arrType).log(logger);
@@ -72,24 +77,34 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(AtomExpr atomExpr) {
+	protected void pre(AtomExpr atomExpr) {
 		begElement();
-		super.visit(atomExpr);
+		super.pre(atomExpr);
+	}
+
+	@Override
+	protected void post(AtomExpr atomExpr) {
+		super.post(atomExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(atomExpr) != null)
-			attrs.typAttr.get(atomExpr).log(logger);
 		if (attrs.valueAttr.get(atomExpr) != null)
 			logger.addAttribute("value", attrs.valueAttr.get(atomExpr).toString());
 		if (attrs.memAttr.get(atomExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(atomExpr) != null)
+			attrs.typAttr.get(atomExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(AtomType atomType) {
+	protected void pre(AtomType atomType) {
 		begElement();
-		super.visit(atomType);
+		super.pre(atomType);
+	}
+
+	@Override
+	protected void post(AtomType atomType) {
+		super.post(atomType);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(atomType) != null)
 			attrs.typAttr.get(atomType).log(logger);
@@ -98,37 +113,52 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(BinExpr binExpr) {
+	protected void pre(BinExpr binExpr) {
 		begElement();
-		super.visit(binExpr);
+		super.pre(binExpr);
+	}
+
+	@Override
+	protected void post(BinExpr binExpr) {
+		super.post(binExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(binExpr) != null)
-			attrs.typAttr.get(binExpr).log(logger);
 		if (attrs.valueAttr.get(binExpr) != null)
 			logger.addAttribute("value", attrs.valueAttr.get(binExpr).toString());
 		if (attrs.memAttr.get(binExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(binExpr) != null)
+			attrs.typAttr.get(binExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(CastExpr castExpr) {
+	protected void pre(CastExpr castExpr) {
 		begElement();
-		super.visit(castExpr);
+		if (attrs.memAttr.get(castExpr))
+			logger.addAttribute("mem", "true");
+		super.pre(castExpr);
+	}
+
+	@Override
+	protected void post(CastExpr castExpr) {
+		super.post(castExpr);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(castExpr) != null)
 			attrs.typAttr.get(castExpr).log(logger);
 		logger.endElement();
-		if (attrs.memAttr.get(castExpr))
-			logger.addAttribute("mem", "true");
 		endElement();
 	}
 
 	@Override
-	public void visit(CompDecl compDecl) {
+	protected void pre(CompDecl compDecl) {
 		begElement();
-		super.visit(compDecl);
+		super.pre(compDecl);
+	}
+
+	@Override
+	protected void post(CompDecl compDecl) {
+		super.post(compDecl);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(compDecl) != null)
 			attrs.typAttr.get(compDecl).log(logger);
@@ -137,12 +167,15 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(CompName compName) {
+	protected void pre(CompName compName) {
 		begElement();
-		super.visit(compName);
+		super.pre(compName);
+	}
+
+	@Override
+	protected void post(CompName compName) {
+		super.post(compName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(compName) != null)
-			attrs.typAttr.get(compName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(compName);
 			if (decl != null) {
@@ -153,14 +186,21 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		if (attrs.memAttr.get(compName))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(compName) != null)
+			attrs.typAttr.get(compName).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(DeclError declError) {
+	protected void pre(DeclError declError) {
 		begElement();
-		super.visit(declError);
+		super.pre(declError);
+	}
+
+	@Override
+	protected void post(DeclError declError) {
+		super.post(declError);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(declError) != null)
 			attrs.typAttr.get(declError).log(logger);
@@ -169,22 +209,32 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(Exprs exprs) {
+	protected void pre(Exprs exprs) {
 		begElement();
-		super.visit(exprs);
+		super.pre(exprs);
+	}
+
+	@Override
+	protected void post(Exprs exprs) {
+		super.post(exprs);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(exprs) != null)
-			attrs.typAttr.get(exprs).log(logger);
 		if (attrs.memAttr.get(exprs))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(exprs) != null)
+			attrs.typAttr.get(exprs).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(ExprError exprError) {
+	protected void pre(ExprError exprError) {
 		begElement();
-		super.visit(exprError);
+		super.pre(exprError);
+	}
+
+	@Override
+	protected void post(ExprError exprError) {
+		super.post(exprError);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(exprError) != null)
 			attrs.typAttr.get(exprError).log(logger);
@@ -193,25 +243,33 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(ForExpr forExpr) {
+	protected void pre(ForExpr forExpr) {
 		begElement();
-		super.visit(forExpr);
+		super.pre(forExpr);
+	}
+
+	@Override
+	protected void post(ForExpr forExpr) {
+		super.post(forExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(forExpr) != null)
-			attrs.typAttr.get(forExpr).log(logger);
 		if (attrs.memAttr.get(forExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(forExpr) != null)
+			attrs.typAttr.get(forExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(FunCall funCall) {
+	protected void pre(FunCall funCall) {
 		begElement();
-		super.visit(funCall);
+		super.pre(funCall);
+	}
+
+	@Override
+	protected void post(FunCall funCall) {
+		super.post(funCall);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(funCall) != null)
-			attrs.typAttr.get(funCall).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(funCall);
 			if (decl != null) {
@@ -222,14 +280,21 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		//if (attrs.memAttr.get(funCall))
 		//	logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(funCall) != null)
+			attrs.typAttr.get(funCall).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(FunDecl funDecl) {
+	protected void pre(FunDecl funDecl) {
 		begElement();
-		super.visit(funDecl);
+		super.pre(funDecl);
+	}
+
+	@Override
+	protected void post(FunDecl funDecl) {
+		super.post(funDecl);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(funDecl) != null)
 			attrs.typAttr.get(funDecl).log(logger);
@@ -238,9 +303,14 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(FunDef funDef) {
+	protected void pre(FunDef funDef) {
 		begElement();
-		super.visit(funDef);
+		super.pre(funDef);
+	}
+
+	@Override
+	protected void post(FunDef funDef) {
+		super.post(funDef);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(funDef) != null)
 			attrs.typAttr.get(funDef).log(logger);
@@ -249,22 +319,32 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(IfExpr ifExpr) {
+	protected void pre(IfExpr ifExpr) {
 		begElement();
-		super.visit(ifExpr);
+		super.pre(ifExpr);
+	}
+
+	@Override
+	protected void post(IfExpr ifExpr) {
+		super.post(ifExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(ifExpr) != null)
-			attrs.typAttr.get(ifExpr).log(logger);
 		if (attrs.memAttr.get(ifExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(ifExpr) != null)
+			attrs.typAttr.get(ifExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(ParDecl parDecl) {
+	protected void pre(ParDecl parDecl) {
 		begElement();
-		super.visit(parDecl);
+		super.pre(parDecl);
+	}
+
+	@Override
+	protected void post(ParDecl parDecl) {
+		super.post(parDecl);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(parDecl) != null)
 			attrs.typAttr.get(parDecl).log(logger);
@@ -273,22 +353,32 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(Program program) {
+	protected void pre(Program program) {
 		begElement();
-		super.visit(program);
+		super.pre(program);
+	}
+
+	@Override
+	protected void post(Program program) {
+		super.post(program);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(program) != null)
-			attrs.typAttr.get(program).log(logger);
 		if (attrs.memAttr.get(program))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(program) != null)
+			attrs.typAttr.get(program).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(PtrType ptrType) {
+	protected void pre(PtrType ptrType) {
 		begElement();
-		super.visit(ptrType);
+		super.pre(ptrType);
+	}
+
+	@Override
+	protected void post(PtrType ptrType) {
+		super.post(ptrType);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(ptrType) != null)
 			attrs.typAttr.get(ptrType).log(logger);
@@ -297,9 +387,14 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(RecType recType) {
+	protected void pre(RecType recType) {
 		begElement();
-		super.visit(recType);
+		super.pre(recType);
+	}
+
+	@Override
+	protected void post(RecType recType) {
+		super.post(recType);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(recType) != null)
 			attrs.typAttr.get(recType).log(logger);
@@ -308,9 +403,14 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(TypeDecl typDecl) {
+	protected void pre(TypeDecl typDecl) {
 		begElement();
-		super.visit(typDecl);
+		super.pre(typDecl);
+	}
+
+	@Override
+	protected void post(TypeDecl typDecl) {
+		super.post(typDecl);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(typDecl) != null) {
 			logger.begElement("typ");
@@ -323,9 +423,14 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(TypeError typeError) {
+	protected void pre(TypeError typeError) {
 		begElement();
-		super.visit(typeError);
+		super.pre(typeError);
+	}
+
+	@Override
+	protected void post(TypeError typeError) {
+		super.post(typeError);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(typeError) != null)
 			attrs.typAttr.get(typeError).log(logger);
@@ -334,12 +439,15 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(TypeName typeName) {
+	protected void pre(TypeName typeName) {
 		begElement();
-		super.visit(typeName);
+		super.pre(typeName);
+	}
+
+	@Override
+	protected void post(TypeName typeName) {
+		super.post(typeName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(typeName) != null)
-			attrs.typAttr.get(typeName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(typeName);
 			if (decl != null) {
@@ -348,29 +456,41 @@ public class SemAnToXML extends AbstrToXML {
 				logger.addAttribute("decl", ((Position) decl).toString());
 			}
 		}
+		if (attrs.typAttr.get(typeName) != null)
+			attrs.typAttr.get(typeName).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(UnExpr unExpr) {
+	protected void pre(UnExpr unExpr) {
 		begElement();
-		super.visit(unExpr);
+		super.pre(unExpr);
+	}
+
+	@Override
+	protected void post(UnExpr unExpr) {
+		super.post(unExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(unExpr) != null)
-			attrs.typAttr.get(unExpr).log(logger);
 		if (attrs.valueAttr.get(unExpr) != null)
 			logger.addAttribute("value", attrs.valueAttr.get(unExpr).toString());
 		if (attrs.memAttr.get(unExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(unExpr) != null)
+			attrs.typAttr.get(unExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(VarDecl varDecl) {
+	protected void pre(VarDecl varDecl) {
 		begElement();
-		super.visit(varDecl);
+		super.pre(varDecl);
+	}
+
+	@Override
+	protected void post(VarDecl varDecl) {
+		super.post(varDecl);
 		logger.begElement("seman");
 		if (attrs.typAttr.get(varDecl) != null)
 			attrs.typAttr.get(varDecl).log(logger);
@@ -379,12 +499,15 @@ public class SemAnToXML extends AbstrToXML {
 	}
 
 	@Override
-	public void visit(VarName varName) {
+	protected void pre(VarName varName) {
 		begElement();
-		super.visit(varName);
+		super.pre(varName);
+	}
+
+	@Override
+	protected void post(VarName varName) {
+		super.post(varName);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(varName) != null)
-			attrs.typAttr.get(varName).log(logger);
 		{
 			Decl decl = attrs.declAttr.get(varName);
 			if (decl != null) {
@@ -395,32 +518,44 @@ public class SemAnToXML extends AbstrToXML {
 		}
 		if (attrs.memAttr.get(varName))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(varName) != null)
+			attrs.typAttr.get(varName).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(WhereExpr whereExpr) {
+	protected void pre(WhereExpr whereExpr) {
 		begElement();
-		super.visit(whereExpr);
+		super.pre(whereExpr);
+	}
+
+	@Override
+	protected void post(WhereExpr whereExpr) {
+		super.post(whereExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(whereExpr) != null)
-			attrs.typAttr.get(whereExpr).log(logger);
 		if (attrs.memAttr.get(whereExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(whereExpr) != null)
+			attrs.typAttr.get(whereExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
 
 	@Override
-	public void visit(WhileExpr whileExpr) {
+	protected void pre(WhileExpr whileExpr) {
 		begElement();
-		super.visit(whileExpr);
+		super.pre(whileExpr);
+	}
+
+	@Override
+	protected void post(WhileExpr whileExpr) {
+		super.post(whileExpr);
 		logger.begElement("seman");
-		if (attrs.typAttr.get(whileExpr) != null)
-			attrs.typAttr.get(whileExpr).log(logger);
 		if (attrs.memAttr.get(whileExpr))
 			logger.addAttribute("mem", "true");
+		if (attrs.typAttr.get(whileExpr) != null)
+			attrs.typAttr.get(whileExpr).log(logger);
 		logger.endElement();
 		endElement();
 	}
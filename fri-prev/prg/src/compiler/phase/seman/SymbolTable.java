@@ -35,6 +35,21 @@ import compiler.data.ast.*;
  * the same name within the inner namespace.</li>
  * </ul>
  * 
+ * <p>
+ * Names and namespaces are compared by identity: names are the lexemes
+ * interned by the lexical analyzer (see
+ * {@link compiler.phase.lexan.LexemeTable}), so equal names are the same
+ * instance, and a namespace must be referred to by the very instance it has
+ * been entered with. Each pair of a namespace and a name is mapped to the
+ * most recent of its declarations by an open-addressing hash table over the
+ * identity hash codes of the pairs.
+ * All declarations are kept in a single log in the order they have been
+ * inserted, each one linked to the previous declaration of the same pair, so
+ * leaving a scope only unlinks and truncates the declarations at the end of
+ * the log. Neither inserting nor finding a declaration allocates any memory
+ * once the tables have grown to their final size.
+ * </p>
+ * 
  * @author juliette
  */
 public class SymbolTable {
@@ -45,61 +60,157 @@ public class SymbolTable {
 	 * The initial scope is entered and the default namespace is prepared.
 	 */
 	public SymbolTable() {
-		symbolTable = new HashMap<String, LinkedList<ScopedDecl>>();
+		keyNameSpaces = new String[64];
+		keyNames = new String[64];
+		heads = new int[64];
+		Arrays.fill(heads, EMPTY);
+		numKeys = 0;
+
+		decls = new Decl[64];
+		declScopes = new int[64];
+		declPrevs = new int[64];
+		declSlots = new int[64];
+		numDecls = 0;
 
 		scope = 0;
-		scopes = new LinkedList<LinkedList<String>>();
-		scopes.addFirst(new LinkedList<String>());
+		scopeBegins = new int[16];
 
-		namespaces = new Stack<String>();
-		namespaces.push("");
+		namespaces = new String[16];
+		namespaces[0] = "";
+		numNamespaces = 1;
 	}
 
-	// Scopes.
+	// Declarations.
+
+	/** Marks a free slot of the table of declarations. */
+	private static final int EMPTY = -2;
 
 	/**
-	 * A declaration of a name at a particular scope.
-	 * 
-	 * @author sliva
+	 * The open-addressing hash table of declarations: the namespace of the
+	 * pair in each used slot.
 	 */
-	private class ScopedDecl {
+	private String[] keyNameSpaces;
 
-		/** The scope. */
-		public int scope;
+	/** The name of the pair in each used slot. */
+	private String[] keyNames;
 
-		/** The declaration. */
-		public Decl decl;
+	/**
+	 * The index of the most recent declaration in the log for the pair in each
+	 * slot, <code>-1</code> if it has none at the moment, and
+	 * {@link #EMPTY} in free slots.
+	 */
+	private int[] heads;
 
-	}
+	/** The number of used slots. */
+	private int numKeys;
 
-	/** The current scope. */
-	private int scope;
+	/** The log of declarations: the declarations. */
+	private Decl[] decls;
+
+	/** The log of declarations: the scope of each declaration. */
+	private int[] declScopes;
 
 	/**
-	 * The mapping of each node to its declarations at different scopes. The of
-	 * name's declarations includes all declarations at different scopes, with
-	 * the most recent declaration at the head of the list.
+	 * The log of declarations: the index of the previous declaration of the
+	 * same pair for each declaration (or <code>-1</code>).
 	 */
-	private HashMap<String, LinkedList<ScopedDecl>> symbolTable;
+	private int[] declPrevs;
+
+	/** The log of declarations: the slot of the pair of each declaration. */
+	private int[] declSlots;
+
+	/** The number of declarations in the log. */
+	private int numDecls;
 
 	/**
-	 * A stack of spaces, i.e., a list of all declarations by scopes, used for
-	 * flushing out declarations when leaving a scope.
+	 * Returns the slot of the pair of a namespace and a name.
 	 * 
-	 * <p>
-	 * The inner list includes all names that have been declared at a particular
-	 * scope, and thus the outer list contains all names declared at different
-	 * scopes, with the most recent scope at the head of the list.
-	 * </p>
+	 * @param nameSpace
+	 *            The namespace.
+	 * @param name
+	 *            The name.
+	 * @param insert
+	 *            Whether a slot is taken for the pair if it has none yet.
+	 * @return The slot or <code>-1</code> if the pair has none and none has
+	 *         been taken.
+	 */
+	private int slot(String nameSpace, String name, boolean insert) {
+		int mask = keyNames.length - 1;
+		int slot = hash(nameSpace, name) & mask;
+		while (heads[slot] != EMPTY) {
+			if ((keyNameSpaces[slot] == nameSpace) && (keyNames[slot] == name))
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+		if (!insert)
+			return -1;
+		if (2 * (numKeys + 1) > keyNames.length) {
+			grow();
+			return slot(nameSpace, name, insert);
+		}
+		keyNameSpaces[slot] = nameSpace;
+		keyNames[slot] = name;
+		heads[slot] = -1;
+		numKeys++;
+		return slot;
+	}
+
+	/** Returns the hash of the pair of a namespace and a name. */
+	private static int hash(String nameSpace, String name) {
+		return mix(System.identityHashCode(nameSpace) * 31 + System.identityHashCode(name));
+	}
+
+	/** Spreads the bits of a hash code over the lower bits. */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Doubles the table of declarations and relinks the log to the new slots.
+	 */
+	private void grow() {
+		String[] oldNameSpaces = keyNameSpaces;
+		String[] oldNames = keyNames;
+		int[] oldHeads = heads;
+		keyNameSpaces = new String[2 * oldNames.length];
+		keyNames = new String[2 * oldNames.length];
+		heads = new int[2 * oldHeads.length];
+		Arrays.fill(heads, EMPTY);
+		int mask = keyNames.length - 1;
+		for (int oldSlot = 0; oldSlot < oldNames.length; oldSlot++) {
+			if (oldHeads[oldSlot] == EMPTY)
+				continue;
+			int slot = hash(oldNameSpaces[oldSlot], oldNames[oldSlot]) & mask;
+			while (heads[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			keyNameSpaces[slot] = oldNameSpaces[oldSlot];
+			keyNames[slot] = oldNames[oldSlot];
+			heads[slot] = oldHeads[oldSlot];
+			for (int decl = oldHeads[oldSlot]; decl != -1; decl = declPrevs[decl])
+				declSlots[decl] = slot;
+		}
+	}
+
+	// Scopes.
+
+	/** The current scope. */
+	private int scope;
+
+	/**
+	 * The number of declarations in the log when each scope (but the initial
+	 * one) was entered, indexed by scopes.
 	 */
-	private LinkedList<LinkedList<String>> scopes;
+	private int[] scopeBegins;
 
 	/**
 	 * Enters a new scope.
 	 */
 	public void enterScope() {
 		scope++;
-		scopes.addFirst(new LinkedList<String>());
+		if (scope == scopeBegins.length)
+			scopeBegins = Arrays.copyOf(scopeBegins, 2 * scope);
+		scopeBegins[scope] = numDecls;
 	}
 
 	/**
@@ -107,13 +218,14 @@ public class SymbolTable {
 	 * current scope.
 	 */
 	public void leaveScope() {
-		for (String name : scopes.peek()) {
-			LinkedList<ScopedDecl> scopedDecls = symbolTable.get(name);
-			scopedDecls.removeFirst();
-			if (scopedDecls.isEmpty())
-				symbolTable.remove(name);
+		if (scope == 0)
+			throw new InternalCompilerError();
+		int begin = scopeBegins[scope];
+		for (int decl = numDecls - 1; decl >= begin; decl--) {
+			heads[declSlots[decl]] = declPrevs[decl];
+			decls[decl] = null;
 		}
-		scopes.removeFirst();
+		numDecls = begin;
 		scope--;
 	}
 
@@ -132,29 +244,22 @@ public class SymbolTable {
 	 *             already been.
 	 */
 	public void insDecl(String nameSpace, String name, Decl decl) throws CannotInsNameDecl {
-		LinkedList<ScopedDecl> scopedDecls = symbolTable.get(nameSpace + name);
-		if (scopedDecls == null) {
-			scopedDecls = new LinkedList<ScopedDecl>();
-			{
-				ScopedDecl scopedDecl = new ScopedDecl();
-				scopedDecl.scope = scope;
-				scopedDecl.decl = decl;
-				scopedDecls.addFirst(scopedDecl);
-				scopes.peek().addFirst(nameSpace + name);
-			}
-			symbolTable.put(nameSpace + name, scopedDecls);
-		} else {
-			ScopedDecl scopedDecl = scopedDecls.peekFirst();
-			if (scopedDecl.scope == scope) {
-				throw new CannotInsNameDecl(((Position) scopedDecl.decl).toString());
-			} else {
-				scopedDecl = new ScopedDecl();
-				scopedDecl.scope = scope;
-				scopedDecl.decl = decl;
-				scopedDecls.addFirst(scopedDecl);
-				scopes.peek().addFirst(nameSpace + name);
-			}
+		int slot = slot(nameSpace, name, true);
+		int head = heads[slot];
+		if ((head != -1) && (declScopes[head] == scope))
+			throw new CannotInsNameDecl(((Position) decls[head]).toString());
+		if (numDecls == decls.length) {
+			decls = Arrays.copyOf(decls, 2 * numDecls);
+			declScopes = Arrays.copyOf(declScopes, 2 * numDecls);
+			declPrevs = Arrays.copyOf(declPrevs, 2 * numDecls);
+			declSlots = Arrays.copyOf(declSlots, 2 * numDecls);
 		}
+		decls[numDecls] = decl;
+		declScopes[numDecls] = scope;
+		declPrevs[numDecls] = head;
+		declSlots[numDecls] = slot;
+		heads[slot] = numDecls;
+		numDecls++;
 	}
 
 	/**
@@ -186,11 +291,10 @@ public class SymbolTable {
 	 *             If the declaration is not found.
 	 */
 	public Decl fndDecl(String nameSpace, String name) throws CannotFndNameDecl {
-		LinkedList<ScopedDecl> scopedDecls = symbolTable.get(nameSpace + name);
-		if ((scopedDecls == null) || (scopedDecls.isEmpty()))
+		int slot = slot(nameSpace, name, false);
+		if ((slot == -1) || (heads[slot] == -1))
 			throw new CannotFndNameDecl(nameSpace + name);
-		else
-			return scopedDecls.peekFirst().decl;
+		return decls[heads[slot]];
 	}
 
 	/**
@@ -210,17 +314,21 @@ public class SymbolTable {
 	// Namespaces.
 
 	/** The stack of namespaces. */
-	private Stack<String> namespaces;
+	private String[] namespaces;
+
+	/** The number of namespaces on the stack. */
+	private int numNamespaces;
 
 	/**
 	 * Generates a new namespace name.
 	 * 
 	 * @param name
 	 *            The name associated with this namespace.
-	 * @return A new namespace name unique within a current context.
+	 * @return A new namespace name unique within a current context (a new
+	 *         instance on every call).
 	 */
 	public String newNamespace(String name) {
-		return (namespaces.size() > 0 ? namespaces.peek() : "") + name + "#";
+		return (numNamespaces > 0 ? namespaces[numNamespaces - 1] : "") + name + "#";
 	}
 
 	/**
@@ -230,15 +338,17 @@ public class SymbolTable {
 	 *            The namespace's name.
 	 */
 	public void enterNamespace(String namespace) {
-		namespaces.push(namespace);
+		if (numNamespaces == namespaces.length)
+			namespaces = Arrays.copyOf(namespaces, 2 * numNamespaces);
+		namespaces[numNamespaces++] = namespace;
 	}
 
 	/**
 	 * Leaves the current namespace.
 	 */
 	public void leaveNamespace() {
-		if (namespaces.size() > 0)
-			namespaces.pop();
+		if (numNamespaces > 0)
+			namespaces[--numNamespaces] = null;
 		else
 			throw new InternalCompilerError();
 	}
@@ -19,6 +19,19 @@
  * assignment.</li>
  * </ul>
  * 
+ * <p>
+ * By default the four computations are fused into two traversals by
+ * {@link compiler.phase.seman.EvalSemAn}; option
+ * <code>--semanmode=passes</code> performs them one after another.
+ * </p>
+ * 
+ * <p>
+ * Tools that need the results about a few nodes only, and incremental
+ * recompilations, can use {@link compiler.phase.seman.SemAnQueries} instead:
+ * it computes the values, declarations and types on demand, memoizes them
+ * per node and tracks their dependencies.
+ * </p>
+ * 
  * @author juliette
  */
 package compiler.phase.seman;
\ No newline at end of file
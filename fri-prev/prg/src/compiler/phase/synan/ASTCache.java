@@ -0,0 +1,87 @@
+package compiler.phase.synan;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+import compiler.Task;
+import compiler.common.report.Report;
+import compiler.data.ast.Program;
+import compiler.data.ast.code.ASTReader;
+import compiler.data.ast.code.ASTWriter;
+
+/**
+ * The cache of the abstract syntax tree of the source file (option
+ * <code>--astcache=<i>file</i></code>).
+ *
+ * <p>
+ * The tree is stored in the binary form written by
+ * {@link compiler.data.ast.code.ASTWriter} and stamped with the length and the
+ * CRC-32 checksum of the source file, so a cached tree is only used as long as
+ * the source file has not changed. Loading the tree from the cache replaces
+ * both the lexical and the syntax analysis, so the cache is neither loaded nor
+ * stored if either of them is to be logged. A tree is stored only if it has
+ * been parsed without warnings, as the warnings would not be reported again
+ * when it is loaded.
+ * </p>
+ *
+ * @author juliette
+ */
+public class ASTCache {
+
+	/**
+	 * Loads the abstract syntax tree of the source file from the cache.
+	 *
+	 * @param task
+	 *            The parameters and internal data of the compilation process.
+	 * @return The abstract syntax tree or <code>null</code> if there is no
+	 *         valid tree in the cache.
+	 */
+	public static Program load(Task task) {
+		if (!enabled(task))
+			return null;
+		try {
+			byte[] bytes = Files.readAllBytes(Paths.get(task.astCache));
+			return ASTReader.read(bytes, stamp(task));
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the abstract syntax tree of the source file into the cache.
+	 *
+	 * @param task
+	 *            The parameters and internal data of the compilation process.
+	 * @param program
+	 *            The abstract syntax tree.
+	 * @param numWarnings
+	 *            The number of warnings reported before the source file was
+	 *            parsed.
+	 */
+	public static void store(Task task, Program program, int numWarnings) {
+		if (!enabled(task) || (Report.getNumWarnings() > numWarnings))
+			return;
+		try {
+			Files.write(Paths.get(task.astCache), ASTWriter.write(program, stamp(task)));
+		} catch (IOException ex) {
+			Report.warning("Cannot write the AST cache '" + task.astCache + "'.");
+		}
+	}
+
+	private static boolean enabled(Task task) {
+		return !task.astCache.equals("") && !task.loggedPhases.matches("(.*,)?(lexan|synan)(,.*)?");
+	}
+
+	/**
+	 * Returns the stamp of the source file: its length in the upper and its
+	 * CRC-32 checksum in the lower 32 bits.
+	 */
+	private static long stamp(Task task) throws IOException {
+		byte[] source = Files.readAllBytes(Paths.get(task.srcFName));
+		CRC32 crc = new CRC32();
+		crc.update(source);
+		return ((long) source.length << 32) | crc.getValue();
+	}
+
+}
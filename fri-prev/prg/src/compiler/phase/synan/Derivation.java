@@ -0,0 +1,115 @@
+package compiler.phase.synan;
+
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The left-most derivation reported while the source file is being parsed.
+ *
+ * <p>
+ * An LL(1) parser expands the nonterminals in the order of the left-most
+ * derivation and it chooses the production of a nonterminal by the lookahead
+ * symbol as soon as it starts parsing it. Hence each production is reported
+ * at once, without keeping the derivation tree: the productions are taken from
+ * the parse table, which describes the same language as the recursive descent
+ * parser. The text of each production is prepared in advance; terminals are
+ * shown as <code>null</code> (as in the earlier derivations produced from the
+ * log document) and action symbols are omitted.
+ * </p>
+ *
+ * @author juliette
+ */
+public class Derivation {
+
+	/** The parse table. */
+	private final ParseTable table;
+
+	/** The indices of the nonterminals by their names. */
+	private final HashMap<String, Integer> nonterminals = new HashMap<String, Integer>();
+
+	/** The names under which the nonterminals are reported. */
+	private final String[] names;
+
+	/** The text of each production. */
+	private final String[] productions;
+
+	/**
+	 * Constructs the derivation of a grammar.
+	 *
+	 * @param table
+	 *            The parse table of the grammar.
+	 */
+	public Derivation(ParseTable table) {
+		this.table = table;
+		for (int n = 0; n < table.numNonterminals; n++)
+			nonterminals.put(table.nonterminals[n], n);
+		names = table.nonterminals.clone();
+		productions = new String[table.lhs.length];
+		prepare();
+	}
+
+	/**
+	 * Reports a nonterminal under a different name.
+	 *
+	 * @param nonterminal
+	 *            The nonterminal.
+	 * @param name
+	 *            The name it is reported under.
+	 */
+	public void rename(String nonterminal, String name) {
+		Integer nont = nonterminals.get(nonterminal);
+		if (nont == null)
+			throw new InternalCompilerError();
+		names[nont] = name;
+		prepare();
+	}
+
+	/**
+	 * Prepares the text of each production.
+	 */
+	private void prepare() {
+		for (int p = 0; p < table.lhs.length; p++) {
+			StringBuilder production = new StringBuilder();
+			production.append(names[table.lhs[p] - table.numTerminals]).append(" -->");
+			for (int symbol : table.rhs[p]) {
+				if (table.isTerminal(symbol))
+					production.append(" null");
+				else if (table.isNonterminal(symbol))
+					production.append(' ').append(names[symbol - table.numTerminals]);
+			}
+			productions[p] = production.toString();
+		}
+	}
+
+	/**
+	 * Reports a production.
+	 *
+	 * @param production
+	 *            The index of the production in the parse table.
+	 */
+	public void expand(int production) {
+		Report.info(productions[production]);
+	}
+
+	/**
+	 * Reports the production of a nonterminal chosen by the lookahead symbol.
+	 * Nothing is reported if there is no such production, as the parser
+	 * reports an error then.
+	 *
+	 * @param nontName
+	 *            The name of the nonterminal.
+	 * @param laToken
+	 *            The token of the lookahead symbol.
+	 */
+	public void expand(String nontName, Token laToken) {
+		Integer nont = nonterminals.get(nontName);
+		if (nont == null)
+			throw new InternalCompilerError();
+		int production = table.table[nont * table.numTerminals + laToken.ordinal()];
+		if (production != ParseTable.NONE)
+			expand(production);
+	}
+
+}
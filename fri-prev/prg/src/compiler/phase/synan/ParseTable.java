@@ -0,0 +1,258 @@
+package compiler.phase.synan;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The LL(1) parse table of a grammar.
+ *
+ * <p>
+ * The grammar is read from a text file in the format of
+ * <code>prev-ll.grammar</code>: each production consists of a nonterminal,
+ * symbol <code>-&gt;</code>, the symbols of the right-hand side and a dot,
+ * all separated by white space. Terminals are written as the names of
+ * {@link Token tokens}, action symbols as names starting with
+ * <code>@</code>, and everything else is a nonterminal. Action symbols derive
+ * the empty string and are ignored while the table is computed; the parser
+ * performs them when it pops them off its stack. The left-hand side of the
+ * first production is the start symbol.
+ * </p>
+ *
+ * <p>
+ * All symbols are encoded as integers: terminals by the ordinals of their
+ * tokens, followed by nonterminals and then by action symbols. The table is
+ * indexed by the nonterminal and the token of the lookahead symbol and yields
+ * the production to be expanded.
+ * </p>
+ *
+ * @author juliette
+ */
+public class ParseTable {
+
+	/** No production. */
+	public static final int NONE = -1;
+
+	/** The parse table of PREV. */
+	public static final ParseTable PREV = new ParseTable(read("prev-ll.grammar"));
+
+	/** The number of terminals. */
+	public final int numTerminals = Token.values().length;
+
+	/** The number of nonterminals. */
+	public final int numNonterminals;
+
+	/** The names of the nonterminals. */
+	public final String[] nonterminals;
+
+	/** The names of the action symbols (without <code>@</code>). */
+	public final String[] actions;
+
+	/** The encoded left-hand sides of the productions. */
+	public final int[] lhs;
+
+	/** The encoded right-hand sides of the productions. */
+	public final int[][] rhs;
+
+	/**
+	 * The parse table: for nonterminal <code>A</code> and lookahead token
+	 * <code>t</code>, the production is <code>table[A * numTerminals + t]</code>
+	 * (with nonterminals counted from <code>0</code>).
+	 */
+	public final int[] table;
+
+	/**
+	 * Constructs the parse table of a grammar.
+	 *
+	 * @param grammar
+	 *            The text of the grammar.
+	 */
+	public ParseTable(String grammar) {
+		// Read the productions.
+		ArrayList<String[]> productions = new ArrayList<String[]>();
+		ArrayList<String> nonterminals = new ArrayList<String>();
+		ArrayList<String> actions = new ArrayList<String>();
+		Scanner scanner = new Scanner(grammar);
+		while (scanner.hasNext()) {
+			String lhs = scanner.next();
+			if (!scanner.hasNext() || !scanner.next().equals("->"))
+				throw new InternalCompilerError();
+			ArrayList<String> production = new ArrayList<String>();
+			production.add(lhs);
+			while (true) {
+				if (!scanner.hasNext())
+					throw new InternalCompilerError();
+				String symbol = scanner.next();
+				if (symbol.equals("."))
+					break;
+				production.add(symbol);
+				if (symbol.startsWith("@") && !actions.contains(symbol.substring(1)))
+					actions.add(symbol.substring(1));
+			}
+			if (!nonterminals.contains(lhs))
+				nonterminals.add(lhs);
+			productions.add(production.toArray(new String[production.size()]));
+		}
+		scanner.close();
+		if (productions.isEmpty())
+			throw new InternalCompilerError();
+		this.numNonterminals = nonterminals.size();
+		this.nonterminals = nonterminals.toArray(new String[numNonterminals]);
+		this.actions = actions.toArray(new String[actions.size()]);
+
+		// Encode the productions.
+		lhs = new int[productions.size()];
+		rhs = new int[productions.size()][];
+		for (int p = 0; p < productions.size(); p++) {
+			String[] production = productions.get(p);
+			lhs[p] = numTerminals + nonterminals.indexOf(production[0]);
+			rhs[p] = new int[production.length - 1];
+			for (int s = 1; s < production.length; s++) {
+				String symbol = production[s];
+				if (symbol.startsWith("@"))
+					rhs[p][s - 1] = numTerminals + numNonterminals + actions.indexOf(symbol.substring(1));
+				else if (nonterminals.contains(symbol))
+					rhs[p][s - 1] = numTerminals + nonterminals.indexOf(symbol);
+				else
+					try {
+						rhs[p][s - 1] = Token.valueOf(symbol).ordinal();
+					} catch (IllegalArgumentException ex) {
+						throw new InternalCompilerError();
+					}
+			}
+		}
+
+		// Compute the nullable nonterminals and the FIRST sets.
+		boolean[] nullable = new boolean[numNonterminals];
+		BitSet[] first = new BitSet[numNonterminals];
+		BitSet[] follow = new BitSet[numNonterminals];
+		for (int n = 0; n < numNonterminals; n++) {
+			first[n] = new BitSet(numTerminals);
+			follow[n] = new BitSet(numTerminals);
+		}
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int p = 0; p < lhs.length; p++) {
+				int n = lhs[p] - numTerminals;
+				BitSet firstSet = new BitSet(numTerminals);
+				boolean nullableRhs = first(rhs[p], 0, nullable, first, firstSet);
+				if (!isSubset(firstSet, first[n])) {
+					first[n].or(firstSet);
+					changed = true;
+				}
+				if (nullableRhs && !nullable[n]) {
+					nullable[n] = true;
+					changed = true;
+				}
+			}
+		}
+
+		// Compute the FOLLOW sets.
+		follow[0].set(Token.EOF.ordinal());
+		changed = true;
+		while (changed) {
+			changed = false;
+			for (int p = 0; p < lhs.length; p++)
+				for (int s = 0; s < rhs[p].length; s++) {
+					if (!isNonterminal(rhs[p][s]))
+						continue;
+					int n = rhs[p][s] - numTerminals;
+					BitSet followSet = new BitSet(numTerminals);
+					if (first(rhs[p], s + 1, nullable, first, followSet))
+						followSet.or(follow[lhs[p] - numTerminals]);
+					if (!isSubset(followSet, follow[n])) {
+						follow[n].or(followSet);
+						changed = true;
+					}
+				}
+		}
+
+		// Fill in the table.
+		table = new int[numNonterminals * numTerminals];
+		Arrays.fill(table, NONE);
+		for (int p = 0; p < lhs.length; p++) {
+			int n = lhs[p] - numTerminals;
+			BitSet predict = new BitSet(numTerminals);
+			if (first(rhs[p], 0, nullable, first, predict))
+				predict.or(follow[n]);
+			for (int t = predict.nextSetBit(0); t >= 0; t = predict.nextSetBit(t + 1)) {
+				// The grammar is not LL(1).
+				if (table[n * numTerminals + t] != NONE)
+					throw new InternalCompilerError();
+				table[n * numTerminals + t] = p;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether an encoded symbol is a terminal.
+	 *
+	 * @param symbol
+	 *            The encoded symbol.
+	 * @return <code>true</code> if the symbol is a terminal.
+	 */
+	public boolean isTerminal(int symbol) {
+		return symbol < numTerminals;
+	}
+
+	/**
+	 * Checks whether an encoded symbol is a nonterminal.
+	 *
+	 * @param symbol
+	 *            The encoded symbol.
+	 * @return <code>true</code> if the symbol is a nonterminal.
+	 */
+	public boolean isNonterminal(int symbol) {
+		return (symbol >= numTerminals) && (symbol < numTerminals + numNonterminals);
+	}
+
+	/**
+	 * Adds the FIRST set of a suffix of a right-hand side to a set of
+	 * terminals.
+	 *
+	 * @return <code>true</code> if the suffix is nullable.
+	 */
+	private boolean first(int[] rhs, int from, boolean[] nullable, BitSet[] first, BitSet set) {
+		for (int s = from; s < rhs.length; s++) {
+			int symbol = rhs[s];
+			if (isTerminal(symbol)) {
+				set.set(symbol);
+				return false;
+			}
+			if (isNonterminal(symbol)) {
+				set.or(first[symbol - numTerminals]);
+				if (!nullable[symbol - numTerminals])
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSubset(BitSet subset, BitSet set) {
+		BitSet difference = (BitSet) subset.clone();
+		difference.andNot(set);
+		return difference.isEmpty();
+	}
+
+	/**
+	 * Reads a grammar stored next to this class.
+	 */
+	private static String read(String name) {
+		try (InputStream stream = ParseTable.class.getResourceAsStream(name)) {
+			if (stream == null)
+				throw new InternalCompilerError();
+			ByteArrayOutputStream text = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int count; (count = stream.read(buffer)) != -1;)
+				text.write(buffer, 0, count);
+			return new String(text.toByteArray(), StandardCharsets.US_ASCII);
+		} catch (IOException ex) {
+			throw new InternalCompilerError();
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+package compiler.phase.synan;
+
+import java.util.*;
+
+import compiler.data.ast.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The units of a parse that can be reparsed on their own.
+ *
+ * <p>
+ * A unit is a part of the source file derived from nonterminal
+ * <code>Expression</code> or <code>Declaration</code>. For each unit, the
+ * index of its first symbol in the token buffer, the index of the symbol
+ * following it, the token of its first symbol and the node of the abstract
+ * syntax tree built from it are recorded. Units are stored in the order in
+ * which they are started (so nested units follow the enclosing ones) in
+ * parallel arrays, each unit referring to the enclosing unit and to the unit
+ * following all nested units.
+ * </p>
+ *
+ * @author juliette
+ */
+public class ParseUnits {
+
+	/** The kinds of units. */
+	public enum Kind {
+		EXPRESSION, DECLARATION
+	}
+
+	/** The number of units. */
+	private int size = 0;
+
+	/** The kinds of the units. */
+	private Kind[] kinds = new Kind[64];
+
+	/** The indices of the first symbols of the units. */
+	private int[] begins = new int[64];
+
+	/** The indices of the symbols following the units. */
+	private int[] ends = new int[64];
+
+	/** The tokens of the first symbols of the units. */
+	private Token[] tokens = new Token[64];
+
+	/** The nodes built from the units. */
+	private ASTNode[] nodes = new ASTNode[64];
+
+	/** The indices of the enclosing units (or <code>-1</code>). */
+	private int[] parents = new int[64];
+
+	/** The indices of the units following the nested units. */
+	private int[] nexts = new int[64];
+
+	/** The innermost unit started but not yet finished (or <code>-1</code>). */
+	private int current = -1;
+
+	/**
+	 * Starts a new unit.
+	 *
+	 * @param kind
+	 *            The kind of the unit.
+	 * @param begin
+	 *            The index of the first symbol of the unit.
+	 * @param token
+	 *            The token of the first symbol of the unit.
+	 * @return The index of the unit.
+	 */
+	public int open(Kind kind, int begin, Token token) {
+		ensureCapacity(size + 1);
+		kinds[size] = kind;
+		begins[size] = begin;
+		tokens[size] = token;
+		parents[size] = current;
+		current = size;
+		return size++;
+	}
+
+	/**
+	 * Finishes a unit.
+	 *
+	 * @param unit
+	 *            The index of the unit.
+	 * @param end
+	 *            The index of the symbol following the unit.
+	 * @param node
+	 *            The node built from the unit.
+	 */
+	public void close(int unit, int end, ASTNode node) {
+		ends[unit] = end;
+		nodes[unit] = node;
+		nexts[unit] = size;
+		current = parents[unit];
+	}
+
+	/**
+	 * Returns the number of units.
+	 *
+	 * @return The number of units.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Kind kind(int unit) {
+		return kinds[unit];
+	}
+
+	public int begin(int unit) {
+		return begins[unit];
+	}
+
+	public int end(int unit) {
+		return ends[unit];
+	}
+
+	public Token token(int unit) {
+		return tokens[unit];
+	}
+
+	public ASTNode node(int unit) {
+		return nodes[unit];
+	}
+
+	public void setNode(int unit, ASTNode node) {
+		nodes[unit] = node;
+	}
+
+	public int parent(int unit) {
+		return parents[unit];
+	}
+
+	/**
+	 * Returns the index after the last unit nested within a unit.
+	 *
+	 * @param unit
+	 *            The index of the unit.
+	 * @return The index after the last nested unit.
+	 */
+	public int last(int unit) {
+		return nexts[unit];
+	}
+
+	/**
+	 * Returns the last unit starting at or before the specified symbol.
+	 *
+	 * @param t
+	 *            The index of the symbol.
+	 * @return The index of the unit (or <code>-1</code> if there is no such
+	 *         unit).
+	 */
+	public int find(int t) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (begins[mid] <= t)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo - 1;
+	}
+
+	/**
+	 * Returns the unit preceding a unit within the same enclosing unit.
+	 *
+	 * @param unit
+	 *            The index of the unit.
+	 * @return The index of the preceding unit (or <code>-1</code> if there is
+	 *         no such unit).
+	 */
+	public int previous(int unit) {
+		int prev = unit - 1;
+		while ((prev > parents[unit]) && (parents[prev] != parents[unit]))
+			prev = parents[prev];
+		return prev > parents[unit] ? prev : -1;
+	}
+
+	/**
+	 * Returns the unit following a unit within the same enclosing unit.
+	 *
+	 * @param unit
+	 *            The index of the unit.
+	 * @return The index of the following unit (or <code>-1</code> if there is
+	 *         no such unit).
+	 */
+	public int next(int unit) {
+		int next = nexts[unit];
+		return (next < size) && (parents[next] == parents[unit]) ? next : -1;
+	}
+
+	/**
+	 * Replaces a range of units by the units of a reparse.
+	 *
+	 * <p>
+	 * The replaced units must form whole subtrees of units, and the units of
+	 * the reparse must refer to the symbols in the token buffer after the
+	 * edit. The units enclosing the replaced ones are extended and the units
+	 * following them are shifted by the change of the number of symbols.
+	 * </p>
+	 *
+	 * @param begUnit
+	 *            The index of the first replaced unit.
+	 * @param endUnit
+	 *            The index after the last replaced unit.
+	 * @param units
+	 *            The units of the reparse.
+	 * @param shift
+	 *            The change of the number of symbols.
+	 */
+	public void replace(int begUnit, int endUnit, ParseUnits units, int shift) {
+		int parent = parents[begUnit];
+		int unitShift = units.size - (endUnit - begUnit);
+		for (int unit = parent; unit != -1; unit = parents[unit]) {
+			ends[unit] += shift;
+			nexts[unit] += unitShift;
+		}
+
+		ensureCapacity(size + unitShift);
+		int numMoved = size - endUnit;
+		int newEnd = begUnit + units.size;
+		System.arraycopy(kinds, endUnit, kinds, newEnd, numMoved);
+		System.arraycopy(begins, endUnit, begins, newEnd, numMoved);
+		System.arraycopy(ends, endUnit, ends, newEnd, numMoved);
+		System.arraycopy(tokens, endUnit, tokens, newEnd, numMoved);
+		System.arraycopy(nodes, endUnit, nodes, newEnd, numMoved);
+		System.arraycopy(parents, endUnit, parents, newEnd, numMoved);
+		System.arraycopy(nexts, endUnit, nexts, newEnd, numMoved);
+		for (int unit = newEnd; unit < newEnd + numMoved; unit++) {
+			begins[unit] += shift;
+			ends[unit] += shift;
+			if (parents[unit] >= endUnit)
+				parents[unit] += unitShift;
+			nexts[unit] += unitShift;
+		}
+
+		System.arraycopy(units.kinds, 0, kinds, begUnit, units.size);
+		System.arraycopy(units.begins, 0, begins, begUnit, units.size);
+		System.arraycopy(units.ends, 0, ends, begUnit, units.size);
+		System.arraycopy(units.tokens, 0, tokens, begUnit, units.size);
+		System.arraycopy(units.nodes, 0, nodes, begUnit, units.size);
+		for (int unit = 0; unit < units.size; unit++) {
+			parents[begUnit + unit] = units.parents[unit] == -1 ? parent : begUnit + units.parents[unit];
+			nexts[begUnit + unit] = begUnit + units.nexts[unit];
+		}
+
+		int oldSize = size;
+		size += unitShift;
+		if (size < oldSize)
+			Arrays.fill(nodes, size, oldSize, null);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= begins.length)
+			return;
+		int newCapacity = Math.max(capacity, 2 * begins.length);
+		kinds = Arrays.copyOf(kinds, newCapacity);
+		begins = Arrays.copyOf(begins, newCapacity);
+		ends = Arrays.copyOf(ends, newCapacity);
+		tokens = Arrays.copyOf(tokens, newCapacity);
+		nodes = Arrays.copyOf(nodes, newCapacity);
+		parents = Arrays.copyOf(parents, newCapacity);
+		nexts = Arrays.copyOf(nexts, newCapacity);
+	}
+
+}
@@ -1,17 +1,16 @@
 package compiler.phase.synan;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import compiler.Task;
-import compiler.common.logger.Transformer;
 import compiler.common.report.CompilerError;
+import compiler.common.report.InternalCompilerError;
 import compiler.common.report.Position;
 import compiler.common.report.Report;
+import compiler.data.ast.ASTNode;
 import compiler.data.ast.ArrType;
 import compiler.data.ast.AtomExpr;
 import compiler.data.ast.AtomExpr.AtomTypes;
@@ -44,6 +43,8 @@ import compiler.data.ast.WhileExpr;
 import compiler.phase.Phase;
 import compiler.phase.lexan.LexAn;
 import compiler.phase.lexan.Symbol;
+import compiler.phase.lexan.TokenBuffer;
+import compiler.phase.lexan.TokenSplice;
 
 /**
  * The syntax analyzer.
@@ -55,6 +56,24 @@ public class SynAn extends Phase {
 	/** The lexical analyzer. */
 	private final LexAn lexAn;
 
+	/**
+	 * Whether the bodies of functions are skipped and parsed only when they
+	 * are accessed for the first time.
+	 */
+	private final boolean lazy;
+
+	/**
+	 * Whether the skipped bodies of functions are parsed in parallel once the
+	 * rest of the source file has been parsed.
+	 */
+	private final boolean parallel;
+
+	/**
+	 * The left-most derivation reported while parsing (or <code>null</code>
+	 * if logging has not been requested).
+	 */
+	private final Derivation derivation;
+
 	/**
 	 * Constructs a new syntax analyzer.
 	 * 
@@ -64,49 +83,38 @@ public class SynAn extends Phase {
 	public SynAn(Task task) {
 		super(task, "synan");
 		this.lexAn = new LexAn(task);
+		// The derivation tree can only be logged while the source file is
+		// being parsed.
+		this.lazy = task.parseMode.matches("(lazy|parallel)") && (logger == null);
+		this.parallel = task.parseMode.equals("parallel") && (logger == null);
 		if (this.logger != null) {
-			this.logger.setTransformer(//
-					new Transformer() {
-						// This transformer produces the
-						// left-most derivation.
-
-						private String nodeName(Node node) {
-							Element element = (Element) node;
-							String nodeName = element.getTagName();
-							if (nodeName.equals("nont")) {
-								return element.getAttribute("name");
-							}
-							if (nodeName.equals("symbol")) {
-								return element.getAttribute("name");
-							}
-							return null;
-						}
-
-						private void leftMostDer(Node node) {
-							if (((Element) node).getTagName().equals("nont")) {
-								String nodeName = nodeName(node);
-								NodeList children = node.getChildNodes();
-								StringBuffer production = new StringBuffer();
-								production.append(nodeName + " -->");
-								for (int childIdx = 0; childIdx < children.getLength(); childIdx++) {
-									Node child = children.item(childIdx);
-									String childName = nodeName(child);
-									production.append(" " + childName);
-								}
-								Report.info(production.toString());
-								for (int childIdx = 0; childIdx < children.getLength(); childIdx++) {
-									Node child = children.item(childIdx);
-									leftMostDer(child);
-								}
-							}
-						}
-
-						public Document transform(Document doc) {
-							leftMostDer(doc.getDocumentElement().getFirstChild());
-							return doc;
-						}
-					});
-		}
+			this.derivation = new Derivation(ParseTable.PREV);
+			this.derivation.rename("ConjunctiveExpression'", TAIL_NAMES[2]);
+		} else
+			this.derivation = null;
+	}
+
+	/**
+	 * Constructs a new syntax analyzer for the body of a function that has
+	 * been skipped.
+	 * 
+	 * @param synAn
+	 *            The syntax analyzer that has skipped the body.
+	 * @param body
+	 *            The skipped body.
+	 */
+	private SynAn(SynAn synAn, SkippedBody body) {
+		super(synAn.task, "synan");
+		this.lexAn = synAn.lexAn;
+		this.lazy = false;
+		this.parallel = false;
+		this.derivation = null;
+		this.tokens = synAn.tokens;
+		this.la = body.begin;
+		this.laToken = tokens.token(la);
+		this.body = body;
+		this.warningPositions = body.warningPositions;
+		this.warningMessages = body.warningMessages;
 	}
 
 	/**
@@ -120,8 +128,51 @@ public class SynAn extends Phase {
 		super.close();
 	}
 
-	/** The parser's lookahead buffer. */
-	private Symbol laSymbol;
+	/** The symbols read by the lexical analyzer. */
+	private TokenBuffer tokens;
+
+	/**
+	 * The parser's lookahead buffer, i.e., the index of the lookahead symbol
+	 * in the token buffer.
+	 */
+	private int la;
+
+	/** The token of the lookahead symbol. */
+	private Symbol.Token laToken;
+
+	/**
+	 * The skipped body of a function being parsed (or <code>null</code> if the
+	 * source file is being parsed).
+	 */
+	private SkippedBody body = null;
+
+	/** The bodies of functions skipped while the source file is parsed. */
+	private ArrayList<SkippedBody> skippedBodies = null;
+
+	/**
+	 * The positions of the warnings whose reports are deferred (or
+	 * <code>null</code> if warnings are reported at once).
+	 */
+	private LinkedList<Position> warningPositions = null;
+
+	/** The messages of the warnings whose reports are deferred. */
+	private LinkedList<String> warningMessages = null;
+
+	/**
+	 * The units being recorded while parsing (or <code>null</code> if they are
+	 * not recorded).
+	 */
+	private ParseUnits units = null;
+
+	/**
+	 * The abstract syntax tree produced by the last {@link #edit(int, int,
+	 * String) edit} (or <code>null</code> if there is none or if the source
+	 * file could not be parsed).
+	 */
+	private Program program = null;
+
+	/** The units of the abstract syntax tree produced by the last edit. */
+	private ParseUnits programUnits = null;
 
 	/**
 	 * Reads the next lexical symbol from the source file and stores it in the
@@ -132,12 +183,92 @@ public class SynAn extends Phase {
 	 *         new symbol).
 	 */
 	private Symbol nextSymbol() {
-		Symbol symbol = laSymbol;
+		Symbol symbol = tokens.symbol(la);
 		symbol.log(logger);
-		laSymbol = lexAn.lexAn();
+		advance();
 		return symbol;
 	}
 
+	/**
+	 * Reads the next lexical symbol from the source file and stores it in the
+	 * lookahead buffer (before that it logs the previous lexical symbol, if
+	 * requested). Unlike {@link #nextSymbol() nextSymbol}, the previous symbol
+	 * is not materialized unless it must be logged.
+	 */
+	private void skipSymbol() {
+		tokens.log(la, logger);
+		advance();
+	}
+
+	/**
+	 * Moves the lookahead buffer to the next lexical symbol. Once the source
+	 * file has been parsed, the symbols of a skipped function body are taken
+	 * from the token buffer.
+	 */
+	private void advance() {
+		if (body == null)
+			la = lexAn.nextToken();
+		else if (la < body.end)
+			la++;
+		else if (body.truncation != null)
+			throw(body.truncation);
+		else
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Function Body"));
+		laToken = tokens.token(la);
+	}
+
+	/**
+	 * Reports a warning or, if the reports are deferred, records it.
+	 * 
+	 * @param position
+	 *            The position the warning refers to.
+	 * @param message
+	 *            The message.
+	 */
+	private void warning(Position position, String message) {
+		if (warningPositions == null)
+			report(position, message);
+		else {
+			warningPositions.add(position);
+			warningMessages.add(message);
+		}
+	}
+
+	/**
+	 * Reports the deferred warnings.
+	 */
+	private void reportWarnings(LinkedList<Position> positions, LinkedList<String> messages) {
+		while (!positions.isEmpty())
+			report(positions.removeFirst(), messages.removeFirst());
+	}
+
+	/**
+	 * Reports a warning once the rest of the source file has been lexed, so
+	 * that a lexical error anywhere in the source file is reported instead.
+	 */
+	private void report(Position position, String message) {
+		lexAn.readAll();
+		Report.warning(position, message);
+	}
+
+	/**
+	 * Materializes the symbol in the lookahead buffer (for diagnostics).
+	 * 
+	 * @return The lookahead symbol.
+	 */
+	private Symbol laSymbol() {
+		return tokens.symbol(la);
+	}
+
+	/**
+	 * Returns the position of the symbol in the lookahead buffer.
+	 * 
+	 * @return The position of the lookahead symbol.
+	 */
+	private Position laPosition() {
+		return tokens.position(la);
+	}
+
 	/**
 	 * Logs the error token inserted when a missing lexical symbol has been
 	 * reported.
@@ -158,10 +289,24 @@ public class SynAn extends Phase {
 	 *            The name of a nonterminal the internal node represents.
 	 */
 	private void begLog(String nontName) {
+		begLog(nontName, nontName);
+	}
+
+	/**
+	 * Starts logging an internal node of the derivation tree whose name
+	 * differs from the nonterminal of the grammar it represents.
+	 * 
+	 * @param nontName
+	 *            The name of the internal node.
+	 * @param nonterminal
+	 *            The nonterminal of the grammar.
+	 */
+	private void begLog(String nontName, String nonterminal) {
 		if (logger == null)
 			return;
 		logger.begElement("nont");
 		logger.addAttribute("name", nontName);
+		derivation.expand(nonterminal, laToken);
 	}
 
 	/**
@@ -177,33 +322,359 @@ public class SynAn extends Phase {
 	 * The parser.
 	 * 
 	 * This method performs the syntax analysis of the source file.
+	 * 
+	 * <p>
+	 * The source file is lexed while it is parsed, but a lexical error is
+	 * reported rather than any syntax error or warning preceding it, as if the
+	 * whole source file had been lexed first: before a syntax error or warning
+	 * is reported, the rest of the source file is lexed (see
+	 * {@link LexAn#readAll()}).
+	 * </p>
 	 * @return 
 	 */
 	public Program synAn() {
-		lexAn.symols();
-		laSymbol = lexAn.lexAn();
-		Program p = parseProgram();
-		if (laSymbol.token != Symbol.Token.EOF)
-			Report.warning(laSymbol, "Unexpected symbol(s) at the end of file.");
+		try {
+			if (task.parseMode.equals("table"))
+				return new TableParser(lexAn, logger).parse();
+			tokens = lexAn.tokens();
+			la = lexAn.nextToken();
+			laToken = tokens.token(la);
+			if (parallel)
+				return synAnParallel();
+			if (lazy)
+				return synAnLazy();
+			Program p = parseProgram();
+			if (laToken != Symbol.Token.EOF)
+				warning(laSymbol(), "Unexpected symbol(s) at the end of file.");
+			return p;
+		} catch (CompilerError error) {
+			lexAn.readAll();
+			throw error;
+		}
+	}
+
+	/**
+	 * The parser in the lazy mode.
+	 * 
+	 * <p>
+	 * The source file is parsed with the bodies of functions skipped. If the
+	 * rest of the source file is parsed up to its end, the skipped bodies are
+	 * left to be parsed when they are accessed. Otherwise a body may have been
+	 * skipped wrongly because of a syntax error within it, so the skipped
+	 * bodies are parsed first, as in the parallel mode, and the reports are
+	 * made as if the source file was parsed sequentially: the warnings about
+	 * the rest of the source file are deferred until the bodies preceding them
+	 * have been parsed.
+	 * </p>
+	 * 
+	 * @return The abstract syntax tree of the program.
+	 */
+	private Program synAnLazy() {
+		skippedBodies = new ArrayList<SkippedBody>();
+		warningPositions = new LinkedList<Position>();
+		warningMessages = new LinkedList<String>();
+		Program p = null;
+		CompilerError error = null;
+		try {
+			try {
+				p = parseProgram();
+			} catch (CompilerError skeletonError) {
+				error = skeletonError;
+			}
+			if ((error != null) || (laToken != Symbol.Token.EOF)) {
+				int reported = 0;
+				for (SkippedBody body : skippedBodies) {
+					for (; reported < body.numWarnings; reported++)
+						report(warningPositions.removeFirst(), warningMessages.removeFirst());
+					if (body.funDef != null)
+						body.funDef.body();
+					else
+						body.parseBody();
+				}
+			}
+			reportWarnings(warningPositions, warningMessages);
+		} finally {
+			skippedBodies = null;
+			warningPositions = null;
+			warningMessages = null;
+		}
+		if (error != null)
+			throw(error);
+		if (laToken != Symbol.Token.EOF)
+			warning(laSymbol(), "Unexpected symbol(s) at the end of file.");
+		return p;
+	}
+
+	/**
+	 * The parser in the parallel mode.
+	 * 
+	 * <p>
+	 * The source file is parsed with the bodies of functions skipped, and then
+	 * the skipped bodies are parsed in parallel. The warnings and the errors
+	 * are reported as if the source file was parsed sequentially: the reports
+	 * are deferred and only those preceding the first error in the source file
+	 * are made.
+	 * </p>
+	 * 
+	 * @return The abstract syntax tree of the program.
+	 */
+	private Program synAnParallel() {
+		skippedBodies = new ArrayList<SkippedBody>();
+		warningPositions = new LinkedList<Position>();
+		warningMessages = new LinkedList<String>();
+		Program p = null;
+		CompilerError error = null;
+		try {
+			p = parseProgram();
+			if (laToken != Symbol.Token.EOF)
+				warning(laSymbol(), "Unexpected symbol(s) at the end of file.");
+		} catch (CompilerError skeletonError) {
+			error = skeletonError;
+		}
+
+		ForkJoinPool.commonPool().invoke(new BodiesParser(0, skippedBodies.size()));
+		for (SkippedBody body : skippedBodies)
+			if (body.error != null) {
+				reportWarnings(body.warningPositions, body.warningMessages);
+				throw(body.error);
+			}
+		reportWarnings(warningPositions, warningMessages);
+		if (error != null)
+			throw(error);
 		return p;
 	}
 
+	/**
+	 * A fork-join task parsing a range of the skipped bodies of functions.
+	 */
+	private class BodiesParser extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The number of bodies below which the range is not split any more. */
+		private static final int THRESHOLD = 8;
+
+		/** The index of the first body of the range. */
+		private final int begIndex;
+
+		/** The index after the last body of the range. */
+		private final int endIndex;
+
+		public BodiesParser(int begIndex, int endIndex) {
+			this.begIndex = begIndex;
+			this.endIndex = endIndex;
+		}
+
+		@Override
+		protected void compute() {
+			if (endIndex - begIndex > THRESHOLD) {
+				int midIndex = (begIndex + endIndex) / 2;
+				invokeAll(new BodiesParser(begIndex, midIndex), new BodiesParser(midIndex, endIndex));
+				return;
+			}
+			for (int b = begIndex; b < endIndex; b++) {
+				SkippedBody body = skippedBodies.get(b);
+				try {
+					if (body.funDef != null)
+						body.funDef.body();
+					else
+						body.parseBody();
+				} catch (CompilerError error) {
+					body.error = error;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Edits the source file and parses it incrementally.
+	 * 
+	 * <p>
+	 * The source file is edited by the lexical analyzer, which lexes the edited
+	 * lines anew. Then the smallest unit of the previous parse (an expression
+	 * or a sequence of adjacent declarations) containing all replaced symbols
+	 * is parsed anew, provided that its first symbol still has the same role
+	 * so that the parse of the enclosing units is not affected. If the unit
+	 * cannot be parsed or if its parse does not end where the unit does, the
+	 * enclosing unit is tried next. The nodes built from the unit are spliced
+	 * into the abstract syntax tree of the previous parse by the
+	 * {@link TreeEditor}: all nodes outside the unit and its enclosing nodes are
+	 * reused, only their positions are moved.
+	 * </p>
+	 * 
+	 * <p>
+	 * The first edit (or the first one following an edit yielding a syntax
+	 * error) parses the whole source file, as does an edit that no unit can
+	 * accommodate. Syntax errors are reported only in that case, while the
+	 * failed reparses of units remain silent. The derivation tree cannot be
+	 * logged.
+	 * </p>
+	 * 
+	 * @param offset
+	 *            The index of the first character to be removed.
+	 * @param removed
+	 *            The number of characters to be removed.
+	 * @param inserted
+	 *            The text to be inserted instead.
+	 * @return The abstract syntax tree of the edited program.
+	 */
+	public Program edit(int offset, int removed, String inserted) {
+		if (logger != null)
+			throw new InternalCompilerError();
+		TokenSplice splice = lexAn.edit(offset, removed, inserted);
+		tokens = lexAn.tokens();
+		if (program != null) {
+			Program p = reparse(splice);
+			if (p != null)
+				return program = p;
+		}
+
+		program = null;
+		programUnits = null;
+		int eof = tokens.size() - 1;
+		SynAn synAn = reparser(0, eof, false);
+		Program p = synAn.parseProgram();
+		if (synAn.la != eof)
+			warning(synAn.laSymbol(), "Unexpected symbol(s) at the end of file.");
+		else {
+			program = p;
+			programUnits = synAn.units;
+		}
+		return p;
+	}
+
+	/**
+	 * Parses the smallest unit of the previous parse that contains all symbols
+	 * replaced by an edit.
+	 * 
+	 * @param splice
+	 *            The change of the symbols.
+	 * @return The abstract syntax tree of the edited program (or
+	 *         <code>null</code> if no unit can be parsed anew).
+	 */
+	private Program reparse(TokenSplice splice) {
+		int first = splice.firstToken;
+		int shift = splice.insertedTokens - splice.removedTokens;
+		if ((splice.removedTokens == 0) && (splice.insertedTokens == 0))
+			return new TreeEditor(null, null, null, splice.offset, splice.removedChars, splice.insertedChars,
+					null, null).edit(program);
+
+		for (int unit = programUnits.find(first); unit != -1; unit = programUnits.parent(unit)) {
+			int begin = programUnits.begin(unit);
+			// A sequence of adjacent declarations.
+			int last = unit;
+			if (programUnits.kind(unit) == ParseUnits.Kind.DECLARATION)
+				while ((last != -1) && (programUnits.end(last) < first + splice.removedTokens)) {
+					int next = programUnits.next(last);
+					last = (next != -1) && (programUnits.begin(next) == programUnits.end(last)) ? next : -1;
+				}
+			if ((last == -1) || (programUnits.end(last) < first + splice.removedTokens))
+				continue;
+			if ((begin == first) && !isSameRole(programUnits.kind(unit), tokens.token(first)))
+				continue;
+			int end = programUnits.end(last) + shift;
+
+			// Parse the unit anew.
+			SynAn synAn = reparser(begin, end, true);
+			ArrayList<ASTNode> nodes = new ArrayList<ASTNode>();
+			try {
+				if (programUnits.kind(unit) == ParseUnits.Kind.EXPRESSION)
+					nodes.add(synAn.parseExpression());
+				else
+					while (synAn.la < end)
+						nodes.add(synAn.parseDeclaration());
+			} catch (CompilerError error) {
+				continue;
+			}
+			if (synAn.la != end)
+				continue;
+			if (nodes.isEmpty()) {
+				// A where expression must keep at least one declaration.
+				int previous = programUnits.previous(unit);
+				int next = programUnits.next(last);
+				if (((previous == -1) || (programUnits.end(previous) != begin))
+						&& ((next == -1) || (programUnits.begin(next) != programUnits.end(last))))
+					continue;
+			}
+
+			TreeEditor editor = new TreeEditor(programUnits.node(unit), programUnits.node(last), nodes,
+					splice.offset, splice.removedChars, splice.insertedChars,
+					begin == first ? splice.firstPosition : null, tokens.position(begin));
+			Program p = editor.edit(program);
+			for (int parent = programUnits.parent(unit); parent != -1; parent = programUnits.parent(parent))
+				programUnits.setNode(parent, editor.copy(programUnits.node(parent)));
+			programUnits.replace(unit, programUnits.last(last), synAn.units, shift);
+			return p;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether a symbol can take the role of the first symbol of a unit
+	 * in the enclosing units, i.e., whether the decisions of the parser before
+	 * the unit and after the units preceding it remain the same.
+	 * 
+	 * @param kind
+	 *            The kind of the unit.
+	 * @param token
+	 *            The token of the symbol.
+	 * @return <code>true</code> if the symbol can take the role.
+	 */
+	private static boolean isSameRole(ParseUnits.Kind kind, Symbol.Token token) {
+		if (kind == ParseUnits.Kind.DECLARATION)
+			switch (token) {
+			case TYP: case FUN: case VAR: case END:
+				return true;
+			default:
+				return false;
+			}
+		switch (token) {
+		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
+		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a new syntax analyzer for a range of symbols in the token buffer
+	 * that records the units it parses.
+	 * 
+	 * @param begin
+	 *            The index of the first symbol.
+	 * @param end
+	 *            The index of the symbol following the range.
+	 * @param deferWarnings
+	 *            Whether the reports of warnings are deferred (and thus
+	 *            dropped unless reported explicitly).
+	 * @return The syntax analyzer.
+	 */
+	private SynAn reparser(int begin, int end, boolean deferWarnings) {
+		SynAn synAn = new SynAn(this, new SkippedBody(begin, end, null));
+		synAn.units = new ParseUnits();
+		synAn.warningPositions = deferWarnings ? new LinkedList<Position>() : null;
+		synAn.warningMessages = deferWarnings ? new LinkedList<String>() : null;
+		return synAn;
+	}
+
 	// All these methods are a part of a recursive descent implementation of an
 	// LL(1) parser.
 	private Program parseProgram() {
 		begLog("Program");
 		Program p = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
 		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
 		{
-			Position pos = laSymbol;
+			Position pos = laPosition();
 			Expr expr = parseExpression();
-			p = new Program(new Position(pos, laSymbol), expr);
+			p = new Program(new Position(pos, laPosition()), expr);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Program"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Program"));
 		}
 		endLog();
 		return p;
@@ -211,38 +682,40 @@ public class SynAn extends Phase {
 	
 	private Expr parseExpression() {
 		begLog("Expression");
+		int unit = units == null ? -1 : units.open(ParseUnits.Kind.EXPRESSION, la, laToken);
 		Expr expr = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
 		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
 		{
-			expr = parseExpression_(parseAssignmentExpression());
+			expr = parseExpression_(parseBinaryExpression(0));
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Expression"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Expression"));
 		}
+		if (units != null)
+			units.close(unit, la, expr);
 		endLog();
 		return expr;
 	}
 
 	private Expr parseExpression_(Expr expr) {
 		begLog("Expression'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case WHERE: {
 			Symbol symbol = nextSymbol();
-			Symbol symId;
 			
-			LinkedList<Decl> decls = parseDeclarations();
+			ArrayList<Decl> decls = parseDeclarations();
 			
-			if (laSymbol.token == Symbol.Token.END) {
-				nextSymbol();
+			if (laToken == Symbol.Token.END) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing end inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing end inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			expr = parseExpression_(expr);
-			expr = new WhereExpr(new Position(symbol, laSymbol), expr, decls);
+			expr = new WhereExpr(new Position(symbol, laPosition()), expr, decls.toArray(new Decl[decls.size()]));
 			break;
 		}
 		case END: case COMMA: case CLOSING_BRACKET: case CLOSING_PARENTHESIS:			
@@ -251,16 +724,16 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Expression_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Expression_"));
 		}
 		endLog();	
 		return expr;
 	}
-	private LinkedList<Expr> parseExpressions()
+	private ArrayList<Expr> parseExpressions()
 	{
 		begLog("Expressions");
-		LinkedList<Expr> expr = new LinkedList<Expr>();
-		switch (laSymbol.token) {
+		ArrayList<Expr> expr = new ArrayList<Expr>();
+		switch (laToken) {
 		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET:
 		case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
 		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS:
@@ -271,18 +744,18 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Expressions"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Expressions"));
 		}
 		endLog();
 		return expr;
 	}
-	private void parseExpressions_(LinkedList<Expr> expr)
+	private void parseExpressions_(ArrayList<Expr> expr)
 	{
 		begLog("Expressions'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA:
 		{
-			Symbol symbol = nextSymbol();
+			skipSymbol();
 			expr.add(parseExpression());
 			parseExpressions_(expr);
 			break;
@@ -292,310 +765,170 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Expressions_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Expressions_"));
 		}
 		endLog();
 	}
-	private Expr parseAssignmentExpression() {
-		begLog("AssignmentExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
-		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseAssignmentExpression_(parseDisjunctiveExpression());
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Assignment expression"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseAssignmentExpression_(Expr expr) {
-		begLog("AssignmentExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case CLOSING_BRACKET: 
-			case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
+
+	// The binary expressions are parsed by precedence climbing instead of by
+	// a subparser for each level of precedence: a single loop climbs from the
+	// operand up through the levels, and a subparser is called recursively only
+	// for the second operand of an operator that is actually present. The
+	// derivation tree is logged and the errors are reported exactly as if each
+	// level had its own pair of subparsers.
+
+	/** The number of levels of precedence of binary operators. */
+	private static final int NUM_LEVELS = 6;
+
+	/** The nonterminals of the levels of precedence, from the lowest up. */
+	private static final String[] LEVEL_NAMES = { "AssignmentExpression", "DisjunctiveExpression",
+			"ConjunctiveExpression", "RelationalExpression", "AdditiveExpression", "MultiplicativeExpression" };
+
+	/** The nonterminals of the tails of the levels of precedence. */
+	private static final String[] TAIL_NAMES = { "AssignmentExpression'", "DisjunctiveExpression'",
+			"DisjunctiveExpression'", "RelationalExpression'", "AdditiveExpression'", "MultiplicativeExpression'" };
+
+	/**
+	 * The nonterminals of the tails of the levels of precedence in the grammar
+	 * (the tail of conjunctive expressions is logged under the name of the
+	 * tail of disjunctive expressions).
+	 */
+	private static final String[] TAIL_NONTERMINALS = { "AssignmentExpression'", "DisjunctiveExpression'",
+			"ConjunctiveExpression'", "RelationalExpression'", "AdditiveExpression'", "MultiplicativeExpression'" };
+
+	/**
+	 * Returns the level of precedence of a binary operator.
+	 * 
+	 * @param token
+	 *            The token.
+	 * @return The level of precedence or <code>-1</code> if the token is not a
+	 *         binary operator.
+	 */
+	private static int level(Symbol.Token token) {
+		switch (token) {
 		case ASSIGN:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseDisjunctiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.ASSIGN, expr, sndExpr);
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Disjunctive expression"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseDisjunctiveExpression() {
-		begLog("DisjunctiveExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
-		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseDisjunctiveExpression_(parseConjunctiveExpression());
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol.token));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseDisjunctiveExpression_(Expr expr) {
-		begLog("DisjunctiveExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case ASSIGN: case CLOSING_BRACKET: 
-			case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
+			return 0;
 		case OR:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseConjunctiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.OR, expr, sndExpr);
-			expr = parseDisjunctiveExpression_(expr);
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Disjunctive expression_"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseConjunctiveExpression() {
-		begLog("ConjunctiveExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
-		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseConjunctiveExpression_(parseRelationalExpression());
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Conjunctive expression"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseConjunctiveExpression_(Expr expr) {
-		begLog("DisjunctiveExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case ASSIGN: case OR: case CLOSING_BRACKET: 
-			case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
+			return 1;
 		case AND:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseRelationalExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.AND , expr, sndExpr);
-			expr = parseConjunctiveExpression_(expr);
-			break;
-		}
+			return 2;
+		case EQU: case NEQ: case LTH: case GTH: case LEQ: case GEQ:
+			return 3;
+		case ADD: case SUB:
+			return 4;
+		case MUL: case DIV: case MOD:
+			return 5;
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Conjunctive expression_"));
+			return -1;
 		}
-		endLog();
-		return expr;
 	}
-	private Expr parseRelationalExpression() {
-		begLog("RelationalExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
-		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseRelationalExpression_(parseAdditiveExpression());
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Renational expression"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseRelationalExpression_(Expr expr) {
-		begLog("RelationalExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case ASSIGN: case OR: case AND: case CLOSING_BRACKET: 
-			case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
-		case EQU:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.EQU , expr, sndExpr);
-			break;
-		}
-		case NEQ:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.NEQ , expr, sndExpr);
-			break;
-		}
-		case LEQ:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.LEQ , expr, sndExpr);
-			break;
-		}
-		case LTH:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.LTH , expr, sndExpr);
-			break;
-		}
-		case GTH:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.GTH , expr, sndExpr);
-			break;
-		}
-		case GEQ:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseAdditiveExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.GEQ , expr, sndExpr);
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol + " " + laSymbol.token + " at parse Realtional expression_"));
-		}
-		endLog();
-		return expr;
+
+	/**
+	 * Checks whether the operators of a level of precedence are
+	 * non-associative, i.e., at most one of them can appear at this level.
+	 */
+	private static boolean isNonAssociative(int level) {
+		return (level == 0) || (level == 3);
 	}
-	private Expr parseAdditiveExpression() {
-		begLog("AdditiveExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
+
+	/**
+	 * Parses a binary expression consisting of operators of the specified and
+	 * higher levels of precedence.
+	 * 
+	 * @param level
+	 *            The lowest level of precedence.
+	 * @return The binary expression.
+	 */
+	private Expr parseBinaryExpression(int level) {
+		switch (laToken) {
 		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseAdditiveExpression_(parseMultiplicativeExpression());
-			break;
-		}
-		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol + " " + laSymbol.token + " at parse Additive expression"));
-		}
-		endLog();
-		return expr;
-	}
-	private Expr parseAdditiveExpression_(Expr expr) {
-		begLog("AdditiveExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case ASSIGN: case OR: case AND: 
-			case EQU: case NEQ: case LTH: case GTH:  case LEQ:  case GEQ:
-			case CLOSING_BRACKET: case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
-		case ADD:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseMultiplicativeExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.ADD , expr, sndExpr);
-			expr = parseAdditiveExpression_(expr);
-			break;
-		}
-		case SUB:
-		{
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parseMultiplicativeExpression();
-			expr = new BinExpr(new Position(expr, sndExpr), Oper.SUB , expr, sndExpr);
-			expr = parseAdditiveExpression_(expr);
+		case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
 			break;
-		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol + " " + laSymbol.token + " at parse Additive expression_"));
+			throw(headError(level));
+		}
+		for (int l = level; l < NUM_LEVELS; l++)
+			begLog(LEVEL_NAMES[l]);
+		Expr expr = parsePrefixExpression();
+		for (int l = NUM_LEVELS - 1; l >= level; l--) {
+			int numTails = 0;
+			while (true) {
+				begLog(TAIL_NAMES[l], TAIL_NONTERMINALS[l]);
+				numTails++;
+				int laLevel = level(laToken);
+				if (laLevel == l) {
+					Oper oper = Oper.valueOf(laToken.name());
+					skipSymbol();
+					Expr sndExpr = l + 1 < NUM_LEVELS ? parseBinaryExpression(l + 1) : parsePrefixExpression();
+					expr = new BinExpr(new Position(expr, sndExpr), oper, expr, sndExpr);
+					if (isNonAssociative(l))
+						break;
+					continue;
+				}
+				if ((laLevel >= 0) && (laLevel < l))
+					break;
+				switch (laToken) {
+				case WHERE: case END: case COMMA: case CLOSING_BRACKET: case CLOSING_PARENTHESIS: case THEN: case ELSE:
+				case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
+					break;
+				default:
+					throw(tailError(l));
+				}
+				break;
+			}
+			for (; numTails > 0; numTails--)
+				endLog();
+			endLog();
 		}
-		endLog();
 		return expr;
 	}
 
-	private Expr parseMultiplicativeExpression() {
-		begLog("MultiplicativeExpression");
-		Expr expr = null;
-		switch (laSymbol.token) {
-		case ADD: case SUB: case NOT: case MEM: case OPENING_BRACKET: case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
-			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
-		{
-			expr = parseMultiplicativeExpression_(parsePrefixExpression());
-			break;
-		}
+	/**
+	 * Returns the error reported when a level of precedence cannot start with
+	 * the lookahead symbol.
+	 */
+	private CompilerError headError(int level) {
+		switch (level) {
+		case 0:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Assignment expression");
+		case 1:
+			return new CompilerError("Unrecognisable symbol: "+ laToken);
+		case 2:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Conjunctive expression");
+		case 3:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Renational expression");
+		case 4:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laSymbol() + " " + laToken + " at parse Additive expression");
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Multiplicative expression"));
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Multiplicative expression");
 		}
-		endLog();
-		return expr;
 	}
-	private Expr parseMultiplicativeExpression_(Expr expr) {
-		begLog("MultiplicativeExpression'");
-		switch (laSymbol.token) {
-		case WHERE: case END: case COMMA: case ASSIGN: case OR: case AND: 
-			case EQU: case NEQ: case LTH: case GTH:  case LEQ:  case GEQ:
-			case ADD: case SUB:
-			case CLOSING_BRACKET: case CLOSING_PARENTHESIS: case THEN: case ELSE:
-			case COLON: case TYP: case FUN: case VAR: case EOF: case WHILE:
-		{
-			break;
-		}
-		case MUL:
-		{	
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parsePrefixExpression();
-			Expr e = new BinExpr(new Position(expr, sndExpr), Oper.MUL , expr, sndExpr);
-			expr = parseMultiplicativeExpression_(e);
-			break;
-		}
-		case DIV:
-		{	
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parsePrefixExpression();
-			Expr e = new BinExpr(new Position(expr, sndExpr), Oper.DIV , expr, sndExpr);
-			expr = parseMultiplicativeExpression_(e);
-			break;
-		}
-		case MOD:
-		{	
-			Symbol symbol = nextSymbol();
-			Expr sndExpr = parsePrefixExpression();
-			Expr e = new BinExpr(new Position(expr, sndExpr), Oper.MOD , expr, sndExpr);
-			expr = parseMultiplicativeExpression_(e);
-			break;
-		}
+
+	/**
+	 * Returns the error reported when the tail of a level of precedence cannot
+	 * start with the lookahead symbol.
+	 */
+	private CompilerError tailError(int level) {
+		switch (level) {
+		case 0:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Disjunctive expression");
+		case 1:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Disjunctive expression_");
+		case 2:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Conjunctive expression_");
+		case 3:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laSymbol() + " " + laToken + " at parse Realtional expression_");
+		case 4:
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laSymbol() + " " + laToken + " at parse Additive expression_");
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Multiplicative expression_"));
+			return new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Multiplicative expression_");
 		}
-		endLog();
-		return expr;
 	}
 
 	private Expr parsePrefixExpression() {
 		begLog("PrefixExpression");
 		Expr expr = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD:
 		{
 			Symbol symbol = nextSymbol();
@@ -627,17 +960,16 @@ public class SynAn extends Phase {
 		case OPENING_BRACKET:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
 			
 			Type type = parseType();
 			
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ']' inserted.");
+				warning(laSymbol(), "Missing symbol ']' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new CastExpr(new Position(symbol, laSymbol), type, parsePrefixExpression());
+			expr = new CastExpr(new Position(symbol, laPosition()), type, parsePrefixExpression());
 			break;
 		}
 		case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
@@ -647,7 +979,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Prefix expression"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Prefix expression"));
 		}
 		endLog();
 		return expr;
@@ -655,7 +987,7 @@ public class SynAn extends Phase {
 	private Expr parsePostfixExpression() {
 		begLog("PostfixExpression");
 		Expr expr = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: case CONST_INTEGER: case CONST_BOOLEAN: case CONST_CHAR:
 			case CONST_STRING: case CONST_NULL: case CONST_NONE: case OPENING_PARENTHESIS: case IF: case FOR: case WHILE: case DO:
 		{
@@ -663,14 +995,14 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Postfix expression"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Postfix expression"));
 		}
 		endLog();
 		return expr;
 	}
 	private Expr parsePostfixExpression_(Expr expr) {
 		begLog("PostfixExpression'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case WHERE: case END: case COMMA: case ASSIGN: case OR: case AND: 
 			case EQU: case NEQ: case LTH: case GTH:  case LEQ:  case GEQ:
 			case ADD: case SUB: case MUL: case DIV: case MOD:
@@ -681,33 +1013,33 @@ public class SynAn extends Phase {
 		}
 		case OPENING_BRACKET:
 		{
-			nextSymbol();
+			skipSymbol();
 			
 			Expr e = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
-				nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ']' inserted.");
+				warning(laSymbol(), "Missing symbol ']' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new BinExpr(new Position(expr, laSymbol), Oper.ARR, expr, e);
+			expr = new BinExpr(new Position(expr, laPosition()), Oper.ARR, expr, e);
 			expr = parsePostfixExpression_(expr);
 			break;
 		}
 		case DOT:
 		{
-			nextSymbol();
+			skipSymbol();
 			Symbol symId;
 			
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symId = nextSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing identifier inserted.");
+				warning(laSymbol(), "Missing identifier inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			CompName compName = new CompName(symId, symId.lexeme);
-			expr = new BinExpr(new Position(expr, laSymbol), Oper.REC, expr, compName);
+			expr = new BinExpr(new Position(expr, laPosition()), Oper.REC, expr, compName);
 			expr = parsePostfixExpression_(expr);
 			break;
 		}
@@ -719,7 +1051,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Postfix Expression_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Postfix Expression_"));
 		}
 		endLog();
 		return expr;
@@ -727,7 +1059,7 @@ public class SynAn extends Phase {
 	private Expr parseAtomicExpression() {
 		begLog("AtomicExpression");
 		Expr expr = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER:
 		{
 			Symbol symbol = nextSymbol();
@@ -772,46 +1104,47 @@ public class SynAn extends Phase {
 		}
 		case OPENING_PARENTHESIS:
 		{
-			expr = new Exprs(nextSymbol(), parseExpressions());
+			Symbol symbol = nextSymbol();
+			ArrayList<Expr> exprs = parseExpressions();
+			expr = new Exprs(symbol, exprs.toArray(new Expr[exprs.size()]));
 			
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
-				nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ')' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ')' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			break;
 		}
 		case IF:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
 			
 			Expr cond = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.THEN) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.THEN) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing THEN inserted.");
+				warning(laSymbol(), "Missing THEN inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			Expr thenExpr = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.ELSE) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.ELSE) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing ELSE inserted.");
+				warning(laSymbol(), "Missing ELSE inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			Expr elseExpr = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.END) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.END) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing END inserted.");
+				warning(laSymbol(), "Missing END inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new IfExpr(new Position(symbol, laSymbol), cond, thenExpr, elseExpr);
+			expr = new IfExpr(new Position(symbol, laPosition()), cond, thenExpr, elseExpr);
 			break;
 		}
 		case FOR: 
@@ -819,97 +1152,95 @@ public class SynAn extends Phase {
 			Symbol name;
 			Symbol symbol = nextSymbol();
 			
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				name = nextSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing IDENTIFIER inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing IDENTIFIER inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			VarName varName = new VarName(name, name.lexeme);
 			
-			if (laSymbol.token == Symbol.Token.ASSIGN) {
-				nextSymbol();
+			if (laToken == Symbol.Token.ASSIGN) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '=' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol '=' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Expr loBound = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.COMMA) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COMMA) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '.' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol '.' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Expr hiBound = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Expr body = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.END) {
-				nextSymbol();
+			if (laToken == Symbol.Token.END) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing END inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing END inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			expr = new ForExpr(new Position(symbol, laSymbol), varName, loBound, hiBound, body);
+			expr = new ForExpr(new Position(symbol, laPosition()), varName, loBound, hiBound, body);
 			break;
 		}
 		case DO:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
 			
 			Expr body = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.WHILE) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.WHILE) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol 'while' inserted.");
+				warning(laSymbol(), "Missing symbol 'while' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			Expr cond =  parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.END) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.END) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing END inserted.");
+				warning(laSymbol(), "Missing END inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new WhileExpr(new Position(symbol, laSymbol), cond, body);
+			expr = new WhileExpr(new Position(symbol, laPosition()), cond, body);
 			break;
 		}
 		case WHILE:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
 			
 			Expr cond = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.COLON) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
+				warning(laSymbol(), "Missing symbol ':' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			Expr body =  parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.END) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.END) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing END inserted.");
+				warning(laSymbol(), "Missing END inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new WhileExpr(new Position(symbol, laSymbol), cond, body);
+			expr = new WhileExpr(new Position(symbol, laPosition()), cond, body);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Atomic Expression"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Atomic Expression"));
 		}
 		endLog();
 		return expr;
@@ -917,7 +1248,7 @@ public class SynAn extends Phase {
 	private Expr parseArgumentsOpt(Symbol symbol2) {
 		begLog("ArgumentsOpt");
 		Expr expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case WHERE: case END: case COMMA: case ASSIGN: case OR: case AND: 
 		case EQU: case NEQ: case LTH: case GTH:  case LEQ:  case GEQ:
 		case ADD: case SUB: case MUL: case DIV: case MOD: case OPENING_BRACKET:
@@ -929,12 +1260,12 @@ public class SynAn extends Phase {
 		}
 		case OPENING_PARENTHESIS:
 		{
-			Symbol symbol = nextSymbol();
+			skipSymbol();
 			expr = parseArgumentsOpt_(symbol2);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Arguments Opt"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Arguments Opt"));
 		}
 		endLog();
 		return expr;
@@ -943,7 +1274,7 @@ public class SynAn extends Phase {
 	private Expr parseArgumentsOpt_(Symbol symbol2) {
 		begLog("ArgumentsOpt'");
 		Expr expr;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case ADD:
 		case SUB:
 		case NOT:
@@ -962,40 +1293,40 @@ public class SynAn extends Phase {
 		case WHILE:
 		case DO:
 		{
-			LinkedList<Expr> args = parseExpressions();
+			ArrayList<Expr> args = parseExpressions();
 	
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
-				nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ')' inserted.");
+				warning(laSymbol(), "Missing symbol ')' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new FunCall(new Position(symbol2, laSymbol), symbol2.lexeme, args);
+			expr = new FunCall(new Position(symbol2, laPosition()), symbol2.lexeme, args.toArray(new Expr[args.size()]));
 			break;
 		}
 		case CLOSING_PARENTHESIS:
 		{
-			LinkedList<Expr> args = new LinkedList<Expr>();
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
-				nextSymbol();
+			ArrayList<Expr> args = new ArrayList<Expr>();
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ')' inserted.");
+				warning(laSymbol(), "Missing symbol ')' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			expr = new FunCall(new Position(symbol2, laSymbol), symbol2.lexeme, args);
+			expr = new FunCall(new Position(symbol2, laPosition()), symbol2.lexeme, args.toArray(new Expr[args.size()]));
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Arguments Opt"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Arguments Opt"));
 		}
 		endLog();
 		return expr;
 	}
 
-	private LinkedList<Decl> parseDeclarations() {
+	private ArrayList<Decl> parseDeclarations() {
 		begLog("Declarations");
-		LinkedList<Decl> decl = new LinkedList<Decl>();
-		switch (laSymbol.token) {
+		ArrayList<Decl> decl = new ArrayList<Decl>();
+		switch (laToken) {
 		case TYP: case FUN: case VAR: 
 		{
 			decl.add(parseDeclaration());
@@ -1003,15 +1334,15 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Declarations"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Declarations"));
 		}
 		endLog();
 		return decl;
 	}
 
-	private LinkedList<Decl> parseDeclarations_(LinkedList<Decl> decl) {
+	private ArrayList<Decl> parseDeclarations_(ArrayList<Decl> decl) {
 		begLog("Declarations'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case END: {
 			break;
 		}
@@ -1022,7 +1353,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Declarations_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Declarations_"));
 		}
 		endLog();	
 		return decl;
@@ -1030,8 +1361,9 @@ public class SynAn extends Phase {
 
 	private Decl parseDeclaration() {
 		begLog("Declaration");
+		int unit = units == null ? -1 : units.open(ParseUnits.Kind.DECLARATION, la, laToken);
 		Decl decl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP: 
 		{
 			decl = parseTypeDeclaration();
@@ -1048,8 +1380,10 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Declaration"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Declaration"));
 		}
+		if (units != null)
+			units.close(unit, la, decl);
 		endLog();
 		return decl;
 	}
@@ -1057,29 +1391,29 @@ public class SynAn extends Phase {
 	private TypeDecl parseTypeDeclaration() {
 		begLog("TypeDeclaration");
 		TypeDecl typeDecl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case TYP: 
 		{
 			Symbol symbol = nextSymbol();
 			Symbol name;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				name = nextSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing identifier inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing identifier inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Type type = parseType();
 			typeDecl= new TypeDecl(new Position(symbol, type), name.lexeme, type);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Type Declaration"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Type Declaration"));
 		}
 		endLog();
 		return typeDecl;
@@ -1088,51 +1422,51 @@ public class SynAn extends Phase {
 	private FunDecl parseFunctionDeclaration() {
 		begLog("FunctionDeclaration");
 		FunDecl funDecl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case FUN: 
 		{
 			Symbol symbol = nextSymbol();
 			Symbol name;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				name = nextSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing identifier inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing identifier inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			if (laSymbol.token == Symbol.Token.OPENING_PARENTHESIS) {
-				nextSymbol();
+			if (laToken == Symbol.Token.OPENING_PARENTHESIS) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '(' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol '(' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			LinkedList<ParDecl> pars = parseParametersOpt();
-			if (laSymbol.token == Symbol.Token.CLOSING_PARENTHESIS) {
-				nextSymbol();
+			ArrayList<ParDecl> pars = parseParametersOpt();
+			if (laToken == Symbol.Token.CLOSING_PARENTHESIS) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ')' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ')' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Type type = parseType();
-			funDecl = parseFunctionBodyOpt(symbol, name, pars, type);
+			funDecl = parseFunctionBodyOpt(symbol, name, pars.toArray(new ParDecl[pars.size()]), type);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Function Declaration"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Function Declaration"));
 		}
 		endLog();
 		return funDecl;
 	}
 
-	private LinkedList<ParDecl> parseParametersOpt() {
+	private ArrayList<ParDecl> parseParametersOpt() {
 		begLog("ParametersOpt");
-		LinkedList<ParDecl> parDecl = new LinkedList<ParDecl>();
-		switch (laSymbol.token) {
+		ArrayList<ParDecl> parDecl = new ArrayList<ParDecl>();
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			parDecl = parseParameters();
@@ -1143,16 +1477,16 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Parameters Opt"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Parameters Opt"));
 		}
 		endLog();
 		return parDecl;
 	}
 
-	private LinkedList<ParDecl> parseParameters() {
+	private ArrayList<ParDecl> parseParameters() {
 		begLog("Parameters");
-		LinkedList<ParDecl> parDecl = new LinkedList<ParDecl>();
-		switch (laSymbol.token) {
+		ArrayList<ParDecl> parDecl = new ArrayList<ParDecl>();
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			parDecl.add(parseParameter());
@@ -1160,18 +1494,18 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Parameters"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Parameters"));
 		}
 		endLog();
 		return parDecl;
 	}
 
-	private void parseParameters_(LinkedList<ParDecl> parDecl) {
+	private void parseParameters_(ArrayList<ParDecl> parDecl) {
 		begLog("Parameters'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA: 
 		{
-			Symbol symbol = nextSymbol();
+			skipSymbol();
 			parDecl.add(parseParameter());
 			parseParameters_(parDecl);
 			break;
@@ -1181,7 +1515,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Parameters_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Parameters_"));
 		}
 		endLog();
 	}
@@ -1189,32 +1523,31 @@ public class SynAn extends Phase {
 	private ParDecl parseParameter() {
 		begLog("Parameter");
 		ParDecl parDecl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Type type = parseType();
 			parDecl = new ParDecl(new Position(symbol, type), symbol.lexeme, type);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Parameter"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Parameter"));
 		}
 		endLog();
 		return parDecl;
 	}
 	
-	private FunDecl parseFunctionBodyOpt(Symbol symb, Symbol name, LinkedList<ParDecl> pars, Type type) {
+	private FunDecl parseFunctionBodyOpt(Symbol symb, Symbol name, ParDecl[] pars, Type type) {
 		begLog("FunctionBodyOpt");
 		FunDecl funDecl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case END: case TYP: case FUN: case VAR:
 		{
 			funDecl = new FunDecl(new Position(symb, type), name.lexeme, pars, type);
@@ -1222,43 +1555,157 @@ public class SynAn extends Phase {
 		}
 		case ASSIGN: 
 		{
-			Symbol symbol = nextSymbol();
+			skipSymbol();
+			if (lazy) {
+				SkippedBody body = skipFunctionBody();
+				body.funDef = new FunDef(new Position(symb, type), name.lexeme, pars, type, body);
+				funDecl = body.funDef;
+				break;
+			}
 			Expr body = parseExpression();
 			funDecl = new FunDef(new Position(symb, type), name.lexeme, pars, type, body);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " at parse Function Body Opt"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " at parse Function Body Opt"));
 		}
 		endLog();
 		return funDecl;
 	}
 
+	/**
+	 * Skips the body of a function by matching the brackets and the keywords
+	 * closed by <code>end</code>. The body ends at the first symbol that
+	 * cannot continue it outside any brackets, usually the next declaration or
+	 * the <code>end</code> of the enclosing <code>where</code>.
+	 * 
+	 * @return The skipped body.
+	 */
+	private SkippedBody skipFunctionBody() {
+		int begin = la;
+		int depth = 0;
+		while (true) {
+			switch (laToken) {
+			case OPENING_PARENTHESIS: case OPENING_BRACKET: case OPENING_BRACE:
+			case IF: case FOR: case WHILE: case WHERE:
+				// DO is not counted as it is closed by WHILE ... END.
+				depth++;
+				break;
+			case CLOSING_PARENTHESIS: case CLOSING_BRACKET: case CLOSING_BRACE: case END:
+				if (depth == 0)
+					return skippedBody(begin, la);
+				depth--;
+				break;
+			case TYP: case FUN: case VAR: case COMMA: case THEN: case ELSE: case COLON:
+				if (depth == 0)
+					return skippedBody(begin, la);
+				break;
+			case EOF:
+				return skippedBody(begin, la);
+			default:
+				break;
+			}
+			try {
+				la = lexAn.nextToken();
+			} catch (CompilerError error) {
+				// The body must still be parsed up to the lexical error as
+				// syntax errors within it are reported first.
+				skippedBodies.add(new SkippedBody(begin, la, error));
+				throw(error);
+			}
+			laToken = tokens.token(la);
+		}
+	}
+
+	/**
+	 * Returns a new skipped body and adds it to the bodies skipped so far.
+	 */
+	private SkippedBody skippedBody(int begin, int end) {
+		SkippedBody body = new SkippedBody(begin, end, null);
+		skippedBodies.add(body);
+		return body;
+	}
+
+	/**
+	 * The body of a function that has been skipped.
+	 */
+	private class SkippedBody implements FunDef.BodyParser {
+
+		/** The index of the first symbol of the body. */
+		private final int begin;
+
+		/** The index of the symbol following the body. */
+		private final int end;
+
+		/**
+		 * The lexical error that prevented the body from being skipped to its
+		 * end (or <code>null</code>).
+		 */
+		private final CompilerError truncation;
+
+		/** The function the body belongs to. */
+		private FunDef funDef = null;
+
+		/** The positions of the deferred warnings. */
+		private final LinkedList<Position> warningPositions;
+
+		/** The messages of the deferred warnings. */
+		private final LinkedList<String> warningMessages;
+
+		/** The error reported while parsing the body in parallel. */
+		private CompilerError error = null;
+
+		/**
+		 * The number of warnings about the rest of the source file deferred
+		 * before the body was skipped.
+		 */
+		private final int numWarnings;
+
+		public SkippedBody(int begin, int end, CompilerError truncation) {
+			this.begin = begin;
+			this.end = end;
+			this.truncation = truncation;
+			this.numWarnings = SynAn.this.warningPositions == null ? 0 : SynAn.this.warningPositions.size();
+			this.warningPositions = parallel ? new LinkedList<Position>() : null;
+			this.warningMessages = parallel ? new LinkedList<String>() : null;
+		}
+
+		@Override
+		public Expr parseBody() {
+			SynAn synAn = new SynAn(SynAn.this, this);
+			Expr body = synAn.parseExpression();
+			if (synAn.la != end)
+				throw(new CompilerError("Unrecognisable symbol: "+ synAn.laSymbol() + " " + synAn.laToken + " at parse Function Body"));
+			return body;
+		}
+
+	}
+
 	private VarDecl parseVariableDeclaration() {
 		begLog("VariableDeclaration");
 		VarDecl varDecl;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case VAR: {
 			Symbol symVar = nextSymbol();
 			Symbol symName;
-			if (laSymbol.token == Symbol.Token.IDENTIFIER) {
+			if (laToken == Symbol.Token.IDENTIFIER) {
 				symName = nextSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing identifier inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing identifier inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Type type = parseType();
 			varDecl = new VarDecl(new Position(symVar, type), symName.lexeme, type);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse Variable Declaration"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse Variable Declaration"));
 		}
 		endLog();
 		return varDecl;
@@ -1267,7 +1714,7 @@ public class SynAn extends Phase {
 	private Type parseType() {
 		begLog("Type");
 		Type type = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			Symbol symbol = nextSymbol();
@@ -1302,45 +1749,43 @@ public class SynAn extends Phase {
 		case ARR:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.OPENING_BRACKET) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.OPENING_BRACKET) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '[' inserted.");
+				warning(laSymbol(), "Missing symbol '[' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
 			
 			Expr expr = parseExpression();
 			
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACKET) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_BRACKET) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ']' inserted.");
+				warning(laSymbol(), "Missing symbol ']' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			type = new ArrType(new Position(symbol,laSymbol), expr, parseType());
+			type = new ArrType(new Position(symbol, laPosition()), expr, parseType());
 			break;
 		}
 		case REC:
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.OPENING_BRACE) {
-				nextSymbol();
+			if (laToken == Symbol.Token.OPENING_BRACE) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '{' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol '{' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			
-			LinkedList<CompDecl> compDecl = parseComponents();
+			ArrayList<CompDecl> compDecl = parseComponents();
 			
-			if (laSymbol.token == Symbol.Token.CLOSING_BRACE) {
-				symId = nextSymbol();
+			if (laToken == Symbol.Token.CLOSING_BRACE) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol '}' inserted.");
+				warning(laSymbol(), "Missing symbol '}' inserted.");
 				throw(new CompilerError("Unrecognisable symbol"));
 			}
-			type = new RecType(new Position(symbol, laSymbol), compDecl);
+			type = new RecType(new Position(symbol, laPosition()), compDecl.toArray(new CompDecl[compDecl.size()]));
 			break;
 		}
 		case PTR:
@@ -1351,16 +1796,16 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse type"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse type"));
 		}
 		endLog();
 		return type;
 	}
 
-	private LinkedList<CompDecl> parseComponents() {
+	private ArrayList<CompDecl> parseComponents() {
 		begLog("Components");
-		LinkedList<CompDecl> compDecl = new LinkedList<CompDecl>();
-		switch (laSymbol.token) {
+		ArrayList<CompDecl> compDecl = new ArrayList<CompDecl>();
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			compDecl.add(parseComponent());
@@ -1368,18 +1813,18 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse components"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse components"));
 		}
 		endLog();
 		return compDecl;
 	}
 
-	private void parseComponents_(LinkedList<CompDecl> compDecl) {
+	private void parseComponents_(ArrayList<CompDecl> compDecl) {
 		begLog("Components'");
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case COMMA: 
 		{
-			Symbol symbol = nextSymbol();
+			skipSymbol();
 			compDecl.add(parseComponent());
 			parseComponents_(compDecl);
 			break;
@@ -1389,7 +1834,7 @@ public class SynAn extends Phase {
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse components_"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse components_"));
 		}
 		endLog();
 	}
@@ -1397,23 +1842,22 @@ public class SynAn extends Phase {
 	private CompDecl parseComponent() {
 		begLog("Component");
 		CompDecl compDecl = null;
-		switch (laSymbol.token) {
+		switch (laToken) {
 		case IDENTIFIER: 
 		{
 			Symbol symbol = nextSymbol();
-			Symbol symId;
-			if (laSymbol.token == Symbol.Token.COLON) {
-				nextSymbol();
+			if (laToken == Symbol.Token.COLON) {
+				skipSymbol();
 			} else {
-				Report.warning(laSymbol, "Missing symbol ':' inserted.");
-				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token));
+				warning(laSymbol(), "Missing symbol ':' inserted.");
+				throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken));
 			}
 			Type type = parseType();
 			compDecl = new CompDecl(new Position(symbol,type), symbol.lexeme, type);
 			break;
 		}
 		default:
-			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol + " " + laSymbol.token + " at parse component"));
+			throw(new CompilerError("Unrecognisable symbol: "+ laSymbol() + " " + laToken + " at parse component"));
 		}
 		endLog();
 		return compDecl;
@@ -0,0 +1,651 @@
+package compiler.phase.synan;
+
+import java.util.*;
+
+import compiler.common.logger.*;
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.AtomExpr.AtomTypes;
+import compiler.phase.lexan.*;
+import compiler.phase.lexan.Symbol.Token;
+
+/**
+ * The table-driven LL(1) parser.
+ *
+ * <p>
+ * The parser is driven by the {@link ParseTable#PREV parse table} generated
+ * from <code>prev-ll.grammar</code> and runs iteratively on two explicit
+ * stacks instead of the call stack, so the depth of the source program is not
+ * limited by the size of the call stack. The parse stack holds the symbols
+ * still to be matched: a nonterminal on top is replaced by the right-hand side
+ * of the production selected by the lookahead symbol, a terminal on top is
+ * matched against the lookahead symbol, and an action symbol on top performs
+ * its action.
+ * </p>
+ *
+ * <p>
+ * The value stack holds the results of the parse so far: each matched
+ * terminal pushes its index in the token buffer, and each action pops the
+ * values it needs and pushes the AST node it builds. The actions build
+ * exactly the same AST nodes, with the same positions, as the recursive
+ * descent parser in {@link SynAn}, and the same log of the derivation tree is
+ * produced. Syntax errors are reported with the same warnings and messages as
+ * well.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TableParser {
+
+	/** The actions of the action symbols. */
+	private enum Action {
+		PROGRAM, WHERE, WHEREEXPR, LIST, APPEND, DROP, BINEXPR, UNEXPR, HERE, CASTEXPR, ARREXPR, RECEXPR, VALEXPR,
+		ATOMEXPR, EXPRS, IFEXPR, FOREXPR, DOWHILEEXPR, WHILEEXPR, VARNAME, FUNCALL, TYPEDECL, PARDECL, FUNDECL,
+		FUNDEF, VARDECL, ATOMTYPE, ARRTYPE, RECTYPE, PTRTYPE, TYPENAME, COMPDECL
+	}
+
+	/** The parse table. */
+	private static final ParseTable TABLE = ParseTable.PREV;
+
+	/** The actions indexed by the action symbols (counted from 0). */
+	private static final Action[] ACTIONS = new Action[TABLE.actions.length];
+
+	static {
+		for (int a = 0; a < ACTIONS.length; a++)
+			try {
+				ACTIONS[a] = Action.valueOf(TABLE.actions[a].toUpperCase());
+			} catch (IllegalArgumentException ex) {
+				throw new InternalCompilerError();
+			}
+	}
+
+	/**
+	 * The errors reported when a nonterminal cannot be expanded, as format
+	 * strings of the lookahead symbol and its token, indexed by the names of
+	 * the nonterminals.
+	 */
+	private static final HashMap<String, String> NONTERMINAL_ERRORS = new HashMap<String, String>();
+
+	/**
+	 * The warnings and errors reported when a terminal is missing, the latter
+	 * as format strings of the lookahead symbol and its token, indexed by the
+	 * productions up to the missing terminal (without action symbols).
+	 */
+	private static final HashMap<String, String[]> TERMINAL_ERRORS = new HashMap<String, String[]>();
+
+	// The errors are worded exactly as by the recursive descent parser.
+	static {
+		String at = "Unrecognisable symbol: %1$s %2$s at parse ";
+		nonterminalError("Program", at + "Program");
+		nonterminalError("Expression", at + "Expression");
+		nonterminalError("Expression'", at + "Expression_");
+		nonterminalError("Expressions", at + "Expressions");
+		nonterminalError("Expressions'", at + "Expressions_");
+		nonterminalError("AssignmentExpression", at + "Assignment expression");
+		nonterminalError("AssignmentExpression'", at + "Disjunctive expression");
+		nonterminalError("DisjunctiveExpression", "Unrecognisable symbol: %2$s");
+		nonterminalError("DisjunctiveExpression'", at + "Disjunctive expression_");
+		nonterminalError("ConjunctiveExpression", at + "Conjunctive expression");
+		nonterminalError("ConjunctiveExpression'", at + "Conjunctive expression_");
+		nonterminalError("RelationalExpression", at + "Renational expression");
+		nonterminalError("RelationalExpression'", "Unrecognisable symbol: %1$s %1$s %2$s at parse Realtional expression_");
+		nonterminalError("AdditiveExpression", "Unrecognisable symbol: %1$s %1$s %2$s at parse Additive expression");
+		nonterminalError("AdditiveExpression'", "Unrecognisable symbol: %1$s %1$s %2$s at parse Additive expression_");
+		nonterminalError("MultiplicativeExpression", at + "Multiplicative expression");
+		nonterminalError("MultiplicativeExpression'", at + "Multiplicative expression_");
+		nonterminalError("PrefixExpression", at + "Prefix expression");
+		nonterminalError("PostfixExpression", at + "Postfix expression");
+		nonterminalError("PostfixExpression'", at + "Postfix Expression_");
+		nonterminalError("AtomicExpression", at + "Atomic Expression");
+		nonterminalError("ArgumentsOpt", at + "Arguments Opt");
+		nonterminalError("ArgumentsOpt'", at + "Arguments Opt");
+		nonterminalError("Declarations", at + "Declarations");
+		nonterminalError("Declarations'", at + "Declarations_");
+		nonterminalError("Declaration", at + "Declaration");
+		nonterminalError("TypeDeclaration", at + "Type Declaration");
+		nonterminalError("FunctionDeclaration", at + "Function Declaration");
+		nonterminalError("ParametersOpt", at + "Parameters Opt");
+		nonterminalError("Parameters", at + "Parameters");
+		nonterminalError("Parameters'", at + "Parameters_");
+		nonterminalError("Parameter", at + "Parameter");
+		nonterminalError("FunctionBodyOpt", "Unrecognisable symbol: %1$s at parse Function Body Opt");
+		nonterminalError("VariableDeclaration", at + "Variable Declaration");
+		nonterminalError("Type", at + "type");
+		nonterminalError("Components", at + "components");
+		nonterminalError("Components'", at + "components_");
+		nonterminalError("Component", at + "component");
+
+		String symbol = "Unrecognisable symbol: %1$s %2$s";
+		String bare = "Unrecognisable symbol";
+		terminalError("Expression' -> WHERE Declarations END", "end", symbol);
+		terminalError("PrefixExpression -> OPENING_BRACKET Type CLOSING_BRACKET", "symbol ']'", bare);
+		terminalError("PostfixExpression' -> OPENING_BRACKET Expression CLOSING_BRACKET", "symbol ']'", bare);
+		terminalError("PostfixExpression' -> DOT IDENTIFIER", "identifier", bare);
+		terminalError("AtomicExpression -> OPENING_PARENTHESIS Expressions CLOSING_PARENTHESIS", "symbol ')'", symbol);
+		terminalError("AtomicExpression -> IF Expression THEN", "THEN", bare);
+		terminalError("AtomicExpression -> IF Expression THEN Expression ELSE", "ELSE", bare);
+		terminalError("AtomicExpression -> IF Expression THEN Expression ELSE Expression END", "END", bare);
+		terminalError("AtomicExpression -> FOR IDENTIFIER", "IDENTIFIER", symbol);
+		terminalError("AtomicExpression -> FOR IDENTIFIER ASSIGN", "symbol '='", symbol);
+		terminalError("AtomicExpression -> FOR IDENTIFIER ASSIGN Expression COMMA", "symbol '.'", symbol);
+		terminalError("AtomicExpression -> FOR IDENTIFIER ASSIGN Expression COMMA Expression COLON", "symbol ':'", symbol);
+		terminalError("AtomicExpression -> FOR IDENTIFIER ASSIGN Expression COMMA Expression COLON Expression END", "END",
+				symbol);
+		terminalError("AtomicExpression -> DO Expression WHILE", "symbol 'while'", bare);
+		terminalError("AtomicExpression -> DO Expression WHILE Expression END", "END", bare);
+		terminalError("AtomicExpression -> WHILE Expression COLON", "symbol ':'", bare);
+		terminalError("AtomicExpression -> WHILE Expression COLON Expression END", "END", bare);
+		terminalError("ArgumentsOpt' -> Expressions CLOSING_PARENTHESIS", "symbol ')'", bare);
+		terminalError("ArgumentsOpt' -> CLOSING_PARENTHESIS", "symbol ')'", bare);
+		terminalError("TypeDeclaration -> TYP IDENTIFIER", "identifier", symbol);
+		terminalError("TypeDeclaration -> TYP IDENTIFIER COLON", "symbol ':'", symbol);
+		terminalError("FunctionDeclaration -> FUN IDENTIFIER", "identifier", symbol);
+		terminalError("FunctionDeclaration -> FUN IDENTIFIER OPENING_PARENTHESIS", "symbol '('", symbol);
+		terminalError("FunctionDeclaration -> FUN IDENTIFIER OPENING_PARENTHESIS ParametersOpt CLOSING_PARENTHESIS",
+				"symbol ')'", symbol);
+		terminalError(
+				"FunctionDeclaration -> FUN IDENTIFIER OPENING_PARENTHESIS ParametersOpt CLOSING_PARENTHESIS COLON",
+				"symbol ':'", symbol);
+		terminalError("Parameter -> IDENTIFIER COLON", "symbol ':'", symbol);
+		terminalError("VariableDeclaration -> VAR IDENTIFIER", "identifier", symbol);
+		terminalError("VariableDeclaration -> VAR IDENTIFIER COLON", "symbol ':'", symbol);
+		terminalError("Type -> ARR OPENING_BRACKET", "symbol '['", bare);
+		terminalError("Type -> ARR OPENING_BRACKET Expression CLOSING_BRACKET", "symbol ']'", bare);
+		terminalError("Type -> REC OPENING_BRACE", "symbol '{'", symbol);
+		terminalError("Type -> REC OPENING_BRACE Components CLOSING_BRACE", "symbol '}'", bare);
+		terminalError("Component -> IDENTIFIER COLON", "symbol ':'", symbol);
+	}
+
+	private static void nonterminalError(String nonterminal, String error) {
+		NONTERMINAL_ERRORS.put(nonterminal, error);
+	}
+
+	private static void terminalError(String production, String missing, String error) {
+		TERMINAL_ERRORS.put(production, new String[] { "Missing " + missing + " inserted.", error });
+	}
+
+	/** The lexical analyzer. */
+	private final LexAn lexAn;
+
+	/** The symbols read by the lexical analyzer. */
+	private final TokenBuffer tokens;
+
+	/** The logger of the syntax analyzer (or <code>null</code>). */
+	private final Logger logger;
+
+	/**
+	 * The left-most derivation reported while parsing (or <code>null</code>
+	 * if logging has not been requested).
+	 */
+	private final Derivation derivation;
+
+	/** The index of the lookahead symbol in the token buffer. */
+	private int la;
+
+	/** The token of the lookahead symbol. */
+	private Token laToken;
+
+	/**
+	 * The parse stack: besides the symbols, production <code>p</code> is
+	 * marked by entry <code>-1 - p</code> below the symbols of its right-hand
+	 * side.
+	 */
+	private int[] stack = new int[256];
+
+	/** The number of entries on the parse stack. */
+	private int sp = 0;
+
+	/** The values on the value stack (<code>null</code> for terminals). */
+	private Object[] values = new Object[256];
+
+	/** The indices of the terminals on the value stack. */
+	private int[] indices = new int[256];
+
+	/** The number of entries on the value stack. */
+	private int vp = 0;
+
+	/**
+	 * Constructs a new table-driven parser.
+	 *
+	 * @param lexAn
+	 *            The lexical analyzer.
+	 * @param logger
+	 *            The logger of the syntax analyzer (or <code>null</code> if
+	 *            logging has not been requested).
+	 */
+	public TableParser(LexAn lexAn, Logger logger) {
+		this.lexAn = lexAn;
+		this.tokens = lexAn.tokens();
+		this.logger = logger;
+		this.derivation = logger == null ? null : new Derivation(TABLE);
+	}
+
+	/**
+	 * Parses the entire source file.
+	 *
+	 * @return The abstract syntax tree of the program.
+	 */
+	public Program parse() {
+		la = lexAn.nextToken();
+		laToken = tokens.token(la);
+		int first = la;
+
+		push(TABLE.lhs[0]);
+		while (sp > 0) {
+			int symbol = stack[--sp];
+			if (symbol < 0) {
+				endLog();
+			} else if (TABLE.isTerminal(symbol)) {
+				if (laToken.ordinal() != symbol)
+					throw missingTerminal(symbol);
+				pushValue(null, la);
+				tokens.log(la, logger);
+				la = lexAn.nextToken();
+				laToken = tokens.token(la);
+			} else if (TABLE.isNonterminal(symbol)) {
+				int nont = symbol - TABLE.numTerminals;
+				int p = TABLE.table[nont * TABLE.numTerminals + laToken.ordinal()];
+				if (p == ParseTable.NONE)
+					throw unexpandable(TABLE.nonterminals[nont]);
+				begLog(TABLE.nonterminals[nont], p);
+				push(-1 - p);
+				int[] rhs = TABLE.rhs[p];
+				for (int s = rhs.length - 1; s >= 0; s--)
+					push(rhs[s]);
+			} else
+				perform(ACTIONS[symbol - TABLE.numTerminals - TABLE.numNonterminals], first);
+		}
+
+		Program program = (Program) values[--vp];
+		if (laToken != Token.EOF) {
+			lexAn.readAll();
+			Report.warning(tokens.symbol(la), "Unexpected symbol(s) at the end of file.");
+		}
+		return program;
+	}
+
+	/**
+	 * Performs an action: pops the values it needs off the value stack and
+	 * pushes the result.
+	 */
+	private void perform(Action action, int first) {
+		switch (action) {
+		case PROGRAM: {
+			// Expression
+			Expr expr = (Expr) values[--vp];
+			pushValue(new Program(new Position(tokens.position(first), laPosition()), expr));
+			break;
+		}
+		case WHERE: {
+			// e WHERE Declarations END: move e on top.
+			vp--;
+			Object decls = values[--vp];
+			int where = indices[--vp];
+			Object expr = values[--vp];
+			pushValue(null, where);
+			pushValue(decls);
+			pushValue(expr);
+			break;
+		}
+		case WHEREEXPR: {
+			// WHERE Declarations e'
+			Expr expr = (Expr) values[--vp];
+			Decl[] decls = array(values[--vp], new Decl[0]);
+			int where = indices[--vp];
+			pushValue(new WhereExpr(new Position(tokens.position(where), laPosition()), expr, decls));
+			break;
+		}
+		case LIST:
+			pushValue(new ArrayList<AST>());
+			break;
+		case APPEND: {
+			// list element
+			AST element = (AST) values[--vp];
+			ArrayList<AST> list = list(values[vp - 1]);
+			list.add(element);
+			break;
+		}
+		case DROP:
+			vp--;
+			break;
+		case BINEXPR: {
+			// e1 OP e2
+			Expr sndExpr = (Expr) values[--vp];
+			int oper = indices[--vp];
+			Expr fstExpr = (Expr) values[--vp];
+			pushValue(new BinExpr(new Position(fstExpr, sndExpr), BinExpr.Oper.valueOf(tokens.token(oper).name()),
+					fstExpr, sndExpr));
+			break;
+		}
+		case UNEXPR: {
+			// OP e
+			Expr subExpr = (Expr) values[--vp];
+			int oper = indices[--vp];
+			pushValue(new UnExpr(new Position(tokens.position(oper), subExpr),
+					UnExpr.Oper.valueOf(tokens.token(oper).name()), subExpr));
+			break;
+		}
+		case HERE:
+			// Replace the terminal just matched by the position of the lookahead.
+			vp--;
+			pushValue(laPosition());
+			break;
+		case CASTEXPR: {
+			// [ Type here e
+			Expr expr = (Expr) values[--vp];
+			Position here = (Position) values[--vp];
+			Type type = (Type) values[--vp];
+			int bracket = indices[--vp];
+			pushValue(new CastExpr(new Position(tokens.position(bracket), here), type, expr));
+			break;
+		}
+		case ARREXPR: {
+			// e [ e ]
+			vp--;
+			Expr index = (Expr) values[--vp];
+			vp--;
+			Expr expr = (Expr) values[--vp];
+			pushValue(new BinExpr(new Position(expr, laPosition()), BinExpr.Oper.ARR, expr, index));
+			break;
+		}
+		case RECEXPR: {
+			// e . IDENTIFIER
+			Symbol name = tokens.symbol(indices[--vp]);
+			vp--;
+			Expr expr = (Expr) values[--vp];
+			CompName compName = new CompName(name, name.lexeme);
+			pushValue(new BinExpr(new Position(expr, laPosition()), BinExpr.Oper.REC, expr, compName));
+			break;
+		}
+		case VALEXPR: {
+			// e ^
+			int val = indices[--vp];
+			Expr expr = (Expr) values[--vp];
+			pushValue(new UnExpr(tokens.position(val), UnExpr.Oper.VAL, expr));
+			break;
+		}
+		case ATOMEXPR: {
+			// constant
+			Symbol symbol = tokens.symbol(indices[--vp]);
+			pushValue(new AtomExpr(symbol, atomType(symbol.token), symbol.lexeme));
+			break;
+		}
+		case EXPRS: {
+			// ( Expressions )
+			vp--;
+			Expr[] exprs = array(values[--vp], new Expr[0]);
+			int parenthesis = indices[--vp];
+			pushValue(new Exprs(tokens.position(parenthesis), exprs));
+			break;
+		}
+		case IFEXPR: {
+			// IF e THEN e ELSE e END
+			vp--;
+			Expr elseExpr = (Expr) values[--vp];
+			vp--;
+			Expr thenExpr = (Expr) values[--vp];
+			vp--;
+			Expr cond = (Expr) values[--vp];
+			int keyword = indices[--vp];
+			pushValue(new IfExpr(new Position(tokens.position(keyword), laPosition()), cond, thenExpr, elseExpr));
+			break;
+		}
+		case FOREXPR: {
+			// FOR IDENTIFIER = e , e : e END
+			vp--;
+			Expr body = (Expr) values[--vp];
+			vp--;
+			Expr hiBound = (Expr) values[--vp];
+			vp--;
+			Expr loBound = (Expr) values[--vp];
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			int keyword = indices[--vp];
+			VarName varName = new VarName(name, name.lexeme);
+			pushValue(new ForExpr(new Position(tokens.position(keyword), laPosition()), varName, loBound, hiBound,
+					body));
+			break;
+		}
+		case DOWHILEEXPR: {
+			// DO e WHILE e END
+			vp--;
+			Expr cond = (Expr) values[--vp];
+			vp--;
+			Expr body = (Expr) values[--vp];
+			int keyword = indices[--vp];
+			pushValue(new WhileExpr(new Position(tokens.position(keyword), laPosition()), cond, body));
+			break;
+		}
+		case WHILEEXPR: {
+			// WHILE e : e END
+			vp--;
+			Expr body = (Expr) values[--vp];
+			vp--;
+			Expr cond = (Expr) values[--vp];
+			int keyword = indices[--vp];
+			pushValue(new WhileExpr(new Position(tokens.position(keyword), laPosition()), cond, body));
+			break;
+		}
+		case VARNAME: {
+			// IDENTIFIER
+			Symbol name = tokens.symbol(indices[--vp]);
+			pushValue(new VarName(name, name.lexeme));
+			break;
+		}
+		case FUNCALL: {
+			// IDENTIFIER ( Expressions )
+			vp--;
+			Expr[] args = array(values[--vp], new Expr[0]);
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			pushValue(new FunCall(new Position(name, laPosition()), name.lexeme, args));
+			break;
+		}
+		case TYPEDECL: {
+			// TYP IDENTIFIER : Type
+			Type type = (Type) values[--vp];
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			int keyword = indices[--vp];
+			pushValue(new TypeDecl(new Position(tokens.position(keyword), type), name.lexeme, type));
+			break;
+		}
+		case PARDECL: {
+			// IDENTIFIER : Type
+			Type type = (Type) values[--vp];
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			pushValue(new ParDecl(new Position(name, type), name.lexeme, type));
+			break;
+		}
+		case FUNDECL:
+		case FUNDEF: {
+			// FUN IDENTIFIER ( ParametersOpt ) : Type [= e]
+			Expr body = null;
+			if (action == Action.FUNDEF) {
+				body = (Expr) values[--vp];
+				vp--;
+			}
+			Type type = (Type) values[--vp];
+			vp--;
+			vp--;
+			ParDecl[] pars = array(values[--vp], new ParDecl[0]);
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			int keyword = indices[--vp];
+			Position position = new Position(tokens.position(keyword), type);
+			if (body == null)
+				pushValue(new FunDecl(position, name.lexeme, pars, type));
+			else
+				pushValue(new FunDef(position, name.lexeme, pars, type, body));
+			break;
+		}
+		case VARDECL: {
+			// VAR IDENTIFIER : Type
+			Type type = (Type) values[--vp];
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			int keyword = indices[--vp];
+			pushValue(new VarDecl(new Position(tokens.position(keyword), type), name.lexeme, type));
+			break;
+		}
+		case ATOMTYPE: {
+			// INTEGER, BOOLEAN, CHAR, STRING or VOID
+			int keyword = indices[--vp];
+			pushValue(new AtomType(tokens.position(keyword), AtomType.AtomTypes.valueOf(tokens.token(keyword).name())));
+			break;
+		}
+		case ARRTYPE: {
+			// ARR [ e here Type
+			Type elemType = (Type) values[--vp];
+			Position here = (Position) values[--vp];
+			Expr size = (Expr) values[--vp];
+			vp--;
+			int keyword = indices[--vp];
+			pushValue(new ArrType(new Position(tokens.position(keyword), here), size, elemType));
+			break;
+		}
+		case RECTYPE: {
+			// REC { Components }
+			vp--;
+			CompDecl[] comps = array(values[--vp], new CompDecl[0]);
+			vp--;
+			int keyword = indices[--vp];
+			pushValue(new RecType(new Position(tokens.position(keyword), laPosition()), comps));
+			break;
+		}
+		case PTRTYPE: {
+			// PTR Type
+			Type type = (Type) values[--vp];
+			int keyword = indices[--vp];
+			pushValue(new PtrType(new Position(tokens.position(keyword), type), type));
+			break;
+		}
+		case TYPENAME: {
+			// IDENTIFIER
+			Symbol name = tokens.symbol(indices[--vp]);
+			pushValue(new TypeName(name, name.lexeme));
+			break;
+		}
+		case COMPDECL: {
+			// IDENTIFIER : Type
+			Type type = (Type) values[--vp];
+			vp--;
+			Symbol name = tokens.symbol(indices[--vp]);
+			pushValue(new CompDecl(new Position(name, type), name.lexeme, type));
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Returns the error reported when a nonterminal cannot be expanded by the
+	 * lookahead symbol.
+	 */
+	private CompilerError unexpandable(String nonterminal) {
+		String error = NONTERMINAL_ERRORS.get(nonterminal);
+		if (error == null)
+			error = "Unrecognisable symbol: %1$s %2$s at parse " + nonterminal;
+		return new CompilerError(String.format(error, tokens.symbol(la), laToken));
+	}
+
+	/**
+	 * Reports the warning and returns the error reported when a terminal just
+	 * popped off the parse stack does not match the lookahead symbol.
+	 */
+	private CompilerError missingTerminal(int terminal) {
+		// The rest of the right-hand side lies between the terminal and the
+		// mark of its production.
+		int mark = sp - 1;
+		while (stack[mark] >= 0)
+			mark--;
+		int p = -1 - stack[mark];
+		int position = TABLE.rhs[p].length - (sp - mark);
+		StringBuilder production = new StringBuilder(TABLE.nonterminals[TABLE.lhs[p] - TABLE.numTerminals]);
+		production.append(" ->");
+		for (int s = 0; s <= position; s++) {
+			int symbol = TABLE.rhs[p][s];
+			if (TABLE.isTerminal(symbol))
+				production.append(' ').append(Token.values()[symbol]);
+			else if (TABLE.isNonterminal(symbol))
+				production.append(' ').append(TABLE.nonterminals[symbol - TABLE.numTerminals]);
+		}
+		String[] error = TERMINAL_ERRORS.get(production.toString());
+		if (error == null)
+			error = new String[] { "Missing " + Token.values()[terminal] + " inserted.",
+					"Unrecognisable symbol: %1$s %2$s" };
+		lexAn.readAll();
+		Report.warning(tokens.symbol(la), error[0]);
+		return new CompilerError(String.format(error[1], tokens.symbol(la), laToken));
+	}
+
+	/** Returns the type of the constant of the specified token. */
+	private static AtomTypes atomType(Token token) {
+		switch (token) {
+		case CONST_INTEGER:
+			return AtomTypes.INTEGER;
+		case CONST_BOOLEAN:
+			return AtomTypes.BOOLEAN;
+		case CONST_CHAR:
+			return AtomTypes.CHAR;
+		case CONST_STRING:
+			return AtomTypes.STRING;
+		case CONST_NULL:
+			return AtomTypes.PTR;
+		default:
+			return AtomTypes.VOID;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> ArrayList<T> list(Object value) {
+		return (ArrayList<T>) value;
+	}
+
+	/**
+	 * Returns the elements of a list built on the value stack.
+	 */
+	private static <T> T[] array(Object value, T[] array) {
+		return TableParser.<T> list(value).toArray(array);
+	}
+
+	/** Returns the position of the lookahead symbol. */
+	private Position laPosition() {
+		return tokens.position(la);
+	}
+
+	private void push(int symbol) {
+		if (sp == stack.length)
+			stack = Arrays.copyOf(stack, 2 * sp);
+		stack[sp++] = symbol;
+	}
+
+	private void pushValue(Object value) {
+		pushValue(value, -1);
+	}
+
+	private void pushValue(Object value, int index) {
+		if (vp == values.length) {
+			values = Arrays.copyOf(values, 2 * vp);
+			indices = Arrays.copyOf(indices, 2 * vp);
+		}
+		values[vp] = value;
+		indices[vp] = index;
+		vp++;
+	}
+
+	private void begLog(String nontName, int production) {
+		if (logger == null)
+			return;
+		logger.begElement("nont");
+		logger.addAttribute("name", nontName);
+		derivation.expand(production);
+	}
+
+	private void endLog() {
+		if (logger == null)
+			return;
+		logger.endElement();
+	}
+
+}
@@ -0,0 +1,378 @@
+package compiler.phase.synan;
+
+import java.util.*;
+
+import compiler.common.report.*;
+import compiler.data.ast.*;
+import compiler.data.ast.code.*;
+
+/**
+ * Replaces a reparsed part of an abstract syntax tree.
+ *
+ * <p>
+ * The reparsed part is either a single expression or a sequence of adjacent
+ * declarations of a <code>where</code> expression; it is replaced by the new
+ * expression or by the new (possibly empty) sequence of declarations. Only
+ * the nodes on the path from the root to the reparsed part are copied, all
+ * other nodes are reused as they are, so their attributes remain valid. The
+ * positions of the reused nodes are moved according to the edit of the source
+ * file.
+ * </p>
+ *
+ * @author juliette
+ */
+public class TreeEditor implements Visitor {
+
+	/** The first node of the reparsed part (or <code>null</code>). */
+	private final ASTNode begNode;
+
+	/** The last node of the reparsed part (or <code>null</code>). */
+	private final ASTNode endNode;
+
+	/** The new nodes of the reparsed part. */
+	private final ArrayList<? extends ASTNode> newNodes;
+
+	/** The index of the first edited character. */
+	private final int offset;
+
+	/** The number of characters removed. */
+	private final int removed;
+
+	/** The change of the length of the source file. */
+	private final int shift;
+
+	/**
+	 * The position of the first symbol of the reparsed part before the edit
+	 * if this symbol has been replaced (or <code>null</code>).
+	 */
+	private final Position oldFirst;
+
+	/** The position of the first symbol of the reparsed part after the edit. */
+	private final Position newFirst;
+
+	/** The copies of the nodes on the path to the reparsed part. */
+	private final IdentityHashMap<ASTNode, ASTNode> copies = new IdentityHashMap<ASTNode, ASTNode>();
+
+	/** The edited node. */
+	private ASTNode edited;
+
+	/**
+	 * Constructs a new editor of abstract syntax trees.
+	 *
+	 * @param begNode
+	 *            The first node of the reparsed part (or <code>null</code> if
+	 *            only the positions are to be moved).
+	 * @param endNode
+	 *            The last node of the reparsed part.
+	 * @param newNodes
+	 *            The new nodes of the reparsed part.
+	 * @param offset
+	 *            The index of the first edited character.
+	 * @param removed
+	 *            The number of characters removed.
+	 * @param inserted
+	 *            The number of characters inserted.
+	 * @param oldFirst
+	 *            The position of the first symbol of the reparsed part before
+	 *            the edit if this symbol has been replaced (or
+	 *            <code>null</code>).
+	 * @param newFirst
+	 *            The position of the first symbol of the reparsed part after
+	 *            the edit.
+	 */
+	public TreeEditor(ASTNode begNode, ASTNode endNode, ArrayList<? extends ASTNode> newNodes, int offset,
+			int removed, int inserted, Position oldFirst, Position newFirst) {
+		this.begNode = begNode;
+		this.endNode = endNode;
+		this.newNodes = newNodes;
+		this.offset = offset;
+		this.removed = removed;
+		this.shift = inserted - removed;
+		this.oldFirst = oldFirst;
+		this.newFirst = newFirst;
+	}
+
+	/**
+	 * Edits an abstract syntax tree.
+	 *
+	 * @param program
+	 *            The abstract syntax tree before the edit.
+	 * @return The abstract syntax tree after the edit.
+	 */
+	public Program edit(Program program) {
+		program.accept(this);
+		return (Program) edited;
+	}
+
+	/**
+	 * Returns the copy of a node on the path to the reparsed part.
+	 *
+	 * @param node
+	 *            The node before the edit.
+	 * @return The copy of the node (or <code>null</code> if the node has been
+	 *         reused).
+	 */
+	public ASTNode copy(ASTNode node) {
+		return copies.get(node);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends ASTNode> T edit(T node) {
+		if (node == begNode)
+			return (T) newNodes.get(0);
+		node.accept(this);
+		return (T) edited;
+	}
+
+	/**
+	 * Sets the edited node to the node itself or, if any of its subtrees have
+	 * been replaced, to its copy.
+	 */
+	private void edited(ASTNode node, boolean changed, ASTNode copy) {
+		if (changed)
+			copies.put(node, copy);
+		edited = changed ? copy : node;
+	}
+
+	/**
+	 * Moves the position of a reused node.
+	 */
+	private void move(ASTNode node) {
+		int begIndex = node.begIndex();
+		int endIndex = node.endIndex();
+		if ((oldFirst != null) && (begIndex == oldFirst.begIndex()))
+			begIndex = newFirst.begIndex();
+		else
+			begIndex = move(begIndex);
+		if ((oldFirst != null) && (endIndex == oldFirst.endIndex()))
+			endIndex = newFirst.endIndex();
+		else
+			endIndex = move(endIndex);
+		node.move(begIndex, endIndex);
+	}
+
+	private int move(int index) {
+		return index < offset + removed ? index : index + shift;
+	}
+
+	public void visit(ArrType arrType) {
+		move(arrType);
+		Expr size = edit(arrType.size);
+		Type elemType = edit(arrType.elemType);
+		boolean changed = (size != arrType.size) || (elemType != arrType.elemType);
+		edited(arrType, changed, changed ? new ArrType(arrType, size, elemType) : null);
+	}
+
+	public void visit(AtomExpr atomExpr) {
+		move(atomExpr);
+		edited(atomExpr, false, null);
+	}
+
+	public void visit(AtomType atomType) {
+		move(atomType);
+		edited(atomType, false, null);
+	}
+
+	public void visit(BinExpr binExpr) {
+		move(binExpr);
+		Expr fstExpr = edit(binExpr.fstExpr);
+		Expr sndExpr = edit(binExpr.sndExpr);
+		boolean changed = (fstExpr != binExpr.fstExpr) || (sndExpr != binExpr.sndExpr);
+		edited(binExpr, changed, changed ? new BinExpr(binExpr, binExpr.oper, fstExpr, sndExpr) : null);
+	}
+
+	public void visit(CastExpr castExpr) {
+		move(castExpr);
+		Type type = edit(castExpr.type);
+		Expr expr = edit(castExpr.expr);
+		boolean changed = (type != castExpr.type) || (expr != castExpr.expr);
+		edited(castExpr, changed, changed ? new CastExpr(castExpr, type, expr) : null);
+	}
+
+	public void visit(CompDecl compDecl) {
+		move(compDecl);
+		Type type = edit(compDecl.type);
+		boolean changed = type != compDecl.type;
+		edited(compDecl, changed, changed ? new CompDecl(compDecl, compDecl.name, type) : null);
+	}
+
+	public void visit(CompName compName) {
+		move(compName);
+		edited(compName, false, null);
+	}
+
+	public void visit(DeclError declError) {
+		edited(declError, false, null);
+	}
+
+	public void visit(Exprs exprs) {
+		move(exprs);
+		Expr[] newExprs = new Expr[exprs.numExprs()];
+		boolean changed = false;
+		for (int e = 0; e < exprs.numExprs(); e++) {
+			newExprs[e] = edit(exprs.expr(e));
+			changed |= newExprs[e] != exprs.expr(e);
+		}
+		edited(exprs, changed, changed ? new Exprs(exprs, newExprs) : null);
+	}
+
+	public void visit(ExprError exprError) {
+		edited(exprError, false, null);
+	}
+
+	public void visit(ForExpr forExpr) {
+		move(forExpr);
+		VarName var = edit(forExpr.var);
+		Expr loBound = edit(forExpr.loBound);
+		Expr hiBound = edit(forExpr.hiBound);
+		Expr body = edit(forExpr.body);
+		boolean changed = (var != forExpr.var) || (loBound != forExpr.loBound) || (hiBound != forExpr.hiBound)
+				|| (body != forExpr.body);
+		edited(forExpr, changed, changed ? new ForExpr(forExpr, var, loBound, hiBound, body) : null);
+	}
+
+	public void visit(FunCall funCall) {
+		move(funCall);
+		Expr[] args = new Expr[funCall.numArgs()];
+		boolean changed = false;
+		for (int a = 0; a < funCall.numArgs(); a++) {
+			args[a] = edit(funCall.arg(a));
+			changed |= args[a] != funCall.arg(a);
+		}
+		edited(funCall, changed, changed ? new FunCall(funCall, funCall.name(), args) : null);
+	}
+
+	public void visit(FunDecl funDecl) {
+		move(funDecl);
+		ParDecl[] pars = new ParDecl[funDecl.numPars()];
+		boolean changed = false;
+		for (int p = 0; p < funDecl.numPars(); p++) {
+			pars[p] = edit(funDecl.par(p));
+			changed |= pars[p] != funDecl.par(p);
+		}
+		Type type = edit(funDecl.type);
+		changed |= type != funDecl.type;
+		edited(funDecl, changed, changed ? new FunDecl(funDecl, funDecl.name, pars, type) : null);
+	}
+
+	public void visit(FunDef funDef) {
+		move(funDef);
+		ParDecl[] pars = new ParDecl[funDef.numPars()];
+		boolean changed = false;
+		for (int p = 0; p < funDef.numPars(); p++) {
+			pars[p] = edit(funDef.par(p));
+			changed |= pars[p] != funDef.par(p);
+		}
+		Type type = edit(funDef.type);
+		Expr body = edit(funDef.body());
+		changed |= (type != funDef.type) || (body != funDef.body());
+		edited(funDef, changed, changed ? new FunDef(funDef, funDef.name, pars, type, body) : null);
+	}
+
+	public void visit(IfExpr ifExpr) {
+		move(ifExpr);
+		Expr cond = edit(ifExpr.cond);
+		Expr thenExpr = edit(ifExpr.thenExpr);
+		Expr elseExpr = edit(ifExpr.elseExpr);
+		boolean changed = (cond != ifExpr.cond) || (thenExpr != ifExpr.thenExpr) || (elseExpr != ifExpr.elseExpr);
+		edited(ifExpr, changed, changed ? new IfExpr(ifExpr, cond, thenExpr, elseExpr) : null);
+	}
+
+	public void visit(ParDecl parDecl) {
+		move(parDecl);
+		Type type = edit(parDecl.type);
+		boolean changed = type != parDecl.type;
+		edited(parDecl, changed, changed ? new ParDecl(parDecl, parDecl.name, type) : null);
+	}
+
+	public void visit(Program program) {
+		move(program);
+		Expr expr = edit(program.expr);
+		boolean changed = expr != program.expr;
+		edited(program, changed, changed ? new Program(program, expr) : null);
+	}
+
+	public void visit(PtrType ptrType) {
+		move(ptrType);
+		Type baseType = edit(ptrType.baseType);
+		boolean changed = baseType != ptrType.baseType;
+		edited(ptrType, changed, changed ? new PtrType(ptrType, baseType) : null);
+	}
+
+	public void visit(RecType recType) {
+		move(recType);
+		CompDecl[] comps = new CompDecl[recType.numComps()];
+		boolean changed = false;
+		for (int c = 0; c < recType.numComps(); c++) {
+			comps[c] = edit(recType.comp(c));
+			changed |= comps[c] != recType.comp(c);
+		}
+		edited(recType, changed, changed ? new RecType(recType, comps) : null);
+	}
+
+	public void visit(TypeDecl typeDecl) {
+		move(typeDecl);
+		Type type = edit(typeDecl.type);
+		boolean changed = type != typeDecl.type;
+		edited(typeDecl, changed, changed ? new TypeDecl(typeDecl, typeDecl.name, type) : null);
+	}
+
+	public void visit(TypeError typeError) {
+		edited(typeError, false, null);
+	}
+
+	public void visit(TypeName typeName) {
+		move(typeName);
+		edited(typeName, false, null);
+	}
+
+	public void visit(UnExpr unExpr) {
+		move(unExpr);
+		Expr subExpr = edit(unExpr.subExpr);
+		boolean changed = subExpr != unExpr.subExpr;
+		edited(unExpr, changed, changed ? new UnExpr(unExpr, unExpr.oper, subExpr) : null);
+	}
+
+	public void visit(VarDecl varDecl) {
+		move(varDecl);
+		Type type = edit(varDecl.type);
+		boolean changed = type != varDecl.type;
+		edited(varDecl, changed, changed ? new VarDecl(varDecl, varDecl.name, type) : null);
+	}
+
+	public void visit(VarName varName) {
+		move(varName);
+		edited(varName, false, null);
+	}
+
+	public void visit(WhereExpr whereExpr) {
+		move(whereExpr);
+		Expr expr = edit(whereExpr.expr);
+		boolean changed = expr != whereExpr.expr;
+		ArrayList<Decl> decls = new ArrayList<Decl>(whereExpr.numDecls());
+		for (int d = 0; d < whereExpr.numDecls(); d++) {
+			if (whereExpr.decl(d) == begNode) {
+				// Splice in the reparsed declarations.
+				for (ASTNode node : newNodes)
+					decls.add((Decl) node);
+				while (whereExpr.decl(d) != endNode)
+					d++;
+				changed = true;
+				continue;
+			}
+			decls.add(edit(whereExpr.decl(d)));
+			changed |= decls.get(decls.size() - 1) != whereExpr.decl(d);
+		}
+		edited(whereExpr, changed,
+				changed ? new WhereExpr(whereExpr, expr, decls.toArray(new Decl[decls.size()])) : null);
+	}
+
+	public void visit(WhileExpr whileExpr) {
+		move(whileExpr);
+		Expr cond = edit(whileExpr.cond);
+		Expr body = edit(whileExpr.body);
+		boolean changed = (cond != whileExpr.cond) || (body != whileExpr.body);
+		edited(whileExpr, changed, changed ? new WhileExpr(whileExpr, cond, body) : null);
+	}
+
+}
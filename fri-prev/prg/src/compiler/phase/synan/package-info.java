@@ -52,6 +52,68 @@ private void parseParameter() {
  * of the sentential forms.
  * </p>
  * 
+ * <p>
+ * The log is written to the log file and the left-most derivation is reported
+ * while the source file is being parsed, so neither the derivation tree nor
+ * the log document is kept in memory. Method
+ * {@link compiler.phase.synan.SynAn#begLog(String) begLog} reports the
+ * production of the nonterminal at once, as the
+ * {@link compiler.phase.synan.Derivation derivation} takes it from the parse
+ * table by the lookahead symbol.
+ * </p>
+ * 
+ * <p>
+ * With option <code>--parsemode=table</code>, the source file is parsed by
+ * {@link compiler.phase.synan.TableParser TableParser} instead, an iterative
+ * parser driven by the {@link compiler.phase.synan.ParseTable parse table}
+ * generated from <code>prev-ll.grammar</code> when the compiler starts. The
+ * action symbols in the grammar (names starting with <code>@</code>) tell the
+ * parser which abstract syntax tree nodes to build, so the grammar and the
+ * construction of the tree are kept in one place. As the parser does not
+ * recurse, the nesting of the source program is not limited by the size of
+ * the call stack.
+ * </p>
+ * 
+ * <p>
+ * With option <code>--parsemode=lazy</code> (and unless the log of the syntax
+ * analysis has been requested), the recursive descent parser only skips the
+ * body of each function definition by matching brackets and the keywords
+ * closed by <code>end</code>, and records the symbols of the body in the token
+ * buffer. The body is parsed when it is first accessed through
+ * {@link compiler.data.ast.FunDef#body() FunDef.body}, so phases that need the
+ * declarations only never pay for it. Syntax errors within a body are
+ * reported when the body is parsed.
+ * </p>
+ * 
+ * <p>
+ * With option <code>--parsemode=parallel</code>, the bodies skipped in the
+ * same way are parsed in parallel by fork-join tasks as soon as the rest of
+ * the source file has been parsed. The abstract syntax tree is identical to
+ * the one built by sequential parsing, and so are the warnings and errors:
+ * their reports are deferred until all bodies are parsed and then made in the
+ * order of the source file up to the first error.
+ * </p>
+ * 
+ * <p>
+ * An editor can change the source file through
+ * {@link compiler.phase.synan.SynAn#edit(int, int, String) SynAn.edit}, which
+ * reparses only the smallest expression or sequence of declarations
+ * containing the changed symbols. The parse records these
+ * {@link compiler.phase.synan.ParseUnits units} with the indices of their
+ * symbols, and the {@link compiler.phase.synan.TreeEditor} splices the new
+ * nodes into the previous abstract syntax tree, reusing all unchanged nodes
+ * (and thus their attributes) and moving their positions.
+ * </p>
+ * 
+ * <p>
+ * With option <code>--astcache=<i>file</i></code>, the abstract syntax tree
+ * is stored in the {@link compiler.phase.synan.ASTCache cache} after it has
+ * been parsed, in the binary form written by
+ * {@link compiler.data.ast.code.ASTWriter ASTWriter}, and loaded from it
+ * instead of lexing and parsing the source file as long as the source file
+ * does not change.
+ * </p>
+ * 
  * @author juliette
  */
 package compiler.phase.synan;
\ No newline at end of file